@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx.benchmark;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.util.UserCodeClassLoader;
+
+/** Initialization context opening the schemas outside of a task, with an unregistered group. */
+final class MaxwellXJsonBenchmarkContext
+        implements DeserializationSchema.InitializationContext,
+                SerializationSchema.InitializationContext {
+
+    static final MaxwellXJsonBenchmarkContext INSTANCE = new MaxwellXJsonBenchmarkContext();
+
+    private final MetricGroup metricGroup = new UnregisteredMetricsGroup();
+
+    private MaxwellXJsonBenchmarkContext() {}
+
+    @Override
+    public MetricGroup getMetricGroup() {
+        return metricGroup;
+    }
+
+    @Override
+    public UserCodeClassLoader getUserCodeClassLoader() {
+        return new UserCodeClassLoader() {
+            @Override
+            public ClassLoader asClassLoader() {
+                return MaxwellXJsonBenchmarkContext.class.getClassLoader();
+            }
+
+            @Override
+            public void registerReleaseHookIfAbsent(String releaseHookName, Runnable releaseHook) {}
+        };
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx.benchmark;
+
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Entry point of the benchmark jar. Runs JMH with the given command line and the GC profiler, and
+ * optionally compares the results with a baseline written by a previous run with {@code -rf json}:
+ *
+ * <pre>
+ * java -jar benchmarks.jar [--baseline baseline.json] [--tolerance 0.1] [JMH options]
+ * </pre>
+ *
+ * <p>A benchmark regresses if its throughput drops, or its latency or normalized allocation grows,
+ * by more than the tolerance. The process exits with status 1 if any benchmark regressed.
+ */
+public final class MaxwellXJsonBenchmarkRunner {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private MaxwellXJsonBenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        File baseline = null;
+        double tolerance = 0.1;
+        List<String> jmhArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--baseline".equals(args[i]) && i + 1 < args.length) {
+                baseline = new File(args[++i]);
+            } else if ("--tolerance".equals(args[i]) && i + 1 < args.length) {
+                tolerance = Double.parseDouble(args[++i]);
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+
+        ChainedOptionsBuilder options =
+                new OptionsBuilder()
+                        .parent(new CommandLineOptions(jmhArgs.toArray(new String[0])))
+                        .addProfiler(GCProfiler.class);
+        Collection<RunResult> results = new Runner(options.build()).run();
+
+        if (baseline != null) {
+            List<String> regressions = compare(readBaseline(baseline), results, tolerance);
+            for (String regression : regressions) {
+                System.err.println("REGRESSION " + regression);
+            }
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+            System.out.println("No regression against " + baseline + ".");
+        }
+    }
+
+    private static List<String> compare(
+            Map<String, Scores> baseline, Collection<RunResult> results, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String key = keyOf(params.getBenchmark(), params.getMode().shortLabel(), paramsOf(params));
+            Scores before = baseline.get(key);
+            if (before == null) {
+                continue;
+            }
+            double score = result.getPrimaryResult().getScore();
+            boolean higherIsBetter = params.getMode() == Mode.Throughput;
+            double change = (score - before.score) / before.score;
+            if (higherIsBetter ? change < -tolerance : change > tolerance) {
+                regressions.add(
+                        String.format(
+                                "%s: %.3f -> %.3f %s (%+.1f%%)",
+                                key,
+                                before.score,
+                                score,
+                                result.getPrimaryResult().getScoreUnit(),
+                                change * 100));
+            }
+            Result<?> allocation = allocationOf(result.getSecondaryResults());
+            if (allocation != null && before.allocation > 0) {
+                double allocationChange =
+                        (allocation.getScore() - before.allocation) / before.allocation;
+                if (allocationChange > tolerance) {
+                    regressions.add(
+                            String.format(
+                                    "%s: %.1f -> %.1f B/op allocated (%+.1f%%)",
+                                    key,
+                                    before.allocation,
+                                    allocation.getScore(),
+                                    allocationChange * 100));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, Scores> readBaseline(File file) throws Exception {
+        Map<String, Scores> baseline = new HashMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            Map<String, String> params = new TreeMap<>();
+            JsonNode paramsNode = run.get("params");
+            if (paramsNode != null) {
+                Iterator<Map.Entry<String, JsonNode>> fields = paramsNode.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    params.put(field.getKey(), field.getValue().asText());
+                }
+            }
+            Scores scores = new Scores();
+            scores.score = run.get("primaryMetric").get("score").asDouble();
+            JsonNode secondary = run.get("secondaryMetrics");
+            if (secondary != null) {
+                Iterator<Map.Entry<String, JsonNode>> metrics = secondary.fields();
+                while (metrics.hasNext()) {
+                    Map.Entry<String, JsonNode> metric = metrics.next();
+                    if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                        scores.allocation = metric.getValue().get("score").asDouble();
+                    }
+                }
+            }
+            baseline.put(
+                    keyOf(run.get("benchmark").asText(), run.get("mode").asText(), params),
+                    scores);
+        }
+        return baseline;
+    }
+
+    private static Result<?> allocationOf(Map<String, Result> secondaryResults) {
+        for (Map.Entry<String, Result> entry : secondaryResults.entrySet()) {
+            if (entry.getKey().endsWith(ALLOCATION_METRIC)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, String> paramsOf(BenchmarkParams params) {
+        Map<String, String> values = new TreeMap<>();
+        for (String key : params.getParamsKeys()) {
+            values.put(key, params.getParam(key));
+        }
+        return values;
+    }
+
+    private static String keyOf(String benchmark, String mode, Map<String, String> params) {
+        return benchmark + "[" + mode + "]" + params;
+    }
+
+    /** The scores of a benchmark in the baseline. */
+    private static final class Scores {
+        private double score;
+        private double allocation;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx.benchmark;
+
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.util.Collector;
+
+import com.github.cdc.formats.maxwellx.MaxwellXJsonDeserializationSchema;
+import com.github.cdc.formats.maxwellx.MaxwellXJsonTableFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the maxwellx-json decode path. Every invocation decodes the next message of a
+ * pre-generated workload; run with {@code -prof gc} to report the allocation rate next to the
+ * throughput and the latency percentiles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MaxwellXJsonDeserializationBenchmark {
+
+    /** Size of the pre-generated workload, a power of two. */
+    private static final int MESSAGES = 4096;
+
+    @Param({"16", "128"})
+    private int columns;
+
+    @Param({"INSERT_ONLY", "MIXED", "UPDATE_HEAVY"})
+    private MaxwellXJsonPayloadGenerator.OpMix opMix;
+
+    /** Share of the columns present in the "old" field of updates. */
+    @Param({"0.25"})
+    private double oldDensity;
+
+    /** Share of the messages accepted by the database.include/table.include filter. */
+    @Param({"1.0", "0.1"})
+    private double filterHitRate;
+
+    @Param({"false"})
+    private boolean deletedContainsOldField;
+
+    @Param({"DEFAULT", "OBJECT_REUSE", "LAZY", "UPSERT"})
+    private DecodingMode decodingMode;
+
+    private byte[][] messages;
+
+    private MaxwellXJsonDeserializationSchema schema;
+
+    private BlackholeCollector collector;
+
+    private int next;
+
+    /** The rows produced by the decoder. */
+    public enum DecodingMode {
+        DEFAULT,
+        OBJECT_REUSE,
+        LAZY,
+        UPSERT
+    }
+
+    @Setup
+    public void setup(Blackhole blackhole) throws Exception {
+        MaxwellXJsonPayloadGenerator generator =
+                new MaxwellXJsonPayloadGenerator(
+                        columns, opMix, oldDensity, filterHitRate, deletedContainsOldField, 42L);
+        RowType rowType = generator.rowType();
+        messages = generator.messages(MESSAGES);
+        schema = createSchema(rowType, deletedContainsOldField, decodingMode);
+        schema.open(MaxwellXJsonBenchmarkContext.INSTANCE);
+        collector = new BlackholeCollector(blackhole);
+    }
+
+    @Benchmark
+    public void deserialize() throws Exception {
+        schema.deserialize(messages[next++ & (MESSAGES - 1)], collector);
+    }
+
+    /** Creates a schema reading the benchmark table with the given decoding mode. */
+    static MaxwellXJsonDeserializationSchema createSchema(
+            RowType rowType, boolean deletedContainsOldField, DecodingMode decodingMode) {
+        return MaxwellXJsonDeserializationSchema.builder(rowType, InternalTypeInfo.of(rowType))
+                .setTableFilter(
+                        MaxwellXJsonTableFilter.builder()
+                                .includeDatabases(
+                                        Collections.singleton(
+                                                MaxwellXJsonPayloadGenerator.DATABASE))
+                                .includeTables(
+                                        Collections.singleton(MaxwellXJsonPayloadGenerator.TABLE))
+                                .build())
+                .setDeletedContainsOldField(deletedContainsOldField)
+                .setTimestampFormat(TimestampFormat.SQL)
+                .setObjectReuse(decodingMode == DecodingMode.OBJECT_REUSE)
+                .setLazyDecoding(decodingMode == DecodingMode.LAZY)
+                .setUpsert(decodingMode == DecodingMode.UPSERT)
+                .build();
+    }
+
+    /** Hands the decoded rows to the blackhole. */
+    private static final class BlackholeCollector implements Collector<RowData> {
+        private final Blackhole blackhole;
+
+        private BlackholeCollector(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void collect(RowData record) {
+            blackhole.consume(record);
+        }
+
+        @Override
+        public void close() {}
+    }
+}
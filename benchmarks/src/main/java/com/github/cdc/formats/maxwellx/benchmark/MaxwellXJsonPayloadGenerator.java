@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx.benchmark;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates realistic Maxwell JSON payloads and the matching rows for the benchmarks. The table
+ * schema cycles through the column types commonly found in MySQL tables, and the messages are
+ * drawn from a seeded random so that every run sees the same workload.
+ */
+public final class MaxwellXJsonPayloadGenerator {
+
+    /** Database of the generated messages. */
+    public static final String DATABASE = "shop";
+
+    /** Table accepted by the benchmark filter, the other messages belong to {@link #OTHER_TABLE}. */
+    public static final String TABLE = "orders";
+
+    public static final String OTHER_TABLE = "audit_log";
+
+    /** The mix of Maxwell "type"s among the generated messages. */
+    public enum OpMix {
+        INSERT_ONLY(1.0, 0.0),
+        MIXED(0.6, 0.3),
+        UPDATE_HEAVY(0.1, 0.85),
+        DELETE_HEAVY(0.2, 0.2);
+
+        private final double insertRatio;
+        private final double updateRatio;
+
+        OpMix(double insertRatio, double updateRatio) {
+            this.insertRatio = insertRatio;
+            this.updateRatio = updateRatio;
+        }
+    }
+
+    private static final DataType[] COLUMN_TYPES = {
+        DataTypes.BIGINT(),
+        DataTypes.STRING(),
+        DataTypes.INT(),
+        DataTypes.DECIMAL(12, 2),
+        DataTypes.TIMESTAMP(0),
+        DataTypes.BOOLEAN(),
+        DataTypes.DOUBLE(),
+        DataTypes.DATE()
+    };
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String[] WORDS = {
+        "pending", "shipped", "delivered", "cancelled", "refunded", "Zürich", "東京", "naïve"
+    };
+
+    private final int columns;
+    private final OpMix opMix;
+    private final double oldDensity;
+    private final double filterHitRate;
+    private final boolean deletedContainsOldField;
+    private final Random random;
+
+    public MaxwellXJsonPayloadGenerator(
+            int columns,
+            OpMix opMix,
+            double oldDensity,
+            double filterHitRate,
+            boolean deletedContainsOldField,
+            long seed) {
+        this.columns = columns;
+        this.opMix = opMix;
+        this.oldDensity = oldDensity;
+        this.filterHitRate = filterHitRate;
+        this.deletedContainsOldField = deletedContainsOldField;
+        this.random = new Random(seed);
+    }
+
+    /** Returns the schema of the generated table. */
+    public RowType rowType() {
+        DataTypes.Field[] fields = new DataTypes.Field[columns];
+        for (int i = 0; i < columns; i++) {
+            fields[i] = DataTypes.FIELD(columnName(i), COLUMN_TYPES[i % COLUMN_TYPES.length]);
+        }
+        return (RowType) DataTypes.ROW(fields).getLogicalType();
+    }
+
+    /** Generates the given number of Maxwell JSON messages. */
+    public byte[][] messages(int count) {
+        byte[][] messages = new byte[count][];
+        StringBuilder sb = new StringBuilder(64 + columns * 32);
+        for (int m = 0; m < count; m++) {
+            sb.setLength(0);
+            String table = random.nextDouble() < filterHitRate ? TABLE : OTHER_TABLE;
+            String type = nextType();
+            long id = 1_000_000L + m;
+            sb.append("{\"database\":\"").append(DATABASE).append("\",\"table\":\"").append(table);
+            sb.append("\",\"type\":\"").append(type);
+            sb.append("\",\"ts\":").append(1_600_000_000L + m);
+            sb.append(",\"xid\":").append(40_000 + m / 4);
+            if (m % 4 == 3) {
+                sb.append(",\"commit\":true");
+            }
+            if ("delete".equals(type) && deletedContainsOldField) {
+                sb.append(",\"data\":null,\"old\":");
+                appendRow(sb, id, 1.0);
+            } else {
+                sb.append(",\"data\":");
+                appendRow(sb, id, 1.0);
+                if ("update".equals(type)) {
+                    sb.append(",\"old\":");
+                    appendRow(sb, id, oldDensity);
+                }
+            }
+            sb.append('}');
+            messages[m] = sb.toString().getBytes(StandardCharsets.UTF_8);
+        }
+        return messages;
+    }
+
+    /** Generates the given number of rows, with row kinds drawn from the op mix. */
+    public RowData[] rows(int count) {
+        RowData[] rows = new RowData[count];
+        for (int r = 0; r < count; r++) {
+            GenericRowData row = new GenericRowData(columns);
+            for (int i = 0; i < columns; i++) {
+                row.setField(i, nextValue(i, 1_000_000L + r));
+            }
+            String type = nextType();
+            if ("insert".equals(type)) {
+                row.setRowKind(RowKind.INSERT);
+            } else if ("delete".equals(type)) {
+                row.setRowKind(RowKind.DELETE);
+            } else {
+                row.setRowKind(random.nextBoolean() ? RowKind.UPDATE_BEFORE : RowKind.UPDATE_AFTER);
+            }
+            rows[r] = row;
+        }
+        return rows;
+    }
+
+    private String nextType() {
+        double p = random.nextDouble();
+        if (p < opMix.insertRatio) {
+            return "insert";
+        } else if (p < opMix.insertRatio + opMix.updateRatio) {
+            return "update";
+        }
+        return "delete";
+    }
+
+    /** Appends a JSON object of the row, keeping every non-key column with the given density. */
+    private void appendRow(StringBuilder sb, long id, double density) {
+        sb.append('{');
+        boolean first = true;
+        for (int i = 0; i < columns; i++) {
+            if (i > 0 && density < 1.0 && random.nextDouble() >= density) {
+                continue;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append('"').append(columnName(i)).append("\":");
+            appendValue(sb, i, id);
+        }
+        sb.append('}');
+    }
+
+    private void appendValue(StringBuilder sb, int column, long id) {
+        if (column > 0 && random.nextInt(20) == 0) {
+            sb.append("null");
+            return;
+        }
+        switch (column % COLUMN_TYPES.length) {
+            case 0:
+                sb.append(column == 0 ? id : random.nextLong());
+                break;
+            case 1:
+                sb.append('"').append(WORDS[random.nextInt(WORDS.length)]);
+                if (random.nextInt(8) == 0) {
+                    sb.append(" \\\"quoted\\\"");
+                }
+                sb.append('"');
+                break;
+            case 2:
+                sb.append(random.nextInt(100_000));
+                break;
+            case 3:
+                sb.append(random.nextInt(1_000_000)).append('.').append(random.nextInt(90) + 10);
+                break;
+            case 4:
+                sb.append('"').append(TIMESTAMP_FORMAT.format(nextTimestamp())).append('"');
+                break;
+            case 5:
+                sb.append(random.nextBoolean());
+                break;
+            case 6:
+                sb.append(random.nextDouble() * 1000);
+                break;
+            default:
+                sb.append('"').append(LocalDate.ofEpochDay(17_000 + random.nextInt(3_000))).append('"');
+        }
+    }
+
+    private Object nextValue(int column, long id) {
+        if (column > 0 && random.nextInt(20) == 0) {
+            return null;
+        }
+        switch (column % COLUMN_TYPES.length) {
+            case 0:
+                return column == 0 ? id : random.nextLong();
+            case 1:
+                return StringData.fromString(WORDS[random.nextInt(WORDS.length)]);
+            case 2:
+                return random.nextInt(100_000);
+            case 3:
+                return DecimalData.fromBigDecimal(
+                        BigDecimal.valueOf(random.nextInt(100_000_000), 2), 12, 2);
+            case 4:
+                return TimestampData.fromLocalDateTime(nextTimestamp());
+            case 5:
+                return random.nextBoolean();
+            case 6:
+                return random.nextDouble() * 1000;
+            default:
+                return 17_000 + random.nextInt(3_000);
+        }
+    }
+
+    private LocalDateTime nextTimestamp() {
+        return LocalDateTime.of(2020, 1, 1, 0, 0, 1).plusSeconds(random.nextInt(100_000_000));
+    }
+
+    private static String columnName(int column) {
+        return column == 0 ? "id" : "col_" + column;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx.benchmark;
+
+import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.data.RowData;
+
+import com.github.cdc.formats.maxwellx.MaxwellXJsonSerializationSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the maxwellx-json encode path. Every invocation serializes the next row of a
+ * pre-generated workload; run with {@code -prof gc} to report the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MaxwellXJsonSerializationBenchmark {
+
+    /** Size of the pre-generated workload, a power of two. */
+    private static final int ROWS = 4096;
+
+    @Param({"16", "128"})
+    private int columns;
+
+    @Param({"INSERT_ONLY", "MIXED"})
+    private MaxwellXJsonPayloadGenerator.OpMix opMix;
+
+    private RowData[] rows;
+
+    private MaxwellXJsonSerializationSchema schema;
+
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        MaxwellXJsonPayloadGenerator generator =
+                new MaxwellXJsonPayloadGenerator(columns, opMix, 0.0, 1.0, false, 42L);
+        rows = generator.rows(ROWS);
+        schema =
+                new MaxwellXJsonSerializationSchema(
+                        generator.rowType(),
+                        TimestampFormat.SQL,
+                        JsonOptions.MapNullKeyMode.FAIL,
+                        "null");
+        schema.open(MaxwellXJsonBenchmarkContext.INSTANCE);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return schema.serialize(rows[next++ & (ROWS - 1)]);
+    }
+}
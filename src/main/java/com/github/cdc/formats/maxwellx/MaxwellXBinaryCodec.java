@@ -0,0 +1,502 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.ArrayData;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.GenericMapData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.MapData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.data.binary.BinaryStringData;
+import org.apache.flink.table.types.logical.ArrayType;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.IntType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.MapType;
+import org.apache.flink.table.types.logical.MultisetType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.utils.LogicalTypeChecks;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Codec of the rows of the maxwellx-binary format, a compact encoding of the Maxwell envelope
+ * driven by the table schema. The fields are written in the order of the {@link RowType} without
+ * their names, so the reader and the writer must agree on the schema.
+ *
+ * <p>A message is laid out as follows, the integers being unsigned LEB128 varints unless noted:
+ *
+ * <ul>
+ *   <li>the format {@link #VERSION} byte;
+ *   <li>the operation byte, one of the {@code OP_*} codes of {@link MaxwellXJsonEnvelope};
+ *   <li>a byte of {@code FLAG_*} bits telling which of the following meta fields are present;
+ *   <li>"database", "table" and "position" as length-prefixed UTF-8, "ts", "xid" and "xoffset" as
+ *       zigzag varints, "commit" is a flag;
+ *   <li>the "data" row, see {@link #write(RowData, MaxwellXJsonOutputBuffer)};
+ *   <li>the "old" values of an update, see {@link #writeChanged(RowData, RowData,
+ *       MaxwellXJsonOutputBuffer)}.
+ * </ul>
+ *
+ * <p>A row starts with a bitmap of its null fields, followed by the non-null values: booleans and
+ * tinyints as a single byte, the other integral, date, time and interval types as zigzag varints,
+ * floats and doubles as big-endian IEEE 754 bits, strings and binaries as length-prefixed bytes,
+ * compact decimals as the zigzag varint of their unscaled value and the other ones as
+ * length-prefixed two's-complement bytes, timestamps as the zigzag varint of their epoch millis
+ * followed by the varint of the nanos of the millisecond for a precision above 3. Arrays, maps
+ * and nested rows are written recursively, a collection starting with its size.
+ */
+@Internal
+final class MaxwellXBinaryCodec implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    static final byte VERSION = 1;
+
+    static final int FLAG_DATABASE = 1;
+    static final int FLAG_TABLE = 1 << 1;
+    static final int FLAG_TS = 1 << 2;
+    static final int FLAG_XID = 1 << 3;
+    static final int FLAG_XOFFSET = 1 << 4;
+    static final int FLAG_COMMIT = 1 << 5;
+    static final int FLAG_POSITION = 1 << 6;
+    static final int FLAG_OLD = 1 << 7;
+
+    private final int arity;
+
+    /** The positions of the written fields in the rows. */
+    private final int[] positions;
+
+    /** Number of bytes of the null bitmap of a row. */
+    private final int bitmapSize;
+
+    private final RowData.FieldGetter[] fieldGetters;
+
+    private final FieldWriter[] fieldWriters;
+
+    private final ValueReader[] fieldReaders;
+
+    MaxwellXBinaryCodec(RowType rowType) {
+        this(rowType, identity(rowType.getFieldCount()));
+    }
+
+    /**
+     * Creates a codec writing the given fields of the rows only, e.g. their key. The rows read by
+     * the codec hold these fields, in the given order.
+     */
+    MaxwellXBinaryCodec(RowType rowType, int[] positions) {
+        final List<LogicalType> types = rowType.getChildren();
+        this.arity = positions.length;
+        this.positions = positions;
+        this.bitmapSize = (arity + 7) >>> 3;
+        this.fieldGetters = new RowData.FieldGetter[arity];
+        this.fieldWriters = new FieldWriter[arity];
+        this.fieldReaders = new ValueReader[arity];
+        for (int i = 0; i < arity; i++) {
+            LogicalType type = types.get(positions[i]);
+            fieldGetters[i] = RowData.createFieldGetter(type, positions[i]);
+            fieldWriters[i] = createFieldWriter(type, fieldGetters[i]);
+            fieldReaders[i] = createReader(type);
+        }
+    }
+
+    private static int[] identity(int arity) {
+        final int[] positions = new int[arity];
+        for (int i = 0; i < arity; i++) {
+            positions[i] = i;
+        }
+        return positions;
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Rows
+    // ------------------------------------------------------------------------------------------
+
+    /** Writes the null bitmap of the row followed by its non-null fields. */
+    void write(RowData row, MaxwellXJsonOutputBuffer out) {
+        for (int i = 0; i < bitmapSize; i++) {
+            int bits = 0;
+            for (int field = i << 3, end = Math.min(field + 8, arity); field < end; field++) {
+                if (row.isNullAt(positions[field])) {
+                    bits |= 1 << (field & 7);
+                }
+            }
+            out.write(bits);
+        }
+        for (int field = 0; field < arity; field++) {
+            if (!row.isNullAt(positions[field])) {
+                fieldWriters[field].write(row, positions[field], out);
+            }
+        }
+    }
+
+    /**
+     * Writes the before values of the fields changed by an update: a bitmap of the changed fields,
+     * the null bitmap of their before values, then the non-null before values.
+     */
+    void writeChanged(RowData before, RowData after, MaxwellXJsonOutputBuffer out) {
+        final boolean[] changed = new boolean[arity];
+        for (int field = 0; field < arity; field++) {
+            changed[field] =
+                    !Objects.deepEquals(
+                            fieldGetters[field].getFieldOrNull(before),
+                            fieldGetters[field].getFieldOrNull(after));
+        }
+        for (int i = 0; i < bitmapSize; i++) {
+            int bits = 0;
+            for (int field = i << 3, end = Math.min(field + 8, arity); field < end; field++) {
+                if (changed[field]) {
+                    bits |= 1 << (field & 7);
+                }
+            }
+            out.write(bits);
+        }
+        for (int i = 0; i < bitmapSize; i++) {
+            int bits = 0;
+            for (int field = i << 3, end = Math.min(field + 8, arity); field < end; field++) {
+                if (changed[field] && before.isNullAt(positions[field])) {
+                    bits |= 1 << (field & 7);
+                }
+            }
+            out.write(bits);
+        }
+        for (int field = 0; field < arity; field++) {
+            if (changed[field] && !before.isNullAt(positions[field])) {
+                fieldWriters[field].write(before, positions[field], out);
+            }
+        }
+    }
+
+    /** Reads a row written by {@link #write(RowData, MaxwellXJsonOutputBuffer)}. */
+    GenericRowData read(MaxwellXBinaryInput in) throws IOException {
+        final GenericRowData row = new GenericRowData(arity);
+        final byte[] buf = in.buffer();
+        final int nulls = in.position();
+        in.skip(bitmapSize);
+        for (int pos = 0; pos < arity; pos++) {
+            if (!isSet(buf, nulls, pos)) {
+                row.setField(pos, fieldReaders[pos].read(in));
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Reads the before values written by {@link #writeChanged(RowData, RowData,
+     * MaxwellXJsonOutputBuffer)} into the given row, which holds the after values.
+     */
+    void readChanged(MaxwellXBinaryInput in, GenericRowData row) throws IOException {
+        final byte[] buf = in.buffer();
+        final int changed = in.position();
+        in.skip(bitmapSize);
+        final int nulls = in.position();
+        in.skip(bitmapSize);
+        for (int pos = 0; pos < arity; pos++) {
+            if (isSet(buf, changed, pos)) {
+                row.setField(pos, isSet(buf, nulls, pos) ? null : fieldReaders[pos].read(in));
+            }
+        }
+    }
+
+    private static boolean isSet(byte[] buf, int bitmap, int pos) {
+        return (buf[bitmap + (pos >>> 3)] & (1 << (pos & 7))) != 0;
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Field writers
+    // ------------------------------------------------------------------------------------------
+
+    /** Writes the (non-null) value of a field. */
+    @FunctionalInterface
+    private interface FieldWriter extends Serializable {
+        void write(RowData row, int pos, MaxwellXJsonOutputBuffer out);
+    }
+
+    /** Writes a (non-null) value of a nested type. */
+    @FunctionalInterface
+    private interface ValueWriter extends Serializable {
+        void write(Object value, MaxwellXJsonOutputBuffer out);
+    }
+
+    private static FieldWriter createFieldWriter(LogicalType type, RowData.FieldGetter getter) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return (row, pos, out) -> out.write(row.getBoolean(pos) ? 1 : 0);
+            case TINYINT:
+                return (row, pos, out) -> out.write(row.getByte(pos));
+            case SMALLINT:
+                return (row, pos, out) -> out.writeZigZagLong(row.getShort(pos));
+            case INTEGER:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case INTERVAL_YEAR_MONTH:
+                return (row, pos, out) -> out.writeZigZagLong(row.getInt(pos));
+            case BIGINT:
+            case INTERVAL_DAY_TIME:
+                return (row, pos, out) -> out.writeZigZagLong(row.getLong(pos));
+            case FLOAT:
+                return (row, pos, out) -> out.writeFixedInt(Float.floatToIntBits(row.getFloat(pos)));
+            case DOUBLE:
+                return (row, pos, out) ->
+                        out.writeFixedLong(Double.doubleToLongBits(row.getDouble(pos)));
+            case CHAR:
+            case VARCHAR:
+                return (row, pos, out) -> writeString(row.getString(pos), out);
+            case BINARY:
+            case VARBINARY:
+                return (row, pos, out) -> writeBytes(row.getBinary(pos), out);
+            default:
+                final ValueWriter writer = createValueWriter(type);
+                return (row, pos, out) -> writer.write(getter.getFieldOrNull(row), out);
+        }
+    }
+
+    private static ValueWriter createValueWriter(LogicalType type) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return (value, out) -> out.write((Boolean) value ? 1 : 0);
+            case TINYINT:
+                return (value, out) -> out.write((Byte) value);
+            case SMALLINT:
+                return (value, out) -> out.writeZigZagLong((Short) value);
+            case INTEGER:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case INTERVAL_YEAR_MONTH:
+                return (value, out) -> out.writeZigZagLong((Integer) value);
+            case BIGINT:
+            case INTERVAL_DAY_TIME:
+                return (value, out) -> out.writeZigZagLong((Long) value);
+            case FLOAT:
+                return (value, out) -> out.writeFixedInt(Float.floatToIntBits((Float) value));
+            case DOUBLE:
+                return (value, out) -> out.writeFixedLong(Double.doubleToLongBits((Double) value));
+            case CHAR:
+            case VARCHAR:
+                return (value, out) -> writeString((StringData) value, out);
+            case BINARY:
+            case VARBINARY:
+                return (value, out) -> writeBytes((byte[]) value, out);
+            case DECIMAL:
+                if (DecimalData.isCompact(((DecimalType) type).getPrecision())) {
+                    return (value, out) ->
+                            out.writeZigZagLong(((DecimalData) value).toUnscaledLong());
+                }
+                return (value, out) -> writeBytes(((DecimalData) value).toUnscaledBytes(), out);
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                if (LogicalTypeChecks.getPrecision(type) <= 3) {
+                    return (value, out) ->
+                            out.writeZigZagLong(((TimestampData) value).getMillisecond());
+                }
+                return (value, out) -> {
+                    TimestampData timestamp = (TimestampData) value;
+                    out.writeZigZagLong(timestamp.getMillisecond());
+                    out.writeVarLong(timestamp.getNanoOfMillisecond());
+                };
+            case ARRAY:
+                final ArrayWriter elements = new ArrayWriter(((ArrayType) type).getElementType());
+                return (value, out) -> elements.write((ArrayData) value, out);
+            case MAP:
+                final MapType mapType = (MapType) type;
+                return createMapWriter(mapType.getKeyType(), mapType.getValueType());
+            case MULTISET:
+                return createMapWriter(((MultisetType) type).getElementType(), new IntType());
+            case ROW:
+                final MaxwellXBinaryCodec codec = new MaxwellXBinaryCodec((RowType) type);
+                return (value, out) -> codec.write((RowData) value, out);
+            default:
+                throw new UnsupportedOperationException(
+                        "The maxwellx-binary format does not support type: " + type);
+        }
+    }
+
+    private static ValueWriter createMapWriter(LogicalType keyType, LogicalType valueType) {
+        final ArrayWriter keys = new ArrayWriter(keyType);
+        final ArrayWriter values = new ArrayWriter(valueType);
+        return (value, out) -> {
+            MapData map = (MapData) value;
+            keys.write(map.keyArray(), out);
+            values.write(map.valueArray(), out);
+        };
+    }
+
+    private static void writeString(StringData string, MaxwellXJsonOutputBuffer out) {
+        if (string instanceof BinaryStringData) {
+            BinaryStringData binary = (BinaryStringData) string;
+            binary.ensureMaterialized();
+            if (binary.getSegments().length == 1) {
+                out.writeVarLong(binary.getSizeInBytes());
+                out.write(binary.getSegments()[0], binary.getOffset(), binary.getSizeInBytes());
+                return;
+            }
+        }
+        writeBytes(string.toBytes(), out);
+    }
+
+    private static void writeBytes(byte[] bytes, MaxwellXJsonOutputBuffer out) {
+        out.writeVarLong(bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /** Writes the size of an array, the null bitmap of its elements and its non-null elements. */
+    private static final class ArrayWriter implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayData.ElementGetter getter;
+
+        private final ValueWriter writer;
+
+        private ArrayWriter(LogicalType elementType) {
+            this.getter = ArrayData.createElementGetter(elementType);
+            this.writer = createValueWriter(elementType);
+        }
+
+        private void write(ArrayData array, MaxwellXJsonOutputBuffer out) {
+            final int size = array.size();
+            out.writeVarLong(size);
+            for (int i = 0; i < size; i += 8) {
+                int bits = 0;
+                for (int pos = i, end = Math.min(i + 8, size); pos < end; pos++) {
+                    if (array.isNullAt(pos)) {
+                        bits |= 1 << (pos & 7);
+                    }
+                }
+                out.write(bits);
+            }
+            for (int pos = 0; pos < size; pos++) {
+                if (!array.isNullAt(pos)) {
+                    writer.write(getter.getElementOrNull(array, pos), out);
+                }
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Value readers
+    // ------------------------------------------------------------------------------------------
+
+    /** Reads a (non-null) value in its internal data structure. */
+    @FunctionalInterface
+    private interface ValueReader extends Serializable {
+        Object read(MaxwellXBinaryInput in) throws IOException;
+    }
+
+    private static ValueReader createReader(LogicalType type) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return in -> in.readByte() != 0;
+            case TINYINT:
+                return MaxwellXBinaryInput::readByte;
+            case SMALLINT:
+                return in -> (short) in.readZigZagInt();
+            case INTEGER:
+            case DATE:
+            case TIME_WITHOUT_TIME_ZONE:
+            case INTERVAL_YEAR_MONTH:
+                return MaxwellXBinaryInput::readZigZagInt;
+            case BIGINT:
+            case INTERVAL_DAY_TIME:
+                return MaxwellXBinaryInput::readZigZagLong;
+            case FLOAT:
+                return in -> Float.intBitsToFloat(in.readFixedInt());
+            case DOUBLE:
+                return in -> Double.longBitsToDouble(in.readFixedLong());
+            case CHAR:
+            case VARCHAR:
+                return in -> StringData.fromBytes(in.readBytes(in.readLength()));
+            case BINARY:
+            case VARBINARY:
+                return in -> in.readBytes(in.readLength());
+            case DECIMAL:
+                final int precision = ((DecimalType) type).getPrecision();
+                final int scale = ((DecimalType) type).getScale();
+                if (DecimalData.isCompact(precision)) {
+                    return in -> DecimalData.fromUnscaledLong(in.readZigZagLong(), precision, scale);
+                }
+                return in ->
+                        DecimalData.fromUnscaledBytes(
+                                in.readBytes(in.readLength()), precision, scale);
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                if (LogicalTypeChecks.getPrecision(type) <= 3) {
+                    return in -> TimestampData.fromEpochMillis(in.readZigZagLong());
+                }
+                return in -> TimestampData.fromEpochMillis(in.readZigZagLong(), in.readVarInt());
+            case ARRAY:
+                final ValueReader elements = createReader(((ArrayType) type).getElementType());
+                return in -> new GenericArrayData(readArray(in, elements));
+            case MAP:
+                final MapType mapType = (MapType) type;
+                return createMapReader(mapType.getKeyType(), mapType.getValueType());
+            case MULTISET:
+                return createMapReader(((MultisetType) type).getElementType(), new IntType());
+            case ROW:
+                final MaxwellXBinaryCodec codec = new MaxwellXBinaryCodec((RowType) type);
+                return codec::read;
+            default:
+                throw new UnsupportedOperationException(
+                        "The maxwellx-binary format does not support type: " + type);
+        }
+    }
+
+    private static ValueReader createMapReader(LogicalType keyType, LogicalType valueType) {
+        final ValueReader keyReader = createReader(keyType);
+        final ValueReader valueReader = createReader(valueType);
+        return in -> {
+            Object[] keys = readArray(in, keyReader);
+            Object[] values = readArray(in, valueReader);
+            if (keys.length != values.length) {
+                throw new IOException("Malformed map in maxwellx-binary message.");
+            }
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (int i = 0; i < keys.length; i++) {
+                map.put(keys[i], values[i]);
+            }
+            return new GenericMapData(map);
+        };
+    }
+
+    private static Object[] readArray(MaxwellXBinaryInput in, ValueReader reader)
+            throws IOException {
+        final long size = in.readVarLong();
+        final int bitmapSize = (int) ((size + 7) >>> 3);
+        if (size < 0 || size > Integer.MAX_VALUE || bitmapSize < 0) {
+            throw new IOException("Malformed array in maxwellx-binary message.");
+        }
+        final byte[] buf = in.buffer();
+        final int nulls = in.position();
+        in.skip(bitmapSize);
+        final Object[] array = new Object[(int) size];
+        for (int pos = 0; pos < array.length; pos++) {
+            if (!isSet(buf, nulls, pos)) {
+                array[pos] = reader.read(in);
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.connector.format.DecodingFormat;
+import org.apache.flink.table.connector.source.DynamicTableSource;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.utils.DataTypeUtils;
+import org.apache.flink.types.RowKind;
+
+import javax.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link DecodingFormat} for Maxwell using the maxwellx-binary encoding. The format exposes the
+ * same metadata as the maxwellx-json format, see {@link MaxwellXJsonDecodingFormat.ReadableMetadata}.
+ */
+public class MaxwellXBinaryDecodingFormat
+        implements DecodingFormat<DeserializationSchema<RowData>> {
+
+    private final MaxwellXJsonTableFilter tableFilter;
+
+    private final boolean ignoreParseErrors;
+
+    private final boolean upsert;
+
+    @Nullable private final MaxwellXJsonDeadLetterHandler deadLetterHandler;
+
+    // --------------------------------------------------------------------------------------------
+    // Mutable attributes
+    // --------------------------------------------------------------------------------------------
+
+    /** The requested metadata keys, in the order of the produced fields. */
+    private List<String> metadataKeys;
+
+    public MaxwellXBinaryDecodingFormat(
+            MaxwellXJsonTableFilter tableFilter,
+            boolean ignoreParseErrors,
+            boolean upsert,
+            @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+        this.tableFilter = tableFilter;
+        this.ignoreParseErrors = ignoreParseErrors;
+        this.upsert = upsert;
+        this.deadLetterHandler = deadLetterHandler;
+        this.metadataKeys = Collections.emptyList();
+    }
+
+    @Override
+    public DeserializationSchema<RowData> createRuntimeDecoder(
+            DynamicTableSource.Context context, DataType physicalDataType) {
+        final RowType rowType = (RowType) physicalDataType.getLogicalType();
+        final List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata =
+                metadataKeys.stream()
+                        .map(
+                                k ->
+                                        Stream.of(
+                                                        MaxwellXJsonDecodingFormat.ReadableMetadata
+                                                                .values())
+                                                .filter(rm -> rm.key.equals(k))
+                                                .findFirst()
+                                                .orElseThrow(IllegalStateException::new))
+                        .collect(Collectors.toList());
+        final List<DataTypes.Field> metadataFields =
+                readableMetadata.stream()
+                        .map(m -> DataTypes.FIELD(m.key, m.dataType))
+                        .collect(Collectors.toList());
+        final DataType producedDataType =
+                DataTypeUtils.appendRowFields(physicalDataType, metadataFields);
+        final TypeInformation<RowData> producedTypeInfo =
+                context.createTypeInformation(producedDataType);
+        return MaxwellXBinaryDeserializationSchema.builder(rowType, producedTypeInfo)
+                .setTableFilter(tableFilter)
+                .setIgnoreParseErrors(ignoreParseErrors)
+                .setUpsert(upsert)
+                .setDeadLetterHandler(deadLetterHandler)
+                .setReadableMetadata(readableMetadata)
+                .build();
+    }
+
+    @Override
+    public Map<String, DataType> listReadableMetadata() {
+        final Map<String, DataType> metadataMap = new LinkedHashMap<>();
+        Stream.of(MaxwellXJsonDecodingFormat.ReadableMetadata.values())
+                .forEachOrdered(m -> metadataMap.put(m.key, m.dataType));
+        return metadataMap;
+    }
+
+    @Override
+    public void applyReadableMetadata(List<String> metadataKeys) {
+        this.metadataKeys = metadataKeys;
+    }
+
+    @Override
+    public ChangelogMode getChangelogMode() {
+        if (upsert) {
+            return ChangelogMode.newBuilder()
+                    .addContainedKind(RowKind.INSERT)
+                    .addContainedKind(RowKind.UPDATE_AFTER)
+                    .addContainedKind(RowKind.DELETE)
+                    .build();
+        }
+        return ChangelogMode.newBuilder()
+                .addContainedKind(RowKind.INSERT)
+                .addContainedKind(RowKind.UPDATE_BEFORE)
+                .addContainedKind(RowKind.UPDATE_AFTER)
+                .addContainedKind(RowKind.DELETE)
+                .build();
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.StringUtils;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Deserialization schema from the maxwellx-binary format to Flink Table/SQL internal data
+ * structure {@link RowData}, see {@link MaxwellXBinaryCodec} for the layout of the messages. The
+ * messages carry the same envelope as Maxwell JSON and are turned into the same changelog: the
+ * "old" values of an update overlay its "data" row to build the {@link RowKind#UPDATE_BEFORE} row.
+ *
+ * <p>The fields are read in the order of the {@link RowType}, which must be the row type the
+ * messages were written with. The meta fields are read first and the rows of the databases and
+ * tables rejected by the filter are never decoded.
+ *
+ * <p>Failures during deserialization are forwarded as wrapped IOExceptions, or passed to the
+ * {@link MaxwellXJsonDeadLetterHandler} if one is set.
+ */
+public class MaxwellXBinaryDeserializationSchema implements DeserializationSchema<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    /** Number of leading bytes of a corrupt message reported in the exception. */
+    static final int MAX_REPORTED_BYTES = 64;
+
+    /** Logical type describing the database table. */
+    private final RowType rowType;
+
+    /** TypeInformation of the produced {@link RowData}. * */
+    private final TypeInformation<RowData> resultTypeInfo;
+
+    /** Only read changelogs from the accepted databases and tables. */
+    private final MaxwellXJsonTableFilter tableFilter;
+
+    /** Flag indicating whether to ignore invalid rows (default: throw an exception). */
+    private final boolean ignoreParseErrors;
+
+    /** Flag indicating whether the updates are emitted without their before image. */
+    private final boolean upsert;
+
+    /** The metadata appended to the rows, in the order of the produced fields. */
+    private final MaxwellXJsonDecodingFormat.ReadableMetadata[] readableMetadata;
+
+    /** Handler of the corrupt messages, null to fail or skip them. */
+    @Nullable private final MaxwellXJsonDeadLetterHandler deadLetterHandler;
+
+    private final MaxwellXBinaryCodec codec;
+
+    private transient MaxwellXBinaryInput input;
+
+    private transient MaxwellXJsonEnvelope envelope;
+
+    private transient MaxwellXJsonDecodingMetrics metrics;
+
+    public MaxwellXBinaryDeserializationSchema(
+            RowType rowType,
+            TypeInformation<RowData> resultTypeInfo,
+            MaxwellXJsonTableFilter tableFilter,
+            boolean ignoreParseErrors,
+            boolean upsert,
+            List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata,
+            @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+        this.rowType = rowType;
+        this.resultTypeInfo = resultTypeInfo;
+        this.tableFilter = tableFilter;
+        this.ignoreParseErrors = ignoreParseErrors;
+        this.upsert = upsert;
+        this.readableMetadata =
+                readableMetadata.toArray(new MaxwellXJsonDecodingFormat.ReadableMetadata[0]);
+        this.deadLetterHandler = deadLetterHandler;
+        this.codec = new MaxwellXBinaryCodec(rowType);
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Builder
+    // ------------------------------------------------------------------------------------------
+
+    /** Creates A builder for building a {@link MaxwellXBinaryDeserializationSchema}. */
+    public static Builder builder(RowType rowType, TypeInformation<RowData> resultTypeInfo) {
+        return new Builder(rowType, resultTypeInfo);
+    }
+
+    /** A builder for creating a {@link MaxwellXBinaryDeserializationSchema}. */
+    @Internal
+    public static final class Builder {
+        private final RowType rowType;
+        private final TypeInformation<RowData> resultTypeInfo;
+        private MaxwellXJsonTableFilter tableFilter = new MaxwellXJsonTableFilter(null, null);
+        private boolean ignoreParseErrors = false;
+        private boolean upsert = false;
+        private List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata =
+                Collections.emptyList();
+        private MaxwellXJsonDeadLetterHandler deadLetterHandler = null;
+
+        private Builder(RowType rowType, TypeInformation<RowData> resultTypeInfo) {
+            this.rowType = rowType;
+            this.resultTypeInfo = resultTypeInfo;
+        }
+
+        /** Sets the filter on the "database" and "table" meta fields. */
+        public Builder setTableFilter(MaxwellXJsonTableFilter tableFilter) {
+            this.tableFilter = tableFilter;
+            return this;
+        }
+
+        public Builder setIgnoreParseErrors(boolean ignoreParseErrors) {
+            this.ignoreParseErrors = ignoreParseErrors;
+            return this;
+        }
+
+        /**
+         * Enables the upsert mode: an update only emits its {@link RowKind#UPDATE_AFTER} row, and
+         * its "old" values are never decoded.
+         */
+        public Builder setUpsert(boolean upsert) {
+            this.upsert = upsert;
+            return this;
+        }
+
+        /** Appends the given metadata to the produced rows. */
+        Builder setReadableMetadata(
+                List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata) {
+            this.readableMetadata = readableMetadata;
+            return this;
+        }
+
+        /** Sets the handler of the messages which cannot be decoded. */
+        public Builder setDeadLetterHandler(
+                @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+            this.deadLetterHandler = deadLetterHandler;
+            return this;
+        }
+
+        public MaxwellXBinaryDeserializationSchema build() {
+            return new MaxwellXBinaryDeserializationSchema(
+                    rowType,
+                    resultTypeInfo,
+                    tableFilter,
+                    ignoreParseErrors,
+                    upsert,
+                    readableMetadata,
+                    deadLetterHandler);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    @Override
+    public RowData deserialize(byte[] message) throws IOException {
+        throw new RuntimeException(
+                "Please invoke DeserializationSchema#deserialize(byte[], Collector<RowData>) instead.");
+    }
+
+    @Override
+    public void open(InitializationContext context) throws Exception {
+        this.input = new MaxwellXBinaryInput();
+        this.envelope = new MaxwellXJsonEnvelope();
+        this.metrics = new MaxwellXJsonDecodingMetrics(context.getMetricGroup());
+        if (deadLetterHandler != null) {
+            deadLetterHandler.open(context);
+        }
+    }
+
+    @Override
+    public void deserialize(@Nullable byte[] message, Collector<RowData> out) throws IOException {
+        if (message == null || message.length == 0) {
+            return;
+        }
+        try {
+            if (metrics.received(message.length)) {
+                long start = System.nanoTime();
+                decode(message, out);
+                metrics.decoded(System.nanoTime() - start);
+            } else {
+                decode(message, out);
+            }
+        } catch (Throwable t) {
+            // a big try catch to protect the processing.
+            metrics.parseError();
+            if (deadLetterHandler != null) {
+                deadLetterHandler.handle(message, t);
+            } else if (!ignoreParseErrors) {
+                int length = Math.min(message.length, MAX_REPORTED_BYTES);
+                throw new IOException(
+                        format(
+                                "Corrupt maxwellx-binary message of %d bytes, starting with '%s%s'.",
+                                message.length,
+                                StringUtils.byteToHexString(message, 0, length),
+                                length < message.length ? "..." : ""),
+                        t);
+            }
+        }
+    }
+
+    private void decode(byte[] message, Collector<RowData> out) throws IOException {
+        input.reset(message);
+        final byte version = input.readByte();
+        if (version != MaxwellXBinaryCodec.VERSION) {
+            throw new IOException(format("Unsupported maxwellx-binary version %d.", version));
+        }
+        final int op = input.readByte();
+        final int flags = input.readByte() & 0xFF;
+        readMeta(message, flags);
+        if (!tableFilter.acceptsAll()
+                && !tableFilter.matches(
+                        envelope.databaseBuf,
+                        envelope.databaseStart,
+                        envelope.databaseEnd,
+                        envelope.tableBuf,
+                        envelope.tableStart,
+                        envelope.tableEnd)) {
+            metrics.filtered();
+            return;
+        }
+        if (op < MaxwellXJsonEnvelope.OP_INSERT || op > MaxwellXJsonEnvelope.OP_DELETE) {
+            envelope.op = MaxwellXJsonEnvelope.OP_UNKNOWN;
+            metrics.accepted(envelope);
+            if (!ignoreParseErrors) {
+                throw new IOException(format("Unknown operation %d.", op));
+            }
+            return;
+        }
+        envelope.op = op;
+        metrics.accepted(envelope);
+
+        final GenericRowData data = codec.read(input);
+        if (op == MaxwellXJsonEnvelope.OP_INSERT) {
+            data.setRowKind(RowKind.INSERT);
+            emit(data, out);
+        } else if (op == MaxwellXJsonEnvelope.OP_DELETE) {
+            data.setRowKind(RowKind.DELETE);
+            emit(data, out);
+        } else {
+            if (!upsert) {
+                final GenericRowData before = new GenericRowData(data.getArity());
+                for (int pos = 0; pos < data.getArity(); pos++) {
+                    before.setField(pos, data.getField(pos));
+                }
+                if ((flags & MaxwellXBinaryCodec.FLAG_OLD) != 0) {
+                    codec.readChanged(input, before);
+                }
+                before.setRowKind(RowKind.UPDATE_BEFORE);
+                emit(before, out);
+            }
+            data.setRowKind(RowKind.UPDATE_AFTER);
+            emit(data, out);
+        }
+    }
+
+    /** Reads the meta fields into the envelope, the strings are kept as ranges of the message. */
+    private void readMeta(byte[] message, int flags) throws IOException {
+        envelope.databaseBuf = null;
+        envelope.tableBuf = null;
+        if ((flags & MaxwellXBinaryCodec.FLAG_DATABASE) != 0) {
+            final int length = input.readLength();
+            envelope.databaseBuf = message;
+            envelope.databaseStart = input.position();
+            envelope.databaseEnd = input.position() + length;
+            input.skip(length);
+        }
+        if ((flags & MaxwellXBinaryCodec.FLAG_TABLE) != 0) {
+            final int length = input.readLength();
+            envelope.tableBuf = message;
+            envelope.tableStart = input.position();
+            envelope.tableEnd = input.position() + length;
+            input.skip(length);
+        }
+        envelope.position =
+                (flags & MaxwellXBinaryCodec.FLAG_POSITION) != 0
+                        ? StringData.fromBytes(input.readBytes(input.readLength()))
+                        : null;
+        envelope.ts = (flags & MaxwellXBinaryCodec.FLAG_TS) != 0 ? input.readZigZagLong() : null;
+        envelope.xid = (flags & MaxwellXBinaryCodec.FLAG_XID) != 0 ? input.readZigZagLong() : null;
+        envelope.xoffset =
+                (flags & MaxwellXBinaryCodec.FLAG_XOFFSET) != 0 ? input.readZigZagLong() : null;
+        envelope.commit = (flags & MaxwellXBinaryCodec.FLAG_COMMIT) != 0;
+    }
+
+    private void emit(RowData row, Collector<RowData> out) {
+        if (readableMetadata.length == 0) {
+            out.collect(row);
+            return;
+        }
+        GenericRowData metadata = new GenericRowData(readableMetadata.length);
+        for (int i = 0; i < readableMetadata.length; i++) {
+            metadata.setField(i, readableMetadata[i].converter.convert(envelope));
+        }
+        out.collect(MaxwellXJsonTransactionMetadata.join(row, metadata));
+    }
+
+    @Override
+    public boolean isEndOfStream(RowData nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return resultTypeInfo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXBinaryDeserializationSchema that = (MaxwellXBinaryDeserializationSchema) o;
+        return ignoreParseErrors == that.ignoreParseErrors
+                && upsert == that.upsert
+                && Arrays.equals(readableMetadata, that.readableMetadata)
+                && Objects.equals(deadLetterHandler, that.deadLetterHandler)
+                && Objects.equals(rowType, that.rowType)
+                && Objects.equals(tableFilter, that.tableFilter)
+                && Objects.equals(resultTypeInfo, that.resultTypeInfo);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                rowType,
+                resultTypeInfo,
+                tableFilter,
+                ignoreParseErrors,
+                upsert,
+                Arrays.hashCode(readableMetadata),
+                deadLetterHandler);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.connector.format.DecodingFormat;
+import org.apache.flink.table.connector.format.EncodingFormat;
+import org.apache.flink.table.connector.sink.DynamicTableSink;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.factories.DeserializationFormatFactory;
+import org.apache.flink.table.factories.DynamicTableFactory;
+import org.apache.flink.table.factories.FactoryUtil;
+import org.apache.flink.table.factories.SerializationFormatFactory;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_EXCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_EXCLUDE_PATTERN;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_INCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_INCLUDE_PATTERN;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DEAD_LETTER_HANDLER;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.IGNORE_PARSE_ERRORS;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_EXCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_EXCLUDE_PATTERN;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_INCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_INCLUDE_PATTERN;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.UPSERT;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.validateDecodingFormatOptions;
+
+/**
+ * Format factory for providing configured instances of the maxwellx-binary format, the compact
+ * binary sibling of the maxwellx-json format, see {@link MaxwellXBinaryCodec}. The format shares
+ * the table filter, upsert and dead letter options of the maxwellx-json format.
+ */
+public class MaxwellXBinaryFormatFactory
+        implements DeserializationFormatFactory, SerializationFormatFactory {
+
+    public static final String IDENTIFIER = "maxwellx-binary";
+
+    @Override
+    public DecodingFormat<DeserializationSchema<RowData>> createDecodingFormat(
+            DynamicTableFactory.Context context, ReadableConfig formatOptions) {
+        FactoryUtil.validateFactoryOptions(this, formatOptions);
+        validateDecodingFormatOptions(formatOptions);
+
+        final boolean ignoreParseErrors = formatOptions.get(IGNORE_PARSE_ERRORS);
+        final boolean upsert = formatOptions.get(UPSERT);
+        MaxwellXJsonDeadLetterHandler deadLetterHandler =
+                formatOptions
+                        .getOptional(DEAD_LETTER_HANDLER)
+                        .map(
+                                className ->
+                                        MaxwellXJsonFormatFactory.createDeadLetterHandler(
+                                                className, context))
+                        .orElse(null);
+
+        return new MaxwellXBinaryDecodingFormat(
+                MaxwellXJsonFormatFactory.createTableFilter(formatOptions),
+                ignoreParseErrors,
+                upsert,
+                deadLetterHandler);
+    }
+
+    @Override
+    public EncodingFormat<SerializationSchema<RowData>> createEncodingFormat(
+            DynamicTableFactory.Context context, ReadableConfig formatOptions) {
+        FactoryUtil.validateFactoryOptions(this, formatOptions);
+
+        return new EncodingFormat<SerializationSchema<RowData>>() {
+
+            @Override
+            public ChangelogMode getChangelogMode() {
+                return ChangelogMode.newBuilder()
+                        .addContainedKind(RowKind.INSERT)
+                        .addContainedKind(RowKind.UPDATE_BEFORE)
+                        .addContainedKind(RowKind.UPDATE_AFTER)
+                        .addContainedKind(RowKind.DELETE)
+                        .build();
+            }
+
+            @Override
+            public SerializationSchema<RowData> createRuntimeEncoder(
+                    DynamicTableSink.Context context, DataType consumedDataType) {
+                final RowType rowType = (RowType) consumedDataType.getLogicalType();
+                return new MaxwellXBinarySerializationSchema(rowType);
+            }
+        };
+    }
+
+    @Override
+    public String factoryIdentifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public Set<ConfigOption<?>> requiredOptions() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<ConfigOption<?>> optionalOptions() {
+        Set<ConfigOption<?>> options = new HashSet<>();
+        options.add(IGNORE_PARSE_ERRORS);
+        options.add(DATABASE_INCLUDE);
+        options.add(DATABASE_EXCLUDE);
+        options.add(DATABASE_INCLUDE_PATTERN);
+        options.add(DATABASE_EXCLUDE_PATTERN);
+        options.add(TABLE_INCLUDE);
+        options.add(TABLE_EXCLUDE);
+        options.add(TABLE_INCLUDE_PATTERN);
+        options.add(TABLE_EXCLUDE_PATTERN);
+        options.add(UPSERT);
+        options.add(DEAD_LETTER_HANDLER);
+        return options;
+    }
+}
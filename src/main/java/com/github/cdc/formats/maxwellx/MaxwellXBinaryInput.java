@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A cursor over a message of the maxwellx-binary format, reading the primitives written by {@link
+ * MaxwellXBinaryCodec}. The cursor is reused across messages, see {@link #reset(byte[])}.
+ */
+@Internal
+final class MaxwellXBinaryInput {
+
+    private byte[] buf;
+
+    private int pos;
+
+    private int end;
+
+    void reset(byte[] message) {
+        this.buf = message;
+        this.pos = 0;
+        this.end = message.length;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    int position() {
+        return pos;
+    }
+
+    boolean hasRemaining() {
+        return pos < end;
+    }
+
+    byte readByte() throws IOException {
+        if (pos >= end) {
+            throw new EOFException("Truncated maxwellx-binary message.");
+        }
+        return buf[pos++];
+    }
+
+    /** Reads an unsigned LEB128 varint of at most 64 bits. */
+    long readVarLong() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint in maxwellx-binary message.");
+    }
+
+    int readVarInt() throws IOException {
+        return (int) readVarLong();
+    }
+
+    long readZigZagLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readZigZagInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readFixedInt() throws IOException {
+        require(4);
+        int value =
+                (buf[pos] & 0xFF) << 24
+                        | (buf[pos + 1] & 0xFF) << 16
+                        | (buf[pos + 2] & 0xFF) << 8
+                        | (buf[pos + 3] & 0xFF);
+        pos += 4;
+        return value;
+    }
+
+    long readFixedLong() throws IOException {
+        return (long) readFixedInt() << 32 | (readFixedInt() & 0xFFFFFFFFL);
+    }
+
+    /** Reads the length prefix of a byte sequence, checked against the remaining bytes. */
+    int readLength() throws IOException {
+        long length = readVarLong();
+        if (length < 0 || length > end - pos) {
+            throw new EOFException("Truncated maxwellx-binary message.");
+        }
+        return (int) length;
+    }
+
+    byte[] readBytes(int length) throws IOException {
+        require(length);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buf, pos, bytes, 0, length);
+        pos += length;
+        return bytes;
+    }
+
+    void skip(int length) throws IOException {
+        require(length);
+        pos += length;
+    }
+
+    private void require(int length) throws IOException {
+        if (length > end - pos) {
+            throw new EOFException("Truncated maxwellx-binary message.");
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import javax.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Serialization schema from Flink Table/SQL internal data structure {@link RowData} to the
+ * maxwellx-binary format, see {@link MaxwellXBinaryCodec} for the layout of the messages.
+ *
+ * <p>Every row is written as its own message, an update is thus written as a "delete" of its
+ * before image and an "insert" of its after image. {@link #serializeUpdate(RowData, RowData)}
+ * writes a single "update" message instead.
+ */
+public class MaxwellXBinarySerializationSchema implements SerializationSchema<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    /** Logical type describing the database table. */
+    private final RowType rowType;
+
+    /** The "database" meta field of the messages, null to omit the meta fields. */
+    @Nullable private final String database;
+
+    /** The "table" meta field of the messages, null to omit the meta fields. */
+    @Nullable private final String table;
+
+    private final MaxwellXBinaryCodec codec;
+
+    /** The encoded "database" and "table" meta fields, or empty. */
+    private final byte[] meta;
+
+    /** The {@code FLAG_*} bits of the meta fields, besides "old". */
+    private final int flags;
+
+    private transient MaxwellXJsonOutputBuffer buffer;
+
+    public MaxwellXBinarySerializationSchema(RowType rowType) {
+        this(rowType, null, null);
+    }
+
+    /**
+     * Creates a schema writing the "database", "table" and "ts" meta fields as well, "ts" is the
+     * time of the serialization in seconds.
+     */
+    public MaxwellXBinarySerializationSchema(
+            RowType rowType, @Nullable String database, @Nullable String table) {
+        this.rowType = rowType;
+        this.database = database;
+        this.table = table;
+        this.codec = new MaxwellXBinaryCodec(rowType);
+        MaxwellXJsonOutputBuffer out = new MaxwellXJsonOutputBuffer(64);
+        int flags = 0;
+        if (database != null) {
+            flags |= MaxwellXBinaryCodec.FLAG_DATABASE;
+            writeString(database, out);
+        }
+        if (table != null) {
+            flags |= MaxwellXBinaryCodec.FLAG_TABLE;
+            writeString(table, out);
+        }
+        if (database != null || table != null) {
+            flags |= MaxwellXBinaryCodec.FLAG_TS;
+        }
+        this.meta = out.toByteArray();
+        this.flags = flags;
+    }
+
+    @Override
+    public void open(InitializationContext context) throws Exception {
+        this.buffer = new MaxwellXJsonOutputBuffer(256);
+    }
+
+    @Override
+    public byte[] serialize(RowData element) {
+        try {
+            buffer.reset();
+            writeHeader(rowKind2Op(element.getRowKind()), flags, buffer);
+            codec.write(element, buffer);
+            return buffer.toByteArray();
+        } catch (Throwable t) {
+            throw new RuntimeException("Could not serialize row '" + element + "'. ", t);
+        }
+    }
+
+    /**
+     * Serializes an update as a single "update" message: "data" holds the after row and "old" the
+     * before values of the changed columns only.
+     */
+    public byte[] serializeUpdate(RowData before, RowData after) {
+        try {
+            buffer.reset();
+            writeHeader(
+                    MaxwellXJsonEnvelope.OP_UPDATE, flags | MaxwellXBinaryCodec.FLAG_OLD, buffer);
+            codec.write(after, buffer);
+            codec.writeChanged(before, after, buffer);
+            return buffer.toByteArray();
+        } catch (Throwable t) {
+            throw new RuntimeException(
+                    "Could not serialize update from '" + before + "' to '" + after + "'. ", t);
+        }
+    }
+
+    private void writeHeader(int op, int flags, MaxwellXJsonOutputBuffer out) {
+        out.write(MaxwellXBinaryCodec.VERSION);
+        out.write(op);
+        out.write(flags);
+        out.write(meta);
+        if ((flags & MaxwellXBinaryCodec.FLAG_TS) != 0) {
+            out.writeZigZagLong(System.currentTimeMillis() / 1000);
+        }
+    }
+
+    public RowType getRowType() {
+        return rowType;
+    }
+
+    private static int rowKind2Op(RowKind rowKind) {
+        switch (rowKind) {
+            case INSERT:
+            case UPDATE_AFTER:
+                return MaxwellXJsonEnvelope.OP_INSERT;
+            case UPDATE_BEFORE:
+            case DELETE:
+                return MaxwellXJsonEnvelope.OP_DELETE;
+            default:
+                throw new UnsupportedOperationException(
+                        "Unsupported operation '" + rowKind + "' for row kind.");
+        }
+    }
+
+    private static void writeString(String value, MaxwellXJsonOutputBuffer out) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXBinarySerializationSchema that = (MaxwellXBinarySerializationSchema) o;
+        return Objects.equals(rowType, that.rowType)
+                && Objects.equals(database, that.database)
+                && Objects.equals(table, that.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowType, database, table);
+    }
+}
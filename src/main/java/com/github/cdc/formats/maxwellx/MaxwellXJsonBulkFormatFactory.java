@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.configuration.ConfigOption;
+import org.apache.flink.configuration.ReadableConfig;
+import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.connector.format.EncodingFormat;
+import org.apache.flink.table.connector.sink.DynamicTableSink;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.factories.BulkWriterFormatFactory;
+import org.apache.flink.table.factories.DynamicTableFactory;
+import org.apache.flink.table.factories.FactoryUtil;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.FlinkException;
+import org.apache.flink.util.InstantiationUtil;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.BLOCK_SIZE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.COMPRESSION_CODEC;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.JSON_MAP_NULL_KEY_LITERAL;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.validateEncodingFormatOptions;
+
+/**
+ * Format factory providing the {@link MaxwellXJsonBulkWriter} to the filesystem connector, which
+ * writes newline-delimited Maxwell JSON files, optionally compressed. It shares the identifier and
+ * the options of the {@link MaxwellXJsonFormatFactory}.
+ */
+public class MaxwellXJsonBulkFormatFactory implements BulkWriterFormatFactory {
+
+    @Override
+    public EncodingFormat<BulkWriter.Factory<RowData>> createEncodingFormat(
+            DynamicTableFactory.Context context, ReadableConfig formatOptions) {
+        FactoryUtil.validateFactoryOptions(this, formatOptions);
+        validateEncodingFormatOptions(formatOptions);
+
+        TimestampFormat timestampFormat = JsonOptions.getTimestampFormat(formatOptions);
+        JsonOptions.MapNullKeyMode mapNullKeyMode = JsonOptions.getMapNullKeyMode(formatOptions);
+        String mapNullKeyLiteral = formatOptions.get(JSON_MAP_NULL_KEY_LITERAL);
+        MaxwellXJsonCompressionCodec codec =
+                createCodec(formatOptions.get(COMPRESSION_CODEC), context);
+        int blockSize = (int) formatOptions.get(BLOCK_SIZE).getBytes();
+
+        return new EncodingFormat<BulkWriter.Factory<RowData>>() {
+
+            @Override
+            public ChangelogMode getChangelogMode() {
+                return ChangelogMode.newBuilder()
+                        .addContainedKind(RowKind.INSERT)
+                        .addContainedKind(RowKind.UPDATE_BEFORE)
+                        .addContainedKind(RowKind.UPDATE_AFTER)
+                        .addContainedKind(RowKind.DELETE)
+                        .build();
+            }
+
+            @Override
+            public BulkWriter.Factory<RowData> createRuntimeEncoder(
+                    DynamicTableSink.Context context, DataType consumedDataType) {
+                final RowType rowType = (RowType) consumedDataType.getLogicalType();
+                return new MaxwellXJsonBulkWriter.Factory(
+                        new MaxwellXJsonSerializationSchema(
+                                rowType, timestampFormat, mapNullKeyMode, mapNullKeyLiteral),
+                        codec,
+                        blockSize);
+            }
+        };
+    }
+
+    private static MaxwellXJsonCompressionCodec createCodec(
+            String codec, DynamicTableFactory.Context context) {
+        if ("none".equalsIgnoreCase(codec)) {
+            return null;
+        } else if ("gzip".equalsIgnoreCase(codec)) {
+            return MaxwellXJsonCompressionCodec.GZIP;
+        }
+        try {
+            return InstantiationUtil.instantiate(
+                    codec, MaxwellXJsonCompressionCodec.class, context.getClassLoader());
+        } catch (FlinkException e) {
+            throw new ValidationException(
+                    String.format(
+                            "Could not create the compression codec '%s' of option '%s'.",
+                            codec, COMPRESSION_CODEC.key()),
+                    e);
+        }
+    }
+
+    @Override
+    public String factoryIdentifier() {
+        return MaxwellXJsonFormatFactory.IDENTIFIER;
+    }
+
+    @Override
+    public Set<ConfigOption<?>> requiredOptions() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<ConfigOption<?>> optionalOptions() {
+        // the options of a table are validated by both factories of the format
+        return new MaxwellXJsonFormatFactory().optionalOptions();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link BulkWriter} writing newline-delimited Maxwell JSON messages, e.g. to archive a changelog
+ * with the file sinks. The messages are written into a buffer reused across records, which is
+ * passed to the file stream (or to the {@link MaxwellXJsonCompressionCodec}) in blocks.
+ */
+public class MaxwellXJsonBulkWriter implements BulkWriter<RowData> {
+
+    private static final byte NEWLINE = '\n';
+
+    private final MaxwellXJsonSerializationSchema schema;
+
+    private final int blockSize;
+
+    private final FSDataOutputStream stream;
+
+    /** The stream the blocks are written to, the compressing stream if a codec is set. */
+    private final OutputStream target;
+
+    private final boolean compressed;
+
+    private final MaxwellXJsonOutputBuffer buffer;
+
+    MaxwellXJsonBulkWriter(
+            MaxwellXJsonSerializationSchema schema,
+            @Nullable MaxwellXJsonCompressionCodec codec,
+            int blockSize,
+            FSDataOutputStream stream)
+            throws IOException {
+        this.schema = schema;
+        this.blockSize = blockSize;
+        this.stream = stream;
+        this.compressed = codec != null;
+        this.target = codec == null ? stream : codec.compress(new NonClosingOutputStream(stream));
+        this.buffer = new MaxwellXJsonOutputBuffer(blockSize + 1024);
+    }
+
+    @Override
+    public void addElement(RowData element) throws IOException {
+        schema.write(element, buffer);
+        buffer.write(NEWLINE);
+        if (buffer.size() >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        target.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writeBlock();
+        if (compressed) {
+            // writes the end of the compressed stream, the file stream is left open
+            target.close();
+        }
+        stream.flush();
+    }
+
+    private void writeBlock() throws IOException {
+        if (buffer.size() > 0) {
+            buffer.writeTo(target);
+            buffer.reset();
+        }
+    }
+
+    /** Keeps the file stream open when the compressing stream is closed. */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Factory
+    // ------------------------------------------------------------------------------------------
+
+    /** Factory of {@link MaxwellXJsonBulkWriter}s. */
+    public static final class Factory implements BulkWriter.Factory<RowData> {
+        private static final long serialVersionUID = 1L;
+
+        /** The default size of the blocks passed to the file stream or to the codec. */
+        public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+        private final MaxwellXJsonSerializationSchema schema;
+
+        @Nullable private final MaxwellXJsonCompressionCodec codec;
+
+        private final int blockSize;
+
+        public Factory(MaxwellXJsonSerializationSchema schema) {
+            this(schema, null, DEFAULT_BLOCK_SIZE);
+        }
+
+        /** Creates a factory of writers compressing the files with the codec, if not null. */
+        public Factory(
+                MaxwellXJsonSerializationSchema schema,
+                @Nullable MaxwellXJsonCompressionCodec codec,
+                int blockSize) {
+            Preconditions.checkArgument(blockSize > 0, "The block size must be positive.");
+            this.schema = schema;
+            this.codec = codec;
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        public BulkWriter<RowData> create(FSDataOutputStream out) throws IOException {
+            return new MaxwellXJsonBulkWriter(schema, codec, blockSize, out);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+
+import javax.annotation.Nullable;
+
+/** Utilities for comparing and hashing byte ranges of Maxwell messages. */
+@Internal
+final class MaxwellXJsonBytes {
+
+    static final byte[] EMPTY = new byte[0];
+
+    /** Returns true if the expected bytes equal the given byte range. */
+    static boolean equals(@Nullable byte[] expected, byte[] buf, int start, int end) {
+        if (expected == null || expected.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != buf[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the hash code of the given byte range. */
+    static int hash(byte[] buf, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h;
+    }
+
+    /** Spreads the higher bits of a hash code, to be used for power-of-2 sized tables. */
+    static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Returns the size of a power-of-2 sized open addressing table for the given count. */
+    static int tableSize(int count) {
+        int size = 2;
+        while (size < count * 2) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    /** Copies the given byte range. */
+    static byte[] copy(byte[] buf, int start, int end) {
+        if (start == end) {
+            return EMPTY;
+        }
+        byte[] bytes = new byte[end - start];
+        System.arraycopy(buf, start, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    private MaxwellXJsonBytes() {}
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.BoundedOneInput;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeCallback;
+import org.apache.flink.streaming.runtime.tasks.ProcessingTimeService;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.util.Preconditions;
+
+/**
+ * Compacts the changelog rows of a window into one net change per key, see {@link
+ * MaxwellXJsonChangelogCompactor}. The window ends when the maximum number of keys is reached,
+ * when the flush interval elapses, and before every checkpoint barrier, so the operator holds no
+ * state. Use {@link MaxwellXJsonTransactionBuffer} instead to compact the changes of a transaction.
+ *
+ * <p>The operator must directly follow the source, or a keyed exchange on the key fields, so that
+ * the changes of a key arrive in order. The rows are held until the window ends, so the schema must
+ * not run in object reuse mode.
+ *
+ * <pre>{@code
+ * stream.transform(
+ *         "maxwellx-json-compaction",
+ *         typeInfo,
+ *         new MaxwellXJsonChangelogCompactionOperator(rowType, new int[] {0}, 1024, 200L));
+ * }</pre>
+ */
+public class MaxwellXJsonChangelogCompactionOperator extends AbstractStreamOperator<RowData>
+        implements OneInputStreamOperator<RowData, RowData>,
+                BoundedOneInput,
+                ProcessingTimeCallback {
+    private static final long serialVersionUID = 1L;
+
+    private final RowType rowType;
+
+    private final int[] keyFields;
+
+    private final int maxKeys;
+
+    /** The interval between the flushes in milliseconds, 0 to only flush on count and barriers. */
+    private final long flushIntervalMs;
+
+    private transient MaxwellXJsonChangelogCompactor compactor;
+
+    private transient TimestampedCollector<RowData> collector;
+
+    public MaxwellXJsonChangelogCompactionOperator(
+            RowType rowType, int[] keyFields, int maxKeys, long flushIntervalMs) {
+        Preconditions.checkArgument(flushIntervalMs >= 0, "The flush interval must not be negative.");
+        this.rowType = rowType;
+        this.keyFields = keyFields;
+        this.maxKeys = maxKeys;
+        this.flushIntervalMs = flushIntervalMs;
+        this.chainingStrategy = ChainingStrategy.ALWAYS;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        this.compactor = new MaxwellXJsonChangelogCompactor(rowType, keyFields, maxKeys);
+        this.collector = new TimestampedCollector<>(output);
+        collector.eraseTimestamp();
+        if (flushIntervalMs > 0) {
+            registerTimer();
+        }
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) {
+        if (compactor.add(element.getValue())) {
+            compactor.flush(collector);
+        }
+    }
+
+    @Override
+    public void onProcessingTime(long timestamp) {
+        compactor.flush(collector);
+        registerTimer();
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        super.prepareSnapshotPreBarrier(checkpointId);
+        compactor.flush(collector);
+    }
+
+    @Override
+    public void endInput() {
+        compactor.flush(collector);
+    }
+
+    private void registerTimer() {
+        ProcessingTimeService timeService = getProcessingTimeService();
+        timeService.registerTimer(timeService.getCurrentProcessingTime() + flushIntervalMs, this);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.Preconditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Folds the changes of a window of rows into one net change per key: an insert followed by
+ * updates becomes an insert of the last image, an insert followed by a delete disappears, and a
+ * chain of updates becomes a single update from the first before image to the last after image.
+ *
+ * <p>The keys are held in an open addressing table of fixed size, so the memory is bounded by the
+ * maximum number of keys; {@link #add(RowData)} reports when the compactor is full and must be
+ * flushed. The compactor holds on to the added rows, which must not be reused by their producer.
+ */
+@Internal
+final class MaxwellXJsonChangelogCompactor {
+
+    private final RowData.FieldGetter[] keyGetters;
+
+    private final int maxKeys;
+
+    /** Open addressing table from key to change index + 1, 0 for an empty slot. */
+    private final int[] slots;
+
+    /** The net changes in order of their first row. */
+    private final List<Change> changes;
+
+    MaxwellXJsonChangelogCompactor(RowType rowType, int[] keyFields, int maxKeys) {
+        Preconditions.checkArgument(keyFields.length > 0, "The key must have at least 1 field.");
+        Preconditions.checkArgument(maxKeys > 0, "The compactor must hold at least 1 key.");
+        this.keyGetters = new RowData.FieldGetter[keyFields.length];
+        for (int i = 0; i < keyFields.length; i++) {
+            keyGetters[i] =
+                    RowData.createFieldGetter(rowType.getTypeAt(keyFields[i]), keyFields[i]);
+        }
+        this.maxKeys = maxKeys;
+        this.slots = new int[MaxwellXJsonBytes.tableSize(maxKeys)];
+        this.changes = new ArrayList<>();
+    }
+
+    /** Returns the number of keys with a pending change. */
+    int size() {
+        return changes.size();
+    }
+
+    /** Folds the row into the net change of its key, returns true if the compactor is full. */
+    boolean add(RowData row) {
+        Object[] key = new Object[keyGetters.length];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = keyGetters[i].getFieldOrNull(row);
+        }
+        // BINARY and VARBINARY keys are byte arrays, compared by content
+        int hash = Arrays.deepHashCode(key);
+        int slot = MaxwellXJsonBytes.spread(hash) & (slots.length - 1);
+        int index;
+        while ((index = slots[slot]) != 0) {
+            Change change = changes.get(index - 1);
+            if (change.hash == hash && Arrays.deepEquals(change.key, key)) {
+                change.fold(row);
+                return false;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        Change change = new Change(key, hash, slot);
+        change.first(row);
+        changes.add(change);
+        slots[slot] = changes.size();
+        return changes.size() >= maxKeys;
+    }
+
+    /** Emits the net changes and clears the compactor. */
+    void flush(Collector<RowData> out) {
+        for (Change change : changes) {
+            change.emit(out);
+            slots[change.slot] = 0;
+        }
+        changes.clear();
+    }
+
+    /** The net change of a key. */
+    private static final class Change {
+        private final Object[] key;
+        private final int hash;
+        private final int slot;
+
+        /** The image before the window, null if the key did not exist or is unknown. */
+        private RowData before;
+
+        /** The image after the window, null if the key does not exist anymore. */
+        private RowData after;
+
+        /** The last deleted image, emitted if the key existed before the window. */
+        private RowData deleted;
+
+        /** Whether the first change was an update without before image. */
+        private boolean beforeUnknown;
+
+        private Change(Object[] key, int hash, int slot) {
+            this.key = key;
+            this.hash = hash;
+            this.slot = slot;
+        }
+
+        private void first(RowData row) {
+            switch (row.getRowKind()) {
+                case INSERT:
+                    after = row;
+                    break;
+                case UPDATE_BEFORE:
+                    before = row;
+                    break;
+                case UPDATE_AFTER:
+                    beforeUnknown = true;
+                    after = row;
+                    break;
+                case DELETE:
+                    before = row;
+                    deleted = row;
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown row kind " + row.getRowKind());
+            }
+        }
+
+        private void fold(RowData row) {
+            switch (row.getRowKind()) {
+                case INSERT:
+                case UPDATE_AFTER:
+                    after = row;
+                    break;
+                case UPDATE_BEFORE:
+                    // the image of the current after row
+                    break;
+                case DELETE:
+                    after = null;
+                    deleted = row;
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unknown row kind " + row.getRowKind());
+            }
+        }
+
+        private void emit(Collector<RowData> out) {
+            if (before != null && after != null) {
+                before.setRowKind(RowKind.UPDATE_BEFORE);
+                out.collect(before);
+                after.setRowKind(RowKind.UPDATE_AFTER);
+                out.collect(after);
+            } else if (before != null) {
+                before.setRowKind(RowKind.DELETE);
+                out.collect(before);
+            } else if (after != null) {
+                after.setRowKind(beforeUnknown ? RowKind.UPDATE_AFTER : RowKind.INSERT);
+                out.collect(after);
+            } else if (beforeUnknown) {
+                deleted.setRowKind(RowKind.DELETE);
+                out.collect(deleted);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression codec of the files written by the {@link MaxwellXJsonBulkWriter}. The codec wraps
+ * the file stream into a compressing stream, which receives the messages in blocks and is closed
+ * when the file is finished; closing it does not close the file stream.
+ *
+ * <p>Any framed stream format can be plugged in, e.g. LZ4 or zstd frames:
+ *
+ * <pre>{@code
+ * MaxwellXJsonCompressionCodec lz4 = LZ4FrameOutputStream::new;
+ * MaxwellXJsonCompressionCodec zstd = ZstdOutputStream::new;
+ * }</pre>
+ */
+@FunctionalInterface
+public interface MaxwellXJsonCompressionCodec extends Serializable {
+
+    /** Gzip compression, the file can be read by any gzip tool. */
+    MaxwellXJsonCompressionCodec GZIP = out -> new GZIPOutputStream(out, 65536);
+
+    /** Returns a stream compressing the bytes written to it into the given stream. */
+    OutputStream compress(OutputStream out) throws IOException;
+}
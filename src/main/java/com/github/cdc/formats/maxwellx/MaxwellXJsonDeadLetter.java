@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A Maxwell JSON message which cannot be decoded, together with the reason of the failure. The
+ * message is not copied, and the reason is only formatted when it is read or when the dead letter
+ * is serialized.
+ */
+public final class MaxwellXJsonDeadLetter {
+
+    private final byte[] message;
+
+    @Nullable private final Throwable cause;
+
+    @Nullable private String reason;
+
+    public MaxwellXJsonDeadLetter(byte[] message, Throwable cause) {
+        this.message = message;
+        this.cause = cause;
+    }
+
+    public MaxwellXJsonDeadLetter(byte[] message, String reason) {
+        this.message = message;
+        this.cause = null;
+        this.reason = reason;
+    }
+
+    /** Returns the raw message. */
+    public byte[] getMessage() {
+        return message;
+    }
+
+    /** Returns the failure, null if the dead letter has been serialized in between. */
+    @Nullable
+    public Throwable getCause() {
+        return cause;
+    }
+
+    /** Returns the reason of the failure, i.e. the chain of exception messages. */
+    public String getReason() {
+        if (reason == null) {
+            StringBuilder sb = new StringBuilder();
+            for (Throwable t = cause; t != null; t = t.getCause()) {
+                if (sb.length() > 0) {
+                    sb.append(" Caused by: ");
+                }
+                sb.append(t);
+            }
+            reason = sb.toString();
+        }
+        return reason;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonDeadLetter that = (MaxwellXJsonDeadLetter) o;
+        return Arrays.equals(message, that.message) && Objects.equals(getReason(), that.getReason());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(message) + getReason().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "MaxwellXJsonDeadLetter{" + message.length + " bytes, " + getReason() + "}";
+    }
+}
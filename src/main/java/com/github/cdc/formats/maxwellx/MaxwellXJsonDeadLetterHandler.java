@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Handler of the Maxwell JSON messages which cannot be decoded, e.g. to write them to a dead-letter
+ * topic. When a handler is set, the corrupt messages are passed to it instead of failing the job or
+ * being silently skipped.
+ *
+ * <p>The message is the array given to the deserialization schema, it is neither copied nor
+ * converted to a string, and the cause carries no copy of the message either. A handler which
+ * keeps the message beyond the call must not expect the source to leave the array untouched.
+ */
+public interface MaxwellXJsonDeadLetterHandler extends Serializable {
+
+    /** Initialization method for the handler, called when the deserialization schema is opened. */
+    default void open(DeserializationSchema.InitializationContext context) throws Exception {}
+
+    /**
+     * Handles a message which cannot be decoded. Throwing an exception fails the deserialization
+     * of the message.
+     */
+    void handle(byte[] message, Throwable cause) throws IOException;
+}
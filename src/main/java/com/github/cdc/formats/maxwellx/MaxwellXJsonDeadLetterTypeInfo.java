@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.SimpleTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.base.TypeSerializerSingleton;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.types.StringValue;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link TypeInformation} of {@link MaxwellXJsonDeadLetter}. The serializer writes the raw message
+ * followed by the reason of the failure, the cause itself is not serialized.
+ */
+public class MaxwellXJsonDeadLetterTypeInfo extends TypeInformation<MaxwellXJsonDeadLetter> {
+    private static final long serialVersionUID = 1L;
+
+    public static final MaxwellXJsonDeadLetterTypeInfo INSTANCE =
+            new MaxwellXJsonDeadLetterTypeInfo();
+
+    @Override
+    public boolean isBasicType() {
+        return false;
+    }
+
+    @Override
+    public boolean isTupleType() {
+        return false;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public int getTotalFields() {
+        return 1;
+    }
+
+    @Override
+    public Class<MaxwellXJsonDeadLetter> getTypeClass() {
+        return MaxwellXJsonDeadLetter.class;
+    }
+
+    @Override
+    public boolean isKeyType() {
+        return false;
+    }
+
+    @Override
+    public TypeSerializer<MaxwellXJsonDeadLetter> createSerializer(ExecutionConfig config) {
+        return DeadLetterSerializer.INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "MaxwellXJsonDeadLetter";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MaxwellXJsonDeadLetterTypeInfo;
+    }
+
+    @Override
+    public int hashCode() {
+        return MaxwellXJsonDeadLetterTypeInfo.class.hashCode();
+    }
+
+    @Override
+    public boolean canEqual(Object obj) {
+        return obj instanceof MaxwellXJsonDeadLetterTypeInfo;
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Serializer
+    // ------------------------------------------------------------------------------------------
+
+    /** Serializer for {@link MaxwellXJsonDeadLetter}. */
+    public static final class DeadLetterSerializer
+            extends TypeSerializerSingleton<MaxwellXJsonDeadLetter> {
+        private static final long serialVersionUID = 1L;
+
+        public static final DeadLetterSerializer INSTANCE = new DeadLetterSerializer();
+
+        @Override
+        public boolean isImmutableType() {
+            return false;
+        }
+
+        @Override
+        public MaxwellXJsonDeadLetter createInstance() {
+            return null;
+        }
+
+        @Override
+        public MaxwellXJsonDeadLetter copy(MaxwellXJsonDeadLetter from) {
+            byte[] message = from.getMessage();
+            return new MaxwellXJsonDeadLetter(
+                    Arrays.copyOf(message, message.length), from.getReason());
+        }
+
+        @Override
+        public MaxwellXJsonDeadLetter copy(
+                MaxwellXJsonDeadLetter from, MaxwellXJsonDeadLetter reuse) {
+            return copy(from);
+        }
+
+        @Override
+        public int getLength() {
+            return -1;
+        }
+
+        @Override
+        public void serialize(MaxwellXJsonDeadLetter record, DataOutputView target)
+                throws IOException {
+            byte[] message = record.getMessage();
+            target.writeInt(message.length);
+            target.write(message);
+            StringValue.writeString(record.getReason(), target);
+        }
+
+        @Override
+        public MaxwellXJsonDeadLetter deserialize(DataInputView source) throws IOException {
+            byte[] message = new byte[source.readInt()];
+            source.readFully(message);
+            return new MaxwellXJsonDeadLetter(message, StringValue.readString(source));
+        }
+
+        @Override
+        public MaxwellXJsonDeadLetter deserialize(
+                MaxwellXJsonDeadLetter reuse, DataInputView source) throws IOException {
+            return deserialize(source);
+        }
+
+        @Override
+        public void copy(DataInputView source, DataOutputView target) throws IOException {
+            int length = source.readInt();
+            target.writeInt(length);
+            target.write(source, length);
+            StringValue.copyString(source, target);
+        }
+
+        @Override
+        public TypeSerializerSnapshot<MaxwellXJsonDeadLetter> snapshotConfiguration() {
+            return new DeadLetterSerializerSnapshot();
+        }
+    }
+
+    /** Snapshot of a {@link DeadLetterSerializer}. */
+    public static final class DeadLetterSerializerSnapshot
+            extends SimpleTypeSerializerSnapshot<MaxwellXJsonDeadLetter> {
+
+        public DeadLetterSerializerSnapshot() {
+            super(() -> DeadLetterSerializer.INSTANCE);
+        }
+    }
+}
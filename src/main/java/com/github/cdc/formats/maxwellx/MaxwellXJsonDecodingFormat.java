@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.connector.ChangelogMode;
+import org.apache.flink.table.connector.format.DecodingFormat;
+import org.apache.flink.table.connector.source.DynamicTableSource;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.utils.DataTypeUtils;
+import org.apache.flink.types.RowKind;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link DecodingFormat} for Maxwell using JSON encoding.
+ *
+ * <p>Besides the physical row, the format can produce a projection of it (see {@link
+ * #createRuntimeDecoder(DynamicTableSource.Context, DataType, int[][])}): the columns which are not
+ * projected are skipped at the token level and never converted.
+ *
+ * <p>The meta fields of the messages can be read as metadata columns (see {@link ReadableMetadata}),
+ * they are taken from the same pass over the message as the payloads and only the requested ones
+ * are decoded.
+ */
+public class MaxwellXJsonDecodingFormat implements DecodingFormat<DeserializationSchema<RowData>> {
+
+    private final MaxwellXJsonTableFilter tableFilter;
+
+    private final boolean deletedContainsOldField;
+
+    private final boolean ignoreParseErrors;
+
+    private final TimestampFormat timestampFormat;
+
+    private final boolean objectReuse;
+
+    private final boolean lazyDecoding;
+
+    private final boolean codegen;
+
+    private final boolean upsert;
+
+    private final Set<String> dictionaryColumns;
+
+    private final int dictionarySize;
+
+    private final boolean schemaEvolution;
+
+    @Nullable private final MaxwellXJsonDeadLetterHandler deadLetterHandler;
+
+    // --------------------------------------------------------------------------------------------
+    // Mutable attributes
+    // --------------------------------------------------------------------------------------------
+
+    /** The requested metadata keys, in the order of the produced fields. */
+    private List<String> metadataKeys;
+
+    public MaxwellXJsonDecodingFormat(
+            MaxwellXJsonTableFilter tableFilter,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat,
+            boolean objectReuse,
+            boolean lazyDecoding,
+            boolean codegen,
+            boolean upsert,
+            Set<String> dictionaryColumns,
+            int dictionarySize,
+            boolean schemaEvolution,
+            @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+        this.tableFilter = tableFilter;
+        this.deletedContainsOldField = deletedContainsOldField;
+        this.ignoreParseErrors = ignoreParseErrors;
+        this.timestampFormat = timestampFormat;
+        this.objectReuse = objectReuse;
+        this.lazyDecoding = lazyDecoding;
+        this.codegen = codegen;
+        this.upsert = upsert;
+        this.dictionaryColumns = dictionaryColumns;
+        this.dictionarySize = dictionarySize;
+        this.schemaEvolution = schemaEvolution;
+        this.deadLetterHandler = deadLetterHandler;
+        this.metadataKeys = Collections.emptyList();
+    }
+
+    @Override
+    public DeserializationSchema<RowData> createRuntimeDecoder(
+            DynamicTableSource.Context context, DataType physicalDataType) {
+        return createRuntimeDecoder(context, physicalDataType, null);
+    }
+
+    /**
+     * Creates a runtime decoder producing the given projection of the physical row, for connectors
+     * pushing the projection of a query down to their source. Only top-level fields can be
+     * projected, a null projection produces the physical row. The requested metadata is appended
+     * to the projected row.
+     */
+    public DeserializationSchema<RowData> createRuntimeDecoder(
+            DynamicTableSource.Context context,
+            DataType physicalDataType,
+            @Nullable int[][] projections) {
+        DataType producedDataType = physicalDataType;
+        if (projections != null) {
+            for (int[] projection : projections) {
+                if (projection.length != 1) {
+                    throw new ValidationException(
+                            "The maxwellx-json format does not support nested projections.");
+                }
+            }
+            producedDataType = DataTypeUtils.projectRow(physicalDataType, projections);
+        }
+        final RowType rowType = (RowType) producedDataType.getLogicalType();
+        final List<ReadableMetadata> readableMetadata =
+                metadataKeys.stream()
+                        .map(
+                                k ->
+                                        Stream.of(ReadableMetadata.values())
+                                                .filter(rm -> rm.key.equals(k))
+                                                .findFirst()
+                                                .orElseThrow(IllegalStateException::new))
+                        .collect(Collectors.toList());
+        final List<DataTypes.Field> metadataFields =
+                readableMetadata.stream()
+                        .map(m -> DataTypes.FIELD(m.key, m.dataType))
+                        .collect(Collectors.toList());
+        producedDataType = DataTypeUtils.appendRowFields(producedDataType, metadataFields);
+        final TypeInformation<RowData> producedTypeInfo =
+                context.createTypeInformation(producedDataType);
+        return MaxwellXJsonDeserializationSchema.builder(rowType, producedTypeInfo)
+                .setDeletedContainsOldField(deletedContainsOldField)
+                .setIgnoreParseErrors(ignoreParseErrors)
+                .setTimestampFormat(timestampFormat)
+                .setTableFilter(tableFilter)
+                .setObjectReuse(objectReuse)
+                .setLazyDecoding(lazyDecoding)
+                .setCodegen(codegen)
+                .setUpsert(upsert)
+                .setDictionaryColumns(dictionaryColumns)
+                .setDictionarySize(dictionarySize)
+                .setSchemaEvolution(schemaEvolution)
+                .setDeadLetterHandler(deadLetterHandler)
+                .setReadableMetadata(readableMetadata)
+                .build();
+    }
+
+    @Override
+    public Map<String, DataType> listReadableMetadata() {
+        final Map<String, DataType> metadataMap = new LinkedHashMap<>();
+        Stream.of(ReadableMetadata.values())
+                .forEachOrdered(m -> metadataMap.put(m.key, m.dataType));
+        return metadataMap;
+    }
+
+    @Override
+    public void applyReadableMetadata(List<String> metadataKeys) {
+        this.metadataKeys = metadataKeys;
+    }
+
+    @Override
+    public ChangelogMode getChangelogMode() {
+        if (upsert) {
+            // the planner normalizes the changelog on the primary key of the table
+            return ChangelogMode.newBuilder()
+                    .addContainedKind(RowKind.INSERT)
+                    .addContainedKind(RowKind.UPDATE_AFTER)
+                    .addContainedKind(RowKind.DELETE)
+                    .build();
+        }
+        return ChangelogMode.newBuilder()
+                .addContainedKind(RowKind.INSERT)
+                .addContainedKind(RowKind.UPDATE_BEFORE)
+                .addContainedKind(RowKind.UPDATE_AFTER)
+                .addContainedKind(RowKind.DELETE)
+                .build();
+    }
+
+    // --------------------------------------------------------------------------------------------
+    // Metadata handling
+    // --------------------------------------------------------------------------------------------
+
+    /** List of metadata that can be read with this format. */
+    enum ReadableMetadata {
+        DATABASE("database", DataTypes.STRING().nullable(), 0, MaxwellXJsonEnvelope::database),
+
+        TABLE("table", DataTypes.STRING().nullable(), 0, MaxwellXJsonEnvelope::table),
+
+        INGESTION_TIMESTAMP(
+                "ingestion-timestamp",
+                DataTypes.TIMESTAMP_WITH_LOCAL_TIME_ZONE(3).nullable(),
+                MaxwellXJsonEnvelope.READ_TS,
+                envelope ->
+                        envelope.ts == null
+                                ? null
+                                : TimestampData.fromEpochMillis(envelope.ts * 1000L)),
+
+        XID("xid", DataTypes.BIGINT().nullable(), MaxwellXJsonEnvelope.READ_XID, e -> e.xid),
+
+        XOFFSET(
+                "xoffset",
+                DataTypes.BIGINT().nullable(),
+                MaxwellXJsonEnvelope.READ_XOFFSET,
+                e -> e.xoffset),
+
+        COMMIT(
+                "commit",
+                DataTypes.BOOLEAN().notNull(),
+                MaxwellXJsonEnvelope.READ_COMMIT,
+                e -> e.commit),
+
+        POSITION(
+                "position",
+                DataTypes.STRING().nullable(),
+                MaxwellXJsonEnvelope.READ_POSITION,
+                e -> e.position),
+
+        BOOTSTRAP(
+                "bootstrap",
+                DataTypes.BOOLEAN().notNull(),
+                0,
+                e -> e.op == MaxwellXJsonEnvelope.OP_BOOTSTRAP_INSERT);
+
+        final String key;
+
+        final DataType dataType;
+
+        /** The meta fields which must be read from the messages, see MaxwellXJsonEnvelope. */
+        final int readFields;
+
+        final MetadataConverter converter;
+
+        ReadableMetadata(
+                String key, DataType dataType, int readFields, MetadataConverter converter) {
+            this.key = key;
+            this.dataType = dataType;
+            this.readFields = readFields;
+            this.converter = converter;
+        }
+    }
+
+    /** Converter from the scanned envelope of a message to a metadata value. */
+    interface MetadataConverter extends Serializable {
+        Object convert(MaxwellXJsonEnvelope envelope);
+    }
+}
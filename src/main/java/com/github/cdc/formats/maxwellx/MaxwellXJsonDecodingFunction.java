@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.RichFlatMapFunction;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.serialization.RuntimeContextInitializationContextAdapters;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.java.typeutils.ResultTypeQueryable;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+
+/**
+ * Decodes the {@link MaxwellXJsonRawMessage}s passed through by a {@link
+ * MaxwellXJsonRawDeserializationSchema} with the given deserialization schema, e.g. a {@link
+ * MaxwellXJsonDeserializationSchema}. Decoding is thus moved out of the source into an operator
+ * whose parallelism is independent of the number of partitions of the topic; keying the messages
+ * by {@link MaxwellXJsonRawMessage#getKeyHash()} keeps the changes of a key in order. Of the two
+ * copies of an update changing the key, each only emits the rows of its key.
+ *
+ * <p>The metrics of the schema are registered under the metric group of the function, the
+ * corrupt messages are handled as configured on the schema.
+ */
+public class MaxwellXJsonDecodingFunction
+        extends RichFlatMapFunction<MaxwellXJsonRawMessage, RowData>
+        implements ResultTypeQueryable<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private final DeserializationSchema<RowData> schema;
+
+    private transient PartCollector partCollector;
+
+    public MaxwellXJsonDecodingFunction(DeserializationSchema<RowData> schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void open(Configuration parameters) throws Exception {
+        schema.open(
+                RuntimeContextInitializationContextAdapters.deserializationAdapter(
+                        getRuntimeContext()));
+        this.partCollector = new PartCollector();
+    }
+
+    @Override
+    public void flatMap(MaxwellXJsonRawMessage value, Collector<RowData> out) throws Exception {
+        if (value.getRows() == MaxwellXJsonRawMessage.ALL_ROWS) {
+            schema.deserialize(value.getMessage(), out);
+        } else {
+            partCollector.before = value.getRows() == MaxwellXJsonRawMessage.UPDATE_BEFORE_ROWS;
+            partCollector.out = out;
+            schema.deserialize(value.getMessage(), partCollector);
+        }
+    }
+
+    @Override
+    public TypeInformation<RowData> getProducedType() {
+        return schema.getProducedType();
+    }
+
+    /** Only forwards the rows of one of the keys of an update changing the key. */
+    private static final class PartCollector implements Collector<RowData> {
+        private boolean before;
+        private Collector<RowData> out;
+
+        @Override
+        public void collect(RowData record) {
+            if ((record.getRowKind() == RowKind.UPDATE_BEFORE) == before) {
+                out.collect(record);
+            }
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Metrics of the decoding of Maxwell JSON messages, registered under the "maxwellx" group of a
+ * subtask:
+ *
+ * <ul>
+ *   <li>numInsertMessages, numUpdateMessages, numDeleteMessages, numUnknownMessages: the accepted
+ *       messages per "type";
+ *   <li>numBootstrapInsertMessages, numBootstrapStartMessages, numBootstrapCompleteMessages: the
+ *       accepted messages of the table snapshots taken by "maxwell-bootstrap";
+ *   <li>numBootstrappingTables: the tables whose snapshot started and did not complete yet;
+ *   <li>numFilteredMessages: the messages skipped by the database/table filter;
+ *   <li>numParseErrors: the corrupt messages, whether they fail the job or are ignored;
+ *   <li>numSchemaChanges: the column layout changes detected if the schema evolution is tracked;
+ *   <li>messageBytes: the size of the latest messages;
+ *   <li>decodeLatencyNanos: the decoding time of one message out of {@link
+ *       #LATENCY_SAMPLE_INTERVAL}.
+ * </ul>
+ *
+ * <p>A deserialization schema is called by the single thread of its subtask, so the metrics are
+ * plain fields updated without synchronization, as the {@link SimpleCounter}s of Flink.
+ */
+@Internal
+final class MaxwellXJsonDecodingMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaxwellXJsonDecodingMetrics.class);
+
+    static final String GROUP_NAME = "maxwellx";
+
+    /** One message out of this interval is timed, a power of two. */
+    static final int LATENCY_SAMPLE_INTERVAL = 128;
+
+    private static final int HISTOGRAM_WINDOW_SIZE = 1024;
+
+    /** The counters of the accepted messages, indexed by {@link MaxwellXJsonEnvelope#op}. */
+    private final Counter[] opCounters;
+
+    private final Counter filteredCounter;
+
+    private final Counter parseErrorCounter;
+
+    private final Counter schemaChangeCounter;
+
+    private final MaxwellXJsonHistogram messageBytes;
+
+    private final MaxwellXJsonHistogram decodeLatency;
+
+    /** The "database.table" names of the snapshots in progress. */
+    private final Set<String> bootstrappingTables = new HashSet<>();
+
+    private int messages;
+
+    MaxwellXJsonDecodingMetrics(MetricGroup parent) {
+        MetricGroup group = parent.addGroup(GROUP_NAME);
+        this.opCounters = new Counter[MaxwellXJsonEnvelope.OP_COUNT];
+        opCounters[MaxwellXJsonEnvelope.OP_UNKNOWN] = group.counter("numUnknownMessages");
+        opCounters[MaxwellXJsonEnvelope.OP_INSERT] = group.counter("numInsertMessages");
+        opCounters[MaxwellXJsonEnvelope.OP_UPDATE] = group.counter("numUpdateMessages");
+        opCounters[MaxwellXJsonEnvelope.OP_DELETE] = group.counter("numDeleteMessages");
+        opCounters[MaxwellXJsonEnvelope.OP_BOOTSTRAP_INSERT] =
+                group.counter("numBootstrapInsertMessages");
+        opCounters[MaxwellXJsonEnvelope.OP_BOOTSTRAP_START] =
+                group.counter("numBootstrapStartMessages");
+        opCounters[MaxwellXJsonEnvelope.OP_BOOTSTRAP_COMPLETE] =
+                group.counter("numBootstrapCompleteMessages");
+        group.gauge("numBootstrappingTables", (Gauge<Integer>) bootstrappingTables::size);
+        this.filteredCounter = group.counter("numFilteredMessages");
+        this.parseErrorCounter = group.counter("numParseErrors");
+        this.schemaChangeCounter = group.counter("numSchemaChanges");
+        this.messageBytes =
+                group.histogram("messageBytes", new MaxwellXJsonHistogram(HISTOGRAM_WINDOW_SIZE));
+        this.decodeLatency =
+                group.histogram(
+                        "decodeLatencyNanos", new MaxwellXJsonHistogram(HISTOGRAM_WINDOW_SIZE));
+    }
+
+    /**
+     * Records the size of a received message, returns true if the decoding of the message should
+     * be timed and reported with {@link #decoded(long)}.
+     */
+    boolean received(int length) {
+        messageBytes.update(length);
+        return (++messages & (LATENCY_SAMPLE_INTERVAL - 1)) == 0;
+    }
+
+    /**
+     * Records a message accepted by the filter, of any format, and the start or the end of the
+     * snapshot of its table if it is a "bootstrap-start" or "bootstrap-complete" marker.
+     */
+    void accepted(MaxwellXJsonEnvelope envelope) {
+        opCounters[envelope.op].inc();
+        if (envelope.isBootstrapMarker()) {
+            bootstrapMarker(envelope);
+        }
+    }
+
+    private void bootstrapMarker(MaxwellXJsonEnvelope envelope) {
+        String name = envelope.database() + "." + envelope.table();
+        if (envelope.op == MaxwellXJsonEnvelope.OP_BOOTSTRAP_START) {
+            bootstrappingTables.add(name);
+            LOG.info("The bootstrap of table '{}' started.", name);
+        } else if (bootstrappingTables.remove(name)) {
+            LOG.info(
+                    "The bootstrap of table '{}' completed, {} bootstrap-insert messages received"
+                            + " by this subtask so far.",
+                    name,
+                    opCounters[MaxwellXJsonEnvelope.OP_BOOTSTRAP_INSERT].getCount());
+        } else {
+            // the start marker went to another partition, or was consumed before a restart
+            LOG.info("The bootstrap of table '{}' completed.", name);
+        }
+    }
+
+    /** Records a message skipped by the filter. */
+    void filtered() {
+        filteredCounter.inc();
+    }
+
+    void parseError() {
+        parseErrorCounter.inc();
+    }
+
+    /** Records a change of the column layout of the messages. */
+    void schemaChanged() {
+        schemaChangeCounter.inc();
+    }
+
+    /** Records the decoding time of a sampled message. */
+    void decoded(long nanos) {
+        decodeLatency.update(nanos);
+    }
+}
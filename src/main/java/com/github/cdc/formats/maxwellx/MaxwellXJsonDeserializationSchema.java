@@ -21,23 +21,28 @@ package com.github.cdc.formats.maxwellx;
 import org.apache.flink.annotation.Internal;
 import org.apache.flink.api.common.serialization.DeserializationSchema;
 import org.apache.flink.api.common.typeinfo.TypeInformation;
-import org.apache.flink.formats.json.JsonRowDataDeserializationSchema;
 import org.apache.flink.formats.json.TimestampFormat;
-import org.apache.flink.table.api.DataTypes;
 import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
-import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.data.StringData;
 import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.types.RowKind;
 import org.apache.flink.util.Collector;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import javax.annotation.Nullable;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import static java.lang.String.format;
-import static org.apache.flink.table.types.utils.TypeConversions.fromLogicalToDataType;
 
 /**
  * Deserialization schema from Maxwell JSON to Flink Table/SQL internal data structure {@link
@@ -45,29 +50,35 @@ import static org.apache.flink.table.types.utils.TypeConversions.fromLogicalToDa
  * database data and convert into {@link RowData} with {@link RowKind}.
  *
  * <p>Deserializes a <code>byte[]</code> message as a JSON object and reads the specified fields.
+ * The message is decoded in a single streaming pass: the "database" and "table" meta fields are
+ * checked first, and the "data"/"old" payloads are only converted for the accepted messages.
+ * Only the columns declared in the {@link RowType} are converted, so a row type declaring a
+ * projection of the table columns skips the other ones at the token level.
  *
- * <p>Failures during deserialization are forwarded as wrapped IOExceptions.
+ * <p>Failures during deserialization are forwarded as wrapped IOExceptions, or passed to the
+ * {@link MaxwellXJsonDeadLetterHandler} if one is set.
  *
  * @see <a href="http://maxwells-daemon.io/">Maxwell</a>
  */
 public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<RowData> {
     private static final long serialVersionUID = 1L;
 
-    private static final String OP_INSERT = "insert";
-    private static final String OP_UPDATE = "update";
-    private static final String OP_DELETE = "delete";
+    private static final Logger LOG = LoggerFactory.getLogger(MaxwellXJsonDeserializationSchema.class);
+
+    private static final int DEFAULT_DICTIONARY_SIZE =
+            MaxwellXJsonOptions.DICTIONARY_SIZE.defaultValue();
 
-    /** The deserializer to deserialize Maxwell JSON data. */
-    private final JsonRowDataDeserializationSchema jsonDeserializer;
+    /** Logical type describing the database table. */
+    private final RowType rowType;
+
+    /** The decoder for the "data" and "old" payloads of Maxwell JSON data. */
+    private final MaxwellXJsonPayloadDecoder payloadDecoder;
 
     /** TypeInformation of the produced {@link RowData}. * */
     private final TypeInformation<RowData> resultTypeInfo;
 
-    /** Only read changelogs from the specific database. */
-    private final @Nullable String database;
-
-    /** Only read changelogs from the specific table. */
-    private final @Nullable String table;
+    /** Only read changelogs from the accepted databases and tables. */
+    private final MaxwellXJsonTableFilter tableFilter;
 
     /** Flag indicating the deleted rows contained "old" field, instead of "data" field. */
     private final boolean deletedContainsOldField;
@@ -75,9 +86,60 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
     /** Flag indicating whether to ignore invalid fields/rows (default: throw an exception). */
     private final boolean ignoreParseErrors;
 
+    /** Timestamp format specification which is used to parse timestamp. */
+    private final TimestampFormat timestampFormat;
+
+    /** Flag indicating whether the emitted rows are reused across messages. */
+    private final boolean objectReuse;
+
+    /** Flag indicating whether the emitted rows convert their fields on access. */
+    private final boolean lazyDecoding;
+
+    /** Flag indicating whether to generate a decoder specialized for the row type. */
+    private final boolean codegen;
+
+    /** Handler of the corrupt messages, null to fail or skip them. */
+    @Nullable private final MaxwellXJsonDeadLetterHandler deadLetterHandler;
+
+    /** Flag indicating whether the transaction meta fields are appended to the rows. */
+    private final boolean transactionMetadata;
+
+    /** Flag indicating whether the updates are emitted without their before image. */
+    private final boolean upsert;
+
+    /** The metadata appended to the rows, in the order of the produced fields. */
+    private final MaxwellXJsonDecodingFormat.ReadableMetadata[] readableMetadata;
+
+    /** The string columns whose values are shared through a dictionary. */
+    private final Set<String> dictionaryColumns;
+
+    /** Number of entries of the dictionary of each column. */
+    private final int dictionarySize;
+
+    /** Flag indicating whether the column layout of the messages is tracked. */
+    private final boolean schemaEvolution;
+
+    /** The primary key columns of the table, empty if the rows are not keyed. */
+    private final List<String> primaryKey;
+
+    /** The key of the emitted rows, null if the rows are not keyed. */
+    @Nullable private final MaxwellXJsonRowKey rowKey;
+
     /** Number of fields. */
     private final int fieldCount;
 
+    private transient MaxwellXJsonScanner scanner;
+
+    private transient MaxwellXJsonEnvelope envelope;
+
+    private transient MaxwellXJsonDecodingMetrics metrics;
+
+    private transient TransactionCollector transactionCollector;
+
+    private transient MetadataCollector metadataCollector;
+
+    private transient KeyCollector keyCollector;
+
     public MaxwellXJsonDeserializationSchema(
             RowType rowType,
             TypeInformation<RowData> resultTypeInfo,
@@ -86,22 +148,76 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
             boolean deletedContainsOldField,
             boolean ignoreParseErrors,
             TimestampFormat timestampFormatOption) {
+        this(
+                rowType,
+                resultTypeInfo,
+                new MaxwellXJsonTableFilter(database, table),
+                deletedContainsOldField,
+                ignoreParseErrors,
+                timestampFormatOption,
+                false,
+                false,
+                true,
+                null,
+                false,
+                false,
+                Collections.emptyList(),
+                Collections.emptySet(),
+                DEFAULT_DICTIONARY_SIZE,
+                false,
+                Collections.emptyList());
+    }
+
+    public MaxwellXJsonDeserializationSchema(
+            RowType rowType,
+            TypeInformation<RowData> resultTypeInfo,
+            MaxwellXJsonTableFilter tableFilter,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormatOption,
+            boolean objectReuse,
+            boolean lazyDecoding,
+            boolean codegen,
+            @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler,
+            boolean transactionMetadata,
+            boolean upsert,
+            List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata,
+            Set<String> dictionaryColumns,
+            int dictionarySize,
+            boolean schemaEvolution,
+            List<String> primaryKey) {
+        this.rowType = rowType;
         this.resultTypeInfo = resultTypeInfo;
-        this.database = database;
-        this.table = table;
+        this.tableFilter = tableFilter;
         this.deletedContainsOldField = deletedContainsOldField;
         this.ignoreParseErrors = ignoreParseErrors;
+        this.timestampFormat = timestampFormatOption;
+        this.objectReuse = objectReuse;
+        this.lazyDecoding = lazyDecoding;
+        this.codegen = codegen;
+        this.deadLetterHandler = deadLetterHandler;
+        this.transactionMetadata = transactionMetadata;
+        this.upsert = upsert;
+        this.readableMetadata =
+                readableMetadata.toArray(new MaxwellXJsonDecodingFormat.ReadableMetadata[0]);
+        this.dictionaryColumns = dictionaryColumns;
+        this.dictionarySize = dictionarySize;
+        this.schemaEvolution = schemaEvolution;
+        this.primaryKey = new ArrayList<>(primaryKey);
+        this.rowKey = primaryKey.isEmpty() ? null : new MaxwellXJsonRowKey(rowType, primaryKey);
         this.fieldCount = rowType.getFieldCount();
-        this.jsonDeserializer =
-                new JsonRowDataDeserializationSchema(
-                        createJsonRowType(fromLogicalToDataType(rowType)),
-                        // the result type is never used, so it's fine to pass in Canal's result
-                        // type
-                        resultTypeInfo,
-                        false, // ignoreParseErrors already contains the functionality of
-                        // failOnMissingField
+        this.payloadDecoder =
+                new MaxwellXJsonPayloadDecoder(
+                        rowType,
+                        deletedContainsOldField,
                         ignoreParseErrors,
-                        timestampFormatOption);
+                        timestampFormatOption,
+                        objectReuse,
+                        lazyDecoding,
+                        upsert,
+                        dictionaryColumns,
+                        dictionarySize,
+                        schemaEvolution);
     }
 
     // ------------------------------------------------------------------------------------------
@@ -120,9 +236,22 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
         private final TypeInformation<RowData> resultTypeInfo;
         private String database = null;
         private String table = null;
+        private MaxwellXJsonTableFilter tableFilter = null;
         private boolean deletedContainsOldField = false;
         private boolean ignoreParseErrors = false;
         private TimestampFormat timestampFormat = TimestampFormat.SQL;
+        private boolean objectReuse = false;
+        private boolean lazyDecoding = false;
+        private boolean codegen = true;
+        private MaxwellXJsonDeadLetterHandler deadLetterHandler = null;
+        private boolean transactionMetadata = false;
+        private boolean upsert = false;
+        private List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata =
+                Collections.emptyList();
+        private Set<String> dictionaryColumns = Collections.emptySet();
+        private int dictionarySize = DEFAULT_DICTIONARY_SIZE;
+        private boolean schemaEvolution = false;
+        private List<String> primaryKey = Collections.emptyList();
 
         private Builder(RowType rowType, TypeInformation<RowData> resultTypeInfo) {
             this.rowType = rowType;
@@ -139,6 +268,15 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
             return this;
         }
 
+        /**
+         * Sets the filter on the "database" and "table" meta fields, takes precedence over {@link
+         * #setDatabase(String)} and {@link #setTable(String)}.
+         */
+        public Builder setTableFilter(MaxwellXJsonTableFilter tableFilter) {
+            this.tableFilter = tableFilter;
+            return this;
+        }
+
         public Builder setDeletedContainsOldField(boolean deletedContainsOldField) {
             this.deletedContainsOldField = deletedContainsOldField;
             return this;
@@ -154,9 +292,136 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
             return this;
         }
 
+        /**
+         * Enables the object reuse mode: the emitted rows are overwritten by the next message, so
+         * it must only be enabled if the downstream operators do not hold on to them.
+         */
+        public Builder setObjectReuse(boolean objectReuse) {
+            this.objectReuse = objectReuse;
+            return this;
+        }
+
+        /**
+         * Enables the lazy decoding mode: the emitted rows keep the message bytes and only convert
+         * a field when it is read, takes precedence over {@link #setObjectReuse(boolean)}.
+         */
+        public Builder setLazyDecoding(boolean lazyDecoding) {
+            this.lazyDecoding = lazyDecoding;
+            return this;
+        }
+
+        /**
+         * Sets whether to generate a decoder specialized for the row type when the schema is
+         * opened (default: true), the interpreted decoder is used otherwise.
+         */
+        public Builder setCodegen(boolean codegen) {
+            this.codegen = codegen;
+            return this;
+        }
+
+        /**
+         * Sets the handler of the messages which cannot be decoded. The corrupt messages are passed
+         * to the handler instead of failing the job, or of being skipped if parse errors are
+         * ignored; ignoring parse errors still sets the fields which cannot be converted to null.
+         */
+        public Builder setDeadLetterHandler(
+                @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+            this.deadLetterHandler = deadLetterHandler;
+            return this;
+        }
+
+        /**
+         * Appends the transaction meta fields of Maxwell to the produced rows, see {@link
+         * MaxwellXJsonTransactionMetadata}. The produced type information must then describe
+         * {@link MaxwellXJsonTransactionMetadata#appendTo(RowType)} of the row type.
+         */
+        public Builder setTransactionMetadata(boolean transactionMetadata) {
+            this.transactionMetadata = transactionMetadata;
+            return this;
+        }
+
+        /**
+         * Enables the upsert mode: an update only emits its {@link RowKind#UPDATE_AFTER} row, and
+         * its "old" payload is never converted. The rows must be consumed by key, e.g. by a sink
+         * with a primary key.
+         */
+        public Builder setUpsert(boolean upsert) {
+            this.upsert = upsert;
+            return this;
+        }
+
+        /**
+         * Appends the given metadata to the produced rows, after the transaction meta fields if
+         * any. Only the meta fields backing the given metadata are read from the messages.
+         */
+        Builder setReadableMetadata(
+                List<MaxwellXJsonDecodingFormat.ReadableMetadata> readableMetadata) {
+            this.readableMetadata = readableMetadata;
+            return this;
+        }
+
+        /**
+         * Shares the values of the given string columns across rows: each column gets a bounded
+         * dictionary from the raw bytes of its recent values to immutable {@link StringData}
+         * instances, see {@link #setDictionarySize(int)}. Meant for low-cardinality columns such as
+         * a status or a currency code.
+         */
+        public Builder setDictionaryColumns(Set<String> dictionaryColumns) {
+            this.dictionaryColumns = dictionaryColumns;
+            return this;
+        }
+
+        /** Sets the number of entries of the dictionary of each column (default: 256). */
+        public Builder setDictionarySize(int dictionarySize) {
+            this.dictionarySize = dictionarySize;
+            return this;
+        }
+
+        /**
+         * Tracks the column layout of the "data" payloads: the members are mapped to the fields
+         * through a small cache of layouts instead of looking up their names, and a layout change,
+         * e.g. after an ALTER TABLE upstream, is logged with its unknown and missing columns and
+         * counted by the "numSchemaChanges" metric. The unknown columns are still skipped and the
+         * missing ones are null.
+         */
+        public Builder setSchemaEvolution(boolean schemaEvolution) {
+            this.schemaEvolution = schemaEvolution;
+            return this;
+        }
+
+        /**
+         * Sets the primary key of the table: the binary key and the key hash of every row are
+         * computed while the row is decoded, and the rows are emitted as {@link
+         * MaxwellXJsonKeyedRowData}, whose key and hash are returned as is by a {@link
+         * MaxwellXJsonRowKey} of the same columns, e.g. through a {@link
+         * MaxwellXJsonKeyHashSelector}.
+         */
+        public Builder setPrimaryKey(List<String> primaryKey) {
+            this.primaryKey = primaryKey;
+            return this;
+        }
+
         public MaxwellXJsonDeserializationSchema build() {
             return new MaxwellXJsonDeserializationSchema(
-                    rowType, resultTypeInfo, database, table, deletedContainsOldField, ignoreParseErrors, timestampFormat);
+                    rowType,
+                    resultTypeInfo,
+                    tableFilter != null
+                            ? tableFilter
+                            : new MaxwellXJsonTableFilter(database, table),
+                    deletedContainsOldField,
+                    ignoreParseErrors,
+                    timestampFormat,
+                    objectReuse,
+                    lazyDecoding,
+                    codegen,
+                    deadLetterHandler,
+                    transactionMetadata,
+                    upsert,
+                    readableMetadata,
+                    dictionaryColumns,
+                    dictionarySize,
+                    schemaEvolution,
+                    primaryKey);
         }
     }
 
@@ -168,79 +433,117 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
                 "Please invoke DeserializationSchema#deserialize(byte[], Collector<RowData>) instead.");
     }
 
+    @Override
+    public void open(InitializationContext context) throws Exception {
+        this.scanner = new MaxwellXJsonScanner();
+        this.envelope = new MaxwellXJsonEnvelope();
+        int readFields = transactionMetadata ? MaxwellXJsonEnvelope.READ_TRANSACTION : 0;
+        for (MaxwellXJsonDecodingFormat.ReadableMetadata metadata : readableMetadata) {
+            readFields |= metadata.readFields;
+        }
+        this.envelope.readFields = readFields;
+        this.transactionCollector = new TransactionCollector();
+        this.metadataCollector = new MetadataCollector();
+        this.keyCollector = new KeyCollector();
+        this.metrics = new MaxwellXJsonDecodingMetrics(context.getMetricGroup());
+        payloadDecoder.open(codegen);
+        if (deadLetterHandler != null) {
+            deadLetterHandler.open(context);
+        }
+    }
+
     @Override
     public void deserialize(@Nullable byte[] message, Collector<RowData> out) throws IOException {
         if (message == null || message.length == 0) {
             return;
         }
         try {
-            RowData row = jsonDeserializer.deserialize(message);
-            if (database != null) {
-                String currentDatabase = row.getString(3).toString();
-                if (!database.equals(currentDatabase)) {
-                    return;
-                }
-            }
-            if (table != null) {
-                String currentTable = row.getString(4).toString();
-                if (!table.equals(currentTable)) {
-                    return;
-                }
-            }
-            String type = row.getString(2).toString(); // "type" field
-            if (OP_INSERT.equals(type)) {
-                // "data" field is a row, contains inserted rows
-                RowData insert = row.getRow(0, fieldCount);
-                insert.setRowKind(RowKind.INSERT);
-                out.collect(insert);
-            } else if (OP_UPDATE.equals(type)) {
-                // "data" field is a row, contains new rows
-                // "old" field is an array of row, contains old values
-                // the underlying JSON deserialization schema always produce GenericRowData.
-                GenericRowData after = (GenericRowData) row.getRow(0, fieldCount); // "data" field
-                GenericRowData before = (GenericRowData) row.getRow(1, fieldCount); // "old" field
-                for (int f = 0; f < fieldCount; f++) {
-                    if (before.isNullAt(f)) {
-                        // not null fields in "old" (before) means the fields are changed
-                        // null/empty fields in "old" (before) means the fields are not changed
-                        // so we just copy the not changed fields into before
-                        before.setField(f, after.getField(f));
-                    }
-                }
-                before.setRowKind(RowKind.UPDATE_BEFORE);
-                after.setRowKind(RowKind.UPDATE_AFTER);
-                out.collect(before);
-                out.collect(after);
-            } else if (OP_DELETE.equals(type)) {
-                // "data"(or "old") field is a row, contains deleted rows
-                RowData delete;
-                if (deletedContainsOldField) {
-                    // from the "old" field
-                    delete = row.getRow(1, fieldCount);
-                } else {
-                    // from the "data" field
-                    delete = row.getRow(0, fieldCount);
-                }
-                delete.setRowKind(RowKind.DELETE);
-                out.collect(delete);
-
-            } else {
-                if (!ignoreParseErrors) {
-                    throw new IOException(
-                            format(
-                                    "Unknown \"type\" value \"%s\". The Maxwell JSON message is '%s'",
-                                    type, new String(message)));
-                }
-            }
+            decodeMeasured(message, out);
         } catch (Throwable t) {
             // a big try catch to protect the processing.
-            if (!ignoreParseErrors) {
+            handleError(message, t);
+        }
+    }
+
+    /** Decodes a non-empty message, timing one message out of the sampling interval. */
+    private void decodeMeasured(byte[] message, Collector<RowData> out) throws IOException {
+        if (metrics.received(message.length)) {
+            long start = System.nanoTime();
+            decode(message, out);
+            metrics.decoded(System.nanoTime() - start);
+        } else {
+            decode(message, out);
+        }
+    }
+
+    private void decode(byte[] message, Collector<RowData> out) throws IOException {
+        // the meta fields are checked before any payload is converted,
+        // so the messages of other databases/tables are skipped at the token level
+        if (!envelope.scan(scanner, message, tableFilter)) {
+            metrics.filtered();
+            return;
+        }
+        metrics.accepted(envelope);
+        Collector<RowData> target = out;
+        if (rowKey != null) {
+            // the key is computed on the complete rows, so that the keyed row is the emitted one
+            keyCollector.rowKey = rowKey;
+            keyCollector.out = out;
+            target = keyCollector;
+        }
+        if (readableMetadata.length > 0) {
+            GenericRowData metadata = new GenericRowData(readableMetadata.length);
+            for (int i = 0; i < readableMetadata.length; i++) {
+                metadata.setField(i, readableMetadata[i].converter.convert(envelope));
+            }
+            metadataCollector.metadata = metadata;
+            metadataCollector.out = target;
+            target = metadataCollector;
+        }
+        if (transactionMetadata) {
+            transactionCollector.begin(envelope, target);
+            target = transactionCollector;
+        }
+        boolean decoded = payloadDecoder.decode(message, envelope, scanner, target);
+        if (transactionMetadata) {
+            transactionCollector.end();
+        }
+        if (schemaEvolution) {
+            MaxwellXJsonSchemaTracker.Layout change = payloadDecoder.pollSchemaChange();
+            if (change != null) {
+                metrics.schemaChanged();
+                LOG.warn(
+                        "The columns of table '{}.{}' changed, unknown columns: {}, missing columns: {}.",
+                        envelope.database(),
+                        envelope.table(),
+                        change.unknownColumns(),
+                        change.missingColumns());
+            }
+        }
+        if (!decoded) {
+            if (!ignoreParseErrors && deadLetterHandler != null) {
+                // the dead letter carries the message, it is not copied into the reason
+                throw new MaxwellXJsonScanner.MaxwellXJsonParseException(
+                        format("Unknown \"type\" value \"%s\".", envelope.typeText()));
+            } else if (!ignoreParseErrors) {
                 throw new IOException(
-                        format("Corrupt Maxwell JSON message '%s'.", new String(message)), t);
+                        format(
+                                "Unknown \"type\" value \"%s\". The Maxwell JSON message is '%s'",
+                                envelope.typeText(), new String(message)));
             }
         }
     }
 
+    private void handleError(byte[] message, Throwable t) throws IOException {
+        metrics.parseError();
+        if (deadLetterHandler != null) {
+            deadLetterHandler.handle(message, t);
+        } else if (!ignoreParseErrors) {
+            throw new IOException(
+                    format("Corrupt Maxwell JSON message '%s'.", new String(message)), t);
+        }
+    }
+
     @Override
     public boolean isEndOfStream(RowData nextElement) {
         return false;
@@ -261,26 +564,120 @@ public class MaxwellXJsonDeserializationSchema implements DeserializationSchema<
         }
         MaxwellXJsonDeserializationSchema that = (MaxwellXJsonDeserializationSchema) o;
         return ignoreParseErrors == that.ignoreParseErrors
+                && deletedContainsOldField == that.deletedContainsOldField
+                && objectReuse == that.objectReuse
+                && lazyDecoding == that.lazyDecoding
+                && codegen == that.codegen
+                && Objects.equals(deadLetterHandler, that.deadLetterHandler)
+                && transactionMetadata == that.transactionMetadata
+                && upsert == that.upsert
+                && Arrays.equals(readableMetadata, that.readableMetadata)
+                && Objects.equals(dictionaryColumns, that.dictionaryColumns)
+                && dictionarySize == that.dictionarySize
+                && schemaEvolution == that.schemaEvolution
+                && Objects.equals(primaryKey, that.primaryKey)
                 && fieldCount == that.fieldCount
-                && Objects.equals(jsonDeserializer, that.jsonDeserializer)
+                && Objects.equals(rowType, that.rowType)
+                && Objects.equals(tableFilter, that.tableFilter)
+                && timestampFormat == that.timestampFormat
                 && Objects.equals(resultTypeInfo, that.resultTypeInfo);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(jsonDeserializer, resultTypeInfo, deletedContainsOldField, ignoreParseErrors, fieldCount);
+        return Objects.hash(
+                rowType,
+                resultTypeInfo,
+                tableFilter,
+                deletedContainsOldField,
+                ignoreParseErrors,
+                timestampFormat,
+                objectReuse,
+                lazyDecoding,
+                codegen,
+                deadLetterHandler,
+                transactionMetadata,
+                upsert,
+                Arrays.hashCode(readableMetadata),
+                dictionaryColumns,
+                dictionarySize,
+                schemaEvolution,
+                primaryKey,
+                fieldCount);
     }
 
-    private RowType createJsonRowType(DataType databaseSchema) {
-        // Maxwell JSON contains other information, e.g. "ts"
-        // but we don't need them
-        return (RowType)
-                DataTypes.ROW(
-                                DataTypes.FIELD("data", databaseSchema),
-                                DataTypes.FIELD("old", databaseSchema),
-                                DataTypes.FIELD("type", DataTypes.STRING()),
-                                DataTypes.FIELD("database", DataTypes.STRING()),
-                                DataTypes.FIELD("table", DataTypes.STRING()))
-                        .getLogicalType();
+    /**
+     * Appends the transaction meta fields of the current message to the rows. The "commit" flag is
+     * only set on the last row of a message, so that a transaction ends after the whole message.
+     */
+    private static final class TransactionCollector implements Collector<RowData> {
+        private GenericRowData metadata;
+        private GenericRowData lastMetadata;
+        private Collector<RowData> out;
+        private RowData pending;
+
+        private void begin(MaxwellXJsonEnvelope envelope, Collector<RowData> out) {
+            this.lastMetadata = MaxwellXJsonTransactionMetadata.of(envelope);
+            if (envelope.commit) {
+                this.metadata = MaxwellXJsonTransactionMetadata.of(envelope);
+                metadata.setField(MaxwellXJsonTransactionMetadata.COMMIT_INDEX, false);
+            } else {
+                this.metadata = lastMetadata;
+            }
+            this.out = out;
+            this.pending = null;
+        }
+
+        private void end() {
+            if (pending != null) {
+                out.collect(MaxwellXJsonTransactionMetadata.join(pending, lastMetadata));
+                pending = null;
+            }
+        }
+
+        @Override
+        public void collect(RowData record) {
+            if (pending != null) {
+                out.collect(MaxwellXJsonTransactionMetadata.join(pending, metadata));
+            }
+            pending = record;
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
+    }
+
+    /** Appends the requested metadata of the current message to the rows. */
+    private static final class MetadataCollector implements Collector<RowData> {
+        private GenericRowData metadata;
+        private Collector<RowData> out;
+
+        @Override
+        public void collect(RowData record) {
+            out.collect(MaxwellXJsonTransactionMetadata.join(record, metadata));
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
+    }
+
+    /** Wraps the rows of the current message with their key. */
+    private static final class KeyCollector implements Collector<RowData> {
+        private MaxwellXJsonRowKey rowKey;
+        private Collector<RowData> out;
+
+        @Override
+        public void collect(RowData record) {
+            out.collect(rowKey.wrap(record));
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
     }
 }
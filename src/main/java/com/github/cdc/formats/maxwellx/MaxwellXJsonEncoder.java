@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.Encoder;
+import org.apache.flink.table.data.RowData;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * {@link Encoder} writing a row as a newline-delimited Maxwell JSON message, for the row formats
+ * of the file sinks. The message is written through a buffer reused across records; use the
+ * {@link MaxwellXJsonBulkWriter} to write the files in blocks or to compress them.
+ */
+public class MaxwellXJsonEncoder implements Encoder<RowData> {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte NEWLINE = '\n';
+
+    private final MaxwellXJsonSerializationSchema schema;
+
+    private transient MaxwellXJsonOutputBuffer buffer;
+
+    public MaxwellXJsonEncoder(MaxwellXJsonSerializationSchema schema) {
+        this.schema = schema;
+    }
+
+    @Override
+    public void encode(RowData element, OutputStream stream) throws IOException {
+        if (buffer == null) {
+            buffer = new MaxwellXJsonOutputBuffer(1024);
+        }
+        buffer.reset();
+        schema.write(element, buffer);
+        buffer.write(NEWLINE);
+        buffer.writeTo(stream);
+    }
+}
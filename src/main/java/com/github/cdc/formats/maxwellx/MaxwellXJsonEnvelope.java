@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.StringData;
+
+import javax.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_NULL;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_STRING;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_TRUE;
+
+/**
+ * The envelope of a Maxwell JSON message, i.e. the meta fields and the positions of the "data" and
+ * "old" payloads. An envelope is filled by a single pass over the top-level members of a message
+ * and is reused for all the messages of a subtask.
+ */
+@Internal
+final class MaxwellXJsonEnvelope {
+
+    static final int OP_UNKNOWN = 0;
+    static final int OP_INSERT = 1;
+    static final int OP_UPDATE = 2;
+    static final int OP_DELETE = 3;
+
+    /** A row of a table snapshot taken by "maxwell-bootstrap", decoded as an insert. */
+    static final int OP_BOOTSTRAP_INSERT = 4;
+
+    /** Marks the start of a table snapshot, carries no row. */
+    static final int OP_BOOTSTRAP_START = 5;
+
+    /** Marks the end of a table snapshot, carries no row. */
+    static final int OP_BOOTSTRAP_COMPLETE = 6;
+
+    /** Number of the {@code OP_*} codes. */
+    static final int OP_COUNT = 7;
+
+    static final int READ_XID = 1;
+    static final int READ_XOFFSET = 1 << 1;
+    static final int READ_COMMIT = 1 << 2;
+    static final int READ_TS = 1 << 3;
+    static final int READ_POSITION = 1 << 4;
+    static final int READ_TRANSACTION =
+            READ_XID | READ_XOFFSET | READ_COMMIT | READ_TS | READ_POSITION;
+
+    private static final byte[] FIELD_DATA = bytes("data");
+    private static final byte[] FIELD_OLD = bytes("old");
+    private static final byte[] FIELD_TYPE = bytes("type");
+    private static final byte[] FIELD_DATABASE = bytes("database");
+    private static final byte[] FIELD_TABLE = bytes("table");
+    private static final byte[] FIELD_XID = bytes("xid");
+    private static final byte[] FIELD_XOFFSET = bytes("xoffset");
+    private static final byte[] FIELD_COMMIT = bytes("commit");
+    private static final byte[] FIELD_TS = bytes("ts");
+    private static final byte[] FIELD_POSITION = bytes("position");
+
+    private static final byte[] TYPE_INSERT = bytes("insert");
+    private static final byte[] TYPE_UPDATE = bytes("update");
+    private static final byte[] TYPE_DELETE = bytes("delete");
+    private static final byte[] TYPE_BOOTSTRAP_INSERT = bytes("bootstrap-insert");
+    private static final byte[] TYPE_BOOTSTRAP_START = bytes("bootstrap-start");
+    private static final byte[] TYPE_BOOTSTRAP_COMPLETE = bytes("bootstrap-complete");
+
+    /** Number of distinct "database" and "table" values whose string data are shared. */
+    private static final int META_DICTIONARY_SIZE = 64;
+
+    /** Shares the "database" values, which repeat in every message. */
+    private final MaxwellXJsonStringDictionary databases =
+            new MaxwellXJsonStringDictionary(META_DICTIONARY_SIZE);
+
+    /** Shares the "table" values, which repeat in every message. */
+    private final MaxwellXJsonStringDictionary tables =
+            new MaxwellXJsonStringDictionary(META_DICTIONARY_SIZE);
+
+    /** Buffer holding the "database" value, null if the field is absent. */
+    @Nullable byte[] databaseBuf;
+
+    int databaseStart;
+    int databaseEnd;
+
+    /** Buffer holding the "table" value, null if the field is absent. */
+    @Nullable byte[] tableBuf;
+
+    int tableStart;
+    int tableEnd;
+
+    /** Buffer holding the "type" value, null if the field is absent. */
+    @Nullable byte[] typeBuf;
+
+    int typeStart;
+    int typeEnd;
+
+    /** The operation described by the "type" field. */
+    int op;
+
+    /** Offset of the "data" value in the message, -1 if the field is absent. */
+    int dataOffset;
+
+    /** Offset of the "old" value in the message, -1 if the field is absent. */
+    int oldOffset;
+
+    /** The transaction meta fields which are read (READ_* flags), the others are skipped. */
+    int readFields;
+
+    /** The "xid" value, null if the field is absent or not read. */
+    @Nullable Long xid;
+
+    /** The "xoffset" value, null if the field is absent or not read. */
+    @Nullable Long xoffset;
+
+    /** Whether the message is the last one of its transaction. */
+    boolean commit;
+
+    /** The "ts" value in seconds, null if the field is absent or not read. */
+    @Nullable Long ts;
+
+    /** The "position" value, null if the field is absent or not read. */
+    @Nullable StringData position;
+
+    /**
+     * Scans the top-level members of the message. The scan stops as soon as the filter rejects the
+     * message, in which case false is returned and the remaining members are never touched.
+     */
+    boolean scan(
+            MaxwellXJsonScanner scanner, byte[] message, @Nullable MaxwellXJsonTableFilter filter) {
+        databaseBuf = null;
+        tableBuf = null;
+        typeBuf = null;
+        op = OP_UNKNOWN;
+        dataOffset = -1;
+        oldOffset = -1;
+        if (readFields != 0) {
+            xid = null;
+            xoffset = null;
+            commit = false;
+            ts = null;
+            position = null;
+        }
+
+        final boolean needsDatabase = filter != null && filter.needsDatabase();
+        final boolean needsTable = filter != null && filter.needsTable();
+        boolean pending = filter != null && !filter.acceptsAll();
+
+        scanner.reset(message, 0, message.length);
+        scanner.expect('{');
+        for (boolean first = true; scanner.nextMember(first); first = false) {
+            scanner.readFieldName();
+            if (scanner.valueEquals(FIELD_DATA)) {
+                dataOffset = valueOffset(scanner);
+                scanner.readValue();
+            } else if (scanner.valueEquals(FIELD_OLD)) {
+                oldOffset = valueOffset(scanner);
+                scanner.readValue();
+            } else if (scanner.valueEquals(FIELD_TYPE)) {
+                if (readString(scanner)) {
+                    typeBuf = scanner.valueEscaped ? scanner.valueBytes() : message;
+                    typeStart = scanner.valueEscaped ? 0 : scanner.valueStart;
+                    typeEnd = scanner.valueEscaped ? typeBuf.length : scanner.valueEnd;
+                    op = parseOp(typeBuf, typeStart, typeEnd);
+                }
+            } else if (scanner.valueEquals(FIELD_DATABASE)) {
+                if (readString(scanner)) {
+                    databaseBuf = scanner.valueEscaped ? scanner.valueBytes() : message;
+                    databaseStart = scanner.valueEscaped ? 0 : scanner.valueStart;
+                    databaseEnd = scanner.valueEscaped ? databaseBuf.length : scanner.valueEnd;
+                }
+            } else if (scanner.valueEquals(FIELD_TABLE)) {
+                if (readString(scanner)) {
+                    tableBuf = scanner.valueEscaped ? scanner.valueBytes() : message;
+                    tableStart = scanner.valueEscaped ? 0 : scanner.valueStart;
+                    tableEnd = scanner.valueEscaped ? tableBuf.length : scanner.valueEnd;
+                }
+            } else if (readFields != 0) {
+                readTransactionField(scanner);
+            } else {
+                scanner.readValue();
+            }
+            if (pending
+                    && (!needsDatabase || databaseBuf != null)
+                    && (!needsTable || tableBuf != null)) {
+                // all the meta fields needed by the filter are known, decide as early as possible
+                if (!matches(filter)) {
+                    return false;
+                }
+                pending = false;
+            }
+        }
+        scanner.expectEnd();
+        return !pending || matches(filter);
+    }
+
+    private void readTransactionField(MaxwellXJsonScanner scanner) {
+        if ((readFields & READ_XID) != 0 && scanner.valueEquals(FIELD_XID)) {
+            xid = readLong(scanner);
+        } else if ((readFields & READ_XOFFSET) != 0 && scanner.valueEquals(FIELD_XOFFSET)) {
+            xoffset = readLong(scanner);
+        } else if ((readFields & READ_COMMIT) != 0 && scanner.valueEquals(FIELD_COMMIT)) {
+            commit = scanner.readValue() == KIND_TRUE;
+        } else if ((readFields & READ_TS) != 0 && scanner.valueEquals(FIELD_TS)) {
+            ts = readLong(scanner);
+        } else if ((readFields & READ_POSITION) != 0 && scanner.valueEquals(FIELD_POSITION)) {
+            position =
+                    readString(scanner) ? StringData.fromString(scanner.valueText()) : null;
+        } else {
+            scanner.readValue();
+        }
+    }
+
+    /**
+     * Returns the "database" field as a string data shared across messages, null if the field is
+     * absent.
+     */
+    @Nullable
+    StringData database() {
+        return databaseBuf == null ? null : databases.get(databaseBuf, databaseStart, databaseEnd);
+    }
+
+    /**
+     * Returns the "table" field as a string data shared across messages, null if the field is
+     * absent.
+     */
+    @Nullable
+    StringData table() {
+        return tableBuf == null ? null : tables.get(tableBuf, tableStart, tableEnd);
+    }
+
+    /**
+     * Returns whether the message is a "bootstrap-start" or "bootstrap-complete" marker, which
+     * carries no row.
+     */
+    boolean isBootstrapMarker() {
+        return op == OP_BOOTSTRAP_START || op == OP_BOOTSTRAP_COMPLETE;
+    }
+
+    /** Returns the "type" field as a string, used for error reporting only. */
+    @Nullable
+    String typeText() {
+        return typeBuf == null
+                ? null
+                : new String(typeBuf, typeStart, typeEnd - typeStart, StandardCharsets.UTF_8);
+    }
+
+    private boolean matches(MaxwellXJsonTableFilter filter) {
+        return filter.matches(
+                databaseBuf, databaseStart, databaseEnd, tableBuf, tableStart, tableEnd);
+    }
+
+    private static int valueOffset(MaxwellXJsonScanner scanner) {
+        scanner.peek();
+        return scanner.position();
+    }
+
+    /** Reads a meta field value, returns false if the value is null. */
+    private static boolean readString(MaxwellXJsonScanner scanner) {
+        int kind = scanner.readValue();
+        if (kind == KIND_NULL) {
+            return false;
+        }
+        if (kind != KIND_STRING) {
+            throw new MaxwellXJsonScanner.MaxwellXJsonParseException(
+                    "Maxwell meta fields must be strings.");
+        }
+        return true;
+    }
+
+    @Nullable
+    private static Long readLong(MaxwellXJsonScanner scanner) {
+        return scanner.readValue() == KIND_NULL
+                ? null
+                : MaxwellXJsonRowConverter.convertToLong(scanner);
+    }
+
+    private static int parseOp(byte[] buf, int start, int end) {
+        if (MaxwellXJsonBytes.equals(TYPE_INSERT, buf, start, end)) {
+            return OP_INSERT;
+        } else if (MaxwellXJsonBytes.equals(TYPE_UPDATE, buf, start, end)) {
+            return OP_UPDATE;
+        } else if (MaxwellXJsonBytes.equals(TYPE_DELETE, buf, start, end)) {
+            return OP_DELETE;
+        } else if (MaxwellXJsonBytes.equals(TYPE_BOOTSTRAP_INSERT, buf, start, end)) {
+            return OP_BOOTSTRAP_INSERT;
+        } else if (MaxwellXJsonBytes.equals(TYPE_BOOTSTRAP_START, buf, start, end)) {
+            return OP_BOOTSTRAP_START;
+        } else if (MaxwellXJsonBytes.equals(TYPE_BOOTSTRAP_COMPLETE, buf, start, end)) {
+            return OP_BOOTSTRAP_COMPLETE;
+        }
+        return OP_UNKNOWN;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
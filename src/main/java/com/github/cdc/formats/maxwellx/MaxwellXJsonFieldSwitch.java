@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+
+import org.codehaus.janino.SimpleCompiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatches the conversion of a field value to the converter of the field.
+ *
+ * <p>The interpreted switch calls the {@link MaxwellXJsonRowConverter.FieldConverter} of the
+ * field, which is a megamorphic call once a schema has columns of several types. A switch
+ * generated for a schema when the job opens inlines the conversion of the scalar types into a
+ * {@code switch} over the field positions instead, and only delegates the other types.
+ *
+ * <p>Generated classes are compiled with Janino and live in their own class loader, so everything
+ * they call is either public or protected.
+ */
+@Internal
+public abstract class MaxwellXJsonFieldSwitch {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaxwellXJsonFieldSwitch.class);
+
+    private static final AtomicInteger NAME_COUNTER = new AtomicInteger();
+
+    private MaxwellXJsonRowConverter.FieldConverter[] fieldConverters;
+
+    /** Converts the current (non-null) value of the scanner to the type of the field. */
+    public abstract Object convert(int pos, MaxwellXJsonScanner scanner);
+
+    /** Converts the value with the converter of the field. */
+    protected final Object delegate(int pos, MaxwellXJsonScanner scanner) {
+        return fieldConverters[pos].convert(scanner);
+    }
+
+    protected static boolean toBoolean(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToBoolean(scanner);
+    }
+
+    protected static byte toByte(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToByte(scanner);
+    }
+
+    protected static short toShort(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToShort(scanner);
+    }
+
+    protected static int toInt(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToInt(scanner);
+    }
+
+    protected static long toLong(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToLong(scanner);
+    }
+
+    protected static float toFloat(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToFloat(scanner);
+    }
+
+    protected static double toDouble(MaxwellXJsonScanner scanner) {
+        return MaxwellXJsonRowConverter.convertToDouble(scanner);
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** Creates a switch calling the converter of each field. */
+    static MaxwellXJsonFieldSwitch interpreted(
+            MaxwellXJsonRowConverter.FieldConverter[] fieldConverters) {
+        MaxwellXJsonFieldSwitch fieldSwitch = new InterpretedFieldSwitch();
+        fieldSwitch.fieldConverters = fieldConverters;
+        return fieldSwitch;
+    }
+
+    /**
+     * Generates a switch specialized for the given field types. Falls back to the interpreted
+     * switch if the code cannot be compiled, e.g. because Janino is not on the classpath.
+     */
+    static MaxwellXJsonFieldSwitch generate(
+            LogicalTypeRoot[] typeRoots,
+            MaxwellXJsonRowConverter.FieldConverter[] fieldConverters,
+            ClassLoader classLoader) {
+        final String className = "MaxwellXJsonFieldSwitch$" + NAME_COUNTER.incrementAndGet();
+        final String code = generateCode(className, typeRoots);
+        try {
+            SimpleCompiler compiler = new SimpleCompiler();
+            compiler.setParentClassLoader(classLoader);
+            compiler.cook(code);
+            MaxwellXJsonFieldSwitch fieldSwitch =
+                    (MaxwellXJsonFieldSwitch)
+                            compiler.getClassLoader()
+                                    .loadClass(className)
+                                    .getConstructor()
+                                    .newInstance();
+            fieldSwitch.fieldConverters = fieldConverters;
+            return fieldSwitch;
+        } catch (Throwable t) {
+            LOG.warn(
+                    "Unable to generate the field switch of the Maxwell JSON decoder, "
+                            + "falling back to the interpreted one.",
+                    t);
+            return interpreted(fieldConverters);
+        }
+    }
+
+    static String generateCode(String className, LogicalTypeRoot[] typeRoots) {
+        final String scanner = MaxwellXJsonScanner.class.getCanonicalName();
+        final StringBuilder code = new StringBuilder();
+        code.append("public final class ")
+                .append(className)
+                .append(" extends ")
+                .append(MaxwellXJsonFieldSwitch.class.getCanonicalName())
+                .append(" {\n")
+                .append("  public Object convert(int pos, ")
+                .append(scanner)
+                .append(" scanner) {\n")
+                .append("    switch (pos) {\n");
+        for (int pos = 0; pos < typeRoots.length; pos++) {
+            String conversion = inlinedConversion(typeRoots[pos]);
+            if (conversion != null) {
+                code.append("      case ")
+                        .append(pos)
+                        .append(": return ")
+                        .append(conversion)
+                        .append(";\n");
+            }
+        }
+        code.append("      default: return delegate(pos, scanner);\n")
+                .append("    }\n")
+                .append("  }\n")
+                .append("}\n");
+        return code.toString();
+    }
+
+    /** Returns the inlined conversion of the type, or null if the field converter is used. */
+    private static String inlinedConversion(LogicalTypeRoot typeRoot) {
+        switch (typeRoot) {
+            case BOOLEAN:
+                return "Boolean.valueOf(toBoolean(scanner))";
+            case TINYINT:
+                return "Byte.valueOf(toByte(scanner))";
+            case SMALLINT:
+                return "Short.valueOf(toShort(scanner))";
+            case INTEGER:
+            case INTERVAL_YEAR_MONTH:
+                return "Integer.valueOf(toInt(scanner))";
+            case BIGINT:
+            case INTERVAL_DAY_TIME:
+                return "Long.valueOf(toLong(scanner))";
+            case FLOAT:
+                return "Float.valueOf(toFloat(scanner))";
+            case DOUBLE:
+                return "Double.valueOf(toDouble(scanner))";
+            default:
+                return null;
+        }
+    }
+
+    /** Switch calling the converter of each field. */
+    private static final class InterpretedFieldSwitch extends MaxwellXJsonFieldSwitch {
+        @Override
+        public Object convert(int pos, MaxwellXJsonScanner scanner) {
+            return delegate(pos, scanner);
+        }
+    }
+}
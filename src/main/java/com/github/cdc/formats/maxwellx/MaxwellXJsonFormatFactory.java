@@ -20,16 +20,15 @@ package com.github.cdc.formats.maxwellx;
 
 import org.apache.flink.api.common.serialization.DeserializationSchema;
 import org.apache.flink.api.common.serialization.SerializationSchema;
-import org.apache.flink.api.common.typeinfo.TypeInformation;
 import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ReadableConfig;
 import org.apache.flink.formats.json.JsonOptions;
 import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.ValidationException;
 import org.apache.flink.table.connector.ChangelogMode;
 import org.apache.flink.table.connector.format.DecodingFormat;
 import org.apache.flink.table.connector.format.EncodingFormat;
 import org.apache.flink.table.connector.sink.DynamicTableSink;
-import org.apache.flink.table.connector.source.DynamicTableSource;
 import org.apache.flink.table.data.RowData;
 import org.apache.flink.table.factories.DeserializationFormatFactory;
 import org.apache.flink.table.factories.DynamicTableFactory;
@@ -38,18 +37,38 @@ import org.apache.flink.table.factories.SerializationFormatFactory;
 import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.types.RowKind;
+import org.apache.flink.util.FlinkException;
+import org.apache.flink.util.InstantiationUtil;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.BLOCK_SIZE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.CODEGEN;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.COMPRESSION_CODEC;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_EXCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_EXCLUDE_PATTERN;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_INCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DATABASE_INCLUDE_PATTERN;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DEAD_LETTER_HANDLER;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DELETED_CONTAINS_OLD_FIELD;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DICTIONARY_COLUMNS;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.DICTIONARY_SIZE;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.IGNORE_PARSE_ERRORS;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.JSON_MAP_NULL_KEY_LITERAL;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.JSON_MAP_NULL_KEY_MODE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.LAZY_DECODING;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.OBJECT_REUSE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.SCHEMA_EVOLUTION;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_EXCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_EXCLUDE_PATTERN;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_INCLUDE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TABLE_INCLUDE_PATTERN;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.TIMESTAMP_FORMAT;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.UPSERT;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.validateDecodingFormatOptions;
 import static com.github.cdc.formats.maxwellx.MaxwellXJsonOptions.validateEncodingFormatOptions;
 
@@ -70,36 +89,39 @@ public class MaxwellXJsonFormatFactory
 
         final boolean ignoreParseErrors = formatOptions.get(IGNORE_PARSE_ERRORS);
         TimestampFormat timestampFormatOption = JsonOptions.getTimestampFormat(formatOptions);
-        String database = formatOptions.getOptional(DATABASE_INCLUDE).orElse(null);
-        String table = formatOptions.getOptional(TABLE_INCLUDE).orElse(null);
+        // the filter is compiled once and shared by all the runtime decoders
+        MaxwellXJsonTableFilter tableFilter = createTableFilter(formatOptions);
         boolean deletedContainsOldField = formatOptions.get(DELETED_CONTAINS_OLD_FIELD);
-
-        return new DecodingFormat<DeserializationSchema<RowData>>() {
-            @Override
-            public DeserializationSchema<RowData> createRuntimeDecoder(
-                    DynamicTableSource.Context context, DataType producedDataType) {
-                final RowType rowType = (RowType) producedDataType.getLogicalType();
-                final TypeInformation<RowData> rowDataTypeInfo =
-                        context.createTypeInformation(producedDataType);
-                return MaxwellXJsonDeserializationSchema.builder(rowType, rowDataTypeInfo)
-                        .setDeletedContainsOldField(deletedContainsOldField)
-                        .setIgnoreParseErrors(ignoreParseErrors)
-                        .setTimestampFormat(timestampFormatOption)
-                        .setDatabase(database)
-                        .setTable(table)
-                        .build();
-            }
-
-            @Override
-            public ChangelogMode getChangelogMode() {
-                return ChangelogMode.newBuilder()
-                        .addContainedKind(RowKind.INSERT)
-                        .addContainedKind(RowKind.UPDATE_BEFORE)
-                        .addContainedKind(RowKind.UPDATE_AFTER)
-                        .addContainedKind(RowKind.DELETE)
-                        .build();
-            }
-        };
+        boolean objectReuse = formatOptions.get(OBJECT_REUSE);
+        boolean lazyDecoding = formatOptions.get(LAZY_DECODING);
+        boolean codegen = formatOptions.get(CODEGEN);
+        boolean upsert = formatOptions.get(UPSERT);
+        Set<String> dictionaryColumns =
+                new HashSet<>(
+                        formatOptions
+                                .getOptional(DICTIONARY_COLUMNS)
+                                .orElse(Collections.emptyList()));
+        int dictionarySize = formatOptions.get(DICTIONARY_SIZE);
+        boolean schemaEvolution = formatOptions.get(SCHEMA_EVOLUTION);
+        MaxwellXJsonDeadLetterHandler deadLetterHandler =
+                formatOptions
+                        .getOptional(DEAD_LETTER_HANDLER)
+                        .map(className -> createDeadLetterHandler(className, context))
+                        .orElse(null);
+
+        return new MaxwellXJsonDecodingFormat(
+                tableFilter,
+                deletedContainsOldField,
+                ignoreParseErrors,
+                timestampFormatOption,
+                objectReuse,
+                lazyDecoding,
+                codegen,
+                upsert,
+                dictionaryColumns,
+                dictionarySize,
+                schemaEvolution,
+                deadLetterHandler);
     }
 
     @Override
@@ -134,6 +156,52 @@ public class MaxwellXJsonFormatFactory
         };
     }
 
+    /** Creates the filter on the "database" and "table" meta fields from the format options. */
+    static MaxwellXJsonTableFilter createTableFilter(ReadableConfig formatOptions) {
+        return MaxwellXJsonTableFilter.builder()
+                .includeDatabases(names(formatOptions, DATABASE_INCLUDE))
+                .excludeDatabases(names(formatOptions, DATABASE_EXCLUDE))
+                .includeTables(names(formatOptions, TABLE_INCLUDE))
+                .excludeTables(names(formatOptions, TABLE_EXCLUDE))
+                .setDatabaseIncludePattern(
+                        formatOptions.getOptional(DATABASE_INCLUDE_PATTERN).orElse(null))
+                .setDatabaseExcludePattern(
+                        formatOptions.getOptional(DATABASE_EXCLUDE_PATTERN).orElse(null))
+                .setTableIncludePattern(
+                        formatOptions.getOptional(TABLE_INCLUDE_PATTERN).orElse(null))
+                .setTableExcludePattern(
+                        formatOptions.getOptional(TABLE_EXCLUDE_PATTERN).orElse(null))
+                .build();
+    }
+
+    /**
+     * Returns the names of a ';' separated list option. The option is a string rather than a list,
+     * so that it keeps the type it had when it only held a single name.
+     */
+    private static List<String> names(ReadableConfig formatOptions, ConfigOption<String> option) {
+        List<String> names = new ArrayList<>();
+        for (String name : formatOptions.getOptional(option).orElse("").split(";")) {
+            if (!name.trim().isEmpty()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    static MaxwellXJsonDeadLetterHandler createDeadLetterHandler(
+            String className, DynamicTableFactory.Context context) {
+        try {
+            return InstantiationUtil.instantiate(
+                    className, MaxwellXJsonDeadLetterHandler.class, context.getClassLoader());
+        } catch (FlinkException e) {
+            throw new ValidationException(
+                    String.format(
+                            "Could not create the dead letter handler '%s' of option '%s'.",
+                            className, DEAD_LETTER_HANDLER.key()),
+                    e);
+        }
+    }
+
     @Override
     public String factoryIdentifier() {
         return IDENTIFIER;
@@ -151,9 +219,26 @@ public class MaxwellXJsonFormatFactory
         options.add(IGNORE_PARSE_ERRORS);
         options.add(TIMESTAMP_FORMAT);
         options.add(DATABASE_INCLUDE);
+        options.add(DATABASE_EXCLUDE);
+        options.add(DATABASE_INCLUDE_PATTERN);
+        options.add(DATABASE_EXCLUDE_PATTERN);
         options.add(TABLE_INCLUDE);
+        options.add(TABLE_EXCLUDE);
+        options.add(TABLE_INCLUDE_PATTERN);
+        options.add(TABLE_EXCLUDE_PATTERN);
+        options.add(OBJECT_REUSE);
+        options.add(LAZY_DECODING);
+        options.add(CODEGEN);
+        options.add(UPSERT);
+        options.add(DICTIONARY_COLUMNS);
+        options.add(DICTIONARY_SIZE);
+        options.add(SCHEMA_EVOLUTION);
+        options.add(DEAD_LETTER_HANDLER);
         options.add(JSON_MAP_NULL_KEY_MODE);
         options.add(JSON_MAP_NULL_KEY_LITERAL);
+        // used by the MaxwellXJsonBulkFormatFactory of the same format
+        options.add(COMPRESSION_CODEC);
+        options.add(BLOCK_SIZE);
         return options;
     }
 }
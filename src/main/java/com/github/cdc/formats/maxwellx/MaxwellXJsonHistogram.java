@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * {@link Histogram} over a sliding window of the latest values. An update is a single store into a
+ * ring buffer, the statistics are computed on a copy of the window when the metric is reported.
+ *
+ * <p>Like the other metrics of a subtask, the histogram is updated by a single thread.
+ */
+@Internal
+final class MaxwellXJsonHistogram implements Histogram {
+
+    private final long[] window;
+
+    private final int mask;
+
+    private long count;
+
+    /** Creates a histogram over the latest values, the window size is a power of two. */
+    MaxwellXJsonHistogram(int windowSize) {
+        Preconditions.checkArgument(
+                windowSize > 0 && Integer.bitCount(windowSize) == 1,
+                "The window size must be a power of two.");
+        this.window = new long[windowSize];
+        this.mask = window.length - 1;
+    }
+
+    @Override
+    public void update(long value) {
+        window[(int) count & mask] = value;
+        count++;
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public HistogramStatistics getStatistics() {
+        long[] values = Arrays.copyOf(window, (int) Math.min(count, window.length));
+        Arrays.sort(values);
+        return new WindowStatistics(values);
+    }
+
+    /** Statistics of a sorted snapshot of the window. */
+    private static final class WindowStatistics extends HistogramStatistics {
+        private final long[] values;
+
+        private WindowStatistics(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public double getQuantile(double quantile) {
+            if (values.length == 0) {
+                return 0.0;
+            }
+            int rank = (int) Math.ceil(quantile * values.length) - 1;
+            return values[Math.max(0, Math.min(rank, values.length - 1))];
+        }
+
+        @Override
+        public long[] getValues() {
+            return Arrays.copyOf(values, values.length);
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public double getMean() {
+            if (values.length == 0) {
+                return 0.0;
+            }
+            double sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum / values.length;
+        }
+
+        @Override
+        public double getStdDev() {
+            if (values.length < 2) {
+                return 0.0;
+            }
+            double mean = getMean();
+            double sum = 0;
+            for (long value : values) {
+                sum += (value - mean) * (value - mean);
+            }
+            return Math.sqrt(sum / (values.length - 1));
+        }
+
+        @Override
+        public long getMax() {
+            return values.length == 0 ? 0 : values[values.length - 1];
+        }
+
+        @Override
+        public long getMin() {
+            return values.length == 0 ? 0 : values[0];
+        }
+    }
+}
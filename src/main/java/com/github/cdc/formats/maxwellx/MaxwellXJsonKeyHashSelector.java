@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.Partitioner;
+import org.apache.flink.api.java.functions.KeySelector;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.MathUtils;
+
+/**
+ * Selects the key hash of the rows, see {@link MaxwellXJsonRowKey#hashOf(RowData)}, e.g. to
+ * partition a changelog by key with {@code partitionCustom(new
+ * MaxwellXJsonKeyHashSelector.HashPartitioner(), selector)}. The hash of the rows decoded with the
+ * same primary key is taken from the rows.
+ */
+public class MaxwellXJsonKeyHashSelector implements KeySelector<RowData, Integer> {
+    private static final long serialVersionUID = 1L;
+
+    private final MaxwellXJsonRowKey rowKey;
+
+    public MaxwellXJsonKeyHashSelector(MaxwellXJsonRowKey rowKey) {
+        this.rowKey = rowKey;
+    }
+
+    @Override
+    public Integer getKey(RowData value) {
+        return rowKey.hashOf(value);
+    }
+
+    /** Partitions the rows by their key hash, mixed as Flink mixes the hash of the keys. */
+    public static class HashPartitioner implements Partitioner<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public int partition(Integer key, int numPartitions) {
+            return MathUtils.murmurHash(key) % numPartitions;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.table.data.ArrayData;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.MapData;
+import org.apache.flink.table.data.RawValueData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.types.RowKind;
+
+/**
+ * A decoded row carrying the binary key and the key hash computed by its {@link
+ * MaxwellXJsonRowKey} while it was decoded, so that the partitioners and the serializers reading
+ * the key through the {@link MaxwellXJsonRowKey} neither extract nor hash it again. The fields and
+ * the row kind are those of the wrapped row.
+ *
+ * <p>The row is not a type of its own for Flink: copying it with the {@code RowData} serializer, as
+ * Flink does between chained operators unless object reuse is enabled, or sending it over the
+ * network yields a plain row without the key. The key is therefore only reused by a partitioner
+ * applied directly on the source stream, or by chained operators with object reuse enabled.
+ */
+public final class MaxwellXJsonKeyedRowData implements RowData {
+
+    private final RowData row;
+
+    private final MaxwellXJsonRowKey rowKey;
+
+    private final byte[] key;
+
+    private final int keyHash;
+
+    MaxwellXJsonKeyedRowData(RowData row, MaxwellXJsonRowKey rowKey, byte[] key, int keyHash) {
+        this.row = row;
+        this.rowKey = rowKey;
+        this.key = key;
+        this.keyHash = keyHash;
+    }
+
+    /** Returns the wrapped row. */
+    public RowData getRow() {
+        return row;
+    }
+
+    /** Returns the key definition the key was computed with. */
+    public MaxwellXJsonRowKey getRowKey() {
+        return rowKey;
+    }
+
+    /** Returns the binary key, see {@link MaxwellXJsonRowKey#keyOf(RowData)}. */
+    public byte[] getKey() {
+        return key;
+    }
+
+    /** Returns the key hash, see {@link MaxwellXJsonRowKey#hashOf(RowData)}. */
+    public int getKeyHash() {
+        return keyHash;
+    }
+
+    @Override
+    public int getArity() {
+        return row.getArity();
+    }
+
+    @Override
+    public RowKind getRowKind() {
+        return row.getRowKind();
+    }
+
+    @Override
+    public void setRowKind(RowKind kind) {
+        row.setRowKind(kind);
+    }
+
+    @Override
+    public boolean isNullAt(int pos) {
+        return row.isNullAt(pos);
+    }
+
+    @Override
+    public boolean getBoolean(int pos) {
+        return row.getBoolean(pos);
+    }
+
+    @Override
+    public byte getByte(int pos) {
+        return row.getByte(pos);
+    }
+
+    @Override
+    public short getShort(int pos) {
+        return row.getShort(pos);
+    }
+
+    @Override
+    public int getInt(int pos) {
+        return row.getInt(pos);
+    }
+
+    @Override
+    public long getLong(int pos) {
+        return row.getLong(pos);
+    }
+
+    @Override
+    public float getFloat(int pos) {
+        return row.getFloat(pos);
+    }
+
+    @Override
+    public double getDouble(int pos) {
+        return row.getDouble(pos);
+    }
+
+    @Override
+    public StringData getString(int pos) {
+        return row.getString(pos);
+    }
+
+    @Override
+    public DecimalData getDecimal(int pos, int precision, int scale) {
+        return row.getDecimal(pos, precision, scale);
+    }
+
+    @Override
+    public TimestampData getTimestamp(int pos, int precision) {
+        return row.getTimestamp(pos, precision);
+    }
+
+    @Override
+    public <T> RawValueData<T> getRawValue(int pos) {
+        return row.getRawValue(pos);
+    }
+
+    @Override
+    public byte[] getBinary(int pos) {
+        return row.getBinary(pos);
+    }
+
+    @Override
+    public ArrayData getArray(int pos) {
+        return row.getArray(pos);
+    }
+
+    @Override
+    public MapData getMap(int pos) {
+        return row.getMap(pos);
+    }
+
+    @Override
+    public RowData getRow(int pos, int numFields) {
+        return row.getRow(pos, numFields);
+    }
+
+    @Override
+    public String toString() {
+        return row.toString();
+    }
+}
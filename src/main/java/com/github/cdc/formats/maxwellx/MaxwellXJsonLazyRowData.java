@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.ArrayData;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.MapData;
+import org.apache.flink.table.data.RawValueData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.types.RowKind;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * A {@link RowData} backed by the raw bytes of a Maxwell JSON message and the bounds of its field
+ * values. A field is only converted to Flink's internal data structure the first time it is read,
+ * so the fields which are never read are never converted.
+ *
+ * <p>The {@link RowKind#UPDATE_BEFORE} row of an update indexes the "old" payload and falls back
+ * to the {@link RowKind#UPDATE_AFTER} row for its null fields, i.e. the unchanged columns.
+ *
+ * <p>Conversion errors surface when the field is read: the field is null if parse errors are
+ * ignored, otherwise the getter throws.
+ */
+@Internal
+final class MaxwellXJsonLazyRowData implements RowData {
+
+    /** Marker of a value which has not been converted yet. */
+    private static final Object UNCONVERTED = new Object();
+
+    private final MaxwellXJsonRowConverter converter;
+
+    private final byte[] message;
+
+    /** Start and end of the value of each field in the message, -1 for a null field. */
+    private final int[] offsets;
+
+    /** The row providing the values of the null fields, if any. */
+    private final @Nullable MaxwellXJsonLazyRowData fallback;
+
+    private RowKind rowKind = RowKind.INSERT;
+
+    /** The converted values, allocated on the first read. */
+    private Object[] values;
+
+    private MaxwellXJsonScanner scanner;
+
+    MaxwellXJsonLazyRowData(
+            MaxwellXJsonRowConverter converter,
+            byte[] message,
+            int[] offsets,
+            @Nullable MaxwellXJsonLazyRowData fallback) {
+        this.converter = converter;
+        this.message = message;
+        this.offsets = offsets;
+        this.fallback = fallback;
+    }
+
+    private Object get(int pos) {
+        if (values == null) {
+            values = new Object[offsets.length / 2];
+            Arrays.fill(values, UNCONVERTED);
+            scanner = new MaxwellXJsonScanner();
+        }
+        Object value = values[pos];
+        if (value == UNCONVERTED) {
+            int start = offsets[2 * pos];
+            if (start < 0) {
+                value = null;
+            } else {
+                scanner.reset(message, start, offsets[2 * pos + 1] - start);
+                value = converter.convertValue(pos, scanner);
+            }
+            if (value == null && fallback != null) {
+                value = fallback.get(pos);
+            }
+            values[pos] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public int getArity() {
+        return offsets.length / 2;
+    }
+
+    @Override
+    public RowKind getRowKind() {
+        return rowKind;
+    }
+
+    @Override
+    public void setRowKind(RowKind kind) {
+        this.rowKind = kind;
+    }
+
+    @Override
+    public boolean isNullAt(int pos) {
+        // a present value may still convert to null, e.g. if parse errors are ignored
+        return (offsets[2 * pos] < 0 && fallback == null) || get(pos) == null;
+    }
+
+    @Override
+    public boolean getBoolean(int pos) {
+        return (boolean) get(pos);
+    }
+
+    @Override
+    public byte getByte(int pos) {
+        return (byte) get(pos);
+    }
+
+    @Override
+    public short getShort(int pos) {
+        return (short) get(pos);
+    }
+
+    @Override
+    public int getInt(int pos) {
+        return (int) get(pos);
+    }
+
+    @Override
+    public long getLong(int pos) {
+        return (long) get(pos);
+    }
+
+    @Override
+    public float getFloat(int pos) {
+        return (float) get(pos);
+    }
+
+    @Override
+    public double getDouble(int pos) {
+        return (double) get(pos);
+    }
+
+    @Override
+    public StringData getString(int pos) {
+        return (StringData) get(pos);
+    }
+
+    @Override
+    public DecimalData getDecimal(int pos, int precision, int scale) {
+        return (DecimalData) get(pos);
+    }
+
+    @Override
+    public TimestampData getTimestamp(int pos, int precision) {
+        return (TimestampData) get(pos);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> RawValueData<T> getRawValue(int pos) {
+        return (RawValueData<T>) get(pos);
+    }
+
+    @Override
+    public byte[] getBinary(int pos) {
+        return (byte[]) get(pos);
+    }
+
+    @Override
+    public ArrayData getArray(int pos) {
+        return (ArrayData) get(pos);
+    }
+
+    @Override
+    public MapData getMap(int pos) {
+        return (MapData) get(pos);
+    }
+
+    @Override
+    public RowData getRow(int pos, int numFields) {
+        return (RowData) get(pos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(rowKind.shortString()).append("(");
+        for (int pos = 0; pos < getArity(); pos++) {
+            if (pos != 0) {
+                sb.append(",");
+            }
+            sb.append(get(pos));
+        }
+        return sb.append(")").toString();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link MaxwellXJsonDeadLetterHandler} logging the corrupt messages. At most {@link
+ * #DEFAULT_MAX_LOGGED_PER_SECOND} messages are logged per second, truncated to {@link
+ * #MAX_LOGGED_BYTES} bytes; the others are only counted and reported with the next logged message,
+ * so that bursts of corrupt messages neither flood the logs nor pay for formatting.
+ */
+public class MaxwellXJsonLoggingDeadLetterHandler implements MaxwellXJsonDeadLetterHandler {
+    private static final long serialVersionUID = 1L;
+
+    private static final Logger LOG =
+            LoggerFactory.getLogger(MaxwellXJsonLoggingDeadLetterHandler.class);
+
+    static final int DEFAULT_MAX_LOGGED_PER_SECOND = 10;
+
+    static final int MAX_LOGGED_BYTES = 1024;
+
+    private final int maxLoggedPerSecond;
+
+    private transient long windowStart;
+
+    private transient int loggedInWindow;
+
+    private transient long suppressed;
+
+    public MaxwellXJsonLoggingDeadLetterHandler() {
+        this(DEFAULT_MAX_LOGGED_PER_SECOND);
+    }
+
+    public MaxwellXJsonLoggingDeadLetterHandler(int maxLoggedPerSecond) {
+        this.maxLoggedPerSecond = maxLoggedPerSecond;
+    }
+
+    @Override
+    public void handle(byte[] message, Throwable cause) {
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= 1000) {
+            windowStart = now;
+            loggedInWindow = 0;
+        }
+        if (loggedInWindow >= maxLoggedPerSecond) {
+            suppressed++;
+            return;
+        }
+        loggedInWindow++;
+        int length = Math.min(message.length, MAX_LOGGED_BYTES);
+        LOG.warn(
+                "Skipping corrupt Maxwell JSON message of {} bytes, {} corrupt messages were not logged since the previous one: '{}'.",
+                message.length,
+                suppressed,
+                new String(message, 0, length, StandardCharsets.UTF_8),
+                cause);
+        suppressed = 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonLoggingDeadLetterHandler that = (MaxwellXJsonLoggingDeadLetterHandler) o;
+        return maxLoggedPerSecond == that.maxLoggedPerSecond;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(maxLoggedPerSecond);
+    }
+}
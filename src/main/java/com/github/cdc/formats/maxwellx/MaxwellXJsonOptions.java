@@ -20,8 +20,14 @@ package com.github.cdc.formats.maxwellx;
 
 import org.apache.flink.configuration.ConfigOption;
 import org.apache.flink.configuration.ConfigOptions;
+import org.apache.flink.configuration.MemorySize;
 import org.apache.flink.configuration.ReadableConfig;
 import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.table.api.ValidationException;
+
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 /** Option utils for maxwell-json format. */
 public class MaxwellXJsonOptions {
@@ -40,14 +46,56 @@ public class MaxwellXJsonOptions {
                     .stringType()
                     .noDefaultValue()
                     .withDescription(
-                            "Only read changelog rows which match the specific database (by comparing the \"database\" meta field in the record).");
+                            "Only read changelog rows which match one of the specific databases (by comparing the \"database\" meta field in the record). Multiple databases are separated by ';'.");
+
+    public static final ConfigOption<String> DATABASE_EXCLUDE =
+            ConfigOptions.key("database.exclude")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Skip changelog rows which match one of the specific databases (by comparing the \"database\" meta field in the record). Multiple databases are separated by ';'.");
+
+    public static final ConfigOption<String> DATABASE_INCLUDE_PATTERN =
+            ConfigOptions.key("database.include-pattern")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Only read changelog rows whose \"database\" meta field matches the regular expression.");
+
+    public static final ConfigOption<String> DATABASE_EXCLUDE_PATTERN =
+            ConfigOptions.key("database.exclude-pattern")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Skip changelog rows whose \"database\" meta field matches the regular expression.");
 
     public static final ConfigOption<String> TABLE_INCLUDE =
             ConfigOptions.key("table.include")
                     .stringType()
                     .noDefaultValue()
                     .withDescription(
-                            "Only read changelog rows which match the specific table (by comparing the \"table\" meta field in the record).");
+                            "Only read changelog rows which match one of the specific tables (by comparing the \"table\" meta field in the record). Multiple tables are separated by ';'.");
+
+    public static final ConfigOption<String> TABLE_EXCLUDE =
+            ConfigOptions.key("table.exclude")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Skip changelog rows which match one of the specific tables (by comparing the \"table\" meta field in the record). Multiple tables are separated by ';'.");
+
+    public static final ConfigOption<String> TABLE_INCLUDE_PATTERN =
+            ConfigOptions.key("table.include-pattern")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Only read changelog rows whose \"table\" meta field matches the regular expression.");
+
+    public static final ConfigOption<String> TABLE_EXCLUDE_PATTERN =
+            ConfigOptions.key("table.exclude-pattern")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Skip changelog rows whose \"table\" meta field matches the regular expression.");
 
     public static final ConfigOption<Boolean> DELETED_CONTAINS_OLD_FIELD =
             ConfigOptions.key("delete.contains.old-field")
@@ -55,6 +103,77 @@ public class MaxwellXJsonOptions {
                 .defaultValue(false)
                 .withDescription("Optional flag to specify the deleted rows contained \"old\" field, instead of \"data\" field");
 
+    public static final ConfigOption<Boolean> OBJECT_REUSE =
+            ConfigOptions.key("object-reuse")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Optional flag to reuse the emitted rows across messages instead of allocating new rows for each message. Only enable it if the downstream operators do not hold on to the rows, e.g. when they are chained with object reuse enabled or copy the rows anyway.");
+
+    public static final ConfigOption<Boolean> LAZY_DECODING =
+            ConfigOptions.key("lazy-decoding")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Optional flag to emit rows which keep the raw message and only convert a column when it is read. Conversion errors are raised (or nullified if parse errors are ignored) when the column is read.");
+
+    public static final ConfigOption<Boolean> CODEGEN =
+            ConfigOptions.key("codegen")
+                    .booleanType()
+                    .defaultValue(true)
+                    .withDescription(
+                            "Optional flag to generate a decoder specialized for the table schema when the job starts. The interpreted decoder is used if disabled or if the code cannot be compiled.");
+
+    public static final ConfigOption<Boolean> UPSERT =
+            ConfigOptions.key("upsert")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Optional flag to produce an upsert changelog: an update only emits its UPDATE_AFTER row and the \"old\" field is not converted. The table must declare a primary key.");
+
+    public static final ConfigOption<List<String>> DICTIONARY_COLUMNS =
+            ConfigOptions.key("dictionary.columns")
+                    .stringType()
+                    .asList()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Optional list of low-cardinality string columns whose values are shared across rows through a bounded dictionary, instead of allocating a new string for each row.");
+
+    public static final ConfigOption<Integer> DICTIONARY_SIZE =
+            ConfigOptions.key("dictionary.size")
+                    .intType()
+                    .defaultValue(256)
+                    .withDescription(
+                            "Optional number of entries of the dictionary of each column listed in 'dictionary.columns'. A value replaces the entry it collides with, so a column with more distinct values still works but shares less.");
+
+    public static final ConfigOption<Boolean> SCHEMA_EVOLUTION =
+            ConfigOptions.key("schema-evolution")
+                    .booleanType()
+                    .defaultValue(false)
+                    .withDescription(
+                            "Optional flag to track the columns of the \"data\" field: the columns are mapped through a cache of the recent column layouts instead of looking up their names, and a layout change (e.g. after an ALTER TABLE upstream) is logged with its unknown and missing columns and counted by the numSchemaChanges metric.");
+
+    public static final ConfigOption<String> DEAD_LETTER_HANDLER =
+            ConfigOptions.key("dead-letter.handler")
+                    .stringType()
+                    .noDefaultValue()
+                    .withDescription(
+                            "Optional class name of a MaxwellXJsonDeadLetterHandler receiving the raw bytes and the failure of the messages which cannot be decoded, instead of failing the job or skipping them. The class must have a public no-argument constructor, e.g. com.github.cdc.formats.maxwellx.MaxwellXJsonLoggingDeadLetterHandler.");
+
+    public static final ConfigOption<String> COMPRESSION_CODEC =
+            ConfigOptions.key("compression.codec")
+                    .stringType()
+                    .defaultValue("none")
+                    .withDescription(
+                            "Optional compression of the files written by the filesystem connector: 'none', 'gzip' or the class name of a MaxwellXJsonCompressionCodec with a public no-argument constructor.");
+
+    public static final ConfigOption<MemorySize> BLOCK_SIZE =
+            ConfigOptions.key("block.size")
+                    .memoryType()
+                    .defaultValue(MemorySize.parse("64kb"))
+                    .withDescription(
+                            "Optional size of the blocks of messages passed to the file stream or to the compression codec by the filesystem connector.");
+
     // --------------------------------------------------------------------------------------------
     // Validation
     // --------------------------------------------------------------------------------------------
@@ -62,10 +181,38 @@ public class MaxwellXJsonOptions {
     /** Validator for maxwell decoding format. */
     public static void validateDecodingFormatOptions(ReadableConfig tableOptions) {
         JsonOptions.validateDecodingFormatOptions(tableOptions);
+        validatePattern(tableOptions, DATABASE_INCLUDE_PATTERN);
+        validatePattern(tableOptions, DATABASE_EXCLUDE_PATTERN);
+        validatePattern(tableOptions, TABLE_INCLUDE_PATTERN);
+        validatePattern(tableOptions, TABLE_EXCLUDE_PATTERN);
+        if (tableOptions.get(DICTIONARY_SIZE) <= 0) {
+            throw new ValidationException(
+                    String.format(
+                            "The value of option '%s' must be positive, but is %d.",
+                            DICTIONARY_SIZE.key(), tableOptions.get(DICTIONARY_SIZE)));
+        }
     }
 
     /** Validator for maxwell encoding format. */
     public static void validateEncodingFormatOptions(ReadableConfig tableOptions) {
         JsonOptions.validateEncodingFormatOptions(tableOptions);
     }
+
+    /** Validates that the option (if set) is a valid regular expression. */
+    private static void validatePattern(ReadableConfig tableOptions, ConfigOption<String> option) {
+        tableOptions
+                .getOptional(option)
+                .ifPresent(
+                        regex -> {
+                            try {
+                                Pattern.compile(regex);
+                            } catch (PatternSyntaxException e) {
+                                throw new ValidationException(
+                                        String.format(
+                                                "Invalid regular expression '%s' for option '%s'.",
+                                                regex, option.key()),
+                                        e);
+                            }
+                        });
+    }
 }
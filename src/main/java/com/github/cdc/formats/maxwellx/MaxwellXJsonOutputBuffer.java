@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.core.memory.MemorySegment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer which is reused across records, with the JSON primitives needed to write
+ * Maxwell messages straight from UTF-8 bytes, and the varint primitives of the maxwellx-binary
+ * format.
+ */
+@Internal
+final class MaxwellXJsonOutputBuffer extends OutputStream {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buf;
+
+    private int pos;
+
+    MaxwellXJsonOutputBuffer(int initialCapacity) {
+        this.buf = new byte[initialCapacity];
+    }
+
+    void reset() {
+        pos = 0;
+    }
+
+    int size() {
+        return pos;
+    }
+
+    /** Returns a copy of the written bytes. */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buf, pos);
+    }
+
+    /** Writes the written bytes to the given stream, without copying them. */
+    void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, pos);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (pos + extra > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(1);
+        buf[pos++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void write(byte[] bytes, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(bytes, off, buf, pos, len);
+        pos += len;
+    }
+
+    /** Writes the bytes of a segment as they are. */
+    void write(MemorySegment segment, int offset, int length) {
+        ensureCapacity(length);
+        segment.get(offset, buf, pos, length);
+        pos += length;
+    }
+
+    /** Writes an unsigned LEB128 varint, 7 bits per byte with the high bit set on all but last. */
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    /** Writes a signed value as a zigzag varint, so that small negative values stay short. */
+    void writeZigZagLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeFixedInt(int value) {
+        ensureCapacity(4);
+        buf[pos++] = (byte) (value >>> 24);
+        buf[pos++] = (byte) (value >>> 16);
+        buf[pos++] = (byte) (value >>> 8);
+        buf[pos++] = (byte) value;
+    }
+
+    void writeFixedLong(long value) {
+        writeFixedInt((int) (value >>> 32));
+        writeFixedInt((int) value);
+    }
+
+    /** Writes a string which only contains ASCII characters, e.g. a number. */
+    void writeAscii(String s) {
+        final int length = s.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buf[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buf[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+        int i = pos + digits;
+        do {
+            buf[--i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        pos += digits;
+    }
+
+    /** Writes the UTF-8 bytes of a segment as a quoted and escaped JSON string. */
+    void writeString(MemorySegment segment, int offset, int length) {
+        ensureCapacity(length + 2);
+        buf[pos++] = '"';
+        final int start = pos;
+        segment.get(offset, buf, pos, length);
+        pos += length;
+        if (needsEscape(buf, start, pos)) {
+            byte[] raw = Arrays.copyOfRange(buf, start, pos);
+            pos = start;
+            writeEscaped(raw, 0, raw.length);
+        }
+        write('"');
+    }
+
+    /** Writes UTF-8 bytes as a quoted and escaped JSON string. */
+    void writeString(byte[] bytes, int offset, int length) {
+        write('"');
+        if (needsEscape(bytes, offset, offset + length)) {
+            writeEscaped(bytes, offset, offset + length);
+        } else {
+            write(bytes, offset, length);
+        }
+        write('"');
+    }
+
+    private static boolean needsEscape(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            // the bytes of multi-byte UTF-8 sequences are negative, only the characters
+            // outside of the BMP (4 bytes) are escaped
+            if (b >= 0 ? (b < 0x20 || b == '"' || b == '\\') : (b & 0xF8) == 0xF0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Escapes like Jackson: short escapes for the usual characters, \\u00XX for the other control
+     * characters, and surrogate pairs for the characters outside of the BMP.
+     */
+    private void writeEscaped(byte[] bytes, int start, int end) {
+        ensureCapacity(end - start);
+        for (int i = start; i < end; i++) {
+            byte b = bytes[i];
+            if ((b & 0xF8) == 0xF0 && i + 3 < end) {
+                int codePoint =
+                        ((b & 0x07) << 18)
+                                | ((bytes[i + 1] & 0x3F) << 12)
+                                | ((bytes[i + 2] & 0x3F) << 6)
+                                | (bytes[i + 3] & 0x3F);
+                writeUnicodeEscape(Character.highSurrogate(codePoint));
+                writeUnicodeEscape(Character.lowSurrogate(codePoint));
+                i += 3;
+                continue;
+            }
+            if (b < 0 || (b >= 0x20 && b != '"' && b != '\\')) {
+                write(b);
+                continue;
+            }
+            switch (b) {
+                case '"':
+                case '\\':
+                    write('\\');
+                    write(b);
+                    break;
+                case '\b':
+                    writeShortEscape('b');
+                    break;
+                case '\t':
+                    writeShortEscape('t');
+                    break;
+                case '\n':
+                    writeShortEscape('n');
+                    break;
+                case '\f':
+                    writeShortEscape('f');
+                    break;
+                case '\r':
+                    writeShortEscape('r');
+                    break;
+                default:
+                    writeUnicodeEscape((char) b);
+            }
+        }
+    }
+
+    private void writeUnicodeEscape(char c) {
+        ensureCapacity(6);
+        buf[pos++] = '\\';
+        buf[pos++] = 'u';
+        buf[pos++] = HEX[(c >> 12) & 0xF];
+        buf[pos++] = HEX[(c >> 8) & 0xF];
+        buf[pos++] = HEX[(c >> 4) & 0xF];
+        buf[pos++] = HEX[c & 0xF];
+    }
+
+    private void writeShortEscape(char c) {
+        write('\\');
+        write(c);
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Collector;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Decodes the "data" and "old" payloads of a scanned Maxwell message into changelog rows of a
+ * single table schema.
+ *
+ * <p>In object reuse mode the emitted rows are pre-allocated and overwritten by the next message:
+ * only the non-null columns of a payload are written (and cleared again before the next one), and
+ * the {@link RowKind#UPDATE_BEFORE} row of an update is a {@link MaxwellXJsonUpdateBeforeRowData}
+ * view sharing the unchanged columns with the {@link RowKind#UPDATE_AFTER} row.
+ *
+ * <p>In lazy mode the payloads are only indexed and the emitted rows are {@link
+ * MaxwellXJsonLazyRowData}s converting their fields on access. The {@link RowKind#UPDATE_BEFORE}
+ * row reads its null fields from the {@link RowKind#UPDATE_AFTER} row.
+ *
+ * <p>In upsert mode an update only emits its {@link RowKind#UPDATE_AFTER} row, the "old" payload
+ * is skipped without being converted.
+ *
+ * <p>If the schema evolution is tracked, the members of the "data" payloads are mapped to the
+ * fields through the column layouts of a {@link MaxwellXJsonSchemaTracker}, which also detects the
+ * layouts changed by an ALTER TABLE upstream.
+ */
+@Internal
+final class MaxwellXJsonPayloadDecoder implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The converter for the "data" and "old" payloads. */
+    private final MaxwellXJsonRowConverter rowConverter;
+
+    /** Flag indicating the deleted rows contained "old" field, instead of "data" field. */
+    private final boolean deletedContainsOldField;
+
+    /** Flag indicating whether the emitted rows are reused across messages. */
+    private final boolean objectReuse;
+
+    /** Flag indicating whether the emitted rows convert their fields on access. */
+    private final boolean lazyDecoding;
+
+    /** Flag indicating whether the updates are emitted without their before image. */
+    private final boolean upsert;
+
+    /** Flag indicating whether the column layout of the "data" payloads is tracked. */
+    private final boolean schemaEvolution;
+
+    /** Names of the fields, reported with the schema changes. */
+    private final List<String> fieldNames;
+
+    /** Number of fields. */
+    private final int fieldCount;
+
+    /** Tracks the layout of the "data" payloads, null if the schema evolution is not tracked. */
+    @Nullable private transient MaxwellXJsonSchemaTracker schemaTracker;
+
+    /** The reused row of the "data" payload (or the "old" payload of a delete). */
+    private transient ReusableRow reuseData;
+
+    /** The reused row of the "old" payload of an update. */
+    private transient ReusableRow reuseOld;
+
+    private transient MaxwellXJsonUpdateBeforeRowData reuseBefore;
+
+    MaxwellXJsonPayloadDecoder(
+            RowType rowType,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat) {
+        this(
+                rowType,
+                deletedContainsOldField,
+                ignoreParseErrors,
+                timestampFormat,
+                false,
+                false,
+                false,
+                Collections.emptySet(),
+                0,
+                false);
+    }
+
+    MaxwellXJsonPayloadDecoder(
+            RowType rowType,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat,
+            boolean objectReuse,
+            boolean lazyDecoding,
+            boolean upsert,
+            Set<String> dictionaryColumns,
+            int dictionarySize,
+            boolean schemaEvolution) {
+        this.rowConverter =
+                new MaxwellXJsonRowConverter(
+                        rowType,
+                        ignoreParseErrors,
+                        timestampFormat,
+                        dictionaryColumns,
+                        dictionarySize);
+        this.deletedContainsOldField = deletedContainsOldField;
+        this.objectReuse = objectReuse;
+        this.lazyDecoding = lazyDecoding;
+        this.upsert = upsert;
+        this.schemaEvolution = schemaEvolution;
+        this.fieldNames = rowType.getFieldNames();
+        this.fieldCount = rowType.getFieldCount();
+    }
+
+    /** Prepares the decoder for the messages of a subtask. */
+    void open(boolean codegen) {
+        rowConverter.open(codegen);
+        if (schemaEvolution) {
+            schemaTracker = new MaxwellXJsonSchemaTracker(fieldNames);
+        }
+    }
+
+    /**
+     * Returns and clears the column layout of the first schema change detected since the last
+     * call, null if there is none or if the schema evolution is not tracked.
+     */
+    @Nullable
+    MaxwellXJsonSchemaTracker.Layout pollSchemaChange() {
+        return schemaTracker == null ? null : schemaTracker.pollChange();
+    }
+
+    /**
+     * Emits the changelog rows of the scanned message. Returns false if the message has an unknown
+     * "type", in which case nothing is emitted. A "bootstrap-insert" is emitted as an insert, the
+     * "bootstrap-start" and "bootstrap-complete" markers emit nothing.
+     */
+    boolean decode(
+            byte[] message,
+            MaxwellXJsonEnvelope envelope,
+            MaxwellXJsonScanner scanner,
+            Collector<RowData> out) {
+        if (envelope.op == MaxwellXJsonEnvelope.OP_BOOTSTRAP_INSERT) {
+            // the snapshot rows are plain inserts without "old" payload,
+            // they skip the dispatch of the changelog messages
+            RowData insert = decodeInsert(message, envelope, scanner);
+            insert.setRowKind(RowKind.INSERT);
+            out.collect(insert);
+            return true;
+        } else if (envelope.isBootstrapMarker()) {
+            // the progress markers of a snapshot carry no row
+            return true;
+        }
+        if (lazyDecoding) {
+            return decodeLazily(message, envelope, scanner, out);
+        }
+        if (objectReuse) {
+            return decodeReusing(message, envelope, scanner, out);
+        }
+        if (envelope.op == MaxwellXJsonEnvelope.OP_INSERT) {
+            // "data" field is a row, contains inserted rows
+            RowData insert = convertPayload(message, envelope.dataOffset, scanner, "data");
+            insert.setRowKind(RowKind.INSERT);
+            out.collect(insert);
+        } else if (envelope.op == MaxwellXJsonEnvelope.OP_UPDATE) {
+            // "data" field is a row, contains new rows
+            // "old" field is an array of row, contains old values
+            GenericRowData after = convertPayload(message, envelope.dataOffset, scanner, "data");
+            after.setRowKind(RowKind.UPDATE_AFTER);
+            if (upsert) {
+                out.collect(after);
+                return true;
+            }
+            GenericRowData before = convertPayload(message, envelope.oldOffset, scanner, "old");
+            for (int f = 0; f < fieldCount; f++) {
+                if (before.isNullAt(f)) {
+                    // not null fields in "old" (before) means the fields are changed
+                    // null/empty fields in "old" (before) means the fields are not changed
+                    // so we just copy the not changed fields into before
+                    before.setField(f, after.getField(f));
+                }
+            }
+            before.setRowKind(RowKind.UPDATE_BEFORE);
+            out.collect(before);
+            out.collect(after);
+        } else if (envelope.op == MaxwellXJsonEnvelope.OP_DELETE) {
+            // "data"(or "old") field is a row, contains deleted rows
+            RowData delete;
+            if (deletedContainsOldField) {
+                // from the "old" field
+                delete = convertPayload(message, envelope.oldOffset, scanner, "old");
+            } else {
+                // from the "data" field
+                delete = convertPayload(message, envelope.dataOffset, scanner, "data");
+            }
+            delete.setRowKind(RowKind.DELETE);
+            out.collect(delete);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /** Converts the "data" payload of an insert in the decoding mode of this decoder. */
+    private RowData decodeInsert(
+            byte[] message, MaxwellXJsonEnvelope envelope, MaxwellXJsonScanner scanner) {
+        if (lazyDecoding) {
+            int[] offsets = indexPayload(message, envelope.dataOffset, scanner, "data");
+            return new MaxwellXJsonLazyRowData(rowConverter, message, offsets, null);
+        } else if (objectReuse) {
+            allocateReusableRows();
+            return reuseData.fill(message, envelope.dataOffset, scanner, "data");
+        }
+        return convertPayload(message, envelope.dataOffset, scanner, "data");
+    }
+
+    /** Same as the non-reusing path, but without creating any row or copying any column. */
+    private boolean decodeReusing(
+            byte[] message,
+            MaxwellXJsonEnvelope envelope,
+            MaxwellXJsonScanner scanner,
+            Collector<RowData> out) {
+        allocateReusableRows();
+        if (envelope.op == MaxwellXJsonEnvelope.OP_INSERT) {
+            RowData insert = reuseData.fill(message, envelope.dataOffset, scanner, "data");
+            insert.setRowKind(RowKind.INSERT);
+            out.collect(insert);
+        } else if (envelope.op == MaxwellXJsonEnvelope.OP_UPDATE) {
+            // only the changed columns are materialized in "old",
+            // the other ones are read from "data" through the view
+            RowData after = reuseData.fill(message, envelope.dataOffset, scanner, "data");
+            after.setRowKind(RowKind.UPDATE_AFTER);
+            if (upsert) {
+                out.collect(after);
+                return true;
+            }
+            RowData old = reuseOld.fill(message, envelope.oldOffset, scanner, "old");
+            RowData before = reuseBefore.replace(old, after);
+            before.setRowKind(RowKind.UPDATE_BEFORE);
+            out.collect(before);
+            out.collect(after);
+        } else if (envelope.op == MaxwellXJsonEnvelope.OP_DELETE) {
+            RowData delete;
+            if (deletedContainsOldField) {
+                delete = reuseData.fill(message, envelope.oldOffset, scanner, "old");
+            } else {
+                delete = reuseData.fill(message, envelope.dataOffset, scanner, "data");
+            }
+            delete.setRowKind(RowKind.DELETE);
+            out.collect(delete);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private void allocateReusableRows() {
+        if (reuseData == null) {
+            reuseData = new ReusableRow(fieldCount);
+            reuseOld = new ReusableRow(fieldCount);
+            reuseBefore = new MaxwellXJsonUpdateBeforeRowData();
+        }
+    }
+
+    /** Same as the non-reusing path, but the payloads are only indexed instead of converted. */
+    private boolean decodeLazily(
+            byte[] message,
+            MaxwellXJsonEnvelope envelope,
+            MaxwellXJsonScanner scanner,
+            Collector<RowData> out) {
+        if (envelope.op == MaxwellXJsonEnvelope.OP_INSERT) {
+            int[] offsets = indexPayload(message, envelope.dataOffset, scanner, "data");
+            RowData insert = new MaxwellXJsonLazyRowData(rowConverter, message, offsets, null);
+            insert.setRowKind(RowKind.INSERT);
+            out.collect(insert);
+        } else if (envelope.op == MaxwellXJsonEnvelope.OP_UPDATE) {
+            int[] afterOffsets = indexPayload(message, envelope.dataOffset, scanner, "data");
+            MaxwellXJsonLazyRowData after =
+                    new MaxwellXJsonLazyRowData(rowConverter, message, afterOffsets, null);
+            after.setRowKind(RowKind.UPDATE_AFTER);
+            if (upsert) {
+                out.collect(after);
+                return true;
+            }
+            int[] oldOffsets = indexPayload(message, envelope.oldOffset, scanner, "old");
+            // null fields in "old" are not changed, they are read from the after row
+            RowData before = new MaxwellXJsonLazyRowData(rowConverter, message, oldOffsets, after);
+            before.setRowKind(RowKind.UPDATE_BEFORE);
+            out.collect(before);
+            out.collect(after);
+        } else if (envelope.op == MaxwellXJsonEnvelope.OP_DELETE) {
+            int[] offsets =
+                    deletedContainsOldField
+                            ? indexPayload(message, envelope.oldOffset, scanner, "old")
+                            : indexPayload(message, envelope.dataOffset, scanner, "data");
+            RowData delete = new MaxwellXJsonLazyRowData(rowConverter, message, offsets, null);
+            delete.setRowKind(RowKind.DELETE);
+            out.collect(delete);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /** Indexes the "data" or "old" payload starting at the given offset of the message. */
+    private int[] indexPayload(
+            byte[] message, int offset, MaxwellXJsonScanner scanner, String fieldName) {
+        final int[] offsets = new int[2 * fieldCount];
+        Arrays.fill(offsets, -1);
+        if (offset >= 0) {
+            scanner.reset(message, offset, message.length - offset);
+            if (rowConverter.index(scanner, offsets, trackerOf(fieldName))) {
+                return offsets;
+            }
+        }
+        throw new IllegalStateException(
+                format("The \"%s\" field of the Maxwell JSON message is missing.", fieldName));
+    }
+
+    /** Converts the "data" or "old" payload starting at the given offset of the message. */
+    private GenericRowData convertPayload(
+            byte[] message, int offset, MaxwellXJsonScanner scanner, String fieldName) {
+        GenericRowData row = null;
+        if (offset >= 0) {
+            scanner.reset(message, offset, message.length - offset);
+            row = rowConverter.convert(scanner, trackerOf(fieldName));
+        }
+        if (row == null) {
+            throw new IllegalStateException(
+                    format("The \"%s\" field of the Maxwell JSON message is missing.", fieldName));
+        }
+        return row;
+    }
+
+    /** Only the "data" payloads hold all the columns, "old" only holds the changed ones. */
+    @Nullable
+    private MaxwellXJsonSchemaTracker trackerOf(String fieldName) {
+        return "data".equals(fieldName) ? schemaTracker : null;
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** A pre-allocated row which remembers its non-null fields to clear them cheaply. */
+    private final class ReusableRow {
+        private final GenericRowData row;
+        private final int[] setFields;
+        private int setCount;
+
+        private ReusableRow(int arity) {
+            this.row = new GenericRowData(arity);
+            this.setFields = new int[arity];
+        }
+
+        /** Clears the previous values and converts the payload at the given offset. */
+        private GenericRowData fill(
+                byte[] message, int offset, MaxwellXJsonScanner scanner, String fieldName) {
+            for (int i = 0; i < setCount; i++) {
+                row.setField(setFields[i], null);
+            }
+            setCount = 0;
+            int count = -1;
+            if (offset >= 0) {
+                scanner.reset(message, offset, message.length - offset);
+                try {
+                    count =
+                            rowConverter.convertInto(
+                                    scanner, row, setFields, trackerOf(fieldName));
+                } finally {
+                    if (count < 0) {
+                        // the payload is null or corrupt, the written fields are unknown
+                        for (int pos = 0; pos < fieldCount; pos++) {
+                            row.setField(pos, null);
+                        }
+                    }
+                }
+            }
+            setCount = Math.max(count, 0);
+            if (count < 0) {
+                throw new IllegalStateException(
+                        format(
+                                "The \"%s\" field of the Maxwell JSON message is missing.",
+                                fieldName));
+            }
+            return row;
+        }
+    }
+}
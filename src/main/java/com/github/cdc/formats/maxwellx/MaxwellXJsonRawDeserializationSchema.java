@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.util.Collector;
+
+import javax.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Deserialization schema passing the Maxwell JSON messages through undecoded, as {@link
+ * MaxwellXJsonRawMessage}s tagged with the hash of their key, so that the payloads are converted
+ * by a downstream {@link MaxwellXJsonDecodingFunction} instead of the source thread.
+ *
+ * <p>Only the envelope and the key columns of the messages are scanned: the messages rejected by
+ * the table filter are dropped, and the raw values of the key columns are hashed, taken from the
+ * "data" payload (or the "old" payload of the deletes if they contain "old" field). Without key
+ * columns, the messages are keyed by their database and table, keeping the order of each table.
+ *
+ * <p>An update changing the key, i.e. holding key columns in its "old" payload, is passed through
+ * twice: once by its old key to only emit its {@link org.apache.flink.types.RowKind#UPDATE_BEFORE}
+ * row, once by its new key to only emit its {@link org.apache.flink.types.RowKind#UPDATE_AFTER}
+ * row. Both keys thus see their changes in order, e.g. an insert of the old key following the
+ * update is never retracted by it.
+ *
+ * <p>A message which cannot be scanned is passed through with a key hash of 0, to be reported by
+ * the decoding function as configured on its schema.
+ */
+public class MaxwellXJsonRawDeserializationSchema
+        implements DeserializationSchema<MaxwellXJsonRawMessage> {
+    private static final long serialVersionUID = 1L;
+
+    /** Only pass through changelogs from the accepted databases and tables. */
+    private final MaxwellXJsonTableFilter tableFilter;
+
+    /** The columns whose values are hashed, in order. */
+    private final List<String> keyColumns;
+
+    /** Flag indicating the deleted rows contained "old" field, instead of "data" field. */
+    private final boolean deletedContainsOldField;
+
+    private final byte[][] keyNames;
+
+    private transient MaxwellXJsonScanner scanner;
+
+    private transient MaxwellXJsonEnvelope envelope;
+
+    private transient int[] keyHashes;
+
+    public MaxwellXJsonRawDeserializationSchema(
+            MaxwellXJsonTableFilter tableFilter,
+            List<String> keyColumns,
+            boolean deletedContainsOldField) {
+        this.tableFilter = tableFilter;
+        this.keyColumns = new ArrayList<>(keyColumns);
+        this.deletedContainsOldField = deletedContainsOldField;
+        this.keyNames = new byte[keyColumns.size()][];
+        for (int i = 0; i < keyNames.length; i++) {
+            keyNames[i] = keyColumns.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Builder
+    // ------------------------------------------------------------------------------------------
+
+    /** Creates A builder for building a {@link MaxwellXJsonRawDeserializationSchema}. */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** A builder for creating a {@link MaxwellXJsonRawDeserializationSchema}. */
+    @Internal
+    public static final class Builder {
+        private MaxwellXJsonTableFilter tableFilter = new MaxwellXJsonTableFilter(null, null);
+        private List<String> keyColumns = Collections.emptyList();
+        private boolean deletedContainsOldField = false;
+
+        private Builder() {}
+
+        /** Sets the filter on the "database" and "table" meta fields. */
+        public Builder setTableFilter(MaxwellXJsonTableFilter tableFilter) {
+            this.tableFilter = tableFilter;
+            return this;
+        }
+
+        /** Sets the columns identifying a row, usually the primary key of the table. */
+        public Builder setKeyColumns(List<String> keyColumns) {
+            this.keyColumns = new ArrayList<>(keyColumns);
+            return this;
+        }
+
+        public Builder setDeletedContainsOldField(boolean deletedContainsOldField) {
+            this.deletedContainsOldField = deletedContainsOldField;
+            return this;
+        }
+
+        public MaxwellXJsonRawDeserializationSchema build() {
+            return new MaxwellXJsonRawDeserializationSchema(
+                    tableFilter, keyColumns, deletedContainsOldField);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    @Override
+    public MaxwellXJsonRawMessage deserialize(byte[] message) {
+        throw new RuntimeException(
+                "Please invoke DeserializationSchema#deserialize(byte[], Collector<MaxwellXJsonRawMessage>) instead.");
+    }
+
+    @Override
+    public void open(InitializationContext context) throws Exception {
+        this.scanner = new MaxwellXJsonScanner();
+        this.envelope = new MaxwellXJsonEnvelope();
+        this.keyHashes = new int[keyNames.length];
+    }
+
+    @Override
+    public void deserialize(@Nullable byte[] message, Collector<MaxwellXJsonRawMessage> out) {
+        if (message == null || message.length == 0) {
+            return;
+        }
+        int keyHash;
+        int oldKeyHash;
+        try {
+            if (!envelope.scan(scanner, message, tableFilter)) {
+                return;
+            }
+            keyHash = keyHash(message);
+            oldKeyHash = oldKeyHash(message, keyHash);
+        } catch (Throwable t) {
+            // the corrupt messages are reported by the decoding function
+            keyHash = 0;
+            oldKeyHash = 0;
+        }
+        if (oldKeyHash != keyHash) {
+            // the update moves the row to another key, the retraction of the old key is decoded
+            // in order with the other changes of the old key
+            out.collect(
+                    new MaxwellXJsonRawMessage(
+                            message, oldKeyHash, MaxwellXJsonRawMessage.UPDATE_BEFORE_ROWS));
+            out.collect(
+                    new MaxwellXJsonRawMessage(
+                            message, keyHash, MaxwellXJsonRawMessage.UPDATE_AFTER_ROWS));
+        } else {
+            out.collect(new MaxwellXJsonRawMessage(message, keyHash));
+        }
+    }
+
+    private int keyHash(byte[] message) {
+        if (keyNames.length == 0) {
+            int hash =
+                    envelope.databaseBuf == null
+                            ? 0
+                            : MaxwellXJsonBytes.hash(
+                                    envelope.databaseBuf,
+                                    envelope.databaseStart,
+                                    envelope.databaseEnd);
+            if (envelope.tableBuf != null) {
+                hash =
+                        31 * hash
+                                + MaxwellXJsonBytes.hash(
+                                        envelope.tableBuf, envelope.tableStart, envelope.tableEnd);
+            }
+            return MaxwellXJsonBytes.spread(hash);
+        }
+        final int offset =
+                deletedContainsOldField && envelope.op == MaxwellXJsonEnvelope.OP_DELETE
+                        ? envelope.oldOffset
+                        : envelope.dataOffset;
+        if (offset < 0) {
+            return 0;
+        }
+        for (int i = 0; i < keyHashes.length; i++) {
+            keyHashes[i] = 0;
+        }
+        scanKey(message, offset);
+        return combine(keyHashes);
+    }
+
+    /**
+     * Returns the hash of the key of the row before an update, which differs from the given hash
+     * of the new key if the "old" payload holds key columns, i.e. if the update changed the key.
+     * Must be called after {@link #keyHash(byte[])}, whose key column hashes it overwrites.
+     */
+    private int oldKeyHash(byte[] message, int keyHash) {
+        if (keyNames.length == 0
+                || envelope.op != MaxwellXJsonEnvelope.OP_UPDATE
+                || envelope.oldOffset < 0) {
+            return keyHash;
+        }
+        // "old" only holds the changed columns, the other ones are taken from "data"
+        return scanKey(message, envelope.oldOffset) == 0 ? keyHash : combine(keyHashes);
+    }
+
+    /**
+     * Hashes the key columns of the payload starting at the given offset into the key column
+     * hashes, returns the number of key columns found.
+     */
+    private int scanKey(byte[] message, int offset) {
+        scanner.reset(message, offset, message.length - offset);
+        scanner.expect('{');
+        int found = 0;
+        for (boolean first = true;
+                found < keyNames.length && scanner.nextMember(first);
+                first = false) {
+            scanner.readFieldName();
+            int key = indexOf(scanner);
+            scanner.readValue();
+            if (key >= 0) {
+                keyHashes[key] = valueHash(scanner);
+                found++;
+            }
+        }
+        return found;
+    }
+
+    private static int combine(int[] keyHashes) {
+        int hash = 1;
+        for (int keyHash : keyHashes) {
+            hash = 31 * hash + keyHash;
+        }
+        return MaxwellXJsonBytes.spread(hash);
+    }
+
+    private int indexOf(MaxwellXJsonScanner scanner) {
+        for (int i = 0; i < keyNames.length; i++) {
+            if (scanner.valueEquals(keyNames[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int valueHash(MaxwellXJsonScanner scanner) {
+        if (scanner.valueKind == MaxwellXJsonScanner.KIND_NULL) {
+            return 0;
+        }
+        if (scanner.valueKind == MaxwellXJsonScanner.KIND_STRING && scanner.valueEscaped) {
+            byte[] value = scanner.valueBytes();
+            return MaxwellXJsonBytes.hash(value, 0, value.length);
+        }
+        return MaxwellXJsonBytes.hash(scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+    }
+
+    @Override
+    public boolean isEndOfStream(MaxwellXJsonRawMessage nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<MaxwellXJsonRawMessage> getProducedType() {
+        return TypeInformation.of(MaxwellXJsonRawMessage.class);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonRawDeserializationSchema that = (MaxwellXJsonRawDeserializationSchema) o;
+        return deletedContainsOldField == that.deletedContainsOldField
+                && Objects.equals(tableFilter, that.tableFilter)
+                && Objects.equals(keyColumns, that.keyColumns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableFilter, keyColumns, deletedContainsOldField);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.types.RowKind;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A Maxwell JSON message passed through undecoded, with the hash of its key extracted by the
+ * {@link MaxwellXJsonRawDeserializationSchema}. The messages are keyed by {@link #getKeyHash()} to
+ * be decoded downstream by a {@link MaxwellXJsonDecodingFunction}, the messages of a key staying
+ * in order.
+ *
+ * <p>An update changing the key is passed through once per key, each copy only emitting the rows
+ * of its key, see {@link #getRows()}.
+ *
+ * <p>The class is a POJO, so that Flink serializes it without Kryo.
+ */
+public class MaxwellXJsonRawMessage {
+
+    /** All the rows of the message are emitted. */
+    public static final int ALL_ROWS = 0;
+
+    /** Only the {@link RowKind#UPDATE_BEFORE} row of the message is emitted. */
+    public static final int UPDATE_BEFORE_ROWS = 1;
+
+    /** All the rows of the message but the {@link RowKind#UPDATE_BEFORE} row are emitted. */
+    public static final int UPDATE_AFTER_ROWS = 2;
+
+    private byte[] message;
+
+    private int keyHash;
+
+    private int rows;
+
+    public MaxwellXJsonRawMessage() {}
+
+    public MaxwellXJsonRawMessage(byte[] message, int keyHash) {
+        this(message, keyHash, ALL_ROWS);
+    }
+
+    public MaxwellXJsonRawMessage(byte[] message, int keyHash, int rows) {
+        this.message = message;
+        this.keyHash = keyHash;
+        this.rows = rows;
+    }
+
+    public byte[] getMessage() {
+        return message;
+    }
+
+    public void setMessage(byte[] message) {
+        this.message = message;
+    }
+
+    public int getKeyHash() {
+        return keyHash;
+    }
+
+    public void setKeyHash(int keyHash) {
+        this.keyHash = keyHash;
+    }
+
+    /** Returns which rows of the message are emitted, one of the {@code *_ROWS} constants. */
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonRawMessage that = (MaxwellXJsonRawMessage) o;
+        return keyHash == that.keyHash
+                && rows == that.rows
+                && Arrays.equals(message, that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(message), keyHash, rows);
+    }
+
+    @Override
+    public String toString() {
+        return keyHash
+                + (rows == UPDATE_BEFORE_ROWS ? "-U" : rows == UPDATE_AFTER_ROWS ? "+U" : "")
+                + ":"
+                + (message == null ? null : new String(message));
+    }
+}
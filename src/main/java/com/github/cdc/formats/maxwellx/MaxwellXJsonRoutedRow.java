@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.table.data.RowData;
+
+import javax.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * A changelog row tagged with the route of its table in a {@link MaxwellXJsonTableRegistry}. The
+ * row follows the schema registered for the route.
+ *
+ * <p>A corrupt message is carried as a {@link MaxwellXJsonDeadLetter} on the {@link
+ * #DEAD_LETTER_ROUTE}.
+ */
+public final class MaxwellXJsonRoutedRow {
+
+    /** The route of the dead letters, which carry no row. */
+    public static final int DEAD_LETTER_ROUTE = -1;
+
+    private final int route;
+
+    @Nullable private final RowData row;
+
+    @Nullable private final MaxwellXJsonDeadLetter deadLetter;
+
+    public MaxwellXJsonRoutedRow(int route, RowData row) {
+        this.route = route;
+        this.row = row;
+        this.deadLetter = null;
+    }
+
+    public MaxwellXJsonRoutedRow(MaxwellXJsonDeadLetter deadLetter) {
+        this.route = DEAD_LETTER_ROUTE;
+        this.row = null;
+        this.deadLetter = deadLetter;
+    }
+
+    public int getRoute() {
+        return route;
+    }
+
+    public RowData getRow() {
+        return row;
+    }
+
+    public MaxwellXJsonDeadLetter getDeadLetter() {
+        return deadLetter;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonRoutedRow that = (MaxwellXJsonRoutedRow) o;
+        return route == that.route
+                && Objects.equals(row, that.row)
+                && Objects.equals(deadLetter, that.deadLetter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(route, row, deadLetter);
+    }
+
+    @Override
+    public String toString() {
+        return route == DEAD_LETTER_ROUTE ? String.valueOf(deadLetter) : route + ":" + row;
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.CompositeTypeSerializerSnapshot;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputView;
+import org.apache.flink.core.memory.DataOutputView;
+import org.apache.flink.table.data.RowData;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link TypeInformation} of {@link MaxwellXJsonRoutedRow}. The serializer writes the route
+ * followed by the row serialized with the serializer of the route's table schema, or by the dead
+ * letter on the {@link MaxwellXJsonRoutedRow#DEAD_LETTER_ROUTE}.
+ */
+public class MaxwellXJsonRoutedRowTypeInfo extends TypeInformation<MaxwellXJsonRoutedRow> {
+    private static final long serialVersionUID = 1L;
+
+    private final TypeInformation<RowData>[] rowTypeInfos;
+
+    @SuppressWarnings("unchecked")
+    public MaxwellXJsonRoutedRowTypeInfo(MaxwellXJsonTableRegistry registry) {
+        this.rowTypeInfos = (TypeInformation<RowData>[]) new TypeInformation<?>[registry.size()];
+        for (int route = 0; route < registry.size(); route++) {
+            rowTypeInfos[route] = registry.getTypeInfo(route);
+        }
+    }
+
+    @Override
+    public boolean isBasicType() {
+        return false;
+    }
+
+    @Override
+    public boolean isTupleType() {
+        return false;
+    }
+
+    @Override
+    public int getArity() {
+        return 1;
+    }
+
+    @Override
+    public int getTotalFields() {
+        return 1;
+    }
+
+    @Override
+    public Class<MaxwellXJsonRoutedRow> getTypeClass() {
+        return MaxwellXJsonRoutedRow.class;
+    }
+
+    @Override
+    public boolean isKeyType() {
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeSerializer<MaxwellXJsonRoutedRow> createSerializer(ExecutionConfig config) {
+        TypeSerializer<RowData>[] rowSerializers =
+                (TypeSerializer<RowData>[]) new TypeSerializer<?>[rowTypeInfos.length];
+        for (int route = 0; route < rowTypeInfos.length; route++) {
+            rowSerializers[route] = rowTypeInfos[route].createSerializer(config);
+        }
+        return new RoutedRowSerializer(rowSerializers);
+    }
+
+    @Override
+    public String toString() {
+        return "MaxwellXJsonRoutedRow" + Arrays.toString(rowTypeInfos);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof MaxwellXJsonRoutedRowTypeInfo)) {
+            return false;
+        }
+        MaxwellXJsonRoutedRowTypeInfo that = (MaxwellXJsonRoutedRowTypeInfo) o;
+        return that.canEqual(this) && Arrays.equals(rowTypeInfos, that.rowTypeInfos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(rowTypeInfos);
+    }
+
+    @Override
+    public boolean canEqual(Object obj) {
+        return obj instanceof MaxwellXJsonRoutedRowTypeInfo;
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Serializer
+    // ------------------------------------------------------------------------------------------
+
+    /** Serializer for {@link MaxwellXJsonRoutedRow}. */
+    public static final class RoutedRowSerializer extends TypeSerializer<MaxwellXJsonRoutedRow> {
+        private static final long serialVersionUID = 1L;
+
+        private static final MaxwellXJsonDeadLetterTypeInfo.DeadLetterSerializer
+                DEAD_LETTER_SERIALIZER = MaxwellXJsonDeadLetterTypeInfo.DeadLetterSerializer.INSTANCE;
+
+        private final TypeSerializer<RowData>[] rowSerializers;
+
+        public RoutedRowSerializer(TypeSerializer<RowData>[] rowSerializers) {
+            this.rowSerializers = rowSerializers;
+        }
+
+        @Override
+        public boolean isImmutableType() {
+            return false;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public TypeSerializer<MaxwellXJsonRoutedRow> duplicate() {
+            TypeSerializer<RowData>[] duplicates =
+                    (TypeSerializer<RowData>[]) new TypeSerializer<?>[rowSerializers.length];
+            boolean stateful = false;
+            for (int i = 0; i < rowSerializers.length; i++) {
+                duplicates[i] = rowSerializers[i].duplicate();
+                stateful |= duplicates[i] != rowSerializers[i];
+            }
+            return stateful ? new RoutedRowSerializer(duplicates) : this;
+        }
+
+        @Override
+        public MaxwellXJsonRoutedRow createInstance() {
+            return null;
+        }
+
+        @Override
+        public MaxwellXJsonRoutedRow copy(MaxwellXJsonRoutedRow from) {
+            int route = from.getRoute();
+            if (route == MaxwellXJsonRoutedRow.DEAD_LETTER_ROUTE) {
+                return new MaxwellXJsonRoutedRow(DEAD_LETTER_SERIALIZER.copy(from.getDeadLetter()));
+            }
+            return new MaxwellXJsonRoutedRow(route, rowSerializers[route].copy(from.getRow()));
+        }
+
+        @Override
+        public MaxwellXJsonRoutedRow copy(MaxwellXJsonRoutedRow from, MaxwellXJsonRoutedRow reuse) {
+            return copy(from);
+        }
+
+        @Override
+        public int getLength() {
+            return -1;
+        }
+
+        @Override
+        public void serialize(MaxwellXJsonRoutedRow record, DataOutputView target)
+                throws IOException {
+            int route = record.getRoute();
+            target.writeInt(route);
+            if (route == MaxwellXJsonRoutedRow.DEAD_LETTER_ROUTE) {
+                DEAD_LETTER_SERIALIZER.serialize(record.getDeadLetter(), target);
+            } else {
+                rowSerializers[route].serialize(record.getRow(), target);
+            }
+        }
+
+        @Override
+        public MaxwellXJsonRoutedRow deserialize(DataInputView source) throws IOException {
+            int route = source.readInt();
+            if (route == MaxwellXJsonRoutedRow.DEAD_LETTER_ROUTE) {
+                return new MaxwellXJsonRoutedRow(DEAD_LETTER_SERIALIZER.deserialize(source));
+            }
+            return new MaxwellXJsonRoutedRow(route, rowSerializers[route].deserialize(source));
+        }
+
+        @Override
+        public MaxwellXJsonRoutedRow deserialize(MaxwellXJsonRoutedRow reuse, DataInputView source)
+                throws IOException {
+            return deserialize(source);
+        }
+
+        @Override
+        public void copy(DataInputView source, DataOutputView target) throws IOException {
+            int route = source.readInt();
+            target.writeInt(route);
+            if (route == MaxwellXJsonRoutedRow.DEAD_LETTER_ROUTE) {
+                DEAD_LETTER_SERIALIZER.copy(source, target);
+            } else {
+                rowSerializers[route].copy(source, target);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RoutedRowSerializer that = (RoutedRowSerializer) o;
+            return Arrays.equals(rowSerializers, that.rowSerializers);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(rowSerializers);
+        }
+
+        @Override
+        public TypeSerializerSnapshot<MaxwellXJsonRoutedRow> snapshotConfiguration() {
+            return new RoutedRowSerializerSnapshot(this);
+        }
+    }
+
+    /** Snapshot of a {@link RoutedRowSerializer}. */
+    public static final class RoutedRowSerializerSnapshot
+            extends CompositeTypeSerializerSnapshot<MaxwellXJsonRoutedRow, RoutedRowSerializer> {
+
+        private static final int CURRENT_VERSION = 1;
+
+        public RoutedRowSerializerSnapshot() {
+            super(RoutedRowSerializer.class);
+        }
+
+        RoutedRowSerializerSnapshot(RoutedRowSerializer serializer) {
+            super(serializer);
+        }
+
+        @Override
+        protected int getCurrentOuterSnapshotVersion() {
+            return CURRENT_VERSION;
+        }
+
+        @Override
+        protected TypeSerializer<?>[] getNestedSerializers(RoutedRowSerializer outerSerializer) {
+            return outerSerializer.rowSerializers;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected RoutedRowSerializer createOuterSerializerWithNestedSerializers(
+                TypeSerializer<?>[] nestedSerializers) {
+            TypeSerializer<RowData>[] rowSerializers =
+                    (TypeSerializer<RowData>[]) new TypeSerializer<?>[nestedSerializers.length];
+            for (int i = 0; i < nestedSerializers.length; i++) {
+                rowSerializers[i] = (TypeSerializer<RowData>) nestedSerializers[i];
+            }
+            return new RoutedRowSerializer(rowSerializers);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Collector;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Deserialization schema from a Maxwell JSON topic carrying several tables to {@link
+ * MaxwellXJsonRoutedRow}s. Every registered table is decoded with its own schema, and the produced
+ * rows are tagged with the route of their table, so that a single source can feed one pipeline per
+ * table through the {@link MaxwellXJsonTableRouter}.
+ *
+ * <p>The "database" and "table" meta fields are resolved to a route on their raw bytes before any
+ * payload is converted; messages of unregistered tables are skipped. The corrupt messages can be
+ * emitted as dead letters, see {@link Builder#setDeadLetterOutput(boolean)}.
+ */
+public class MaxwellXJsonRoutingDeserializationSchema
+        implements DeserializationSchema<MaxwellXJsonRoutedRow> {
+    private static final long serialVersionUID = 1L;
+
+    /** The registered tables and their schemas. */
+    private final MaxwellXJsonTableRegistry registry;
+
+    /** The decoders of the registered tables, indexed by route. */
+    private final MaxwellXJsonPayloadDecoder[] payloadDecoders;
+
+    /** Only read changelogs from the registered databases and tables. */
+    private final MaxwellXJsonTableFilter tableFilter;
+
+    /** Flag indicating the deleted rows contained "old" field, instead of "data" field. */
+    private final boolean deletedContainsOldField;
+
+    /** Flag indicating whether to ignore invalid fields/rows (default: throw an exception). */
+    private final boolean ignoreParseErrors;
+
+    /** Timestamp format specification which is used to parse timestamp. */
+    private final TimestampFormat timestampFormat;
+
+    /** Flag indicating whether to emit the corrupt messages as dead letters. */
+    private final boolean deadLetterOutput;
+
+    /** Handler of the corrupt messages if they are not emitted, null to fail or skip them. */
+    @Nullable private final MaxwellXJsonDeadLetterHandler deadLetterHandler;
+
+    /** Flag indicating whether to generate the decoders specialized for the table schemas. */
+    private final boolean codegen;
+
+    private transient MaxwellXJsonScanner scanner;
+
+    private transient MaxwellXJsonEnvelope envelope;
+
+    private transient RoutingCollector routingCollector;
+
+    private transient MaxwellXJsonDecodingMetrics metrics;
+
+    public MaxwellXJsonRoutingDeserializationSchema(
+            MaxwellXJsonTableRegistry registry,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat) {
+        this(registry, deletedContainsOldField, ignoreParseErrors, timestampFormat, false, null);
+    }
+
+    public MaxwellXJsonRoutingDeserializationSchema(
+            MaxwellXJsonTableRegistry registry,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat,
+            boolean deadLetterOutput,
+            @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+        this(
+                registry,
+                deletedContainsOldField,
+                ignoreParseErrors,
+                timestampFormat,
+                deadLetterOutput,
+                deadLetterHandler,
+                true);
+    }
+
+    public MaxwellXJsonRoutingDeserializationSchema(
+            MaxwellXJsonTableRegistry registry,
+            boolean deletedContainsOldField,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat,
+            boolean deadLetterOutput,
+            @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler,
+            boolean codegen) {
+        this.registry = registry;
+        this.deletedContainsOldField = deletedContainsOldField;
+        this.ignoreParseErrors = ignoreParseErrors;
+        this.timestampFormat = timestampFormat;
+        this.deadLetterOutput = deadLetterOutput;
+        this.deadLetterHandler = deadLetterHandler;
+        this.codegen = codegen;
+        this.tableFilter = registry.toTableFilter();
+        this.payloadDecoders = new MaxwellXJsonPayloadDecoder[registry.size()];
+        for (int route = 0; route < registry.size(); route++) {
+            payloadDecoders[route] =
+                    new MaxwellXJsonPayloadDecoder(
+                            registry.getRowType(route),
+                            deletedContainsOldField,
+                            ignoreParseErrors,
+                            timestampFormat);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Builder
+    // ------------------------------------------------------------------------------------------
+
+    /** Creates A builder for building a {@link MaxwellXJsonRoutingDeserializationSchema}. */
+    public static Builder builder(MaxwellXJsonTableRegistry registry) {
+        return new Builder(registry);
+    }
+
+    /** A builder for creating a {@link MaxwellXJsonRoutingDeserializationSchema}. */
+    @Internal
+    public static final class Builder {
+        private final MaxwellXJsonTableRegistry registry;
+        private boolean deletedContainsOldField = false;
+        private boolean ignoreParseErrors = false;
+        private TimestampFormat timestampFormat = TimestampFormat.SQL;
+        private boolean deadLetterOutput = false;
+        private MaxwellXJsonDeadLetterHandler deadLetterHandler = null;
+        private boolean codegen = true;
+
+        private Builder(MaxwellXJsonTableRegistry registry) {
+            this.registry = registry;
+        }
+
+        public Builder setDeletedContainsOldField(boolean deletedContainsOldField) {
+            this.deletedContainsOldField = deletedContainsOldField;
+            return this;
+        }
+
+        public Builder setIgnoreParseErrors(boolean ignoreParseErrors) {
+            this.ignoreParseErrors = ignoreParseErrors;
+            return this;
+        }
+
+        public Builder setTimestampFormat(TimestampFormat timestampFormat) {
+            this.timestampFormat = timestampFormat;
+            return this;
+        }
+
+        /**
+         * Emits the corrupt messages as dead letters, which the {@link MaxwellXJsonTableRouter}
+         * sends to its {@link MaxwellXJsonTableRouter#DEAD_LETTER_TAG} side output.
+         */
+        public Builder setDeadLetterOutput(boolean deadLetterOutput) {
+            this.deadLetterOutput = deadLetterOutput;
+            return this;
+        }
+
+        /**
+         * Sets the handler of the corrupt messages, used if they are not emitted as dead letters.
+         */
+        public Builder setDeadLetterHandler(
+                @Nullable MaxwellXJsonDeadLetterHandler deadLetterHandler) {
+            this.deadLetterHandler = deadLetterHandler;
+            return this;
+        }
+
+        /**
+         * Sets whether to generate a decoder specialized for each table schema when the schema is
+         * opened (default: true), the interpreted decoders are used otherwise.
+         */
+        public Builder setCodegen(boolean codegen) {
+            this.codegen = codegen;
+            return this;
+        }
+
+        public MaxwellXJsonRoutingDeserializationSchema build() {
+            return new MaxwellXJsonRoutingDeserializationSchema(
+                    registry,
+                    deletedContainsOldField,
+                    ignoreParseErrors,
+                    timestampFormat,
+                    deadLetterOutput,
+                    deadLetterHandler,
+                    codegen);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    @Override
+    public MaxwellXJsonRoutedRow deserialize(byte[] message) throws IOException {
+        throw new RuntimeException(
+                "Please invoke DeserializationSchema#deserialize(byte[], Collector<MaxwellXJsonRoutedRow>) instead.");
+    }
+
+    @Override
+    public void open(InitializationContext context) throws Exception {
+        this.scanner = new MaxwellXJsonScanner();
+        this.envelope = new MaxwellXJsonEnvelope();
+        this.routingCollector = new RoutingCollector();
+        this.metrics = new MaxwellXJsonDecodingMetrics(context.getMetricGroup());
+        for (MaxwellXJsonPayloadDecoder payloadDecoder : payloadDecoders) {
+            payloadDecoder.open(codegen);
+        }
+        if (deadLetterHandler != null) {
+            deadLetterHandler.open(context);
+        }
+    }
+
+    @Override
+    public void deserialize(@Nullable byte[] message, Collector<MaxwellXJsonRoutedRow> out)
+            throws IOException {
+        if (message == null || message.length == 0) {
+            return;
+        }
+        try {
+            if (metrics.received(message.length)) {
+                long start = System.nanoTime();
+                decode(message, out);
+                metrics.decoded(System.nanoTime() - start);
+            } else {
+                decode(message, out);
+            }
+        } catch (Throwable t) {
+            // a big try catch to protect the processing.
+            metrics.parseError();
+            if (deadLetterOutput) {
+                out.collect(new MaxwellXJsonRoutedRow(new MaxwellXJsonDeadLetter(message, t)));
+            } else if (deadLetterHandler != null) {
+                deadLetterHandler.handle(message, t);
+            } else if (!ignoreParseErrors) {
+                throw new IOException(
+                        format("Corrupt Maxwell JSON message '%s'.", new String(message)), t);
+            }
+        }
+    }
+
+    private void decode(byte[] message, Collector<MaxwellXJsonRoutedRow> out) throws IOException {
+        if (!envelope.scan(scanner, message, tableFilter)) {
+            metrics.filtered();
+            return;
+        }
+        // the filter accepts the cross product of the registered databases and tables,
+        // the exact pair is resolved here
+        int route =
+                registry.lookup(
+                        envelope.databaseBuf,
+                        envelope.databaseStart,
+                        envelope.databaseEnd,
+                        envelope.tableBuf,
+                        envelope.tableStart,
+                        envelope.tableEnd);
+        if (route < 0) {
+            metrics.filtered();
+            return;
+        }
+        metrics.accepted(envelope);
+        routingCollector.route = route;
+        routingCollector.out = out;
+        if (!payloadDecoders[route].decode(message, envelope, scanner, routingCollector)) {
+            if (!ignoreParseErrors && (deadLetterOutput || deadLetterHandler != null)) {
+                // the dead letter carries the message, it is not copied into the reason
+                throw new MaxwellXJsonScanner.MaxwellXJsonParseException(
+                        format("Unknown \"type\" value \"%s\".", envelope.typeText()));
+            } else if (!ignoreParseErrors) {
+                throw new IOException(
+                        format(
+                                "Unknown \"type\" value \"%s\". The Maxwell JSON message is '%s'",
+                                envelope.typeText(), new String(message)));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEndOfStream(MaxwellXJsonRoutedRow nextElement) {
+        return false;
+    }
+
+    @Override
+    public TypeInformation<MaxwellXJsonRoutedRow> getProducedType() {
+        return new MaxwellXJsonRoutedRowTypeInfo(registry);
+    }
+
+    public MaxwellXJsonTableRegistry getRegistry() {
+        return registry;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonRoutingDeserializationSchema that =
+                (MaxwellXJsonRoutingDeserializationSchema) o;
+        return ignoreParseErrors == that.ignoreParseErrors
+                && deletedContainsOldField == that.deletedContainsOldField
+                && deadLetterOutput == that.deadLetterOutput
+                && codegen == that.codegen
+                && Objects.equals(deadLetterHandler, that.deadLetterHandler)
+                && Objects.equals(registry, that.registry)
+                && timestampFormat == that.timestampFormat;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                registry,
+                deletedContainsOldField,
+                ignoreParseErrors,
+                timestampFormat,
+                deadLetterOutput,
+                deadLetterHandler,
+                codegen);
+    }
+
+    /** Tags the rows of the current message with its route. */
+    private static final class RoutingCollector implements Collector<RowData> {
+        private int route;
+        private Collector<MaxwellXJsonRoutedRow> out;
+
+        @Override
+        public void collect(RowData record) {
+            out.collect(new MaxwellXJsonRoutedRow(route, record));
+        }
+
+        @Override
+        public void close() {
+            out.close();
+        }
+    }
+}
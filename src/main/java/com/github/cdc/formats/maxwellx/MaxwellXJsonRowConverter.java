@@ -0,0 +1,619 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.formats.json.JsonToRowDataConverters;
+import org.apache.flink.formats.json.JsonToRowDataConverters.JsonToRowDataConverter;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.LogicalTypeFamily;
+import org.apache.flink.table.types.logical.LogicalTypeRoot;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.utils.LogicalTypeChecks;
+
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.DeserializationFeature;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.node.TextNode;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_ARRAY;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_FALSE;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_NULL;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_NUMBER;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_OBJECT;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_STRING;
+import static com.github.cdc.formats.maxwellx.MaxwellXJsonScanner.KIND_TRUE;
+
+/**
+ * Converts the JSON object of a Maxwell "data" or "old" field into {@link GenericRowData} while
+ * streaming over the tokens of a {@link MaxwellXJsonScanner}.
+ *
+ * <p>Only the columns declared in the {@link RowType} are converted, all the other members are
+ * skipped without creating any objects. Scalar types, decimals and the temporal values in the fixed
+ * Maxwell formats are converted straight from the message bytes, the remaining values (binary and
+ * nested types, other temporal formats) are delegated to Flink's {@link JsonToRowDataConverters}
+ * so that the semantics stay the same as for the "json" format.
+ */
+@Internal
+final class MaxwellXJsonRowConverter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final FieldConverter[] fieldConverters;
+
+    private final byte[][] fieldNames;
+
+    /** Open addressing hash table from field name to field position, -1 for an empty slot. */
+    private final int[] fieldSlots;
+
+    /** Type roots of the fields, used to generate the field switch. */
+    private final LogicalTypeRoot[] typeRoots;
+
+    private final boolean ignoreParseErrors;
+
+    /** Dispatches the conversion of a field value, created in {@link #open(boolean)}. */
+    private transient MaxwellXJsonFieldSwitch fieldSwitch;
+
+    MaxwellXJsonRowConverter(
+            RowType rowType, boolean ignoreParseErrors, TimestampFormat timestampFormat) {
+        this(rowType, ignoreParseErrors, timestampFormat, Collections.emptySet(), 0);
+    }
+
+    /**
+     * Creates a converter sharing the values of the given string columns through a {@link
+     * MaxwellXJsonStringDictionary} of the given size per column.
+     */
+    MaxwellXJsonRowConverter(
+            RowType rowType,
+            boolean ignoreParseErrors,
+            TimestampFormat timestampFormat,
+            Set<String> dictionaryColumns,
+            int dictionarySize) {
+        final JsonToRowDataConverters jsonConverters =
+                new JsonToRowDataConverters(false, ignoreParseErrors, timestampFormat);
+        // configured as by the "json" format, so that the nested values and the numbers read as
+        // strings are converted as they were by the JsonRowDataDeserializationSchema
+        final ObjectMapper objectMapper = new ObjectMapper();
+        if (LogicalTypeChecks.hasNested(rowType, t -> t instanceof DecimalType)) {
+            objectMapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        }
+        final List<RowType.RowField> fields = rowType.getFields();
+        this.ignoreParseErrors = ignoreParseErrors;
+        this.fieldConverters = new FieldConverter[fields.size()];
+        this.fieldNames = new byte[fields.size()][];
+        this.typeRoots = new LogicalTypeRoot[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            RowType.RowField field = fields.get(i);
+            fieldConverters[i] =
+                    dictionaryColumns.contains(field.getName())
+                                    && field.getType().getTypeRoot().getFamilies().contains(
+                                            LogicalTypeFamily.CHARACTER_STRING)
+                            ? createStringConverter(
+                                    objectMapper, new MaxwellXJsonStringDictionary(dictionarySize))
+                            : createConverter(
+                                    field.getType(), jsonConverters, objectMapper, timestampFormat);
+            fieldNames[i] = field.getName().getBytes(StandardCharsets.UTF_8);
+            typeRoots[i] = field.getType().getTypeRoot();
+        }
+        this.fieldSlots = new int[MaxwellXJsonBytes.tableSize(fieldNames.length)];
+        Arrays.fill(fieldSlots, -1);
+        for (int i = 0; i < fieldNames.length; i++) {
+            int hash = MaxwellXJsonBytes.hash(fieldNames[i], 0, fieldNames[i].length);
+            int slot = MaxwellXJsonBytes.spread(hash) & (fieldSlots.length - 1);
+            while (fieldSlots[slot] >= 0) {
+                slot = (slot + 1) & (fieldSlots.length - 1);
+            }
+            fieldSlots[slot] = i;
+        }
+    }
+
+    /**
+     * Prepares the converter for the conversions of a subtask, generating a field switch
+     * specialized for the row type if {@code codegen} is set.
+     */
+    void open(boolean codegen) {
+        this.fieldSwitch =
+                codegen
+                        ? MaxwellXJsonFieldSwitch.generate(
+                                typeRoots, fieldConverters, getClass().getClassLoader())
+                        : MaxwellXJsonFieldSwitch.interpreted(fieldConverters);
+    }
+
+    int getArity() {
+        return fieldConverters.length;
+    }
+
+    /**
+     * Converts the object starting at the current position of the scanner. Returns null if the
+     * value is a JSON null. The members are mapped through the given tracker, if any.
+     */
+    GenericRowData convert(
+            MaxwellXJsonScanner scanner, @Nullable MaxwellXJsonSchemaTracker tracker) {
+        if (scanner.peek() == 'n') {
+            scanner.readValue();
+            return null;
+        }
+        final GenericRowData row = new GenericRowData(fieldConverters.length);
+        fill(scanner, row, null, tracker);
+        return row;
+    }
+
+    /**
+     * Converts the object starting at the current position of the scanner into the given row,
+     * whose fields must all be null. The positions of the non-null fields are written to {@code
+     * setFields}. Returns the number of non-null fields, or -1 if the value is a JSON null.
+     */
+    int convertInto(
+            MaxwellXJsonScanner scanner,
+            GenericRowData row,
+            int[] setFields,
+            @Nullable MaxwellXJsonSchemaTracker tracker) {
+        if (scanner.peek() == 'n') {
+            scanner.readValue();
+            return -1;
+        }
+        return fill(scanner, row, setFields, tracker);
+    }
+
+    private int fill(
+            MaxwellXJsonScanner scanner,
+            GenericRowData row,
+            int[] setFields,
+            @Nullable MaxwellXJsonSchemaTracker tracker) {
+        scanner.expect('{');
+        if (tracker != null) {
+            tracker.begin(scanner.buffer());
+        }
+        int expected = 0;
+        int count = 0;
+        for (boolean first = true; scanner.nextMember(first); first = false) {
+            scanner.readFieldName();
+            int pos = lookup(scanner, expected, tracker);
+            scanner.readValue();
+            if (pos < 0) {
+                continue;
+            }
+            expected = pos + 1;
+            Object value = convertField(pos, scanner);
+            if (setFields != null && value != null && row.isNullAt(pos)) {
+                // a duplicated member must not be recorded twice
+                setFields[count++] = pos;
+            }
+            row.setField(pos, value);
+        }
+        if (tracker != null) {
+            tracker.end();
+        }
+        return count;
+    }
+
+    /**
+     * Indexes the object starting at the current position of the scanner without converting it:
+     * the bounds of the non-null value of field {@code pos} are written to {@code offsets[2 * pos]}
+     * and {@code offsets[2 * pos + 1]}, whose entries must be -1. Returns false if the value is a
+     * JSON null.
+     */
+    boolean index(
+            MaxwellXJsonScanner scanner,
+            int[] offsets,
+            @Nullable MaxwellXJsonSchemaTracker tracker) {
+        if (scanner.peek() == 'n') {
+            scanner.readValue();
+            return false;
+        }
+        scanner.expect('{');
+        if (tracker != null) {
+            tracker.begin(scanner.buffer());
+        }
+        int expected = 0;
+        for (boolean first = true; scanner.nextMember(first); first = false) {
+            scanner.readFieldName();
+            int pos = lookup(scanner, expected, tracker);
+            scanner.peek();
+            int start = scanner.position();
+            int kind = scanner.readValue();
+            if (pos < 0) {
+                continue;
+            }
+            expected = pos + 1;
+            boolean isNull = kind == KIND_NULL;
+            offsets[2 * pos] = isNull ? -1 : start;
+            offsets[2 * pos + 1] = isNull ? -1 : scanner.position();
+        }
+        if (tracker != null) {
+            tracker.end();
+        }
+        return true;
+    }
+
+    /** Converts the value at the current position of the scanner to the type of the field. */
+    Object convertValue(int pos, MaxwellXJsonScanner scanner) {
+        scanner.readValue();
+        return convertField(pos, scanner);
+    }
+
+    private Object convertField(int pos, MaxwellXJsonScanner scanner) {
+        if (scanner.valueKind == KIND_NULL) {
+            return null;
+        }
+        if (fieldSwitch == null) {
+            // the converter has not been opened
+            fieldSwitch = MaxwellXJsonFieldSwitch.interpreted(fieldConverters);
+        }
+        try {
+            return fieldSwitch.convert(pos, scanner);
+        } catch (Throwable t) {
+            if (!ignoreParseErrors) {
+                throw t;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Finds the position of the field whose name is the current value of the scanner through the
+     * layout of the tracker, if any, falling back to a lookup of the name.
+     */
+    private int lookup(
+            MaxwellXJsonScanner scanner,
+            int expected,
+            @Nullable MaxwellXJsonSchemaTracker tracker) {
+        if (tracker == null) {
+            return lookup(scanner, expected);
+        }
+        int pos = tracker.lookup(scanner);
+        if (pos == MaxwellXJsonSchemaTracker.MISS) {
+            pos = lookup(scanner, expected);
+            tracker.record(scanner, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * Finds the position of the field whose name is the current value of the scanner. Maxwell
+     * writes the columns in table order, so the field following the last match is tried first.
+     */
+    private int lookup(MaxwellXJsonScanner scanner, int expected) {
+        byte[] buf = scanner.buffer();
+        int start = scanner.valueStart;
+        int end = scanner.valueEnd;
+        if (scanner.valueEscaped) {
+            buf = scanner.valueBytes();
+            start = 0;
+            end = buf.length;
+        }
+        if (expected < fieldNames.length
+                && MaxwellXJsonBytes.equals(fieldNames[expected], buf, start, end)) {
+            return expected;
+        }
+        int slot =
+                MaxwellXJsonBytes.spread(MaxwellXJsonBytes.hash(buf, start, end))
+                        & (fieldSlots.length - 1);
+        int pos;
+        while ((pos = fieldSlots[slot]) >= 0) {
+            if (MaxwellXJsonBytes.equals(fieldNames[pos], buf, start, end)) {
+                return pos;
+            }
+            slot = (slot + 1) & (fieldSlots.length - 1);
+        }
+        return -1;
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Field converters
+    // ------------------------------------------------------------------------------------------
+
+    /**
+     * Runtime converter that converts the current (non-null) value of a scanner into objects of
+     * Flink Table & SQL internal data structures.
+     */
+    @FunctionalInterface
+    interface FieldConverter extends Serializable {
+        Object convert(MaxwellXJsonScanner scanner);
+    }
+
+    private static FieldConverter createConverter(
+            LogicalType type,
+            JsonToRowDataConverters jsonConverters,
+            ObjectMapper objectMapper,
+            TimestampFormat timestampFormat) {
+        switch (type.getTypeRoot()) {
+            case NULL:
+                return scanner -> null;
+            case BOOLEAN:
+                return MaxwellXJsonRowConverter::convertToBoolean;
+            case TINYINT:
+                return MaxwellXJsonRowConverter::convertToByte;
+            case SMALLINT:
+                return MaxwellXJsonRowConverter::convertToShort;
+            case INTEGER:
+            case INTERVAL_YEAR_MONTH:
+                return MaxwellXJsonRowConverter::convertToInt;
+            case BIGINT:
+            case INTERVAL_DAY_TIME:
+                return MaxwellXJsonRowConverter::convertToLong;
+            case FLOAT:
+                return MaxwellXJsonRowConverter::convertToFloat;
+            case DOUBLE:
+                return MaxwellXJsonRowConverter::convertToDouble;
+            case CHAR:
+            case VARCHAR:
+                return createStringConverter(objectMapper, null);
+            case DECIMAL:
+                return createDecimalConverter((DecimalType) type);
+            case DATE:
+                return createDateConverter(
+                        createJsonNodeConverter(jsonConverters.createConverter(type), objectMapper));
+            case TIME_WITHOUT_TIME_ZONE:
+                return createTimeConverter(
+                        createJsonNodeConverter(jsonConverters.createConverter(type), objectMapper));
+            case TIMESTAMP_WITHOUT_TIME_ZONE:
+            case TIMESTAMP_WITH_LOCAL_TIME_ZONE:
+                return createTimestampConverter(
+                        createJsonNodeConverter(jsonConverters.createConverter(type), objectMapper),
+                        timestampFormat == TimestampFormat.SQL ? (byte) ' ' : (byte) 'T',
+                        type.getTypeRoot() == LogicalTypeRoot.TIMESTAMP_WITH_LOCAL_TIME_ZONE);
+            default:
+                return createJsonNodeConverter(
+                        jsonConverters.createConverter(type), objectMapper);
+        }
+    }
+
+    static boolean convertToBoolean(MaxwellXJsonScanner scanner) {
+        if (scanner.valueKind == KIND_TRUE || scanner.valueKind == KIND_FALSE) {
+            return scanner.valueKind == KIND_TRUE;
+        }
+        return Boolean.parseBoolean(scanner.valueText().trim());
+    }
+
+    static byte convertToByte(MaxwellXJsonScanner scanner) {
+        if (isShortInteger(scanner)) {
+            long value = parseLong(scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+            if (value == (byte) value) {
+                return (byte) value;
+            }
+        }
+        return Byte.parseByte(scanner.valueText().trim());
+    }
+
+    static short convertToShort(MaxwellXJsonScanner scanner) {
+        if (isShortInteger(scanner)) {
+            long value = parseLong(scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+            if (value == (short) value) {
+                return (short) value;
+            }
+        }
+        return Short.parseShort(scanner.valueText().trim());
+    }
+
+    static int convertToInt(MaxwellXJsonScanner scanner) {
+        if (scanner.valueKind == KIND_NUMBER) {
+            if (!scanner.valueFractional) {
+                long value = parseLong(scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+                if (value == (int) value) {
+                    return (int) value;
+                }
+            } else {
+                // truncated as Jackson does, unless out of range
+                double value = Double.parseDouble(scanner.valueText());
+                if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+            }
+        }
+        return Integer.parseInt(scanner.valueText().trim());
+    }
+
+    static long convertToLong(MaxwellXJsonScanner scanner) {
+        if (scanner.valueKind == KIND_NUMBER) {
+            if (!scanner.valueFractional) {
+                int length = scanner.valueEnd - scanner.valueStart;
+                // at most 18 digits can never overflow
+                if (length <= 18) {
+                    return parseLong(scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+                }
+            } else {
+                // truncated as Jackson does, unless out of range
+                double value = Double.parseDouble(scanner.valueText());
+                if (value >= Long.MIN_VALUE && value <= Long.MAX_VALUE) {
+                    return (long) value;
+                }
+            }
+        }
+        return Long.parseLong(scanner.valueText().trim());
+    }
+
+    static float convertToFloat(MaxwellXJsonScanner scanner) {
+        return Float.parseFloat(scanner.valueText().trim());
+    }
+
+    static double convertToDouble(MaxwellXJsonScanner scanner) {
+        return Double.parseDouble(scanner.valueText().trim());
+    }
+
+    /** Returns true if the current value is a JSON integer number of at most 18 characters. */
+    private static boolean isShortInteger(MaxwellXJsonScanner scanner) {
+        return scanner.valueKind == KIND_NUMBER
+                && !scanner.valueFractional
+                && scanner.valueEnd - scanner.valueStart <= 18;
+    }
+
+    /** Parses a JSON integer number which is known to fit into a long. */
+    private static long parseLong(byte[] buf, int start, int end) {
+        boolean negative = buf[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > 18) {
+            return Long.parseLong(new String(buf, start, end - start, StandardCharsets.US_ASCII));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException(
+                        "Invalid number: "
+                                + new String(buf, start, end - start, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static FieldConverter createStringConverter(
+            ObjectMapper objectMapper, @Nullable MaxwellXJsonStringDictionary dictionary) {
+        return scanner -> {
+            switch (scanner.valueKind) {
+                case KIND_STRING:
+                    if (scanner.valueEscaped) {
+                        return StringData.fromString(scanner.valueText());
+                    }
+                    return dictionary != null
+                            ? dictionary.get(scanner.buffer(), scanner.valueStart, scanner.valueEnd)
+                            : StringData.fromBytes(scanner.valueBytes());
+                case KIND_OBJECT:
+                case KIND_ARRAY:
+                    return StringData.fromString(readTree(objectMapper, scanner).toString());
+                case KIND_NUMBER:
+                    // the text of the number node, e.g. "1E+2" for 1e2 read as a big decimal
+                    return StringData.fromString(readTree(objectMapper, scanner).asText());
+                default:
+                    return StringData.fromString(scanner.valueText());
+            }
+        };
+    }
+
+    private static FieldConverter createDecimalConverter(DecimalType decimalType) {
+        final int precision = decimalType.getPrecision();
+        final int scale = decimalType.getScale();
+        final boolean compact = DecimalData.isCompact(precision);
+        return scanner -> {
+            if (compact && isPlain(scanner)) {
+                long unscaled =
+                        MaxwellXJsonValueParser.parseUnscaled(
+                                scanner.buffer(), scanner.valueStart, scanner.valueEnd, scale);
+                if (unscaled != MaxwellXJsonValueParser.NOT_PARSED) {
+                    // same overflow handling as DecimalData#fromBigDecimal
+                    return Math.abs(unscaled) < MaxwellXJsonValueParser.powerOfTen(precision)
+                            ? DecimalData.fromUnscaledLong(unscaled, precision, scale)
+                            : null;
+                }
+            }
+            BigDecimal bigDecimal = new BigDecimal(scanner.valueText());
+            return DecimalData.fromBigDecimal(bigDecimal, precision, scale);
+        };
+    }
+
+    private static FieldConverter createDateConverter(FieldConverter fallback) {
+        return scanner -> {
+            if (isPlainString(scanner)) {
+                long epochDay =
+                        MaxwellXJsonValueParser.parseDate(
+                                scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+                if (epochDay != MaxwellXJsonValueParser.NOT_PARSED) {
+                    return (int) epochDay;
+                }
+            }
+            return fallback.convert(scanner);
+        };
+    }
+
+    private static FieldConverter createTimeConverter(FieldConverter fallback) {
+        return scanner -> {
+            if (isPlainString(scanner)) {
+                long nanoOfDay =
+                        MaxwellXJsonValueParser.parseTime(
+                                scanner.buffer(), scanner.valueStart, scanner.valueEnd);
+                if (nanoOfDay != MaxwellXJsonValueParser.NOT_PARSED) {
+                    // the "json" format truncates the time to seconds
+                    return (int) (nanoOfDay / 1_000_000_000L) * 1000;
+                }
+            }
+            return fallback.convert(scanner);
+        };
+    }
+
+    private static FieldConverter createTimestampConverter(
+            FieldConverter fallback, byte separator, boolean zoned) {
+        return scanner -> {
+            if (isPlainString(scanner)) {
+                TimestampData timestamp =
+                        MaxwellXJsonValueParser.parseTimestamp(
+                                scanner.buffer(),
+                                scanner.valueStart,
+                                scanner.valueEnd,
+                                separator,
+                                zoned);
+                if (timestamp != null) {
+                    return timestamp;
+                }
+            }
+            return fallback.convert(scanner);
+        };
+    }
+
+    /** Returns true if the current value is a number or a string without escape sequences. */
+    private static boolean isPlain(MaxwellXJsonScanner scanner) {
+        return scanner.valueKind == KIND_NUMBER || isPlainString(scanner);
+    }
+
+    private static boolean isPlainString(MaxwellXJsonScanner scanner) {
+        return scanner.valueKind == KIND_STRING && !scanner.valueEscaped;
+    }
+
+    /**
+     * Creates a converter which builds a {@link JsonNode} for the current value and delegates to
+     * the converters of the "json" format.
+     */
+    private static FieldConverter createJsonNodeConverter(
+            JsonToRowDataConverter converter, ObjectMapper objectMapper) {
+        return scanner -> {
+            JsonNode node;
+            if (scanner.valueKind == KIND_STRING) {
+                node = TextNode.valueOf(scanner.valueText());
+            } else {
+                node = readTree(objectMapper, scanner);
+            }
+            return converter.convert(node);
+        };
+    }
+
+    private static JsonNode readTree(ObjectMapper objectMapper, MaxwellXJsonScanner scanner) {
+        try {
+            return objectMapper.readTree(
+                    scanner.buffer(), scanner.valueStart, scanner.valueEnd - scanner.valueStart);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to parse JSON value.", e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The key of the rows of a table, e.g. its primary key. The key of a row is the encoding of its key
+ * columns in the maxwellx-binary format, which is compact and equal for equal values, and its hash
+ * is a hash of these bytes which is stable across JVMs.
+ *
+ * <p>The key of a {@link MaxwellXJsonKeyedRowData} computed by the same key definition is returned
+ * as is, so setting the primary key on the {@link MaxwellXJsonDeserializationSchema} extracts and
+ * hashes the keys once, while the rows are decoded, for the readers of the rows that see the emitted
+ * objects; the other rows get their key computed again.
+ */
+public final class MaxwellXJsonRowKey implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<String> keyColumns;
+
+    /** The positions of the key columns in the rows. */
+    private final int[] positions;
+
+    private final MaxwellXBinaryCodec codec;
+
+    private transient MaxwellXJsonOutputBuffer buffer;
+
+    public MaxwellXJsonRowKey(RowType rowType, List<String> keyColumns) {
+        if (keyColumns.isEmpty()) {
+            throw new IllegalArgumentException("The key must have at least one column.");
+        }
+        this.keyColumns = new ArrayList<>(keyColumns);
+        this.positions = new int[keyColumns.size()];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = rowType.getFieldIndex(keyColumns.get(i));
+            if (positions[i] < 0) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Key column '%s' is not a field of %s.",
+                                keyColumns.get(i), rowType));
+            }
+        }
+        this.codec = new MaxwellXBinaryCodec(rowType, positions);
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /** Returns the binary key of the row. */
+    public byte[] keyOf(RowData row) {
+        if (row instanceof MaxwellXJsonKeyedRowData && isKeyOf((MaxwellXJsonKeyedRowData) row)) {
+            return ((MaxwellXJsonKeyedRowData) row).getKey();
+        }
+        return encode(row);
+    }
+
+    /** Returns the hash of the binary key of the row. */
+    public int hashOf(RowData row) {
+        if (row instanceof MaxwellXJsonKeyedRowData && isKeyOf((MaxwellXJsonKeyedRowData) row)) {
+            return ((MaxwellXJsonKeyedRowData) row).getKeyHash();
+        }
+        return hash(encode(row));
+    }
+
+    /** Wraps the row with its key and key hash. */
+    MaxwellXJsonKeyedRowData wrap(RowData row) {
+        final byte[] key = encode(row);
+        return new MaxwellXJsonKeyedRowData(row, this, key, hash(key));
+    }
+
+    private boolean isKeyOf(MaxwellXJsonKeyedRowData row) {
+        return row.getRowKey() == this || equals(row.getRowKey());
+    }
+
+    private byte[] encode(RowData row) {
+        if (buffer == null) {
+            buffer = new MaxwellXJsonOutputBuffer(64);
+        }
+        buffer.reset();
+        codec.write(row, buffer);
+        return buffer.toByteArray();
+    }
+
+    private static int hash(byte[] key) {
+        return MaxwellXJsonBytes.spread(MaxwellXJsonBytes.hash(key, 0, key.length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonRowKey that = (MaxwellXJsonRowKey) o;
+        return Objects.equals(keyColumns, that.keyColumns)
+                && Arrays.equals(positions, that.positions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(keyColumns, Arrays.hashCode(positions));
+    }
+}
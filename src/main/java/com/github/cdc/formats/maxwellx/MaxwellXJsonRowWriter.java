@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.formats.json.RowDataToJsonConverters;
+import org.apache.flink.formats.json.RowDataToJsonConverters.RowDataToJsonConverter;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.binary.BinaryStringData;
+import org.apache.flink.table.types.logical.DecimalType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.JsonNode;
+import org.apache.flink.shaded.jackson2.com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes the Maxwell JSON message of a {@link RowData} straight into a {@link
+ * MaxwellXJsonOutputBuffer}, without building a JSON tree.
+ *
+ * <p>The constant fragments of the message (the "data" envelope, the quoted column names and the
+ * "type" member) are encoded once per schema. Scalar and string columns are written from the row
+ * directly, the remaining types (temporal, binary and nested types) are delegated to Flink's
+ * {@link RowDataToJsonConverters} so that the output stays the same as for the "json" format.
+ *
+ * <p>An update is written as a single message whose "old" object only holds the changed columns,
+ * see {@link #writeUpdate(RowData, RowData, byte[], MaxwellXJsonOutputBuffer)}.
+ */
+@Internal
+final class MaxwellXJsonRowWriter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte[] DATA_START = bytes("{\"data\":{");
+    private static final byte[] OLD_START = bytes("},\"old\":{");
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] TRUE = bytes("true");
+    private static final byte[] FALSE = bytes("false");
+
+    /** The bytes preceding the value of each column. */
+    private final byte[][] fieldPrefixes;
+
+    /** The quoted name of each column followed by a colon, used in the "old" object. */
+    private final byte[][] oldPrefixes;
+
+    private final RowData.FieldGetter[] fieldGetters;
+
+    private final FieldWriter[] fieldWriters;
+
+    /** Object mapper of the delegated columns. */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    MaxwellXJsonRowWriter(
+            RowType rowType,
+            TimestampFormat timestampFormat,
+            JsonOptions.MapNullKeyMode mapNullKeyMode,
+            String mapNullKeyLiteral) {
+        final RowDataToJsonConverters jsonConverters =
+                new RowDataToJsonConverters(timestampFormat, mapNullKeyMode, mapNullKeyLiteral);
+        final List<RowType.RowField> fields = rowType.getFields();
+        this.fieldPrefixes = new byte[fields.size()][];
+        this.oldPrefixes = new byte[fields.size()][];
+        this.fieldGetters = new RowData.FieldGetter[fields.size()];
+        this.fieldWriters = new FieldWriter[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            RowType.RowField field = fields.get(i);
+            MaxwellXJsonOutputBuffer oldPrefix = new MaxwellXJsonOutputBuffer(32);
+            byte[] name = bytes(field.getName());
+            oldPrefix.writeString(name, 0, name.length);
+            oldPrefix.write(':');
+            oldPrefixes[i] = oldPrefix.toByteArray();
+            MaxwellXJsonOutputBuffer prefix = new MaxwellXJsonOutputBuffer(32);
+            if (i == 0) {
+                prefix.write(DATA_START);
+            } else {
+                prefix.write(',');
+            }
+            prefix.write(oldPrefixes[i]);
+            fieldPrefixes[i] = prefix.toByteArray();
+            fieldGetters[i] = RowData.createFieldGetter(field.getType(), i);
+            fieldWriters[i] = createWriter(field.getType(), i, jsonConverters);
+        }
+    }
+
+    /**
+     * Writes the message of the row, {@code suffix} closes the "data" object and holds the "type"
+     * member.
+     */
+    void write(RowData row, byte[] suffix, MaxwellXJsonOutputBuffer out) throws IOException {
+        writeData(row, out);
+        out.write(suffix);
+    }
+
+    /**
+     * Writes the update message from {@code before} to {@code after}: "data" holds the after row
+     * and "old" the before values of the changed columns, as written by Maxwell. {@code suffix}
+     * closes the "old" object and holds the "type" member.
+     */
+    void writeUpdate(RowData before, RowData after, byte[] suffix, MaxwellXJsonOutputBuffer out)
+            throws IOException {
+        writeData(after, out);
+        out.write(OLD_START);
+        boolean first = true;
+        for (int pos = 0; pos < fieldWriters.length; pos++) {
+            Object oldValue = fieldGetters[pos].getFieldOrNull(before);
+            if (Objects.deepEquals(oldValue, fieldGetters[pos].getFieldOrNull(after))) {
+                continue;
+            }
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write(oldPrefixes[pos]);
+            if (oldValue == null) {
+                out.write(NULL);
+            } else {
+                fieldWriters[pos].write(before, pos, out);
+            }
+        }
+        out.write(suffix);
+    }
+
+    private void writeData(RowData row, MaxwellXJsonOutputBuffer out) throws IOException {
+        if (fieldWriters.length == 0) {
+            out.write(DATA_START);
+        }
+        for (int pos = 0; pos < fieldWriters.length; pos++) {
+            out.write(fieldPrefixes[pos]);
+            if (row.isNullAt(pos)) {
+                out.write(NULL);
+            } else {
+                fieldWriters[pos].write(row, pos, out);
+            }
+        }
+    }
+
+    /** Returns the bytes closing the "data" object of a message of the given type. */
+    static byte[] suffixOf(String type) {
+        return suffixOf(type, null, null);
+    }
+
+    /**
+     * Returns the bytes closing the "data" (or "old") object of a message of the given type. If a
+     * database or a table is given, the meta fields are written as well and the suffix ends with
+     * the name of the "ts" member, whose value and the closing brace must follow.
+     */
+    static byte[] suffixOf(String type, @Nullable String database, @Nullable String table) {
+        MaxwellXJsonOutputBuffer suffix = new MaxwellXJsonOutputBuffer(64);
+        suffix.write('}');
+        if (database != null || table != null) {
+            writeMember(suffix, "database", database);
+            writeMember(suffix, "table", table);
+        }
+        writeMember(suffix, "type", type);
+        if (database != null || table != null) {
+            suffix.write(bytes(",\"ts\":"));
+        } else {
+            suffix.write('}');
+        }
+        return suffix.toByteArray();
+    }
+
+    private static void writeMember(
+            MaxwellXJsonOutputBuffer out, String name, @Nullable String value) {
+        out.write(',');
+        byte[] nameBytes = bytes(name);
+        out.writeString(nameBytes, 0, nameBytes.length);
+        out.write(':');
+        if (value == null) {
+            out.write(NULL);
+        } else {
+            byte[] valueBytes = bytes(value);
+            out.writeString(valueBytes, 0, valueBytes.length);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Field writers
+    // ------------------------------------------------------------------------------------------
+
+    /** Writes the (non-null) value of a column. */
+    @FunctionalInterface
+    private interface FieldWriter extends Serializable {
+        void write(RowData row, int pos, MaxwellXJsonOutputBuffer out) throws IOException;
+    }
+
+    private FieldWriter createWriter(
+            LogicalType type, int pos, RowDataToJsonConverters jsonConverters) {
+        switch (type.getTypeRoot()) {
+            case BOOLEAN:
+                return (row, p, out) -> out.write(row.getBoolean(p) ? TRUE : FALSE);
+            case TINYINT:
+                return (row, p, out) -> out.writeLong(row.getByte(p));
+            case SMALLINT:
+                return (row, p, out) -> out.writeLong(row.getShort(p));
+            case INTEGER:
+            case INTERVAL_YEAR_MONTH:
+                return (row, p, out) -> out.writeLong(row.getInt(p));
+            case BIGINT:
+            case INTERVAL_DAY_TIME:
+                return (row, p, out) -> out.writeLong(row.getLong(p));
+            case FLOAT:
+                return (row, p, out) -> writeFloatingPoint(row.getFloat(p), out);
+            case DOUBLE:
+                return (row, p, out) -> writeFloatingPoint(row.getDouble(p), out);
+            case CHAR:
+            case VARCHAR:
+                return (row, p, out) -> writeString(row.getString(p), out);
+            case DECIMAL:
+                final int precision = ((DecimalType) type).getPrecision();
+                final int scale = ((DecimalType) type).getScale();
+                return (row, p, out) ->
+                        writeDecimal(row.getDecimal(p, precision, scale).toBigDecimal(), out);
+            default:
+                final RowDataToJsonConverter converter = jsonConverters.createConverter(type);
+                final RowData.FieldGetter getter = RowData.createFieldGetter(type, pos);
+                return (row, p, out) -> {
+                    JsonNode node = converter.convert(mapper, null, getter.getFieldOrNull(row));
+                    out.write(mapper.writeValueAsBytes(node));
+                };
+        }
+    }
+
+    private static void writeFloatingPoint(double value, MaxwellXJsonOutputBuffer out) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            // Jackson quotes the non-numeric numbers
+            out.write('"');
+            out.writeAscii(Double.toString(value));
+            out.write('"');
+        } else {
+            out.writeAscii(Double.toString(value));
+        }
+    }
+
+    private static void writeFloatingPoint(float value, MaxwellXJsonOutputBuffer out) {
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            out.write('"');
+            out.writeAscii(Float.toString(value));
+            out.write('"');
+        } else {
+            out.writeAscii(Float.toString(value));
+        }
+    }
+
+    private static void writeString(StringData string, MaxwellXJsonOutputBuffer out) {
+        if (string instanceof BinaryStringData) {
+            BinaryStringData binary = (BinaryStringData) string;
+            binary.ensureMaterialized();
+            if (binary.getSegments().length == 1) {
+                out.writeString(
+                        binary.getSegments()[0], binary.getOffset(), binary.getSizeInBytes());
+                return;
+            }
+        }
+        byte[] bytes = string.toBytes();
+        out.writeString(bytes, 0, bytes.length);
+    }
+
+    /** Writes the decimal as Jackson writes the node built by the "json" format. */
+    private static void writeDecimal(BigDecimal value, MaxwellXJsonOutputBuffer out) {
+        if (value.signum() == 0) {
+            out.write('0');
+        } else {
+            out.writeAscii(value.stripTrailingZeros().toString());
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,441 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A minimal, allocation-free JSON tokenizer working directly on the UTF-8 bytes of a message.
+ *
+ * <p>The scanner never materializes values on its own: {@link #readValue()} only consumes the next
+ * value and remembers its kind and byte range, callers decide whether (and how) to convert it.
+ * Nested objects and arrays are only checked to be well-formed while they are skipped, so values
+ * which are not needed are never decoded. The input must follow the JSON grammar as strictly as
+ * the Jackson parser the scanner replaces.
+ *
+ * <p>The class is public so that it can appear in the signatures of the generated {@link
+ * MaxwellXJsonFieldSwitch}es, its members are not.
+ */
+@Internal
+public final class MaxwellXJsonScanner {
+
+    static final int KIND_STRING = 1;
+    static final int KIND_NUMBER = 2;
+    static final int KIND_TRUE = 3;
+    static final int KIND_FALSE = 4;
+    static final int KIND_NULL = 5;
+    static final int KIND_OBJECT = 6;
+    static final int KIND_ARRAY = 7;
+
+    private byte[] buf;
+    private int pos;
+    private int limit;
+
+    /** Kind of the last value consumed by {@link #readValue()}. */
+    int valueKind;
+
+    /** Start offset (inclusive) of the last value, without quotes for strings. */
+    int valueStart;
+
+    /** End offset (exclusive) of the last value, without quotes for strings. */
+    int valueEnd;
+
+    /** Whether the last string value contains escape sequences. */
+    boolean valueEscaped;
+
+    /** Whether the last number value contains a fraction or an exponent. */
+    boolean valueFractional;
+
+    void reset(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    byte[] buffer() {
+        return buf;
+    }
+
+    int position() {
+        return pos;
+    }
+
+    /** Skips whitespaces and returns the next significant byte without consuming it. */
+    int peek() {
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                pos++;
+            } else {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    /** Consumes the expected byte (after optional whitespaces). */
+    void expect(char c) {
+        if (peek() != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    /** Checks that only whitespaces follow, e.g. after the top-level object of a message. */
+    void expectEnd() {
+        if (peek() != -1) {
+            throw error("Unexpected content after the end of the message");
+        }
+    }
+
+    /**
+     * Starts to iterate an object or continues the iteration, returns true if there is another
+     * member. The member name can be read by {@link #readFieldName()} afterwards.
+     */
+    boolean nextMember(boolean first) {
+        int b = peek();
+        if (b == '}') {
+            pos++;
+            return false;
+        }
+        if (!first) {
+            if (b != ',') {
+                throw error("Expected ',' or '}'");
+            }
+            pos++;
+        }
+        return true;
+    }
+
+    /** Reads a member name and the following colon, the name is kept as the current value. */
+    void readFieldName() {
+        if (peek() != '"') {
+            throw error("Expected field name");
+        }
+        readString();
+        expect(':');
+    }
+
+    /** Consumes the next value and remembers its kind and range. */
+    int readValue() {
+        int b = peek();
+        switch (b) {
+            case '"':
+                readString();
+                break;
+            case '{':
+            case '[':
+                int start = pos;
+                skipContainer();
+                valueStart = start;
+                valueEnd = pos;
+                valueKind = b == '{' ? KIND_OBJECT : KIND_ARRAY;
+                break;
+            case 't':
+                readLiteral("true");
+                valueKind = KIND_TRUE;
+                break;
+            case 'f':
+                readLiteral("false");
+                valueKind = KIND_FALSE;
+                break;
+            case 'n':
+                readLiteral("null");
+                valueKind = KIND_NULL;
+                break;
+            default:
+                if (b == '-' || (b >= '0' && b <= '9')) {
+                    readNumber();
+                } else {
+                    throw error("Unexpected character");
+                }
+        }
+        return valueKind;
+    }
+
+    /** Returns true if the current value (a string) equals the given ASCII/UTF-8 bytes. */
+    boolean valueEquals(byte[] expected) {
+        int length = valueEnd - valueStart;
+        if (length != expected.length || valueEscaped) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[valueStart + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the current value as text, the same way as {@code JsonNode#asText()} does. */
+    String valueText() {
+        switch (valueKind) {
+            case KIND_STRING:
+                return valueEscaped
+                        ? unescape(buf, valueStart, valueEnd)
+                        : new String(buf, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8);
+            case KIND_OBJECT:
+            case KIND_ARRAY:
+                return "";
+            default:
+                return new String(
+                        buf, valueStart, valueEnd - valueStart, StandardCharsets.US_ASCII);
+        }
+    }
+
+    /** Returns the UTF-8 bytes of the current string value with escape sequences resolved. */
+    byte[] valueBytes() {
+        if (valueEscaped) {
+            return unescape(buf, valueStart, valueEnd).getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[valueEnd - valueStart];
+        System.arraycopy(buf, valueStart, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    private void readString() {
+        int start = ++pos; // skip the opening quote
+        boolean escaped = false;
+        while (pos < limit) {
+            byte b = buf[pos];
+            if (b == '"') {
+                valueKind = KIND_STRING;
+                valueStart = start;
+                valueEnd = pos++;
+                valueEscaped = escaped;
+                return;
+            }
+            if (b == '\\') {
+                escaped = true;
+                pos += escapeLength();
+            } else if (b >= 0 && b < ' ') {
+                throw error("Illegal unescaped control character in string");
+            } else {
+                pos++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    /** Returns the length of the escape sequence at the current position, checking it is valid. */
+    private int escapeLength() {
+        if (pos + 1 >= limit) {
+            throw error("Unterminated string");
+        }
+        switch (buf[pos + 1]) {
+            case '"':
+            case '\\':
+            case '/':
+            case 'b':
+            case 'f':
+            case 'n':
+            case 'r':
+            case 't':
+                return 2;
+            case 'u':
+                if (pos + 5 >= limit) {
+                    throw error("Unterminated string");
+                }
+                for (int i = pos + 2; i < pos + 6; i++) {
+                    if (hexDigit((char) buf[i]) < 0) {
+                        throw error("Invalid unicode escape sequence");
+                    }
+                }
+                return 6;
+            default:
+                throw error("Invalid escape sequence");
+        }
+    }
+
+    /** Reads a number of the JSON grammar: {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}. */
+    private void readNumber() {
+        int start = pos;
+        boolean fractional = false;
+        if (buf[pos] == '-') {
+            pos++;
+        }
+        if (pos < limit && buf[pos] == '0') {
+            // no leading zeros, a following digit is rejected by the caller as any other byte
+            pos++;
+        } else if (!skipDigits()) {
+            throw error("Invalid number");
+        }
+        if (pos < limit && buf[pos] == '.') {
+            fractional = true;
+            pos++;
+            if (!skipDigits()) {
+                throw error("Invalid number fraction");
+            }
+        }
+        if (pos < limit && (buf[pos] == 'e' || buf[pos] == 'E')) {
+            fractional = true;
+            pos++;
+            if (pos < limit && (buf[pos] == '+' || buf[pos] == '-')) {
+                pos++;
+            }
+            if (!skipDigits()) {
+                throw error("Invalid number exponent");
+            }
+        }
+        valueKind = KIND_NUMBER;
+        valueStart = start;
+        valueEnd = pos;
+        valueFractional = fractional;
+    }
+
+    /** Skips a run of digits, returns false if there is none. */
+    private boolean skipDigits() {
+        int start = pos;
+        while (pos < limit && buf[pos] >= '0' && buf[pos] <= '9') {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private void readLiteral(String literal) {
+        int length = literal.length();
+        if (pos + length > limit) {
+            throw error("Unexpected end of input");
+        }
+        for (int i = 0; i < length; i++) {
+            if (buf[pos + i] != literal.charAt(i)) {
+                throw error("Unrecognized token");
+            }
+        }
+        valueStart = pos;
+        pos += length;
+        valueEnd = pos;
+    }
+
+    /** Skips an object or an array, checking that it is well-formed. */
+    private void skipContainer() {
+        if (buf[pos++] == '{') {
+            for (boolean first = true; nextMember(first); first = false) {
+                readFieldName();
+                readValue();
+            }
+        } else {
+            for (boolean first = true; nextElement(first); first = false) {
+                readValue();
+            }
+        }
+    }
+
+    /** Same as {@link #nextMember(boolean)} for the elements of an array. */
+    private boolean nextElement(boolean first) {
+        int b = peek();
+        if (b == ']') {
+            pos++;
+            return false;
+        }
+        if (!first) {
+            if (b != ',') {
+                throw error("Expected ',' or ']'");
+            }
+            pos++;
+        }
+        return true;
+    }
+
+    private MaxwellXJsonParseException error(String reason) {
+        return new MaxwellXJsonParseException(reason + " at byte offset " + pos + ".");
+    }
+
+    /** Resolves the JSON escape sequences of the given (escaped) string content. */
+    static String unescape(byte[] buf, int start, int end) {
+        String raw = new String(buf, start, end - start, StandardCharsets.UTF_8);
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (++i >= raw.length()) {
+                throw new MaxwellXJsonParseException("Invalid escape sequence.");
+            }
+            char e = raw.charAt(i);
+            switch (e) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'u':
+                    if (i + 4 >= raw.length()) {
+                        throw new MaxwellXJsonParseException("Invalid unicode escape sequence.");
+                    }
+                    int code = 0;
+                    for (int j = i + 1; j <= i + 4; j++) {
+                        int digit = hexDigit(raw.charAt(j));
+                        if (digit < 0) {
+                            throw new MaxwellXJsonParseException(
+                                    "Invalid unicode escape sequence.");
+                        }
+                        code = code << 4 | digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append(e);
+                    break;
+                default:
+                    throw new MaxwellXJsonParseException("Invalid escape sequence.");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    /** Exception which refers to malformed JSON input. */
+    static final class MaxwellXJsonParseException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MaxwellXJsonParseException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+
+import javax.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks the column layout of the "data" payloads of a table, i.e. their ordered member names,
+ * to detect the schema changes made upstream and to map the members to the fields of the row type
+ * without looking up their names.
+ *
+ * <p>The layout of the previous payload is tried first: a member whose name equals the name at the
+ * same index of the layout gets its field position from the layout. A payload with another layout
+ * is fingerprinted on its member names and resolved through a small direct-mapped cache of
+ * layouts, so that alternating layouts (e.g. the messages written before and after an ALTER TABLE)
+ * stay on the mapping-driven path. A layout which is not cached and whose columns differ from the
+ * previous layout is reported as a schema change by {@link #pollChange()}.
+ *
+ * <p>Payloads with escaped member names are decoded as usual but not tracked.
+ */
+@Internal
+final class MaxwellXJsonSchemaTracker {
+
+    /** Returned by {@link #lookup} if the member does not follow the current layout. */
+    static final int MISS = -2;
+
+    /** Number of cached layouts, must be a power of 2. */
+    private static final int CACHE_SIZE = 16;
+
+    private final String[] fieldNames;
+
+    private final Layout[] cache = new Layout[CACHE_SIZE];
+
+    /** The layout of the previous payload, null before the first payload. */
+    @Nullable private Layout current;
+
+    /** The first layout which has not been cached yet, null if there is none. */
+    @Nullable private Layout change;
+
+    // the payload being scanned, the members following the first miss are recorded
+
+    private byte[] buf;
+
+    private int count;
+
+    private int matched;
+
+    private boolean escaped;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private int[] positions = new int[16];
+
+    private int[] hashes = new int[16];
+
+    MaxwellXJsonSchemaTracker(List<String> fieldNames) {
+        this.fieldNames = fieldNames.toArray(new String[0]);
+    }
+
+    /** Starts tracking the payload held by the given buffer. */
+    void begin(byte[] buf) {
+        this.buf = buf;
+        this.count = 0;
+        this.matched = 0;
+        this.escaped = false;
+    }
+
+    /**
+     * Returns the field position of the member whose name is the current value of the scanner
+     * according to the current layout (-1 for an unknown column), or {@link #MISS} if the member
+     * does not follow the layout, in which case its position must be passed to {@link #record}.
+     */
+    int lookup(MaxwellXJsonScanner scanner) {
+        final int member = count;
+        if (matched == member
+                && current != null
+                && member < current.names.length
+                && !scanner.valueEscaped
+                && MaxwellXJsonBytes.equals(
+                        current.names[member], buf, scanner.valueStart, scanner.valueEnd)) {
+            matched++;
+            count++;
+            return current.positions[member];
+        }
+        return MISS;
+    }
+
+    /** Records the field position of a member which does not follow the current layout. */
+    void record(MaxwellXJsonScanner scanner, int pos) {
+        if (count >= starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+            positions = Arrays.copyOf(positions, count * 2);
+        }
+        escaped |= scanner.valueEscaped;
+        starts[count] = scanner.valueStart;
+        ends[count] = scanner.valueEnd;
+        positions[count] = pos;
+        count++;
+    }
+
+    /** Ends the tracking of the payload, switching to its layout if it is not the current one. */
+    void end() {
+        if (current != null && matched == count && count == current.names.length) {
+            return;
+        }
+        if (escaped) {
+            return;
+        }
+        if (hashes.length < count) {
+            hashes = new int[count * 2];
+        }
+        int fingerprint = count;
+        for (int i = 0; i < count; i++) {
+            hashes[i] =
+                    i < matched ? current.hashes[i] : MaxwellXJsonBytes.hash(buf, starts[i], ends[i]);
+            fingerprint = 31 * fingerprint + hashes[i];
+        }
+        final int slot = MaxwellXJsonBytes.spread(fingerprint) & (CACHE_SIZE - 1);
+        final Layout cached = cache[slot];
+        if (cached != null && cached.fingerprint == fingerprint && matches(cached)) {
+            current = cached;
+            return;
+        }
+
+        // a new layout, copy the member names out of the message
+        final byte[][] names = new byte[count][];
+        final int[] layoutPositions = new int[count];
+        for (int i = 0; i < count; i++) {
+            if (i < matched) {
+                names[i] = current.names[i];
+                layoutPositions[i] = current.positions[i];
+            } else {
+                names[i] = MaxwellXJsonBytes.copy(buf, starts[i], ends[i]);
+                layoutPositions[i] = positions[i];
+            }
+        }
+        final Layout layout =
+                new Layout(fingerprint, names, layoutPositions, Arrays.copyOf(hashes, count));
+        if (current != null && change == null && !sameColumns(layout, current)) {
+            change = layout;
+        }
+        cache[slot] = layout;
+        current = layout;
+    }
+
+    /** Returns and clears the schema change detected since the last call, null if there is none. */
+    @Nullable
+    Layout pollChange() {
+        Layout layout = change;
+        change = null;
+        return layout;
+    }
+
+    /** Returns true if the layouts have the same columns, maybe in another order. */
+    private static boolean sameColumns(Layout layout, Layout other) {
+        if (layout.names.length != other.names.length) {
+            return false;
+        }
+        for (byte[] name : layout.names) {
+            boolean found = false;
+            for (byte[] otherName : other.names) {
+                if (Arrays.equals(name, otherName)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean matches(Layout layout) {
+        if (layout.names.length != count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            boolean equal =
+                    i < matched
+                            ? Arrays.equals(layout.names[i], current.names[i])
+                            : MaxwellXJsonBytes.equals(layout.names[i], buf, starts[i], ends[i]);
+            if (!equal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** The member names of a payload and the field positions they are mapped to. */
+    final class Layout {
+        private final int fingerprint;
+        private final byte[][] names;
+        private final int[] positions;
+        private final int[] hashes;
+
+        private Layout(int fingerprint, byte[][] names, int[] positions, int[] hashes) {
+            this.fingerprint = fingerprint;
+            this.names = names;
+            this.positions = positions;
+            this.hashes = hashes;
+        }
+
+        /** Returns the members which are not declared in the row type. */
+        List<String> unknownColumns() {
+            List<String> columns = new ArrayList<>();
+            for (int i = 0; i < names.length; i++) {
+                if (positions[i] < 0) {
+                    columns.add(new String(names[i], StandardCharsets.UTF_8));
+                }
+            }
+            return columns;
+        }
+
+        /** Returns the fields of the row type which are not members. */
+        List<String> missingColumns() {
+            boolean[] present = new boolean[fieldNames.length];
+            for (int position : positions) {
+                if (position >= 0) {
+                    present[position] = true;
+                }
+            }
+            List<String> columns = new ArrayList<>();
+            for (int pos = 0; pos < fieldNames.length; pos++) {
+                if (!present[pos]) {
+                    columns.add(fieldNames[pos]);
+                }
+            }
+            return columns;
+        }
+    }
+}
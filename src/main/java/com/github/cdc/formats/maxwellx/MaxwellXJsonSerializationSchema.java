@@ -20,71 +20,152 @@ package com.github.cdc.formats.maxwellx;
 
 import org.apache.flink.api.common.serialization.SerializationSchema;
 import org.apache.flink.formats.json.JsonOptions;
-import org.apache.flink.formats.json.JsonRowDataSerializationSchema;
 import org.apache.flink.formats.json.TimestampFormat;
-import org.apache.flink.table.api.DataTypes;
-import org.apache.flink.table.data.GenericRowData;
 import org.apache.flink.table.data.RowData;
-import org.apache.flink.table.data.StringData;
-import org.apache.flink.table.types.DataType;
 import org.apache.flink.table.types.logical.RowType;
 import org.apache.flink.types.RowKind;
 
-import java.util.Objects;
+import javax.annotation.Nullable;
 
-import static org.apache.flink.table.types.utils.TypeConversions.fromLogicalToDataType;
+import java.io.IOException;
+import java.util.Objects;
 
 /**
  * Serialization schema from Flink Table/SQL internal data structure {@link RowData} to
  * maxwell-Json.
+ *
+ * <p>The message is written as UTF-8 straight from the row into a buffer reused across records,
+ * see {@link MaxwellXJsonRowWriter}.
+ *
+ * <p>Every row is written as its own message, an update is thus written as a "delete" of its
+ * before image and an "insert" of its after image. {@link #serializeUpdate(RowData, RowData)}
+ * writes a single "update" message instead, see {@link MaxwellXJsonUpdateEncodingOperator}.
  */
 public class MaxwellXJsonSerializationSchema implements SerializationSchema<RowData> {
     private static final long serialVersionUID = 1L;
 
-    private static final StringData OP_INSERT = StringData.fromString("insert");
-    private static final StringData OP_DELETE = StringData.fromString("delete");
-
-    private final JsonRowDataSerializationSchema jsonSerializer;
+    /** Logical type describing the database table. */
+    private final RowType rowType;
 
     /** Timestamp format specification which is used to parse timestamp. */
     private final TimestampFormat timestampFormat;
 
-    private transient GenericRowData reuse;
+    /** The handling mode when serializing null keys for map data. */
+    private final JsonOptions.MapNullKeyMode mapNullKeyMode;
+
+    /** The string literal when handling mode for map null key LITERAL. */
+    private final String mapNullKeyLiteral;
+
+    /** The "database" meta field of the messages, null to omit the meta fields. */
+    @Nullable private final String database;
+
+    /** The "table" meta field of the messages, null to omit the meta fields. */
+    @Nullable private final String table;
+
+    private final MaxwellXJsonRowWriter rowWriter;
+
+    private final byte[] insertSuffix;
+
+    private final byte[] updateSuffix;
+
+    private final byte[] deleteSuffix;
+
+    /** Flag indicating whether the suffixes end with the "ts" member name. */
+    private final boolean writeTimestamp;
+
+    private transient MaxwellXJsonOutputBuffer buffer;
 
     public MaxwellXJsonSerializationSchema(
             RowType rowType,
             TimestampFormat timestampFormat,
             JsonOptions.MapNullKeyMode mapNullKeyMode,
             String mapNullKeyLiteral) {
-        this.jsonSerializer =
-                new JsonRowDataSerializationSchema(
-                        createJsonRowType(fromLogicalToDataType(rowType)),
-                        timestampFormat,
-                        mapNullKeyMode,
-                        mapNullKeyLiteral);
+        this(rowType, timestampFormat, mapNullKeyMode, mapNullKeyLiteral, null, null);
+    }
+
+    /**
+     * Creates a schema writing the "database", "table" and "ts" meta fields as well, "ts" is the
+     * time of the serialization in seconds.
+     */
+    public MaxwellXJsonSerializationSchema(
+            RowType rowType,
+            TimestampFormat timestampFormat,
+            JsonOptions.MapNullKeyMode mapNullKeyMode,
+            String mapNullKeyLiteral,
+            @Nullable String database,
+            @Nullable String table) {
+        this.rowType = rowType;
         this.timestampFormat = timestampFormat;
+        this.mapNullKeyMode = mapNullKeyMode;
+        this.mapNullKeyLiteral = mapNullKeyLiteral;
+        this.database = database;
+        this.table = table;
+        this.rowWriter =
+                new MaxwellXJsonRowWriter(
+                        rowType, timestampFormat, mapNullKeyMode, mapNullKeyLiteral);
+        this.insertSuffix = MaxwellXJsonRowWriter.suffixOf("insert", database, table);
+        this.updateSuffix = MaxwellXJsonRowWriter.suffixOf("update", database, table);
+        this.deleteSuffix = MaxwellXJsonRowWriter.suffixOf("delete", database, table);
+        this.writeTimestamp = database != null || table != null;
     }
 
     @Override
     public void open(InitializationContext context) throws Exception {
-        this.reuse = new GenericRowData(2);
+        this.buffer = new MaxwellXJsonOutputBuffer(1024);
     }
 
     @Override
     public byte[] serialize(RowData element) {
-        reuse.setField(0, element);
-        reuse.setField(1, rowKind2String(element.getRowKind()));
-        return jsonSerializer.serialize(reuse);
+        try {
+            buffer.reset();
+            write(element, buffer);
+            return buffer.toByteArray();
+        } catch (Throwable t) {
+            throw new RuntimeException("Could not serialize row '" + element + "'. ", t);
+        }
+    }
+
+    /** Appends the message of the row to the buffer, used by the file writers. */
+    void write(RowData element, MaxwellXJsonOutputBuffer out) throws IOException {
+        rowWriter.write(element, rowKind2Type(element.getRowKind()), out);
+        finish(out);
+    }
+
+    /**
+     * Serializes an update as a single "update" message: "data" holds the after row and "old" the
+     * before values of the changed columns only.
+     */
+    public byte[] serializeUpdate(RowData before, RowData after) {
+        try {
+            buffer.reset();
+            rowWriter.writeUpdate(before, after, updateSuffix, buffer);
+            finish(buffer);
+            return buffer.toByteArray();
+        } catch (Throwable t) {
+            throw new RuntimeException(
+                    "Could not serialize update from '" + before + "' to '" + after + "'. ", t);
+        }
+    }
+
+    private void finish(MaxwellXJsonOutputBuffer out) {
+        if (writeTimestamp) {
+            out.writeLong(System.currentTimeMillis() / 1000);
+            out.write('}');
+        }
     }
 
-    private StringData rowKind2String(RowKind rowKind) {
+    public RowType getRowType() {
+        return rowType;
+    }
+
+    private byte[] rowKind2Type(RowKind rowKind) {
         switch (rowKind) {
             case INSERT:
             case UPDATE_AFTER:
-                return OP_INSERT;
+                return insertSuffix;
             case UPDATE_BEFORE:
             case DELETE:
-                return OP_DELETE;
+                return deleteSuffix;
             default:
                 throw new UnsupportedOperationException(
                         "Unsupported operation '" + rowKind + "' for row kind.");
@@ -100,20 +181,17 @@ public class MaxwellXJsonSerializationSchema implements SerializationSchema<RowD
             return false;
         }
         MaxwellXJsonSerializationSchema that = (MaxwellXJsonSerializationSchema) o;
-        return Objects.equals(jsonSerializer, that.jsonSerializer)
-                && timestampFormat == that.timestampFormat;
+        return Objects.equals(rowType, that.rowType)
+                && timestampFormat == that.timestampFormat
+                && mapNullKeyMode == that.mapNullKeyMode
+                && Objects.equals(mapNullKeyLiteral, that.mapNullKeyLiteral)
+                && Objects.equals(database, that.database)
+                && Objects.equals(table, that.table);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(jsonSerializer, timestampFormat);
-    }
-
-    private RowType createJsonRowType(DataType databaseSchema) {
-        DataType payload =
-                DataTypes.ROW(
-                        DataTypes.FIELD("data", databaseSchema),
-                        DataTypes.FIELD("type", DataTypes.STRING()));
-        return (RowType) payload.getLogicalType();
+        return Objects.hash(
+                rowType, timestampFormat, mapNullKeyMode, mapNullKeyLiteral, database, table);
     }
 }
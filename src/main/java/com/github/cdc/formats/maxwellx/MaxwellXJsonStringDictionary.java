@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.StringData;
+
+import java.io.Serializable;
+
+/**
+ * Bounded dictionary of the values of a low-cardinality string column, mapping the raw UTF-8 bytes
+ * of a value to a shared, immutable {@link StringData}. Repeated values such as a status or a
+ * currency code are then neither copied nor allocated again, and downstream operators hash and
+ * compare the same instances.
+ *
+ * <p>The dictionary is a direct-mapped cache: a value replaces the entry of its slot, so it never
+ * holds more entries than its capacity and the values of a high-cardinality column simply evict
+ * each other. Values longer than {@link #MAX_VALUE_LENGTH} bytes are never cached.
+ */
+@Internal
+final class MaxwellXJsonStringDictionary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Maximum length in bytes of a cached value. */
+    static final int MAX_VALUE_LENGTH = 64;
+
+    /** Number of entries, a power of 2. */
+    private final int capacity;
+
+    private transient byte[][] keys;
+
+    private transient StringData[] values;
+
+    /** Creates a dictionary of at least the given number of entries. */
+    MaxwellXJsonStringDictionary(int size) {
+        int capacity = 1;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        this.capacity = capacity;
+    }
+
+    /** Returns the shared string data of the given byte range, which must be valid UTF-8. */
+    StringData get(byte[] buf, int start, int end) {
+        if (end - start > MAX_VALUE_LENGTH) {
+            return StringData.fromBytes(MaxwellXJsonBytes.copy(buf, start, end));
+        }
+        if (values == null) {
+            keys = new byte[capacity][];
+            values = new StringData[capacity];
+        }
+        final int slot =
+                MaxwellXJsonBytes.spread(MaxwellXJsonBytes.hash(buf, start, end)) & (capacity - 1);
+        if (MaxwellXJsonBytes.equals(keys[slot], buf, start, end)) {
+            return values[slot];
+        }
+
+        // cache miss, replace the slot
+        final byte[] key = MaxwellXJsonBytes.copy(buf, start, end);
+        final StringData value = StringData.fromBytes(key);
+        keys[slot] = key;
+        values[slot] = value;
+        return value;
+    }
+}
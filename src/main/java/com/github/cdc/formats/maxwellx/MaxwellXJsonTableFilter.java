@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Filter on the "database" and "table" meta fields of a Maxwell message.
+ *
+ * <p>A message is accepted if its database and its table are both accepted. A name is accepted if
+ * it is contained in the include list or matches the include pattern (or neither of them is set),
+ * and it is neither contained in the exclude list nor matches the exclude pattern. A message
+ * without a meta field whose name must be included is corrupt, see {@link #matches}.
+ *
+ * <p>The filter works on the raw UTF-8 bytes of the meta fields: decisions are kept in a small,
+ * direct-mapped cache keyed by the (database, table) bytes, so the include/exclude lists and
+ * patterns are only evaluated once per distinct pair and no {@link String} is created for the
+ * following messages.
+ */
+@Internal
+public final class MaxwellXJsonTableFilter implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Number of cached decisions, must be a power of 2. */
+    private static final int CACHE_SIZE = 256;
+
+    private final NameFilter databaseFilter;
+
+    private final NameFilter tableFilter;
+
+    private transient byte[][] cachedDatabases;
+
+    private transient byte[][] cachedTables;
+
+    private transient boolean[] cachedDecisions;
+
+    private MaxwellXJsonTableFilter(NameFilter databaseFilter, NameFilter tableFilter) {
+        this.databaseFilter = databaseFilter;
+        this.tableFilter = tableFilter;
+    }
+
+    /** Creates a filter which only accepts the given database and table (if not null). */
+    public MaxwellXJsonTableFilter(@Nullable String database, @Nullable String table) {
+        this(
+                new NameFilter(singleton(database), null, Collections.emptySet(), null),
+                new NameFilter(singleton(table), null, Collections.emptySet(), null));
+    }
+
+    /** Creates a builder for building a {@link MaxwellXJsonTableFilter}. */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Returns true if the filter does not reject any message. */
+    public boolean acceptsAll() {
+        return databaseFilter.acceptsAll() && tableFilter.acceptsAll();
+    }
+
+    /** Returns true if the decision depends on the "database" meta field. */
+    boolean needsDatabase() {
+        return !databaseFilter.acceptsAll();
+    }
+
+    /** Returns true if the decision depends on the "table" meta field. */
+    boolean needsTable() {
+        return !tableFilter.acceptsAll();
+    }
+
+    /**
+     * Returns true if the message with the given meta fields should be read. A null buffer means
+     * the meta field is absent in the message: it is not excluded by any rule, but a message
+     * without the field cannot be included, so it is reported as corrupt if the field has include
+     * rules.
+     */
+    boolean matches(
+            @Nullable byte[] dbBuf,
+            int dbStart,
+            int dbEnd,
+            @Nullable byte[] tableBuf,
+            int tableStart,
+            int tableEnd) {
+        final boolean needsDatabase = needsDatabase();
+        final boolean needsTable = needsTable();
+        if ((needsDatabase && dbBuf == null) || (needsTable && tableBuf == null)) {
+            // rare, the decision is not cached
+            return (!needsDatabase || accepts(databaseFilter, "database", dbBuf, dbStart, dbEnd))
+                    && (!needsTable || accepts(tableFilter, "table", tableBuf, tableStart, tableEnd));
+        }
+        if (!needsDatabase) {
+            dbBuf = MaxwellXJsonBytes.EMPTY;
+            dbStart = 0;
+            dbEnd = 0;
+        }
+        if (!needsTable) {
+            tableBuf = MaxwellXJsonBytes.EMPTY;
+            tableStart = 0;
+            tableEnd = 0;
+        }
+        if (cachedDecisions == null) {
+            cachedDatabases = new byte[CACHE_SIZE][];
+            cachedTables = new byte[CACHE_SIZE][];
+            cachedDecisions = new boolean[CACHE_SIZE];
+        }
+        final int hash =
+                31 * MaxwellXJsonBytes.hash(dbBuf, dbStart, dbEnd)
+                        + MaxwellXJsonBytes.hash(tableBuf, tableStart, tableEnd);
+        final int slot = MaxwellXJsonBytes.spread(hash) & (CACHE_SIZE - 1);
+        if (MaxwellXJsonBytes.equals(cachedDatabases[slot], dbBuf, dbStart, dbEnd)
+                && MaxwellXJsonBytes.equals(cachedTables[slot], tableBuf, tableStart, tableEnd)) {
+            return cachedDecisions[slot];
+        }
+
+        // cache miss, evaluate the rules and replace the slot
+        final byte[] database = MaxwellXJsonBytes.copy(dbBuf, dbStart, dbEnd);
+        final byte[] table = MaxwellXJsonBytes.copy(tableBuf, tableStart, tableEnd);
+        final boolean decision =
+                (!needsDatabase
+                                || databaseFilter.accepts(
+                                        new String(database, StandardCharsets.UTF_8)))
+                        && (!needsTable
+                                || tableFilter.accepts(new String(table, StandardCharsets.UTF_8)));
+        cachedDatabases[slot] = database;
+        cachedTables[slot] = table;
+        cachedDecisions[slot] = decision;
+        return decision;
+    }
+
+    private static boolean accepts(
+            NameFilter filter, String field, @Nullable byte[] buf, int start, int end) {
+        if (buf != null) {
+            return filter.accepts(new String(buf, start, end - start, StandardCharsets.UTF_8));
+        } else if (filter.hasIncludes()) {
+            throw new MaxwellXJsonScanner.MaxwellXJsonParseException(
+                    "Missing \"" + field + "\" field, required by the filter.");
+        }
+        return true;
+    }
+
+    private static Set<String> singleton(@Nullable String name) {
+        return name == null ? Collections.emptySet() : Collections.singleton(name);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonTableFilter that = (MaxwellXJsonTableFilter) o;
+        return databaseFilter.equals(that.databaseFilter) && tableFilter.equals(that.tableFilter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(databaseFilter, tableFilter);
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Builder
+    // ------------------------------------------------------------------------------------------
+
+    /** A builder for creating a {@link MaxwellXJsonTableFilter}. */
+    public static final class Builder {
+        private final Set<String> databaseIncludes = new HashSet<>();
+        private final Set<String> databaseExcludes = new HashSet<>();
+        private final Set<String> tableIncludes = new HashSet<>();
+        private final Set<String> tableExcludes = new HashSet<>();
+        private Pattern databaseIncludePattern = null;
+        private Pattern databaseExcludePattern = null;
+        private Pattern tableIncludePattern = null;
+        private Pattern tableExcludePattern = null;
+
+        private Builder() {}
+
+        public Builder includeDatabases(Collection<String> databases) {
+            this.databaseIncludes.addAll(databases);
+            return this;
+        }
+
+        public Builder excludeDatabases(Collection<String> databases) {
+            this.databaseExcludes.addAll(databases);
+            return this;
+        }
+
+        public Builder includeTables(Collection<String> tables) {
+            this.tableIncludes.addAll(tables);
+            return this;
+        }
+
+        public Builder excludeTables(Collection<String> tables) {
+            this.tableExcludes.addAll(tables);
+            return this;
+        }
+
+        public Builder setDatabaseIncludePattern(@Nullable String regex) {
+            this.databaseIncludePattern = compile(regex);
+            return this;
+        }
+
+        public Builder setDatabaseExcludePattern(@Nullable String regex) {
+            this.databaseExcludePattern = compile(regex);
+            return this;
+        }
+
+        public Builder setTableIncludePattern(@Nullable String regex) {
+            this.tableIncludePattern = compile(regex);
+            return this;
+        }
+
+        public Builder setTableExcludePattern(@Nullable String regex) {
+            this.tableExcludePattern = compile(regex);
+            return this;
+        }
+
+        public MaxwellXJsonTableFilter build() {
+            return new MaxwellXJsonTableFilter(
+                    new NameFilter(
+                            databaseIncludes,
+                            databaseIncludePattern,
+                            databaseExcludes,
+                            databaseExcludePattern),
+                    new NameFilter(
+                            tableIncludes, tableIncludePattern, tableExcludes, tableExcludePattern));
+        }
+
+        private static Pattern compile(@Nullable String regex) {
+            return regex == null ? null : Pattern.compile(regex);
+        }
+    }
+
+    // ------------------------------------------------------------------------------------------
+
+    /** The include/exclude rules of a single meta field. */
+    private static final class NameFilter implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Set<String> includes;
+
+        private final @Nullable Pattern includePattern;
+
+        private final Set<String> excludes;
+
+        private final @Nullable Pattern excludePattern;
+
+        private NameFilter(
+                Set<String> includes,
+                @Nullable Pattern includePattern,
+                Set<String> excludes,
+                @Nullable Pattern excludePattern) {
+            this.includes = new HashSet<>(includes);
+            this.includePattern = includePattern;
+            this.excludes = new HashSet<>(excludes);
+            this.excludePattern = excludePattern;
+        }
+
+        boolean acceptsAll() {
+            return includes.isEmpty()
+                    && includePattern == null
+                    && excludes.isEmpty()
+                    && excludePattern == null;
+        }
+
+        boolean hasIncludes() {
+            return !includes.isEmpty() || includePattern != null;
+        }
+
+        boolean accepts(String name) {
+            boolean included =
+                    (includes.isEmpty() && includePattern == null)
+                            || includes.contains(name)
+                            || (includePattern != null && includePattern.matcher(name).matches());
+            return included
+                    && !excludes.contains(name)
+                    && (excludePattern == null || !excludePattern.matcher(name).matches());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            NameFilter that = (NameFilter) o;
+            return includes.equals(that.includes)
+                    && excludes.equals(that.excludes)
+                    && Objects.equals(patternOf(includePattern), patternOf(that.includePattern))
+                    && Objects.equals(patternOf(excludePattern), patternOf(that.excludePattern));
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    includes, excludes, patternOf(includePattern), patternOf(excludePattern));
+        }
+
+        private static String patternOf(@Nullable Pattern pattern) {
+            return pattern == null ? null : pattern.pattern();
+        }
+    }
+}
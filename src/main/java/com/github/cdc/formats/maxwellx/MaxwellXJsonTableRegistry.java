@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.util.OutputTag;
+
+import javax.annotation.Nullable;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Registry mapping the (database, table) pairs of a Maxwell topic to their table schemas. Every
+ * registered table is identified by a route, i.e. its registration index, which is used by the
+ * {@link MaxwellXJsonRoutingDeserializationSchema} to tag the decoded rows.
+ */
+public final class MaxwellXJsonTableRegistry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String[] databases;
+
+    private final String[] tables;
+
+    private final RowType[] rowTypes;
+
+    private final TypeInformation<RowData>[] typeInfos;
+
+    private final byte[][] databaseBytes;
+
+    private final byte[][] tableBytes;
+
+    /** Open addressing hash table from (database, table) to route, -1 for an empty slot. */
+    private final int[] routeSlots;
+
+    @SuppressWarnings("unchecked")
+    private MaxwellXJsonTableRegistry(List<Entry> entries) {
+        final int size = entries.size();
+        this.databases = new String[size];
+        this.tables = new String[size];
+        this.rowTypes = new RowType[size];
+        this.typeInfos = (TypeInformation<RowData>[]) new TypeInformation<?>[size];
+        this.databaseBytes = new byte[size][];
+        this.tableBytes = new byte[size][];
+        this.routeSlots = new int[MaxwellXJsonBytes.tableSize(size)];
+        Arrays.fill(routeSlots, -1);
+        for (int route = 0; route < size; route++) {
+            Entry entry = entries.get(route);
+            databases[route] = entry.database;
+            tables[route] = entry.table;
+            rowTypes[route] = entry.rowType;
+            typeInfos[route] = entry.typeInfo;
+            databaseBytes[route] = entry.database.getBytes(StandardCharsets.UTF_8);
+            tableBytes[route] = entry.table.getBytes(StandardCharsets.UTF_8);
+            int slot =
+                    slotOf(
+                            databaseBytes[route],
+                            0,
+                            databaseBytes[route].length,
+                            tableBytes[route],
+                            0,
+                            tableBytes[route].length);
+            while (routeSlots[slot] >= 0) {
+                slot = (slot + 1) & (routeSlots.length - 1);
+            }
+            routeSlots[slot] = route;
+        }
+    }
+
+    /** Creates a builder for building a {@link MaxwellXJsonTableRegistry}. */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /** Returns the number of registered tables. */
+    public int size() {
+        return rowTypes.length;
+    }
+
+    public String getDatabase(int route) {
+        return databases[route];
+    }
+
+    public String getTable(int route) {
+        return tables[route];
+    }
+
+    public RowType getRowType(int route) {
+        return rowTypes[route];
+    }
+
+    public TypeInformation<RowData> getTypeInfo(int route) {
+        return typeInfos[route];
+    }
+
+    /** Returns the route of the given table, or -1 if the table is not registered. */
+    public int getRoute(String database, String table) {
+        byte[] db = database.getBytes(StandardCharsets.UTF_8);
+        byte[] tbl = table.getBytes(StandardCharsets.UTF_8);
+        return lookup(db, 0, db.length, tbl, 0, tbl.length);
+    }
+
+    /** Returns the side output tag carrying the rows of the given route. */
+    public OutputTag<RowData> getOutputTag(int route) {
+        return new OutputTag<>(
+                "maxwellx-json-" + databases[route] + "." + tables[route], typeInfos[route]);
+    }
+
+    /** Returns the side output tag carrying the rows of the given table. */
+    public OutputTag<RowData> getOutputTag(String database, String table) {
+        int route = getRoute(database, table);
+        if (route < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Table '%s.%s' is not registered.", database, table));
+        }
+        return getOutputTag(route);
+    }
+
+    /**
+     * Returns a filter accepting the registered databases and tables, used to skip the messages of
+     * unregistered tables before the exact lookup.
+     */
+    MaxwellXJsonTableFilter toTableFilter() {
+        return MaxwellXJsonTableFilter.builder()
+                .includeDatabases(new HashSet<>(Arrays.asList(databases)))
+                .includeTables(new HashSet<>(Arrays.asList(tables)))
+                .build();
+    }
+
+    /** Returns the route of the given meta fields, or -1 if the table is not registered. */
+    int lookup(
+            @Nullable byte[] dbBuf,
+            int dbStart,
+            int dbEnd,
+            @Nullable byte[] tableBuf,
+            int tableStart,
+            int tableEnd) {
+        if (dbBuf == null || tableBuf == null) {
+            return -1;
+        }
+        int slot = slotOf(dbBuf, dbStart, dbEnd, tableBuf, tableStart, tableEnd);
+        int route;
+        while ((route = routeSlots[slot]) >= 0) {
+            if (MaxwellXJsonBytes.equals(databaseBytes[route], dbBuf, dbStart, dbEnd)
+                    && MaxwellXJsonBytes.equals(tableBytes[route], tableBuf, tableStart, tableEnd)) {
+                return route;
+            }
+            slot = (slot + 1) & (routeSlots.length - 1);
+        }
+        return -1;
+    }
+
+    private int slotOf(
+            byte[] dbBuf, int dbStart, int dbEnd, byte[] tableBuf, int tableStart, int tableEnd) {
+        int hash =
+                31 * MaxwellXJsonBytes.hash(dbBuf, dbStart, dbEnd)
+                        + MaxwellXJsonBytes.hash(tableBuf, tableStart, tableEnd);
+        return MaxwellXJsonBytes.spread(hash) & (routeSlots.length - 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        MaxwellXJsonTableRegistry that = (MaxwellXJsonTableRegistry) o;
+        return Arrays.equals(databases, that.databases)
+                && Arrays.equals(tables, that.tables)
+                && Arrays.equals(rowTypes, that.rowTypes)
+                && Arrays.equals(typeInfos, that.typeInfos);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                Arrays.hashCode(databases),
+                Arrays.hashCode(tables),
+                Arrays.hashCode(rowTypes),
+                Arrays.hashCode(typeInfos));
+    }
+
+    // ------------------------------------------------------------------------------------------
+    // Builder
+    // ------------------------------------------------------------------------------------------
+
+    /** A builder for creating a {@link MaxwellXJsonTableRegistry}. */
+    public static final class Builder {
+        private final List<Entry> entries = new ArrayList<>();
+        private final Set<String> names = new HashSet<>();
+
+        private Builder() {}
+
+        /** Registers a table, the route of the table is its registration index. */
+        public Builder register(
+                String database,
+                String table,
+                RowType rowType,
+                TypeInformation<RowData> typeInfo) {
+            if (!names.add(database + "." + table)) {
+                throw new IllegalArgumentException(
+                        String.format("Table '%s.%s' is registered twice.", database, table));
+            }
+            entries.add(new Entry(database, table, rowType, typeInfo));
+            return this;
+        }
+
+        public MaxwellXJsonTableRegistry build() {
+            return new MaxwellXJsonTableRegistry(entries);
+        }
+    }
+
+    private static final class Entry {
+        private final String database;
+        private final String table;
+        private final RowType rowType;
+        private final TypeInformation<RowData> typeInfo;
+
+        private Entry(
+                String database,
+                String table,
+                RowType rowType,
+                TypeInformation<RowData> typeInfo) {
+            this.database = database;
+            this.table = table;
+            this.rowType = rowType;
+            this.typeInfo = typeInfo;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.OutputTag;
+
+/**
+ * Splits the {@link MaxwellXJsonRoutedRow}s produced by a {@link
+ * MaxwellXJsonRoutingDeserializationSchema} into one side output per registered table. The side
+ * output of a table is obtained with {@link MaxwellXJsonTableRegistry#getOutputTag(String,
+ * String)}, the dead letters go to the {@link #DEAD_LETTER_TAG}; the main output stays empty.
+ */
+public class MaxwellXJsonTableRouter extends ProcessFunction<MaxwellXJsonRoutedRow, RowData> {
+    private static final long serialVersionUID = 1L;
+
+    /** The side output carrying the corrupt messages. */
+    public static final OutputTag<MaxwellXJsonDeadLetter> DEAD_LETTER_TAG =
+            new OutputTag<>("maxwellx-json-dead-letters", MaxwellXJsonDeadLetterTypeInfo.INSTANCE);
+
+    private final MaxwellXJsonTableRegistry registry;
+
+    private transient OutputTag<RowData>[] outputTags;
+
+    public MaxwellXJsonTableRouter(MaxwellXJsonTableRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void processElement(MaxwellXJsonRoutedRow value, Context ctx, Collector<RowData> out) {
+        if (outputTags == null) {
+            outputTags = (OutputTag<RowData>[]) new OutputTag<?>[registry.size()];
+            for (int route = 0; route < registry.size(); route++) {
+                outputTags[route] = registry.getOutputTag(route);
+            }
+        }
+        int route = value.getRoute();
+        if (route == MaxwellXJsonRoutedRow.DEAD_LETTER_ROUTE) {
+            ctx.output(DEAD_LETTER_TAG, value.getDeadLetter());
+        } else {
+            ctx.output(outputTags[route], value.getRow());
+        }
+    }
+}
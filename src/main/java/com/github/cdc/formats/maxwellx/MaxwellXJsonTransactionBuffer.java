@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.runtime.state.FunctionSnapshotContext;
+import org.apache.flink.streaming.api.checkpoint.CheckpointedFunction;
+import org.apache.flink.streaming.api.functions.ProcessFunction;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.Preconditions;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers the rows produced by a {@link MaxwellXJsonDeserializationSchema} with {@link
+ * MaxwellXJsonDeserializationSchema.Builder#setTransactionMetadata(boolean) transaction metadata}
+ * until the last message of their transaction, i.e. the message with "commit": true, and emits the
+ * transaction as a unit. Downstream operators thus never observe the intermediate states of a
+ * multi-row transaction.
+ *
+ * <p>The function must directly follow the source, so that the rows of a transaction arrive in
+ * order and on the same subtask; Maxwell writes a transaction to a single partition as long as the
+ * messages are partitioned by database (its default). Rows without "xid" are emitted as they come.
+ * The rows are held across messages, so the schema must not run in object reuse mode.
+ *
+ * <p>The "commit" message of a transaction may belong to a table rejected by the database/table
+ * filter of the schema, in which case it never reaches the buffer. Since Maxwell writes the
+ * transactions of a partition one after another, a row of another transaction also ends the open
+ * ones: a transaction whose commit was filtered out is emitted with the next row of another
+ * transaction, or when the bound is reached. This requires the rows of different partitions not to
+ * interleave, i.e. a source subtask per partition; otherwise the transactions of the partitions
+ * read by a subtask may be emitted in several parts.
+ *
+ * <p>The buffer is bounded: when it holds more than the maximum number of rows, the oldest open
+ * transactions are emitted without waiting for their commit. The buffered rows are part of the
+ * checkpoints; after a change of parallelism, a transaction may be split between subtasks, in
+ * which case its parts are emitted when the next row arrives.
+ *
+ * <p>If key fields are given, the rows of a transaction are compacted into one net change per key
+ * before being emitted, see {@link MaxwellXJsonChangelogCompactor}.
+ */
+public class MaxwellXJsonTransactionBuffer extends ProcessFunction<RowData, RowData>
+        implements CheckpointedFunction {
+    private static final long serialVersionUID = 1L;
+
+    private final RowType rowType;
+
+    private final TypeInformation<RowData> typeInfo;
+
+    private final int xidPos;
+
+    private final int commitPos;
+
+    private final int maxBufferedRows;
+
+    /** The key fields of the compaction, null to emit the transactions as they are. */
+    @Nullable private final int[] keyFields;
+
+    /** The open transactions by "xid", oldest first. */
+    private transient LinkedHashMap<Long, List<RowData>> transactions;
+
+    private transient int bufferedRows;
+
+    private transient ListState<RowData> checkpointedRows;
+
+    private transient MaxwellXJsonChangelogCompactor compactor;
+
+    /**
+     * Creates a buffer of the rows of the given type, which must end with the transaction meta
+     * fields (see {@link MaxwellXJsonTransactionMetadata#appendTo(RowType)}).
+     */
+    public MaxwellXJsonTransactionBuffer(
+            RowType rowType, TypeInformation<RowData> typeInfo, int maxBufferedRows) {
+        this(rowType, typeInfo, maxBufferedRows, null);
+    }
+
+    /**
+     * Creates a buffer of the rows of the given type, which compacts the changes of a transaction
+     * by the given key fields.
+     */
+    public MaxwellXJsonTransactionBuffer(
+            RowType rowType,
+            TypeInformation<RowData> typeInfo,
+            int maxBufferedRows,
+            @Nullable int[] keyFields) {
+        Preconditions.checkArgument(maxBufferedRows > 0, "The buffer must hold at least 1 row.");
+        int offset = MaxwellXJsonTransactionMetadata.offsetIn(rowType);
+        this.rowType = rowType;
+        this.typeInfo = typeInfo;
+        this.keyFields = keyFields;
+        this.xidPos = offset + MaxwellXJsonTransactionMetadata.XID_INDEX;
+        this.commitPos = offset + MaxwellXJsonTransactionMetadata.COMMIT_INDEX;
+        this.maxBufferedRows = maxBufferedRows;
+    }
+
+    @Override
+    public void open(Configuration parameters) {
+        if (keyFields != null) {
+            this.compactor = new MaxwellXJsonChangelogCompactor(rowType, keyFields, maxBufferedRows);
+        }
+    }
+
+    @Override
+    public void initializeState(FunctionInitializationContext context) throws Exception {
+        this.transactions = new LinkedHashMap<>();
+        this.bufferedRows = 0;
+        this.checkpointedRows =
+                context.getOperatorStateStore()
+                        .getListState(
+                                new ListStateDescriptor<>("maxwellx-json-transactions", typeInfo));
+        if (context.isRestored()) {
+            for (RowData row : checkpointedRows.get()) {
+                buffer(row.getLong(xidPos), row);
+            }
+        }
+    }
+
+    @Override
+    public void snapshotState(FunctionSnapshotContext context) throws Exception {
+        List<RowData> rows = new ArrayList<>(bufferedRows);
+        for (List<RowData> transaction : transactions.values()) {
+            rows.addAll(transaction);
+        }
+        checkpointedRows.update(rows);
+    }
+
+    @Override
+    public void processElement(RowData row, Context ctx, Collector<RowData> out) {
+        if (row.isNullAt(xidPos)) {
+            out.collect(row);
+            evictOverflow(out);
+            return;
+        }
+        long xid = row.getLong(xidPos);
+        if (transactions.size() > (transactions.containsKey(xid) ? 1 : 0)) {
+            // the transactions of a partition follow each other, so a row of another transaction
+            // ends the open ones, also when their commit message was rejected by the filter
+            emitAllExcept(xid, out);
+        }
+        if (row.getBoolean(commitPos)) {
+            List<RowData> transaction = transactions.remove(xid);
+            if (transaction == null) {
+                out.collect(row);
+            } else {
+                transaction.add(row);
+                bufferedRows++;
+                emit(transaction, out);
+            }
+        } else {
+            buffer(xid, row);
+        }
+        evictOverflow(out);
+    }
+
+    /** Emits the open transactions other than the given one, oldest first. */
+    private void emitAllExcept(long xid, Collector<RowData> out) {
+        Iterator<Map.Entry<Long, List<RowData>>> it = transactions.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, List<RowData>> transaction = it.next();
+            if (transaction.getKey() != xid) {
+                it.remove();
+                emit(transaction.getValue(), out);
+            }
+        }
+    }
+
+    /**
+     * Emits the oldest open transactions until the buffer is within its bound again, which it may
+     * exceed by far after restoring the merged state of several subtasks.
+     */
+    private void evictOverflow(Collector<RowData> out) {
+        while (bufferedRows > maxBufferedRows) {
+            Iterator<Map.Entry<Long, List<RowData>>> oldest = transactions.entrySet().iterator();
+            List<RowData> transaction = oldest.next().getValue();
+            oldest.remove();
+            emit(transaction, out);
+        }
+    }
+
+    private void buffer(long xid, RowData row) {
+        transactions.computeIfAbsent(xid, k -> new ArrayList<>()).add(row);
+        bufferedRows++;
+    }
+
+    private void emit(List<RowData> transaction, Collector<RowData> out) {
+        bufferedRows -= transaction.size();
+        if (compactor == null || transaction.size() == 1) {
+            for (RowData row : transaction) {
+                out.collect(row);
+            }
+            return;
+        }
+        for (RowData row : transaction) {
+            if (compactor.add(row)) {
+                compactor.flush(out);
+            }
+        }
+        compactor.flush(out);
+    }
+}
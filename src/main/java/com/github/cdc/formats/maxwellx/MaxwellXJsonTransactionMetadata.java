@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.utils.JoinedRowData;
+import org.apache.flink.table.types.logical.BigIntType;
+import org.apache.flink.table.types.logical.BooleanType;
+import org.apache.flink.table.types.logical.LogicalType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.table.types.logical.VarCharType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The transaction meta fields of Maxwell ("xid", "xoffset", "commit", "ts" and "position"), which
+ * are appended to the rows of a {@link MaxwellXJsonDeserializationSchema} built with {@link
+ * MaxwellXJsonDeserializationSchema.Builder#setTransactionMetadata(boolean)}. The commit flag is
+ * only set on the last row of the last message of a transaction, e.g. on the UPDATE_AFTER row of
+ * an update.
+ */
+public final class MaxwellXJsonTransactionMetadata {
+
+    public static final String XID = "_maxwell_xid";
+
+    public static final String XOFFSET = "_maxwell_xoffset";
+
+    public static final String COMMIT = "_maxwell_commit";
+
+    public static final String TS = "_maxwell_ts";
+
+    public static final String POSITION = "_maxwell_position";
+
+    /** Number of the appended fields. */
+    public static final int FIELD_COUNT = 5;
+
+    static final int XID_INDEX = 0;
+    static final int XOFFSET_INDEX = 1;
+    static final int COMMIT_INDEX = 2;
+    static final int TS_INDEX = 3;
+    static final int POSITION_INDEX = 4;
+
+    private MaxwellXJsonTransactionMetadata() {}
+
+    /** Returns the given row type followed by the transaction meta fields. */
+    public static RowType appendTo(RowType rowType) {
+        List<RowType.RowField> fields = new ArrayList<>(rowType.getFields());
+        fields.add(field(XID, new BigIntType()));
+        fields.add(field(XOFFSET, new BigIntType()));
+        fields.add(field(COMMIT, new BooleanType(false)));
+        fields.add(field(TS, new BigIntType()));
+        fields.add(field(POSITION, new VarCharType(VarCharType.MAX_LENGTH)));
+        return new RowType(rowType.isNullable(), fields);
+    }
+
+    /** Returns the position of the first transaction meta field in the given row type. */
+    static int offsetIn(RowType rowType) {
+        int offset = rowType.getFieldCount() - FIELD_COUNT;
+        if (offset < 0 || !XID.equals(rowType.getFieldNames().get(offset + XID_INDEX))) {
+            throw new IllegalArgumentException(
+                    "The row type does not end with the Maxwell transaction meta fields: "
+                            + rowType);
+        }
+        return offset;
+    }
+
+    /** Returns the transaction meta fields of the scanned message. */
+    static GenericRowData of(MaxwellXJsonEnvelope envelope) {
+        GenericRowData metadata = new GenericRowData(FIELD_COUNT);
+        metadata.setField(XID_INDEX, envelope.xid);
+        metadata.setField(XOFFSET_INDEX, envelope.xoffset);
+        metadata.setField(COMMIT_INDEX, envelope.commit);
+        metadata.setField(TS_INDEX, envelope.ts);
+        metadata.setField(POSITION_INDEX, envelope.position);
+        return metadata;
+    }
+
+    /** Returns the row followed by the given meta fields, with the kind of the row. */
+    static RowData join(RowData row, GenericRowData metadata) {
+        JoinedRowData joined = new JoinedRowData(row, metadata);
+        joined.setRowKind(row.getRowKind());
+        return joined;
+    }
+
+    private static RowType.RowField field(String name, LogicalType type) {
+        return new RowType.RowField(name, type);
+    }
+}
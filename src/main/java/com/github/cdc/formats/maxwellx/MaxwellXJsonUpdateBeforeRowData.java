@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.ArrayData;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.MapData;
+import org.apache.flink.table.data.RawValueData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.types.RowKind;
+
+/**
+ * The {@link RowKind#UPDATE_BEFORE} row of a Maxwell update, as a view joining the "old" and the
+ * "data" rows: a field is read from the "old" row if it is not null there (i.e. the column has
+ * changed), and from the "data" row otherwise. The unchanged columns are shared with the {@link
+ * RowKind#UPDATE_AFTER} row instead of being copied.
+ */
+@Internal
+final class MaxwellXJsonUpdateBeforeRowData implements RowData {
+
+    private RowKind rowKind = RowKind.UPDATE_BEFORE;
+
+    private RowData old;
+
+    private RowData after;
+
+    /** Replaces the joined rows, returns this view. */
+    MaxwellXJsonUpdateBeforeRowData replace(RowData old, RowData after) {
+        this.old = old;
+        this.after = after;
+        return this;
+    }
+
+    private RowData rowOf(int pos) {
+        return old.isNullAt(pos) ? after : old;
+    }
+
+    @Override
+    public int getArity() {
+        return after.getArity();
+    }
+
+    @Override
+    public RowKind getRowKind() {
+        return rowKind;
+    }
+
+    @Override
+    public void setRowKind(RowKind kind) {
+        this.rowKind = kind;
+    }
+
+    @Override
+    public boolean isNullAt(int pos) {
+        return old.isNullAt(pos) && after.isNullAt(pos);
+    }
+
+    @Override
+    public boolean getBoolean(int pos) {
+        return rowOf(pos).getBoolean(pos);
+    }
+
+    @Override
+    public byte getByte(int pos) {
+        return rowOf(pos).getByte(pos);
+    }
+
+    @Override
+    public short getShort(int pos) {
+        return rowOf(pos).getShort(pos);
+    }
+
+    @Override
+    public int getInt(int pos) {
+        return rowOf(pos).getInt(pos);
+    }
+
+    @Override
+    public long getLong(int pos) {
+        return rowOf(pos).getLong(pos);
+    }
+
+    @Override
+    public float getFloat(int pos) {
+        return rowOf(pos).getFloat(pos);
+    }
+
+    @Override
+    public double getDouble(int pos) {
+        return rowOf(pos).getDouble(pos);
+    }
+
+    @Override
+    public StringData getString(int pos) {
+        return rowOf(pos).getString(pos);
+    }
+
+    @Override
+    public DecimalData getDecimal(int pos, int precision, int scale) {
+        return rowOf(pos).getDecimal(pos, precision, scale);
+    }
+
+    @Override
+    public TimestampData getTimestamp(int pos, int precision) {
+        return rowOf(pos).getTimestamp(pos, precision);
+    }
+
+    @Override
+    public <T> RawValueData<T> getRawValue(int pos) {
+        return rowOf(pos).getRawValue(pos);
+    }
+
+    @Override
+    public byte[] getBinary(int pos) {
+        return rowOf(pos).getBinary(pos);
+    }
+
+    @Override
+    public ArrayData getArray(int pos) {
+        return rowOf(pos).getArray(pos);
+    }
+
+    @Override
+    public MapData getMap(int pos) {
+        return rowOf(pos).getMap(pos);
+    }
+
+    @Override
+    public RowData getRow(int pos, int numFields) {
+        return rowOf(pos).getRow(pos, numFields);
+    }
+
+    @Override
+    public String toString() {
+        return rowKind.shortString() + "{old=" + old + ", data=" + after + "}";
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.RuntimeContextInitializationContextAdapters;
+import org.apache.flink.api.common.typeinfo.TypeInformation;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.streaming.api.operators.AbstractStreamOperator;
+import org.apache.flink.streaming.api.operators.BoundedOneInput;
+import org.apache.flink.streaming.api.operators.ChainingStrategy;
+import org.apache.flink.streaming.api.operators.OneInputStreamOperator;
+import org.apache.flink.streaming.api.operators.TimestampedCollector;
+import org.apache.flink.streaming.runtime.streamrecord.StreamRecord;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+import org.apache.flink.util.Preconditions;
+
+import java.util.Objects;
+
+/**
+ * Encodes a changelog into Maxwell JSON messages, pairing every {@link RowKind#UPDATE_BEFORE} row
+ * with the following {@link RowKind#UPDATE_AFTER} row of the same key into a single "update"
+ * message whose "old" object only holds the changed columns, see {@link
+ * MaxwellXJsonSerializationSchema#serializeUpdate(RowData, RowData)}. The other rows are encoded
+ * one message per row.
+ *
+ * <p>The pending {@link RowKind#UPDATE_BEFORE} rows are bounded per subtask: when the maximum is
+ * reached, the oldest one is encoded as a "delete" (as {@link MaxwellXJsonSerializationSchema}
+ * does), and its {@link RowKind#UPDATE_AFTER} row will be encoded as an "insert". The pending rows
+ * are flushed the same way before every checkpoint barrier, so the operator holds no state.
+ *
+ * <pre>{@code
+ * DataStream<byte[]> messages =
+ *         changelog.transform(
+ *                 "maxwellx-json-encoder",
+ *                 PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO,
+ *                 new MaxwellXJsonUpdateEncodingOperator(schema, typeInfo, new int[] {0}, 64));
+ * }</pre>
+ */
+public class MaxwellXJsonUpdateEncodingOperator extends AbstractStreamOperator<byte[]>
+        implements OneInputStreamOperator<RowData, byte[]>, BoundedOneInput {
+    private static final long serialVersionUID = 1L;
+
+    private final MaxwellXJsonSerializationSchema schema;
+
+    private final TypeInformation<RowData> typeInfo;
+
+    private final int[] keyFields;
+
+    private final int maxPendingUpdates;
+
+    private transient RowData.FieldGetter[] keyGetters;
+
+    /** Serializer copying the pending rows, null if the input rows are not reused. */
+    private transient TypeSerializer<RowData> copier;
+
+    /** The pending before rows, oldest first. */
+    private transient RowData[] pending;
+
+    private transient int pendingCount;
+
+    private transient TimestampedCollector<byte[]> collector;
+
+    public MaxwellXJsonUpdateEncodingOperator(
+            MaxwellXJsonSerializationSchema schema,
+            TypeInformation<RowData> typeInfo,
+            int[] keyFields,
+            int maxPendingUpdates) {
+        Preconditions.checkArgument(keyFields.length > 0, "The key must have at least 1 field.");
+        Preconditions.checkArgument(
+                maxPendingUpdates > 0, "At least 1 update must be allowed to be pending.");
+        this.schema = schema;
+        this.typeInfo = typeInfo;
+        this.keyFields = keyFields;
+        this.maxPendingUpdates = maxPendingUpdates;
+        this.chainingStrategy = ChainingStrategy.ALWAYS;
+    }
+
+    @Override
+    public void open() throws Exception {
+        super.open();
+        schema.open(
+                RuntimeContextInitializationContextAdapters.serializationAdapter(
+                        getRuntimeContext()));
+        RowType rowType = schema.getRowType();
+        this.keyGetters = new RowData.FieldGetter[keyFields.length];
+        for (int i = 0; i < keyFields.length; i++) {
+            keyGetters[i] =
+                    RowData.createFieldGetter(rowType.getTypeAt(keyFields[i]), keyFields[i]);
+        }
+        if (getExecutionConfig().isObjectReuseEnabled()) {
+            this.copier = typeInfo.createSerializer(getExecutionConfig());
+        }
+        this.pending = new RowData[maxPendingUpdates];
+        this.pendingCount = 0;
+        this.collector = new TimestampedCollector<>(output);
+        collector.eraseTimestamp();
+    }
+
+    @Override
+    public void processElement(StreamRecord<RowData> element) {
+        RowData row = element.getValue();
+        int index = indexOf(row);
+        if (row.getRowKind() == RowKind.UPDATE_AFTER && index >= 0) {
+            collector.collect(schema.serializeUpdate(pending[index], row));
+            remove(index);
+            return;
+        }
+        if (index >= 0) {
+            // the pending before row of the key is not followed by its after row
+            collector.collect(schema.serialize(pending[index]));
+            remove(index);
+        }
+        if (row.getRowKind() == RowKind.UPDATE_BEFORE) {
+            if (pendingCount == maxPendingUpdates) {
+                collector.collect(schema.serialize(pending[0]));
+                remove(0);
+            }
+            pending[pendingCount++] = copier == null ? row : copier.copy(row);
+        } else {
+            collector.collect(schema.serialize(row));
+        }
+    }
+
+    @Override
+    public void prepareSnapshotPreBarrier(long checkpointId) throws Exception {
+        super.prepareSnapshotPreBarrier(checkpointId);
+        flush();
+    }
+
+    @Override
+    public void endInput() {
+        flush();
+    }
+
+    private void flush() {
+        for (int i = 0; i < pendingCount; i++) {
+            collector.collect(schema.serialize(pending[i]));
+            pending[i] = null;
+        }
+        pendingCount = 0;
+    }
+
+    /** Returns the index of the pending before row with the key of the given row, or -1. */
+    private int indexOf(RowData row) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (sameKey(pending[i], row)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Compares the key fields, BINARY and VARBINARY keys are byte arrays compared by content. */
+    private boolean sameKey(RowData a, RowData b) {
+        for (RowData.FieldGetter keyGetter : keyGetters) {
+            if (!Objects.deepEquals(keyGetter.getFieldOrNull(a), keyGetter.getFieldOrNull(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void remove(int index) {
+        System.arraycopy(pending, index + 1, pending, index, pendingCount - index - 1);
+        pending[--pendingCount] = null;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.annotation.Internal;
+import org.apache.flink.table.data.TimestampData;
+
+import javax.annotation.Nullable;
+
+/**
+ * Parsers reading decimals, dates, times and timestamps straight from the UTF-8 bytes of a message.
+ *
+ * <p>They only cover the fixed formats written by Maxwell, i.e. plain numbers without exponent,
+ * "yyyy-MM-dd" dates and "HH:mm:ss" times with an optional fraction of up to 9 digits. Any other
+ * value is reported as not parsed, so that the caller can fall back to the general conversion
+ * which also raises the same errors as the "json" format.
+ */
+@Internal
+final class MaxwellXJsonValueParser {
+
+    /** Returned by the parsers if the value does not follow the fixed format. */
+    static final long NOT_PARSED = Long.MIN_VALUE;
+
+    /** Maximum number of digits of a decimal whose unscaled value fits into a long. */
+    static final int MAX_COMPACT_DIGITS = 18;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_COMPACT_DIGITS + 1];
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /** Number of days from year 0000 to 1970. */
+    private static final long DAYS_0000_TO_1970 = 719_528L;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private MaxwellXJsonValueParser() {}
+
+    /** Returns 10 to the power of {@code exponent}, which is at most 18. */
+    static long powerOfTen(int exponent) {
+        return POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * Parses a plain number such as "-123.45" into the unscaled value of a decimal of the given
+     * scale, rounding half up like {@link java.math.RoundingMode#HALF_UP}. Returns {@link
+     * #NOT_PARSED} if the number is not plain or its unscaled value may exceed 18 digits.
+     */
+    static long parseUnscaled(byte[] buf, int start, int end, int scale) {
+        int i = start;
+        boolean negative = i < end && buf[i] == '-';
+        if (negative) {
+            i++;
+        }
+        final int integerStart = i;
+        long value = 0;
+        int digits = 0;
+        for (; i < end && isDigit(buf[i]); i++) {
+            value = value * 10 + (buf[i] - '0');
+            if (value != 0) {
+                // leading zeros are not significant
+                digits++;
+            }
+        }
+        if (i == integerStart || digits + scale > MAX_COMPACT_DIGITS) {
+            return NOT_PARSED;
+        }
+        int fraction = 0;
+        boolean roundUp = false;
+        if (i < end && buf[i] == '.') {
+            final int fractionStart = ++i;
+            for (; i < end && isDigit(buf[i]); i++) {
+                if (fraction < scale) {
+                    value = value * 10 + (buf[i] - '0');
+                    fraction++;
+                } else if (i - fractionStart == scale) {
+                    // the first discarded digit decides the rounding
+                    roundUp = buf[i] >= '5';
+                }
+            }
+            if (i == fractionStart) {
+                return NOT_PARSED;
+            }
+        }
+        if (i != end) {
+            return NOT_PARSED;
+        }
+        value *= POWERS_OF_TEN[scale - fraction];
+        if (roundUp) {
+            value++;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a "yyyy-MM-dd" date into the number of days since epoch. Returns {@link #NOT_PARSED}
+     * if the value does not follow the format or is not a valid date.
+     */
+    static long parseDate(byte[] buf, int start, int end) {
+        if (end - start != 10 || buf[start + 4] != '-' || buf[start + 7] != '-') {
+            return NOT_PARSED;
+        }
+        int year = parseDigits(buf, start, 4);
+        int month = parseDigits(buf, start + 5, 2);
+        int day = parseDigits(buf, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NOT_PARSED;
+        }
+        return toEpochDay(year, month, day);
+    }
+
+    /**
+     * Parses a "HH:mm:ss[.fffffffff]" time into the nanoseconds of the day. Returns {@link
+     * #NOT_PARSED} if the value does not follow the format or is not a valid time.
+     */
+    static long parseTime(byte[] buf, int start, int end) {
+        if (end - start < 8 || buf[start + 2] != ':' || buf[start + 5] != ':') {
+            return NOT_PARSED;
+        }
+        int hour = parseDigits(buf, start, 2);
+        int minute = parseDigits(buf, start + 3, 2);
+        int second = parseDigits(buf, start + 6, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return NOT_PARSED;
+        }
+        long nanos = 0;
+        int i = start + 8;
+        if (i < end) {
+            int digits = end - i - 1;
+            if (buf[i] != '.' || digits < 1 || digits > 9) {
+                return NOT_PARSED;
+            }
+            int fraction = parseDigits(buf, i + 1, digits);
+            if (fraction < 0) {
+                return NOT_PARSED;
+            }
+            nanos = fraction * POWERS_OF_TEN[9 - digits];
+        }
+        return (hour * 3600L + minute * 60L + second) * NANOS_PER_SECOND + nanos;
+    }
+
+    /**
+     * Parses a "yyyy-MM-dd HH:mm:ss[.fffffffff]" timestamp, whose date and time are separated by
+     * the given separator and which ends with a 'Z' if {@code zoned} is set. Returns null if the
+     * value does not follow the format or is not a valid timestamp.
+     */
+    @Nullable
+    static TimestampData parseTimestamp(
+            byte[] buf, int start, int end, byte separator, boolean zoned) {
+        if (zoned) {
+            if (end - start < 20 || buf[end - 1] != 'Z') {
+                return null;
+            }
+            end--;
+        }
+        if (end - start < 19 || buf[start + 10] != separator) {
+            return null;
+        }
+        long epochDay = parseDate(buf, start, start + 10);
+        if (epochDay == NOT_PARSED) {
+            return null;
+        }
+        long nanoOfDay = parseTime(buf, start + 11, end);
+        if (nanoOfDay == NOT_PARSED) {
+            return null;
+        }
+        return TimestampData.fromEpochMillis(
+                epochDay * MILLIS_PER_DAY + nanoOfDay / NANOS_PER_MILLI,
+                (int) (nanoOfDay % NANOS_PER_MILLI));
+    }
+
+    /** Parses a fixed number of digits, returns -1 if one of them is not a digit. */
+    private static int parseDigits(byte[] buf, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            if (!isDigit(buf[i])) {
+                return -1;
+            }
+            value = value * 10 + (buf[i] - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /** Same as {@link java.time.LocalDate#toEpochDay()} for the years 0 to 9999. */
+    private static long toEpochDay(int year, int month, int day) {
+        long total = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367 * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return total - DAYS_0000_TO_1970;
+    }
+}
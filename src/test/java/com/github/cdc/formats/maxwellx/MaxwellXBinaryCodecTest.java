@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.GenericMapData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link MaxwellXBinaryCodec}. */
+public class MaxwellXBinaryCodecTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("bool", DataTypes.BOOLEAN()),
+                                    DataTypes.FIELD("tiny", DataTypes.TINYINT()),
+                                    DataTypes.FIELD("small", DataTypes.SMALLINT()),
+                                    DataTypes.FIELD("int", DataTypes.INT()),
+                                    DataTypes.FIELD("big", DataTypes.BIGINT()),
+                                    DataTypes.FIELD("float", DataTypes.FLOAT()),
+                                    DataTypes.FIELD("double", DataTypes.DOUBLE()),
+                                    DataTypes.FIELD("char", DataTypes.CHAR(3)),
+                                    DataTypes.FIELD("varchar", DataTypes.STRING()),
+                                    DataTypes.FIELD("binary", DataTypes.BINARY(2)),
+                                    DataTypes.FIELD("varbinary", DataTypes.BYTES()),
+                                    DataTypes.FIELD("compact", DataTypes.DECIMAL(10, 2)),
+                                    DataTypes.FIELD("decimal", DataTypes.DECIMAL(38, 18)),
+                                    DataTypes.FIELD("date", DataTypes.DATE()),
+                                    DataTypes.FIELD("time", DataTypes.TIME(0)),
+                                    DataTypes.FIELD("ts3", DataTypes.TIMESTAMP(3)),
+                                    DataTypes.FIELD("ts9", DataTypes.TIMESTAMP(9)),
+                                    DataTypes.FIELD(
+                                            "ltz", DataTypes.TIMESTAMP_WITH_LOCAL_TIME_ZONE(6)),
+                                    DataTypes.FIELD(
+                                            "months", DataTypes.INTERVAL(DataTypes.MONTH())),
+                                    DataTypes.FIELD(
+                                            "millis", DataTypes.INTERVAL(DataTypes.SECOND(3))),
+                                    DataTypes.FIELD("array", DataTypes.ARRAY(DataTypes.INT())),
+                                    DataTypes.FIELD(
+                                            "map",
+                                            DataTypes.MAP(DataTypes.STRING(), DataTypes.BIGINT())),
+                                    DataTypes.FIELD(
+                                            "multiset", DataTypes.MULTISET(DataTypes.STRING())),
+                                    DataTypes.FIELD(
+                                            "row",
+                                            DataTypes.ROW(
+                                                    DataTypes.FIELD("id", DataTypes.INT()),
+                                                    DataTypes.FIELD(
+                                                            "tags",
+                                                            DataTypes.ARRAY(DataTypes.STRING())))))
+                            .getLogicalType();
+
+    @Test
+    public void testRoundTripOfAllTypes() throws Exception {
+        assertRoundTrip(fullRow(RowKind.INSERT));
+    }
+
+    @Test
+    public void testRoundTripOfNulls() throws Exception {
+        GenericRowData row = new GenericRowData(ROW_TYPE.getFieldCount());
+        assertRoundTrip(row);
+
+        // nulls nested in arrays, maps and rows
+        GenericRowData nested = fullRow(RowKind.INSERT);
+        nested.setField(20, new GenericArrayData(new Object[] {1, null, 3}));
+        Map<Object, Object> map = new HashMap<>();
+        map.put(StringData.fromString("a"), null);
+        nested.setField(21, new GenericMapData(map));
+        nested.setField(23, GenericRowData.of(null, new GenericArrayData(new Object[] {null})));
+        assertRoundTrip(nested);
+    }
+
+    @Test
+    public void testRoundTripOfDelete() throws Exception {
+        assertRoundTrip(fullRow(RowKind.DELETE));
+    }
+
+    @Test
+    public void testRoundTripOfUpdate() throws Exception {
+        GenericRowData before = fullRow(RowKind.UPDATE_BEFORE);
+        GenericRowData after = fullRow(RowKind.UPDATE_AFTER);
+        after.setField(3, 7);
+        after.setField(12, DecimalData.fromBigDecimal(new BigDecimal("-1.5"), 38, 18));
+        after.setField(8, null);
+
+        MaxwellXBinarySerializationSchema serializer =
+                new MaxwellXBinarySerializationSchema(ROW_TYPE, "shop", "orders");
+        serializer.open(MaxwellXJsonTestUtils.serializationContext());
+        List<RowData> rows = deserialize(serializer.serializeUpdate(before, after));
+        assertEquals(Arrays.asList(before, after), rows);
+    }
+
+    @Test
+    public void testReportsCorruptMessageByLengthAndPrefix() throws Exception {
+        byte[] message = new byte[200];
+        message[0] = 42;
+        try {
+            deserialize(message);
+            fail("A message of an unknown version must be corrupt.");
+        } catch (IOException e) {
+            String prefix = "Corrupt maxwellx-binary message of 200 bytes, starting with '2a00";
+            assertTrue(e.getMessage(), e.getMessage().startsWith(prefix));
+            assertTrue(e.getMessage(), e.getMessage().endsWith("...'."));
+            assertEquals(
+                    "Corrupt maxwellx-binary message of 200 bytes, starting with '...'.".length()
+                            + 2 * MaxwellXBinaryDeserializationSchema.MAX_REPORTED_BYTES,
+                    e.getMessage().length());
+        }
+    }
+
+    private static void assertRoundTrip(GenericRowData row) throws Exception {
+        MaxwellXBinarySerializationSchema serializer =
+                new MaxwellXBinarySerializationSchema(ROW_TYPE);
+        serializer.open(MaxwellXJsonTestUtils.serializationContext());
+        List<RowData> rows = deserialize(serializer.serialize(row));
+        assertEquals(1, rows.size());
+        assertEquals(row, rows.get(0));
+    }
+
+    private static List<RowData> deserialize(byte[] message) throws Exception {
+        MaxwellXBinaryDeserializationSchema deserializer =
+                MaxwellXBinaryDeserializationSchema.builder(
+                                ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                        .build();
+        deserializer.open(MaxwellXJsonTestUtils.deserializationContext());
+        List<RowData> rows = new ArrayList<>();
+        deserializer.deserialize(message, new ListCollector<>(rows));
+        return rows;
+    }
+
+    private static GenericRowData fullRow(RowKind kind) {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(StringData.fromString("a"), 1L);
+        map.put(StringData.fromString("b"), -1L);
+        Map<Object, Object> multiset = new HashMap<>();
+        multiset.put(StringData.fromString("x"), 2);
+        return GenericRowData.ofKind(
+                kind,
+                true,
+                (byte) -3,
+                (short) 300,
+                -70000,
+                Long.MIN_VALUE,
+                1.5f,
+                -2.25d,
+                StringData.fromString("abc"),
+                StringData.fromString("é中😀"),
+                new byte[] {0, -1},
+                new byte[] {1, 2, 3},
+                DecimalData.fromBigDecimal(new BigDecimal("-12345678.90"), 10, 2),
+                DecimalData.fromBigDecimal(
+                        new BigDecimal("12345678901234567890.123456789012345678"), 38, 18),
+                18000,
+                3_600_000,
+                TimestampData.fromEpochMillis(-1L),
+                TimestampData.fromEpochMillis(1_600_000_000_123L, 456_789),
+                TimestampData.fromEpochMillis(1_600_000_000_123L, 456_000),
+                14,
+                86_400_123L,
+                new GenericArrayData(new Object[] {1, 2, 3}),
+                new GenericMapData(map),
+                new GenericMapData(multiset),
+                GenericRowData.of(
+                        5,
+                        new GenericArrayData(
+                                new Object[] {
+                                    StringData.fromString("t"), StringData.fromString("")
+                                })));
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.BulkWriter;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.core.fs.FSDataOutputStream;
+import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.factories.DynamicTableFactory;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link MaxwellXJsonBulkWriter}, {@link MaxwellXJsonEncoder} and the compression codecs
+ * of the {@link MaxwellXJsonBulkFormatFactory}.
+ */
+public class MaxwellXJsonBulkWriterTest {
+
+    private static final DataType DATA_TYPE =
+            DataTypes.ROW(
+                    DataTypes.FIELD("id", DataTypes.BIGINT()),
+                    DataTypes.FIELD("name", DataTypes.STRING()));
+
+    private static final RowType ROW_TYPE = (RowType) DATA_TYPE.getLogicalType();
+
+    @Test
+    public void testWritesBlocksOfNewlineDelimitedMessages() throws Exception {
+        List<RowData> rows = rows(10);
+        byte[] expected = encode(rows);
+        // a block holds a few messages
+        int blockSize = expected.length / 4;
+        InMemoryStream stream = new InMemoryStream();
+        BulkWriter<RowData> writer =
+                new MaxwellXJsonBulkWriter.Factory(schema(), null, blockSize).create(stream);
+
+        int written = 0;
+        for (RowData row : rows) {
+            int flushed = stream.size();
+            writer.addElement(row);
+            written += encode(row).length;
+            // the messages are only passed to the stream once a block is full, as a whole
+            if (stream.size() != flushed) {
+                assertEquals(written, stream.size());
+                assertTrue(written - flushed >= blockSize);
+            }
+            assertTrue(written - stream.size() < blockSize);
+        }
+        assertTrue(stream.writes > 1);
+        assertTrue(stream.writes < rows.size());
+        writer.flush();
+        assertArrayEquals(expected, stream.toByteArray());
+        writer.finish();
+        assertArrayEquals(expected, stream.toByteArray());
+        assertFalse(stream.closed);
+
+        String[] lines = new String(expected, StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(rows.size() + 1, lines.length);
+        assertEquals("", lines[rows.size()]);
+    }
+
+    @Test
+    public void testGzipFilesHoldTheLinesOfTheRowFormat() throws Exception {
+        List<RowData> rows = rows(1000);
+        InMemoryStream stream = new InMemoryStream();
+        BulkWriter<RowData> writer =
+                new MaxwellXJsonBulkWriter.Factory(
+                                schema(), MaxwellXJsonCompressionCodec.GZIP, 1024)
+                        .create(stream);
+        for (RowData row : rows) {
+            writer.addElement(row);
+        }
+        writer.finish();
+
+        // the end of the gzip stream is written, and the file stream is left open to the sink
+        assertFalse(stream.closed);
+        byte[] compressed = stream.toByteArray();
+        assertTrue(compressed.length < encode(rows).length);
+        assertArrayEquals(
+                encode(rows), readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        stream.write('x');
+        assertEquals(compressed.length + 1, stream.size());
+    }
+
+    @Test
+    public void testCreatesCodecsOfTheOption() throws Exception {
+        List<RowData> rows = rows(3);
+        byte[] expected = encode(rows);
+        assertArrayEquals(expected, write(factory("none"), rows));
+        assertArrayEquals(expected, write(factory("NONE"), rows));
+        assertArrayEquals(
+                expected,
+                readFully(
+                        new GZIPInputStream(
+                                new ByteArrayInputStream(write(factory("gzip"), rows)))));
+        assertArrayEquals(
+                expected,
+                readFully(
+                        new InflaterInputStream(
+                                new ByteArrayInputStream(
+                                        write(factory(DeflateCodec.class.getName()), rows)))));
+
+        try {
+            factory("lz4");
+            fail("An unknown codec must be rejected.");
+        } catch (ValidationException e) {
+            assertTrue(e.getMessage().contains("'lz4'"));
+            assertTrue(e.getMessage().contains("'compression.codec'"));
+        }
+    }
+
+    /** A codec which is instantiated by its class name. */
+    public static final class DeflateCodec implements MaxwellXJsonCompressionCodec {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public OutputStream compress(OutputStream out) {
+            return new DeflaterOutputStream(out);
+        }
+    }
+
+    /** Returns the writer factory of the filesystem connector for the given codec option. */
+    private static BulkWriter.Factory<RowData> factory(String codec) {
+        Configuration options = new Configuration();
+        options.setString(MaxwellXJsonOptions.COMPRESSION_CODEC, codec);
+        DynamicTableFactory.Context context =
+                (DynamicTableFactory.Context)
+                        Proxy.newProxyInstance(
+                                DynamicTableFactory.Context.class.getClassLoader(),
+                                new Class<?>[] {DynamicTableFactory.Context.class},
+                                (proxy, method, args) -> {
+                                    if (method.getName().equals("getClassLoader")) {
+                                        return MaxwellXJsonBulkWriterTest.class.getClassLoader();
+                                    }
+                                    throw new UnsupportedOperationException(method.getName());
+                                });
+        return new MaxwellXJsonBulkFormatFactory()
+                .createEncodingFormat(context, options)
+                .createRuntimeEncoder(null, DATA_TYPE);
+    }
+
+    private static byte[] write(BulkWriter.Factory<RowData> factory, List<RowData> rows)
+            throws IOException {
+        InMemoryStream stream = new InMemoryStream();
+        BulkWriter<RowData> writer = factory.create(stream);
+        for (RowData row : rows) {
+            writer.addElement(row);
+        }
+        writer.finish();
+        assertFalse(stream.closed);
+        return stream.toByteArray();
+    }
+
+    private static MaxwellXJsonSerializationSchema schema() {
+        return new MaxwellXJsonSerializationSchema(
+                ROW_TYPE, TimestampFormat.SQL, JsonOptions.MapNullKeyMode.FAIL, "null");
+    }
+
+    /** Returns the bytes written by the row format. */
+    private static byte[] encode(List<RowData> rows) throws IOException {
+        MaxwellXJsonEncoder encoder = new MaxwellXJsonEncoder(schema());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (RowData row : rows) {
+            encoder.encode(row, out);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(RowData row) throws IOException {
+        List<RowData> rows = new ArrayList<>();
+        rows.add(row);
+        return encode(rows);
+    }
+
+    private static List<RowData> rows(int count) {
+        List<RowData> rows = new ArrayList<>();
+        RowKind[] kinds = {RowKind.INSERT, RowKind.UPDATE_AFTER, RowKind.DELETE};
+        for (int i = 0; i < count; i++) {
+            rows.add(
+                    GenericRowData.ofKind(
+                            kinds[i % kinds.length],
+                            (long) i,
+                            i % 7 == 0 ? null : StringData.fromString("name-" + i % 13)));
+        }
+        return rows;
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /** A file stream writing to memory, which counts the writes. */
+    private static final class InMemoryStream extends FSDataOutputStream {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private int writes;
+
+        private boolean closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            checkOpen();
+            writes++;
+            bytes.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            writes++;
+            bytes.write(b, off, len);
+        }
+
+        @Override
+        public long getPos() {
+            return bytes.size();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            checkOpen();
+        }
+
+        @Override
+        public void sync() throws IOException {
+            checkOpen();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+
+        private void checkOpen() throws IOException {
+            if (closed) {
+                throw new IOException("The stream is closed.");
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/** Tests for {@link MaxwellXJsonChangelogCompactor}. */
+public class MaxwellXJsonChangelogCompactorTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.BYTES()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()))
+                            .getLogicalType();
+
+    @Test
+    public void testFoldsBinaryKeysByContent() {
+        MaxwellXJsonChangelogCompactor compactor =
+                new MaxwellXJsonChangelogCompactor(ROW_TYPE, new int[] {0}, 16);
+        assertFalse(compactor.add(row(RowKind.INSERT, new byte[] {1, 2}, "a")));
+        assertFalse(compactor.add(row(RowKind.UPDATE_BEFORE, new byte[] {1, 2}, "a")));
+        assertFalse(compactor.add(row(RowKind.UPDATE_AFTER, new byte[] {1, 2}, "b")));
+        assertFalse(compactor.add(row(RowKind.INSERT, new byte[] {3}, "c")));
+        assertFalse(compactor.add(row(RowKind.DELETE, new byte[] {3}, "c")));
+        assertEquals(2, compactor.size());
+
+        List<RowData> out = new ArrayList<>();
+        compactor.flush(new ListCollector<>(out));
+        assertEquals(1, out.size());
+        assertEquals(row(RowKind.INSERT, new byte[] {1, 2}, "b").toString(), out.get(0).toString());
+        assertEquals(0, compactor.size());
+    }
+
+    private static RowData row(RowKind kind, byte[] id, String name) {
+        return GenericRowData.ofKind(kind, id, StringData.fromString(name));
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for the dead letters of the corrupt messages. */
+public class MaxwellXJsonDeadLetterTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.INT()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()))
+                            .getLogicalType();
+
+    private static final String INSERT =
+            "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"insert\",\"ts\":1,"
+                    + "\"data\":{\"id\":1,\"name\":\"a\"}}";
+
+    private static final String[] CORRUPT = {
+        // truncated
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"insert\",\"data\":{\"id\":2",
+        // unknown type
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"upsert\",\"data\":{\"id\":3}}",
+        // the "old" field cannot be converted after the "data" field was
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"update\","
+                + "\"data\":{\"id\":4,\"name\":\"b\"},\"old\":{\"id\":\"four\"}}"
+    };
+
+    @Test
+    public void testCorruptMessagesReachTheHandler() throws Exception {
+        for (boolean codegen : new boolean[] {true, false}) {
+            CollectingHandler handler = new CollectingHandler();
+            MaxwellXJsonDeserializationSchema schema =
+                    MaxwellXJsonDeserializationSchema.builder(
+                                    ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                            .setCodegen(codegen)
+                            .setDeadLetterHandler(handler)
+                            .build();
+            schema.open(MaxwellXJsonTestUtils.deserializationContext());
+
+            List<RowData> rows = new ArrayList<>();
+            ListCollector<RowData> out = new ListCollector<>(rows);
+            for (String corrupt : CORRUPT) {
+                byte[] message = corrupt.getBytes(StandardCharsets.UTF_8);
+                schema.deserialize(message, out);
+                schema.deserialize(INSERT.getBytes(StandardCharsets.UTF_8), out);
+                // the handler gets the array given to the schema, and no row of the message
+                assertSame(message, handler.messages.get(handler.messages.size() - 1));
+            }
+            assertEquals(CORRUPT.length, handler.messages.size());
+            assertEquals(CORRUPT.length, rows.size());
+            for (RowData row : rows) {
+                assertEquals(GenericRowData.of(1, StringData.fromString("a")), row);
+            }
+            assertTrue(handler.causes.get(1).getMessage().contains("\"upsert\""));
+            for (int i = 0; i < CORRUPT.length; i++) {
+                // the cause carries no copy of the message
+                String reason =
+                        new MaxwellXJsonDeadLetter(new byte[0], handler.causes.get(i)).getReason();
+                assertFalse(reason, reason.contains(CORRUPT[i]));
+            }
+        }
+    }
+
+    @Test
+    public void testRoutingSchemaEmitsDeadLetters() throws Exception {
+        MaxwellXJsonTableRegistry registry =
+                MaxwellXJsonTableRegistry.builder()
+                        .register("shop", "orders", ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                        .build();
+        MaxwellXJsonRoutingDeserializationSchema schema =
+                MaxwellXJsonRoutingDeserializationSchema.builder(registry)
+                        .setDeadLetterOutput(true)
+                        .build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+
+        List<MaxwellXJsonRoutedRow> records = new ArrayList<>();
+        for (String corrupt : CORRUPT) {
+            byte[] message = corrupt.getBytes(StandardCharsets.UTF_8);
+            schema.deserialize(message, new ListCollector<>(records));
+            MaxwellXJsonRoutedRow record = records.get(records.size() - 1);
+            assertNull(record.getRow());
+            assertSame(message, record.getDeadLetter().getMessage());
+            assertNotNull(record.getDeadLetter().getCause());
+        }
+        assertEquals(CORRUPT.length, records.size());
+    }
+
+    @Test
+    public void testSerializesDeadLetters() throws Exception {
+        TypeSerializer<MaxwellXJsonDeadLetter> serializer =
+                MaxwellXJsonDeadLetterTypeInfo.INSTANCE.createSerializer(new ExecutionConfig());
+        MaxwellXJsonDeadLetter[] deadLetters = new MaxwellXJsonDeadLetter[CORRUPT.length];
+        for (int i = 0; i < CORRUPT.length; i++) {
+            deadLetters[i] =
+                    new MaxwellXJsonDeadLetter(
+                            CORRUPT[i].getBytes(StandardCharsets.UTF_8),
+                            new IOException("Corrupt.", new IllegalStateException("at " + i)));
+        }
+        DataOutputSerializer out = new DataOutputSerializer(64);
+        for (MaxwellXJsonDeadLetter deadLetter : deadLetters) {
+            serializer.serialize(deadLetter, out);
+        }
+        DataOutputSerializer copy = new DataOutputSerializer(1024);
+        DataInputDeserializer in = new DataInputDeserializer(out.getCopyOfBuffer());
+        for (int i = 0; i < deadLetters.length; i++) {
+            serializer.copy(in, copy);
+        }
+        in = new DataInputDeserializer(copy.getCopyOfBuffer());
+        for (MaxwellXJsonDeadLetter deadLetter : deadLetters) {
+            MaxwellXJsonDeadLetter restored = serializer.deserialize(in);
+            // the cause is not serialized, the reason is
+            assertNull(restored.getCause());
+            assertEquals(deadLetter.getReason(), restored.getReason());
+            assertArrayEquals(deadLetter.getMessage(), restored.getMessage());
+            assertEquals(deadLetter, restored);
+            assertEquals(deadLetter, serializer.copy(deadLetter));
+        }
+        assertTrue(deadLetters[0].getReason().contains("Caused by: "));
+    }
+
+    @Test
+    public void testRestoredSnapshotIsCompatible() throws Exception {
+        TypeSerializer<MaxwellXJsonDeadLetter> serializer =
+                MaxwellXJsonDeadLetterTypeInfo.INSTANCE.createSerializer(new ExecutionConfig());
+        DataOutputSerializer out = new DataOutputSerializer(256);
+        TypeSerializerSnapshot.writeVersionedSnapshot(out, serializer.snapshotConfiguration());
+        TypeSerializerSnapshot<MaxwellXJsonDeadLetter> restored =
+                TypeSerializerSnapshot.readVersionedSnapshot(
+                        new DataInputDeserializer(out.getCopyOfBuffer()),
+                        MaxwellXJsonDeadLetterTest.class.getClassLoader());
+
+        assertTrue(restored.resolveSchemaCompatibility(serializer).isCompatibleAsIs());
+        assertEquals(serializer, restored.restoreSerializer());
+    }
+
+    /** Keeps the dead letters it is given. */
+    private static final class CollectingHandler implements MaxwellXJsonDeadLetterHandler {
+        private static final long serialVersionUID = 1L;
+
+        private final List<byte[]> messages = new ArrayList<>();
+
+        private final List<Throwable> causes = new ArrayList<>();
+
+        @Override
+        public void handle(byte[] message, Throwable cause) {
+            messages.add(message);
+            causes.add(cause);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.api.ValidationException;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.runtime.connector.source.ScanRuntimeProviderContext;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link MaxwellXJsonDecodingFormat}. */
+public class MaxwellXJsonDecodingFormatTest {
+
+    private static final DataType PHYSICAL_TYPE =
+            DataTypes.ROW(
+                    DataTypes.FIELD("id", DataTypes.BIGINT()),
+                    DataTypes.FIELD("name", DataTypes.STRING()),
+                    DataTypes.FIELD("weight", DataTypes.DOUBLE()));
+
+    private static final String INSERT =
+            "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"insert\",\"ts\":1,"
+                    + "\"data\":{\"id\":1,\"name\":\"a\",\"weight\":1.5}}";
+
+    /** An update whose "old" field cannot be converted, it must not be read in upsert mode. */
+    private static final String UPDATE =
+            "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"update\",\"ts\":2,"
+                    + "\"data\":{\"id\":1,\"name\":\"b\",\"weight\":1.5},"
+                    + "\"old\":{\"name\":\"a\",\"weight\":\"not a number\"}}";
+
+    private static final String DELETE =
+            "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"delete\",\"ts\":3,"
+                    + "\"data\":{\"id\":1,\"name\":\"b\",\"weight\":1.5}}";
+
+    @Test
+    public void testChangelogMode() {
+        assertEquals(
+                EnumSet.of(
+                        RowKind.INSERT,
+                        RowKind.UPDATE_BEFORE,
+                        RowKind.UPDATE_AFTER,
+                        RowKind.DELETE),
+                format(false, false, false).getChangelogMode().getContainedKinds());
+        assertEquals(
+                EnumSet.of(RowKind.INSERT, RowKind.UPDATE_AFTER, RowKind.DELETE),
+                format(false, false, true).getChangelogMode().getContainedKinds());
+    }
+
+    @Test
+    public void testUpsertEmitsUpdateAfterOnly() throws Exception {
+        for (boolean[] mode : new boolean[][] {{false, false}, {true, false}, {false, true}}) {
+            DeserializationSchema<RowData> decoder = decoder(format(mode[0], mode[1], true));
+
+            // the rows are checked message by message, as the object reuse mode overwrites them
+            assertRow(RowKind.INSERT, "a", MaxwellXJsonTestUtils.deserialize(decoder, INSERT));
+            assertRow(
+                    RowKind.UPDATE_AFTER, "b", MaxwellXJsonTestUtils.deserialize(decoder, UPDATE));
+            // the delete keeps the key and the values of the row
+            assertRow(RowKind.DELETE, "b", MaxwellXJsonTestUtils.deserialize(decoder, DELETE));
+        }
+    }
+
+    @Test
+    public void testConvertsOldFieldWithoutUpsert() throws Exception {
+        DeserializationSchema<RowData> decoder = decoder(format(false, false, false));
+        try {
+            MaxwellXJsonTestUtils.deserialize(decoder, UPDATE);
+            fail("The \"old\" field of the update must be converted.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Corrupt Maxwell JSON message"));
+        }
+    }
+
+    @Test
+    public void testAppendsRequestedMetadataInOrder() throws Exception {
+        MaxwellXJsonDecodingFormat format = format(false, false, false);
+        assertEquals(
+                Arrays.asList(
+                        "database",
+                        "table",
+                        "ingestion-timestamp",
+                        "xid",
+                        "xoffset",
+                        "commit",
+                        "position",
+                        "bootstrap"),
+                new ArrayList<>(format.listReadableMetadata().keySet()));
+        List<String> keys =
+                Arrays.asList(
+                        "position",
+                        "bootstrap",
+                        "xid",
+                        "database",
+                        "ingestion-timestamp",
+                        "commit");
+        format.applyReadableMetadata(keys);
+        DeserializationSchema<RowData> decoder = decoder(format);
+
+        RowType producedType = ((InternalTypeInfo<RowData>) decoder.getProducedType()).toRowType();
+        List<String> fieldNames = new ArrayList<>(Arrays.asList("id", "name", "weight"));
+        fieldNames.addAll(keys);
+        assertEquals(fieldNames, producedType.getFieldNames());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(
+                    format.listReadableMetadata().get(keys.get(i)).getLogicalType(),
+                    producedType.getTypeAt(3 + i));
+        }
+
+        List<RowData> rows =
+                MaxwellXJsonTestUtils.deserialize(
+                        decoder,
+                        "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"insert\","
+                                + "\"ts\":1600000000,\"xid\":42,\"commit\":true,"
+                                + "\"position\":\"binlog.0001:4\",\"data\":{\"id\":1}}",
+                        "{\"database\":\"shop\",\"table\":\"users\","
+                                + "\"type\":\"bootstrap-insert\",\"ts\":1600000001,"
+                                + "\"data\":{\"id\":2}}");
+        assertEquals(2, rows.size());
+        RowData insert = rows.get(0);
+        assertEquals(9, insert.getArity());
+        assertEquals(1L, insert.getLong(0));
+        assertEquals(StringData.fromString("binlog.0001:4"), insert.getString(3));
+        assertFalse(insert.getBoolean(4));
+        assertEquals(42L, insert.getLong(5));
+        assertEquals(StringData.fromString("shop"), insert.getString(6));
+        assertEquals(TimestampData.fromEpochMillis(1600000000000L), insert.getTimestamp(7, 3));
+        assertTrue(insert.getBoolean(8));
+
+        RowData bootstrap = rows.get(1);
+        assertEquals(2L, bootstrap.getLong(0));
+        assertTrue(bootstrap.isNullAt(3));
+        assertTrue(bootstrap.getBoolean(4));
+        assertTrue(bootstrap.isNullAt(5));
+        assertEquals(TimestampData.fromEpochMillis(1600000001000L), bootstrap.getTimestamp(7, 3));
+        assertFalse(bootstrap.getBoolean(8));
+    }
+
+    @Test
+    public void testProjectsTopLevelFieldsInOrder() throws Exception {
+        MaxwellXJsonDecodingFormat format = format(false, false, false);
+        format.applyReadableMetadata(Collections.singletonList("table"));
+        DeserializationSchema<RowData> decoder =
+                format.createRuntimeDecoder(
+                        ScanRuntimeProviderContext.INSTANCE,
+                        PHYSICAL_TYPE,
+                        new int[][] {{2}, {0}});
+        decoder.open(MaxwellXJsonTestUtils.deserializationContext());
+
+        RowType producedType = ((InternalTypeInfo<RowData>) decoder.getProducedType()).toRowType();
+        assertEquals(Arrays.asList("weight", "id", "table"), producedType.getFieldNames());
+
+        List<RowData> rows = MaxwellXJsonTestUtils.deserialize(decoder, INSERT);
+        assertEquals(1, rows.size());
+        RowData row = rows.get(0);
+        assertEquals(3, row.getArity());
+        assertEquals(1.5, row.getDouble(0), 0.0);
+        assertEquals(1L, row.getLong(1));
+        assertEquals(StringData.fromString("users"), row.getString(2));
+    }
+
+    @Test
+    public void testRejectsNestedProjection() {
+        try {
+            format(false, false, false)
+                    .createRuntimeDecoder(
+                            ScanRuntimeProviderContext.INSTANCE,
+                            PHYSICAL_TYPE,
+                            new int[][] {{0, 1}});
+            fail("A nested projection must be rejected.");
+        } catch (ValidationException e) {
+            assertTrue(e.getMessage().contains("does not support nested projections"));
+        }
+    }
+
+    private static void assertRow(RowKind kind, String name, List<RowData> rows) {
+        assertEquals(1, rows.size());
+        RowData row = rows.get(0);
+        assertEquals(kind, row.getRowKind());
+        assertEquals(1L, row.getLong(0));
+        assertEquals(StringData.fromString(name), row.getString(1));
+        assertEquals(1.5, row.getDouble(2), 0.0);
+    }
+
+    private static DeserializationSchema<RowData> decoder(MaxwellXJsonDecodingFormat format)
+            throws Exception {
+        DeserializationSchema<RowData> decoder =
+                format.createRuntimeDecoder(ScanRuntimeProviderContext.INSTANCE, PHYSICAL_TYPE);
+        decoder.open(MaxwellXJsonTestUtils.deserializationContext());
+        return decoder;
+    }
+
+    private static MaxwellXJsonDecodingFormat format(
+            boolean objectReuse, boolean lazyDecoding, boolean upsert) {
+        return new MaxwellXJsonDecodingFormat(
+                new MaxwellXJsonTableFilter(null, null),
+                false,
+                false,
+                TimestampFormat.SQL,
+                objectReuse,
+                lazyDecoding,
+                true,
+                upsert,
+                Collections.emptySet(),
+                256,
+                false,
+                null);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.metrics.HistogramStatistics;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link MaxwellXJsonDecodingMetrics}. */
+public class MaxwellXJsonDecodingMetricsTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.INT()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()))
+                            .getLogicalType();
+
+    private static final String INSERT =
+            "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"insert\","
+                    + "\"data\":{\"id\":1,\"name\":\"a\"}}";
+
+    private static final String[] MESSAGES = {
+        INSERT,
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"update\","
+                + "\"data\":{\"id\":1,\"name\":\"b\"},\"old\":{\"name\":\"a\"}}",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"delete\","
+                + "\"data\":{\"id\":1,\"name\":\"b\"}}",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"table-alter\",\"data\":{}}",
+        "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"insert\",\"data\":{\"id\":2}}",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"insert\",\"data\":{\"id\":",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-insert\","
+                + "\"data\":{\"id\":3,\"name\":\"c\"}}",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-insert\","
+                + "\"data\":{\"id\":4,\"name\":\"d\"}}",
+    };
+
+    private static final String BOOTSTRAP_START =
+            "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-start\",\"data\":{}}";
+
+    private static final String BOOTSTRAP_COMPLETE =
+            "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-complete\","
+                    + "\"data\":{}}";
+
+    @Test
+    public void testCountsMessagesOfTheJsonSchema() throws Exception {
+        MaxwellXJsonTestUtils.TestMetricGroup metricGroup =
+                new MaxwellXJsonTestUtils.TestMetricGroup();
+        MaxwellXJsonDeserializationSchema schema =
+                MaxwellXJsonDeserializationSchema.builder(ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                        .setTable("orders")
+                        .setIgnoreParseErrors(true)
+                        .build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext(metricGroup));
+
+        MaxwellXJsonTestUtils.deserialize(schema, BOOTSTRAP_START);
+        assertEquals(1, metricGroup.getValue("numBootstrappingTables"));
+        assertEquals(6, MaxwellXJsonTestUtils.deserialize(schema, MESSAGES).size());
+        MaxwellXJsonTestUtils.deserialize(schema, BOOTSTRAP_COMPLETE);
+        assertEquals(0, metricGroup.getValue("numBootstrappingTables"));
+
+        assertEquals(1, metricGroup.getCount("numInsertMessages"));
+        assertEquals(1, metricGroup.getCount("numUpdateMessages"));
+        assertEquals(1, metricGroup.getCount("numDeleteMessages"));
+        assertEquals(1, metricGroup.getCount("numUnknownMessages"));
+        assertEquals(2, metricGroup.getCount("numBootstrapInsertMessages"));
+        assertEquals(1, metricGroup.getCount("numBootstrapStartMessages"));
+        assertEquals(1, metricGroup.getCount("numBootstrapCompleteMessages"));
+        assertEquals(1, metricGroup.getCount("numFilteredMessages"));
+        assertEquals(1, metricGroup.getCount("numParseErrors"));
+        assertEquals(0, metricGroup.getCount("numSchemaChanges"));
+
+        int count = MESSAGES.length + 2;
+        int min = Math.min(length(BOOTSTRAP_START), length(BOOTSTRAP_COMPLETE));
+        int max = Math.max(length(BOOTSTRAP_START), length(BOOTSTRAP_COMPLETE));
+        for (String message : MESSAGES) {
+            min = Math.min(min, length(message));
+            max = Math.max(max, length(message));
+        }
+        HistogramStatistics messageBytes =
+                metricGroup.getHistogram("messageBytes").getStatistics();
+        assertEquals(count, metricGroup.getHistogram("messageBytes").getCount());
+        assertEquals(min, messageBytes.getMin());
+        assertEquals(max, messageBytes.getMax());
+
+        // one message out of the sample interval is timed
+        assertEquals(0, metricGroup.getHistogram("decodeLatencyNanos").getCount());
+        int interval = MaxwellXJsonDecodingMetrics.LATENCY_SAMPLE_INTERVAL;
+        for (int i = count; i < 2 * interval; i++) {
+            MaxwellXJsonTestUtils.deserialize(schema, INSERT);
+        }
+        assertEquals(2, metricGroup.getHistogram("decodeLatencyNanos").getCount());
+        assertEquals(2 * interval, metricGroup.getHistogram("messageBytes").getCount());
+    }
+
+    @Test
+    public void testCountsMessagesOfTheBinarySchema() throws Exception {
+        MaxwellXJsonTestUtils.TestMetricGroup metricGroup =
+                new MaxwellXJsonTestUtils.TestMetricGroup();
+        DeserializationSchema<RowData> schema =
+                MaxwellXBinaryDeserializationSchema.builder(ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                        .setTableFilter(new MaxwellXJsonTableFilter("shop", "orders"))
+                        .setIgnoreParseErrors(true)
+                        .build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext(metricGroup));
+
+        MaxwellXBinarySerializationSchema orders =
+                new MaxwellXBinarySerializationSchema(ROW_TYPE, "shop", "orders");
+        orders.open(MaxwellXJsonTestUtils.serializationContext());
+        MaxwellXBinarySerializationSchema users =
+                new MaxwellXBinarySerializationSchema(ROW_TYPE, "shop", "users");
+        users.open(MaxwellXJsonTestUtils.serializationContext());
+        List<byte[]> messages = new ArrayList<>();
+        messages.add(orders.serialize(row(RowKind.INSERT, "a")));
+        messages.add(orders.serialize(row(RowKind.INSERT, "b")));
+        messages.add(
+                orders.serializeUpdate(
+                        row(RowKind.UPDATE_BEFORE, "b"), row(RowKind.UPDATE_AFTER, "c")));
+        messages.add(orders.serialize(row(RowKind.DELETE, "c")));
+        messages.add(users.serialize(row(RowKind.INSERT, "d")));
+        messages.add(new byte[] {42});
+        List<RowData> rows = new ArrayList<>();
+        for (byte[] message : messages) {
+            schema.deserialize(message, new ListCollector<>(rows));
+        }
+
+        assertEquals(5, rows.size());
+        assertEquals(2, metricGroup.getCount("numInsertMessages"));
+        assertEquals(1, metricGroup.getCount("numUpdateMessages"));
+        assertEquals(1, metricGroup.getCount("numDeleteMessages"));
+        assertEquals(0, metricGroup.getCount("numUnknownMessages"));
+        assertEquals(1, metricGroup.getCount("numFilteredMessages"));
+        assertEquals(1, metricGroup.getCount("numParseErrors"));
+        assertEquals(messages.size(), metricGroup.getHistogram("messageBytes").getCount());
+    }
+
+    private static GenericRowData row(RowKind kind, String name) {
+        return GenericRowData.ofKind(kind, 1, StringData.fromString(name));
+    }
+
+    private static int length(String message) {
+        return message.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
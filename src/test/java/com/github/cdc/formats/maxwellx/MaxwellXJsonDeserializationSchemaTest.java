@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.formats.json.JsonRowDataDeserializationSchema;
+import org.apache.flink.formats.json.JsonRowDataSerializationSchema;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.apache.flink.table.types.utils.TypeConversions.fromLogicalToDataType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link MaxwellXJsonDeserializationSchema}. */
+public class MaxwellXJsonDeserializationSchemaTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.INT()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()))
+                            .getLogicalType();
+
+    private static final String[] BOOTSTRAP = {
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-start\",\"ts\":1,"
+                + "\"data\":{}}",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-insert\",\"ts\":1,"
+                + "\"data\":{\"id\":1,\"name\":\"a\"}}",
+        "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"bootstrap-complete\",\"ts\":1,"
+                + "\"data\":{}}"
+    };
+
+    @Test
+    public void testDecodesBootstrapInsertsAndSkipsMarkers() throws Exception {
+        for (boolean lazyDecoding : new boolean[] {false, true}) {
+            MaxwellXJsonDeserializationSchema schema =
+                    MaxwellXJsonDeserializationSchema.builder(
+                                    ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                            .setLazyDecoding(lazyDecoding)
+                            .build();
+            schema.open(MaxwellXJsonTestUtils.deserializationContext());
+            List<RowData> rows = MaxwellXJsonTestUtils.deserialize(schema, BOOTSTRAP);
+            assertEquals(1, rows.size());
+            assertEquals(RowKind.INSERT, rows.get(0).getRowKind());
+            assertEquals(1, rows.get(0).getInt(0));
+            assertEquals(StringData.fromString("a"), rows.get(0).getString(1));
+        }
+    }
+
+    @Test
+    public void testRoutesBootstrapInsertsAndSkipsMarkers() throws Exception {
+        MaxwellXJsonTableRegistry registry =
+                MaxwellXJsonTableRegistry.builder()
+                        .register("shop", "orders", ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                        .build();
+        MaxwellXJsonRoutingDeserializationSchema schema =
+                MaxwellXJsonRoutingDeserializationSchema.builder(registry).build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+        List<MaxwellXJsonRoutedRow> rows = new ArrayList<>();
+        for (String message : BOOTSTRAP) {
+            schema.deserialize(message.getBytes(StandardCharsets.UTF_8), new ListCollector<>(rows));
+        }
+        assertEquals(1, rows.size());
+        assertEquals(0, rows.get(0).getRoute());
+        assertEquals(
+                GenericRowData.ofKind(RowKind.INSERT, 1, StringData.fromString("a")),
+                rows.get(0).getRow());
+    }
+
+    @Test
+    public void testDecodesSameRowsAsJackson() throws Exception {
+        RowType rowType = MaxwellXJsonSerializationSchemaTest.ROW_TYPE;
+        for (TimestampFormat timestampFormat : TimestampFormat.values()) {
+            List<String> messages = new ArrayList<>();
+            JsonRowDataSerializationSchema writer =
+                    new JsonRowDataSerializationSchema(
+                            (RowType)
+                                    DataTypes.ROW(
+                                                    DataTypes.FIELD(
+                                                            "data", fromLogicalToDataType(rowType)),
+                                                    DataTypes.FIELD("type", DataTypes.STRING()))
+                                            .getLogicalType(),
+                            timestampFormat,
+                            JsonOptions.MapNullKeyMode.LITERAL,
+                            "nil");
+            for (GenericRowData row : MaxwellXJsonSerializationSchemaTest.rows()) {
+                String type = row.getRowKind() == RowKind.DELETE ? "delete" : "insert";
+                byte[] message =
+                        writer.serialize(GenericRowData.of(row, StringData.fromString(type)));
+                messages.add(new String(message, StandardCharsets.UTF_8));
+            }
+            // values the writer does not produce, but Maxwell or other producers may
+            String textual =
+                    timestampFormat == TimestampFormat.SQL
+                            ? "\"ts\":\"2020-09-13 12:26:40\",\"ts9\":\"2020-09-13 12:26:40.1\""
+                            : "\"ts\":\"2020-09-13T12:26:40\",\"ts9\":\"2020-09-13T12:26:40.1\"";
+            messages.add(
+                    "{\"data\":{\"bool\":\"true\",\"tiny\":\"-1\",\"small\":\" 2 \",\"int\":\"3\","
+                            + "\"big\":\"-4\",\"float\":\"1.5\",\"double\":1e-3,\"name\":123,"
+                            + "\"compact\":\"1.005\",\"decimal\":1E+3,\"date\":\"1970-01-02\","
+                            + "\"time\":\"01:02:03\","
+                            + textual
+                            + ",\"unknown\":{\"a\":[1,{}]}},\"type\":\"insert\"}");
+            // numbers read as strings and nested numbers beyond the precision of a double
+            messages.add(
+                    "{\"data\":{\"name\":1e2,\"code\":1.50,\"array\":[-0,2.5E-1],"
+                            + "\"row\":{\"id\":1,\"tag\":2.5e1,\"amount\":123456789012345678.91,"
+                            + "\"rate\":1e-3}},\"type\":\"insert\"}");
+            messages.add(
+                    "{\"type\":\"insert\","
+                            + "\"data\":{\"int\":2147483647,\"big\":-9223372036854775808}}");
+            messages.add("{\"type\":\"insert\",\"data\":{\"int\":-7.9,\"big\":1.5e3}}");
+
+            assertSameRowsAsJackson(rowType, timestampFormat, messages);
+        }
+    }
+
+    @Test
+    public void testDecodesNumbersAsJacksonWithoutDecimalColumns() throws Exception {
+        // without DECIMAL columns, Jackson reads the fractional numbers as doubles
+        RowType rowType =
+                (RowType)
+                        DataTypes.ROW(
+                                        DataTypes.FIELD("name", DataTypes.STRING()),
+                                        DataTypes.FIELD(
+                                                "row",
+                                                DataTypes.ROW(
+                                                        DataTypes.FIELD(
+                                                                "rate", DataTypes.DOUBLE()),
+                                                        DataTypes.FIELD(
+                                                                "tag", DataTypes.STRING()))))
+                                .getLogicalType();
+        assertSameRowsAsJackson(
+                rowType,
+                TimestampFormat.SQL,
+                Arrays.asList(
+                        "{\"data\":{\"name\":1e2,\"row\":{\"rate\":1.5e-3,\"tag\":1.50}},"
+                                + "\"type\":\"insert\"}",
+                        "{\"data\":{\"name\":-12,\"row\":{\"rate\":7,\"tag\":-0.0}},"
+                                + "\"type\":\"insert\"}"));
+    }
+
+    @Test
+    public void testRejectsValuesJacksonRejects() throws Exception {
+        RowType rowType = MaxwellXJsonSerializationSchemaTest.ROW_TYPE;
+        String[] messages = {
+            "{\"data\":{\"int\":\"abc\"},\"type\":\"insert\"}",
+            "{\"data\":{\"big\":1.5e400},\"type\":\"insert\"}",
+            "{\"data\":{\"int\":-2147483648.5e1},\"type\":\"insert\"}",
+            "{\"data\":{\"tiny\":300},\"type\":\"insert\"}",
+            "{\"data\":{\"date\":\"2020-13-01\"},\"type\":\"insert\"}",
+            "{\"data\":{\"ts\":\"2020-09-13T12:26:40\"},\"type\":\"insert\"}",
+        };
+        MaxwellXJsonDeserializationSchema schema =
+                MaxwellXJsonDeserializationSchema.builder(rowType, InternalTypeInfo.of(rowType))
+                        .build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+        for (String message : messages) {
+            try {
+                jacksonRow(rowType, TimestampFormat.SQL, message);
+                fail("Jackson accepted " + message);
+            } catch (Exception expected) {
+                // both must reject it
+            }
+            try {
+                MaxwellXJsonTestUtils.deserialize(schema, message);
+                fail("The message must be rejected: " + message);
+            } catch (IOException expected) {
+                // as Jackson
+            }
+        }
+    }
+
+    /** Checks every decoder against the Jackson based schema. */
+    private static void assertSameRowsAsJackson(
+            RowType rowType, TimestampFormat timestampFormat, List<String> messages)
+            throws Exception {
+        for (String mode : new String[] {"codegen", "interpreted", "lazy", "reuse"}) {
+            MaxwellXJsonDeserializationSchema schema =
+                    MaxwellXJsonDeserializationSchema.builder(rowType, InternalTypeInfo.of(rowType))
+                            .setTimestampFormat(timestampFormat)
+                            .setCodegen(mode.equals("codegen"))
+                            .setLazyDecoding(mode.equals("lazy"))
+                            .setObjectReuse(mode.equals("reuse"))
+                            .build();
+            schema.open(MaxwellXJsonTestUtils.deserializationContext());
+            for (String message : messages) {
+                assertEquals(
+                        timestampFormat + ", " + mode + ": " + message,
+                        jacksonRow(rowType, timestampFormat, message),
+                        decodedRow(schema, rowType, message));
+            }
+        }
+    }
+
+    /** Returns the "data" row decoded by the Jackson based schema, as a binary row. */
+    private static RowData jacksonRow(
+            RowType rowType, TimestampFormat timestampFormat, String message) throws Exception {
+        RowType envelopeType =
+                (RowType)
+                        DataTypes.ROW(
+                                        DataTypes.FIELD("data", fromLogicalToDataType(rowType)),
+                                        DataTypes.FIELD("type", DataTypes.STRING()))
+                                .getLogicalType();
+        JsonRowDataDeserializationSchema jackson =
+                new JsonRowDataDeserializationSchema(
+                        envelopeType,
+                        InternalTypeInfo.of(envelopeType),
+                        false,
+                        false,
+                        timestampFormat);
+        RowData envelope = jackson.deserialize(message.getBytes(StandardCharsets.UTF_8));
+        RowData data = envelope.getRow(0, rowType.getFieldCount());
+        boolean delete = envelope.getString(1).toString().equals("delete");
+        data.setRowKind(delete ? RowKind.DELETE : RowKind.INSERT);
+        return binary(rowType, data);
+    }
+
+    /** Returns the single row decoded from the message, as a binary row. */
+    private static RowData decodedRow(
+            MaxwellXJsonDeserializationSchema schema, RowType rowType, String message)
+            throws Exception {
+        List<RowData> rows = new ArrayList<>();
+        // the rows are copied as they are emitted, as they may be reused
+        schema.deserialize(
+                message.getBytes(StandardCharsets.UTF_8),
+                new ListCollector<RowData>(rows) {
+                    @Override
+                    public void collect(RowData record) {
+                        super.collect(binary(rowType, record));
+                    }
+                });
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private static RowData binary(RowType rowType, RowData row) {
+        return new RowDataSerializer(rowType).toBinaryRow(row).copy();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.metrics.HistogramStatistics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link MaxwellXJsonHistogram}. */
+public class MaxwellXJsonHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        HistogramStatistics statistics = new MaxwellXJsonHistogram(4).getStatistics();
+        assertEquals(0, statistics.size());
+        assertEquals(0, statistics.getMin());
+        assertEquals(0, statistics.getMax());
+        assertEquals(0.0, statistics.getMean(), 0.0);
+        assertEquals(0.0, statistics.getStdDev(), 0.0);
+        assertEquals(0.0, statistics.getQuantile(0.99), 0.0);
+    }
+
+    @Test
+    public void testStatisticsOfTheWindow() {
+        MaxwellXJsonHistogram histogram = new MaxwellXJsonHistogram(4);
+        histogram.update(8);
+        histogram.update(2);
+        histogram.update(4);
+        HistogramStatistics statistics = histogram.getStatistics();
+        assertEquals(3, histogram.getCount());
+        assertArrayEquals(new long[] {2, 4, 8}, statistics.getValues());
+        assertEquals(2, statistics.getMin());
+        assertEquals(8, statistics.getMax());
+        assertEquals(14 / 3.0, statistics.getMean(), 1e-9);
+        assertEquals(Math.sqrt(28 / 3.0), statistics.getStdDev(), 1e-9);
+        assertEquals(2.0, statistics.getQuantile(0.0), 0.0);
+        assertEquals(4.0, statistics.getQuantile(0.5), 0.0);
+        assertEquals(8.0, statistics.getQuantile(0.99), 0.0);
+        assertEquals(8.0, statistics.getQuantile(1.0), 0.0);
+
+        // the statistics are a snapshot
+        histogram.update(1);
+        assertEquals(3, statistics.size());
+    }
+
+    @Test
+    public void testKeepsTheLatestValues() {
+        MaxwellXJsonHistogram histogram = new MaxwellXJsonHistogram(4);
+        for (long value = 1; value <= 10; value++) {
+            histogram.update(value);
+        }
+        assertEquals(10, histogram.getCount());
+        assertArrayEquals(new long[] {7, 8, 9, 10}, histogram.getStatistics().getValues());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsWindowSizesOtherThanPowersOfTwo() {
+        new MaxwellXJsonHistogram(3);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests for {@link MaxwellXJsonRawDeserializationSchema} and {@link MaxwellXJsonDecodingFunction}.
+ */
+public class MaxwellXJsonRawDeserializationSchemaTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("k", DataTypes.INT()),
+                                    DataTypes.FIELD("v", DataTypes.STRING()))
+                            .getLogicalType();
+
+    @Test
+    public void testKeyChangingUpdateKeepsOrderOfBothKeys() throws Exception {
+        List<MaxwellXJsonRawMessage> messages =
+                passThrough(
+                        "{\"database\":\"db\",\"table\":\"t\",\"type\":\"insert\",\"data\":{\"k\":1,\"v\":\"a\"}}",
+                        "{\"database\":\"db\",\"table\":\"t\",\"type\":\"update\",\"data\":{\"k\":2,\"v\":\"a\"},\"old\":{\"k\":1}}",
+                        "{\"database\":\"db\",\"table\":\"t\",\"type\":\"insert\",\"data\":{\"k\":1,\"v\":\"b\"}}",
+                        "{\"database\":\"db\",\"table\":\"t\",\"type\":\"update\",\"data\":{\"k\":1,\"v\":\"c\"},\"old\":{\"v\":\"b\"}}");
+        assertEquals(5, messages.size());
+        int key1 = messages.get(0).getKeyHash();
+        assertEquals(MaxwellXJsonRawMessage.UPDATE_BEFORE_ROWS, messages.get(1).getRows());
+        assertEquals(key1, messages.get(1).getKeyHash());
+        assertEquals(MaxwellXJsonRawMessage.UPDATE_AFTER_ROWS, messages.get(2).getRows());
+        assertNotEquals(key1, messages.get(2).getKeyHash());
+        assertEquals(key1, messages.get(3).getKeyHash());
+        assertEquals(MaxwellXJsonRawMessage.ALL_ROWS, messages.get(4).getRows());
+        assertEquals(key1, messages.get(4).getKeyHash());
+
+        // decode each key on its own, as the subtasks of a keyed stream do
+        Map<Integer, List<String>> changesByKey = new HashMap<>();
+        MaxwellXJsonDecodingFunction function =
+                new MaxwellXJsonDecodingFunction(
+                        MaxwellXJsonDeserializationSchema.builder(
+                                        ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                                .build());
+        function.setRuntimeContext(MaxwellXJsonTestUtils.runtimeContext());
+        function.open(new Configuration());
+        for (MaxwellXJsonRawMessage message : messages) {
+            List<RowData> rows = new ArrayList<>();
+            function.flatMap(message, new ListCollector<>(rows));
+            for (RowData row : rows) {
+                changesByKey
+                        .computeIfAbsent(message.getKeyHash(), k -> new ArrayList<>())
+                        .add(row.getRowKind().shortString() + row.getInt(0) + row.getString(1));
+            }
+        }
+        assertEquals(
+                Arrays.asList("+I1a", "-U1a", "+I1b", "-U1b", "+U1c"),
+                changesByKey.get(key1));
+        assertEquals(
+                Collections.singletonList("+U2a"),
+                changesByKey.get(messages.get(2).getKeyHash()));
+    }
+
+    @Test
+    public void testKeysByTableWithoutKeyColumns() throws Exception {
+        List<MaxwellXJsonRawMessage> messages =
+                passThroughWithoutKey(
+                        "{\"database\":\"db\",\"table\":\"t\",\"type\":\"update\",\"data\":{\"k\":2},\"old\":{\"k\":1}}",
+                        "{\"database\":\"db\",\"table\":\"t\",\"type\":\"insert\",\"data\":{\"k\":3}}");
+        assertEquals(2, messages.size());
+        assertEquals(messages.get(0).getKeyHash(), messages.get(1).getKeyHash());
+        assertEquals(MaxwellXJsonRawMessage.ALL_ROWS, messages.get(0).getRows());
+    }
+
+    private static List<MaxwellXJsonRawMessage> passThrough(String... messages) throws Exception {
+        return passThrough(
+                MaxwellXJsonRawDeserializationSchema.builder()
+                        .setKeyColumns(Collections.singletonList("k"))
+                        .build(),
+                messages);
+    }
+
+    private static List<MaxwellXJsonRawMessage> passThroughWithoutKey(String... messages)
+            throws Exception {
+        return passThrough(MaxwellXJsonRawDeserializationSchema.builder().build(), messages);
+    }
+
+    private static List<MaxwellXJsonRawMessage> passThrough(
+            MaxwellXJsonRawDeserializationSchema schema, String... messages) throws Exception {
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+        List<MaxwellXJsonRawMessage> out = new ArrayList<>();
+        for (String message : messages) {
+            schema.deserialize(message.getBytes(StandardCharsets.UTF_8), new ListCollector<>(out));
+        }
+        return out;
+    }
+}
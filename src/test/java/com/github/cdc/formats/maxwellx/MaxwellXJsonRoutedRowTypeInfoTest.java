@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.ExecutionConfig;
+import org.apache.flink.api.common.typeutils.TypeSerializer;
+import org.apache.flink.api.common.typeutils.TypeSerializerSchemaCompatibility;
+import org.apache.flink.api.common.typeutils.TypeSerializerSnapshot;
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.DataType;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link MaxwellXJsonRoutedRowTypeInfo}. */
+public class MaxwellXJsonRoutedRowTypeInfoTest {
+
+    @Test
+    public void testSerializesRowsAndDeadLetters() throws Exception {
+        TypeSerializer<MaxwellXJsonRoutedRow> serializer =
+                serializer(registry(DataTypes.BIGINT()));
+        MaxwellXJsonRoutedRow[] records = {
+            new MaxwellXJsonRoutedRow(0, GenericRowData.of(1, StringData.fromString("a"))),
+            new MaxwellXJsonRoutedRow(1, GenericRowData.of(2L)),
+            new MaxwellXJsonRoutedRow(
+                    new MaxwellXJsonDeadLetter(
+                            "{".getBytes(StandardCharsets.UTF_8), "Unexpected end of input.")),
+        };
+        DataOutputSerializer out = new DataOutputSerializer(64);
+        for (MaxwellXJsonRoutedRow record : records) {
+            serializer.serialize(record, out);
+        }
+        DataOutputSerializer copy = new DataOutputSerializer(256);
+        DataInputDeserializer in = new DataInputDeserializer(out.getCopyOfBuffer());
+        for (int i = 0; i < records.length; i++) {
+            serializer.copy(in, copy);
+        }
+        in = new DataInputDeserializer(copy.getCopyOfBuffer());
+        MaxwellXJsonRoutedRow order = serializer.deserialize(in);
+        assertEquals(0, order.getRoute());
+        assertEquals(1, order.getRow().getInt(0));
+        assertEquals(StringData.fromString("a"), order.getRow().getString(1));
+        MaxwellXJsonRoutedRow user = serializer.deserialize(in);
+        assertEquals(1, user.getRoute());
+        assertEquals(2L, user.getRow().getLong(0));
+        assertEquals(records[2], serializer.deserialize(in));
+    }
+
+    @Test
+    public void testRestoredSnapshotIsCompatibleWithSameSchemas() throws Exception {
+        TypeSerializer<MaxwellXJsonRoutedRow> serializer =
+                serializer(registry(DataTypes.BIGINT()));
+        TypeSerializerSnapshot<MaxwellXJsonRoutedRow> restored =
+                writeAndRead(serializer.snapshotConfiguration());
+        TypeSerializer<MaxwellXJsonRoutedRow> newSerializer =
+                serializer(registry(DataTypes.BIGINT()));
+
+        TypeSerializerSchemaCompatibility<MaxwellXJsonRoutedRow> compatibility =
+                restored.resolveSchemaCompatibility(newSerializer);
+        assertTrue(compatibility.isCompatibleAsIs());
+        assertEquals(serializer, restored.restoreSerializer());
+    }
+
+    @Test
+    public void testRestoredSnapshotIsIncompatibleWithChangedSchema() throws Exception {
+        TypeSerializerSnapshot<MaxwellXJsonRoutedRow> restored =
+                writeAndRead(serializer(registry(DataTypes.BIGINT())).snapshotConfiguration());
+        TypeSerializer<MaxwellXJsonRoutedRow> newSerializer =
+                serializer(registry(DataTypes.STRING()));
+
+        assertNotEquals(restored.restoreSerializer(), newSerializer);
+        assertTrue(restored.resolveSchemaCompatibility(newSerializer).isIncompatible());
+    }
+
+    private static MaxwellXJsonTableRegistry registry(DataType usersIdType) {
+        RowType orders =
+                (RowType)
+                        DataTypes.ROW(
+                                        DataTypes.FIELD("id", DataTypes.INT()),
+                                        DataTypes.FIELD("name", DataTypes.STRING()))
+                                .getLogicalType();
+        RowType users =
+                (RowType) DataTypes.ROW(DataTypes.FIELD("id", usersIdType)).getLogicalType();
+        return MaxwellXJsonTableRegistry.builder()
+                .register("shop", "orders", orders, InternalTypeInfo.of(orders))
+                .register("shop", "users", users, InternalTypeInfo.of(users))
+                .build();
+    }
+
+    private static TypeSerializer<MaxwellXJsonRoutedRow> serializer(
+            MaxwellXJsonTableRegistry registry) {
+        return new MaxwellXJsonRoutedRowTypeInfo(registry).createSerializer(new ExecutionConfig());
+    }
+
+    private static TypeSerializerSnapshot<MaxwellXJsonRoutedRow> writeAndRead(
+            TypeSerializerSnapshot<MaxwellXJsonRoutedRow> snapshot) throws Exception {
+        DataOutputSerializer out = new DataOutputSerializer(256);
+        TypeSerializerSnapshot.writeVersionedSnapshot(out, snapshot);
+        return TypeSerializerSnapshot.readVersionedSnapshot(
+                new DataInputDeserializer(out.getCopyOfBuffer()),
+                MaxwellXJsonRoutedRowTypeInfoTest.class.getClassLoader());
+    }
+}
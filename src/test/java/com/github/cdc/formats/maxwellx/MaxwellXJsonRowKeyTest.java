@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.core.memory.DataInputDeserializer;
+import org.apache.flink.core.memory.DataOutputSerializer;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.runtime.typeutils.RowDataSerializer;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link MaxwellXJsonRowKey}, {@link MaxwellXJsonKeyedRowData} and {@link
+ * MaxwellXJsonKeyHashSelector}.
+ */
+public class MaxwellXJsonRowKeyTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.BIGINT()),
+                                    DataTypes.FIELD("region", DataTypes.STRING()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()))
+                            .getLogicalType();
+
+    private static final List<String> PRIMARY_KEY = Arrays.asList("region", "id");
+
+    private static final String[] MESSAGES = {
+        "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"insert\",\"ts\":1,"
+                + "\"data\":{\"id\":1,\"region\":\"eu\",\"name\":\"a\"}}",
+        "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"update\",\"ts\":2,"
+                + "\"data\":{\"id\":2,\"region\":\"us\",\"name\":\"c\"},\"old\":{\"name\":\"b\"}}",
+        "{\"database\":\"shop\",\"table\":\"users\",\"type\":\"delete\",\"ts\":3,"
+                + "\"data\":{\"id\":3,\"region\":null,\"name\":\"d\"}}"
+    };
+
+    @Test
+    public void testReturnsStoredKeyOfKeyedRows() throws Exception {
+        MaxwellXJsonRowKey rowKey = new MaxwellXJsonRowKey(ROW_TYPE, PRIMARY_KEY);
+        RowData row = GenericRowData.of(1L, StringData.fromString("eu"), null);
+        // a key which the codec would never produce, to tell it from a re-encoded one
+        byte[] stored = {42};
+        MaxwellXJsonKeyedRowData keyed = new MaxwellXJsonKeyedRowData(row, rowKey, stored, 7);
+
+        assertSame(stored, rowKey.keyOf(keyed));
+        assertEquals(7, rowKey.hashOf(keyed));
+        // a key of the same columns is equal and takes the stored key as well
+        MaxwellXJsonRowKey sameKey = new MaxwellXJsonRowKey(ROW_TYPE, PRIMARY_KEY);
+        assertSame(stored, sameKey.keyOf(keyed));
+        assertEquals(7, new MaxwellXJsonKeyHashSelector(sameKey).getKey(keyed).intValue());
+        // a key of other columns encodes the row
+        MaxwellXJsonRowKey otherKey =
+                new MaxwellXJsonRowKey(ROW_TYPE, Arrays.asList("id", "region"));
+        assertFalse(Arrays.equals(stored, otherKey.keyOf(keyed)));
+        assertArrayEquals(otherKey.keyOf(row), otherKey.keyOf(keyed));
+        assertEquals(otherKey.hashOf(row), otherKey.hashOf(keyed));
+    }
+
+    @Test
+    public void testPlainRowsGetTheKeyOfDecodedRows() throws Exception {
+        MaxwellXJsonRowKey rowKey = new MaxwellXJsonRowKey(ROW_TYPE, PRIMARY_KEY);
+        List<RowData> rows = decode();
+        assertEquals(4, rows.size());
+        RowData[] plain = {
+            GenericRowData.of(1L, StringData.fromString("eu"), StringData.fromString("a")),
+            GenericRowData.of(2L, StringData.fromString("us"), StringData.fromString("b")),
+            GenericRowData.of(2L, StringData.fromString("us"), StringData.fromString("c")),
+            GenericRowData.of(3L, null, StringData.fromString("d"))
+        };
+        for (int i = 0; i < rows.size(); i++) {
+            assertTrue(rows.get(i) instanceof MaxwellXJsonKeyedRowData);
+            MaxwellXJsonKeyedRowData keyed = (MaxwellXJsonKeyedRowData) rows.get(i);
+            assertArrayEquals(keyed.getKey(), rowKey.keyOf(plain[i]));
+            assertEquals(keyed.getKeyHash(), rowKey.hashOf(plain[i]));
+        }
+        // both images of an update have the same key
+        assertArrayEquals(
+                ((MaxwellXJsonKeyedRowData) rows.get(1)).getKey(),
+                ((MaxwellXJsonKeyedRowData) rows.get(2)).getKey());
+    }
+
+    @Test
+    public void testCopiedRowsArePartitionedAlike() throws Exception {
+        MaxwellXJsonRowKey rowKey = new MaxwellXJsonRowKey(ROW_TYPE, PRIMARY_KEY);
+        MaxwellXJsonKeyHashSelector selector = new MaxwellXJsonKeyHashSelector(rowKey);
+        MaxwellXJsonKeyHashSelector.HashPartitioner partitioner =
+                new MaxwellXJsonKeyHashSelector.HashPartitioner();
+        RowDataSerializer serializer = new RowDataSerializer(ROW_TYPE);
+        for (RowData row : decode()) {
+            DataOutputSerializer out = new DataOutputSerializer(64);
+            serializer.serialize(row, out);
+            RowData copy = serializer.deserialize(new DataInputDeserializer(out.getCopyOfBuffer()));
+            assertFalse(copy instanceof MaxwellXJsonKeyedRowData);
+
+            assertEquals(selector.getKey(row), selector.getKey(copy));
+            for (int numPartitions : new int[] {1, 4, 128}) {
+                assertEquals(
+                        partitioner.partition(selector.getKey(row), numPartitions),
+                        partitioner.partition(selector.getKey(copy), numPartitions));
+            }
+        }
+    }
+
+    private static List<RowData> decode() throws Exception {
+        MaxwellXJsonDeserializationSchema schema =
+                MaxwellXJsonDeserializationSchema.builder(ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                        .setPrimaryKey(PRIMARY_KEY)
+                        .build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+        return MaxwellXJsonTestUtils.deserialize(schema, MESSAGES);
+    }
+}
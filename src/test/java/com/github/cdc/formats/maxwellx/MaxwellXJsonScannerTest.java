@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link MaxwellXJsonScanner}. */
+public class MaxwellXJsonScannerTest {
+
+    @Test
+    public void testReadsValues() {
+        MaxwellXJsonScanner scanner =
+                scanner("{\"a\" : \"x\", \"b\":-1.5e+3 ,\"c\":[1,{\"d\":[]}],\"e\":null,\"f\":true}");
+        scanner.expect('{');
+        assertTrue(scanner.nextMember(true));
+        scanner.readFieldName();
+        assertEquals("a", scanner.valueText());
+        assertEquals(MaxwellXJsonScanner.KIND_STRING, scanner.readValue());
+        assertEquals("x", scanner.valueText());
+        assertTrue(scanner.nextMember(false));
+        scanner.readFieldName();
+        assertEquals(MaxwellXJsonScanner.KIND_NUMBER, scanner.readValue());
+        assertEquals("-1.5e+3", scanner.valueText());
+        assertTrue(scanner.valueFractional);
+        assertTrue(scanner.nextMember(false));
+        scanner.readFieldName();
+        assertEquals(MaxwellXJsonScanner.KIND_ARRAY, scanner.readValue());
+        assertEquals(
+                "[1,{\"d\":[]}]",
+                new String(
+                        scanner.buffer(),
+                        scanner.valueStart,
+                        scanner.valueEnd - scanner.valueStart,
+                        StandardCharsets.UTF_8));
+        assertTrue(scanner.nextMember(false));
+        scanner.readFieldName();
+        assertEquals(MaxwellXJsonScanner.KIND_NULL, scanner.readValue());
+        assertTrue(scanner.nextMember(false));
+        scanner.readFieldName();
+        assertEquals(MaxwellXJsonScanner.KIND_TRUE, scanner.readValue());
+        assertFalse(scanner.nextMember(false));
+        scanner.expectEnd();
+    }
+
+    @Test
+    public void testAcceptsValidNumbers() {
+        for (String number :
+                Arrays.asList(
+                        "0", "-0", "7", "-12", "0.5", "1.25", "1e5", "1E+5", "-2.5e-3", "0e0")) {
+            MaxwellXJsonScanner scanner = scanner("[" + number + "]");
+            scanner.expect('[');
+            assertEquals(MaxwellXJsonScanner.KIND_NUMBER, scanner.readValue());
+            assertEquals(number, scanner.valueText());
+            scanner.expect(']');
+            scanner.expectEnd();
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidNumbers() {
+        for (String number :
+                Arrays.asList(
+                        "1-2", "--1", "-", "1.2.3", "1e+e", "1.", ".5", "1e", "01", "+1", "1ee2",
+                        "NaN", "0x10")) {
+            assertInvalid("{\"a\":" + number + "}");
+        }
+    }
+
+    @Test
+    public void testRejectsMalformedMessages() {
+        for (String message :
+                Arrays.asList(
+                        "{\"a\":1}garbage",
+                        "{\"a\":1}}",
+                        "{\"a\":1,}",
+                        "{\"a\" 1}",
+                        "{\"a\":[1,]}",
+                        "{\"a\":[1 2]}",
+                        "{\"a\":{\"b\":1,}}",
+                        "{\"a\":{1:2}}",
+                        "{\"a\":[}",
+                        "{\"a\":tru}",
+                        "{\"a\":\"x\ty\"}",
+                        "{\"a\":\"\\x\"}",
+                        "{\"a\":\"\\u12G4\"}")) {
+            assertInvalid(message);
+        }
+    }
+
+    @Test
+    public void testRejectsTruncatedMessages() {
+        String message =
+                "{\"database\":\"db\",\"table\":\"t\",\"type\":\"insert\","
+                        + "\"data\":{\"id\":1,\"name\":\"a\\\"b\",\"tags\":[1,2]}}";
+        for (int length = 0; length < message.length(); length++) {
+            assertInvalid(message.substring(0, length));
+        }
+        scan(message);
+    }
+
+    @Test
+    public void testUnescapesStrings() {
+        assertEquals("a\"b\\c/d\b\f\n\r\t", text("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\""));
+        assertEquals("\u00e9\u4e2d", text("\"\\u00e9\\u4E2D\""));
+        // a surrogate pair, escaped or not
+        assertEquals("\ud83d\ude00", text("\"\\ud83d\\ude00\""));
+        assertEquals("x\ud83d\ude00y", text("\"x\ud83d\ude00y\""));
+        MaxwellXJsonScanner scanner = scanner("\"\\ud83d\\ude00\"");
+        scanner.readValue();
+        assertTrue(scanner.valueEscaped);
+        assertEquals("\ud83d\ude00", new String(scanner.valueBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDecodesEscapedColumnsAsJackson() throws Exception {
+        RowType rowType =
+                (RowType) DataTypes.ROW(DataTypes.FIELD("s", DataTypes.STRING())).getLogicalType();
+        MaxwellXJsonDeserializationSchema schema =
+                new MaxwellXJsonDeserializationSchema(
+                        rowType,
+                        InternalTypeInfo.of(rowType),
+                        null,
+                        null,
+                        false,
+                        false,
+                        TimestampFormat.SQL);
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+        List<RowData> rows =
+                MaxwellXJsonTestUtils.deserialize(
+                        schema,
+                        "{\"type\":\"insert\",\"data\":{\"s\":\"\\ud83d\\ude00 \\\"q\\\" \\u00e9\"}}",
+                        "{\"type\":\"insert\",\"data\":{\"s\":\"\ud83d\ude00 \u00e9\"}}");
+        assertEquals("\ud83d\ude00 \"q\" \u00e9", rows.get(0).getString(0).toString());
+        assertEquals("\ud83d\ude00 \u00e9", rows.get(1).getString(0).toString());
+        try {
+            MaxwellXJsonTestUtils.deserialize(schema, "{\"type\":\"insert\",\"data\":{\"s\":1-2}}");
+            fail("The invalid number must be rejected.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private static void assertInvalid(String message) {
+        try {
+            scan(message);
+        } catch (MaxwellXJsonScanner.MaxwellXJsonParseException e) {
+            return;
+        }
+        fail("The message must be rejected: " + message);
+    }
+
+    /** Scans the envelope and the payloads of the message. */
+    private static void scan(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        MaxwellXJsonScanner scanner = new MaxwellXJsonScanner();
+        new MaxwellXJsonEnvelope().scan(scanner, bytes, null);
+        scanner.reset(bytes, 0, bytes.length);
+        scanner.readValue();
+        scanner.expectEnd();
+    }
+
+    private static String text(String json) {
+        MaxwellXJsonScanner scanner = scanner(json);
+        assertEquals(MaxwellXJsonScanner.KIND_STRING, scanner.readValue());
+        return scanner.valueText();
+    }
+
+    private static MaxwellXJsonScanner scanner(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        MaxwellXJsonScanner scanner = new MaxwellXJsonScanner();
+        scanner.reset(bytes, 0, bytes.length);
+        return scanner;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/** Tests for {@link MaxwellXJsonSchemaTracker}. */
+public class MaxwellXJsonSchemaTrackerTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.INT()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()),
+                                    DataTypes.FIELD("price", DataTypes.INT()))
+                            .getLogicalType();
+
+    private static final String BASE = "\"id\":%d,\"name\":\"n%d\",\"price\":%d";
+
+    private static final String REORDERED = "\"price\":%3$d,\"id\":%1$d,\"name\":\"n%2$d\"";
+
+    private static final String ADDED = "\"id\":%d,\"name\":\"n%d\",\"price\":%d,\"color\":\"red\"";
+
+    private static final String REMOVED = "\"id\":%d,\"name\":\"n%d\"";
+
+    @Test
+    public void testReorderedColumnsAreNoChange() throws Exception {
+        assertLayouts(
+                new String[] {BASE, REORDERED, REORDERED, BASE},
+                new String[][] {null, null, null, null});
+    }
+
+    @Test
+    public void testAddedColumnIsUnknown() throws Exception {
+        assertLayouts(
+                new String[] {BASE, BASE, ADDED, ADDED},
+                new String[][] {null, null, {"color", ""}, null});
+    }
+
+    @Test
+    public void testRemovedColumnIsMissing() throws Exception {
+        assertLayouts(
+                new String[] {BASE, REMOVED, REMOVED},
+                new String[][] {null, {"", "price"}, null});
+    }
+
+    @Test
+    public void testAlternatingLayoutsAreOneChange() throws Exception {
+        // e.g. the partitions written before and after an ALTER TABLE are interleaved
+        assertLayouts(
+                new String[] {BASE, ADDED, BASE, ADDED, BASE, REMOVED, ADDED, REMOVED},
+                new String[][] {null, {"color", ""}, null, null, null, {"", "price"}, null, null});
+    }
+
+    /**
+     * Decodes a message per layout and checks the rows and the reported changes. A change is given
+     * as its unknown and missing columns, each a comma-separated list, null if none is expected.
+     */
+    private static void assertLayouts(String[] layouts, String[][] expectedChanges)
+            throws Exception {
+        String[] messages = new String[layouts.length];
+        List<RowData> expectedRows = new ArrayList<>();
+        int changes = 0;
+        for (int i = 0; i < layouts.length; i++) {
+            messages[i] =
+                    "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"insert\",\"data\":{"
+                            + String.format(layouts[i], i, i, 10 * i)
+                            + "}}";
+            expectedRows.add(
+                    GenericRowData.of(
+                            i,
+                            StringData.fromString("n" + i),
+                            layouts[i].equals(REMOVED) ? null : 10 * i));
+            changes += expectedChanges[i] == null ? 0 : 1;
+        }
+
+        for (boolean codegen : new boolean[] {true, false}) {
+            MaxwellXJsonPayloadDecoder decoder =
+                    new MaxwellXJsonPayloadDecoder(
+                            ROW_TYPE,
+                            false,
+                            false,
+                            TimestampFormat.SQL,
+                            false,
+                            false,
+                            false,
+                            Collections.emptySet(),
+                            0,
+                            true);
+            decoder.open(codegen);
+            MaxwellXJsonEnvelope envelope = new MaxwellXJsonEnvelope();
+            MaxwellXJsonScanner scanner = new MaxwellXJsonScanner();
+            for (int i = 0; i < messages.length; i++) {
+                byte[] message = messages[i].getBytes(StandardCharsets.UTF_8);
+                List<RowData> rows = new ArrayList<>();
+                envelope.scan(scanner, message, null);
+                decoder.decode(message, envelope, scanner, new ListCollector<>(rows));
+                assertEquals(Collections.singletonList(expectedRows.get(i)), rows);
+
+                MaxwellXJsonSchemaTracker.Layout change = decoder.pollSchemaChange();
+                if (expectedChanges[i] == null) {
+                    assertNull(messages[i], change);
+                } else {
+                    assertEquals(columns(expectedChanges[i][0]), change.unknownColumns());
+                    assertEquals(columns(expectedChanges[i][1]), change.missingColumns());
+                }
+                assertNull(decoder.pollSchemaChange());
+            }
+
+            MaxwellXJsonTestUtils.TestMetricGroup metricGroup =
+                    new MaxwellXJsonTestUtils.TestMetricGroup();
+            MaxwellXJsonDeserializationSchema schema =
+                    MaxwellXJsonDeserializationSchema.builder(
+                                    ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                            .setCodegen(codegen)
+                            .setSchemaEvolution(true)
+                            .build();
+            schema.open(MaxwellXJsonTestUtils.deserializationContext(metricGroup));
+            assertEquals(expectedRows, MaxwellXJsonTestUtils.deserialize(schema, messages));
+            assertEquals(changes, metricGroup.getCount("numSchemaChanges"));
+        }
+    }
+
+    private static List<String> columns(String names) {
+        return names.isEmpty() ? Collections.emptyList() : Arrays.asList(names.split(","));
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.formats.json.JsonOptions;
+import org.apache.flink.formats.json.JsonRowDataSerializationSchema;
+import org.apache.flink.formats.json.TimestampFormat;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.DecimalData;
+import org.apache.flink.table.data.GenericArrayData;
+import org.apache.flink.table.data.GenericMapData;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.data.TimestampData;
+import org.apache.flink.table.types.logical.RowType;
+import org.apache.flink.types.RowKind;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.flink.table.types.utils.TypeConversions.fromLogicalToDataType;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link MaxwellXJsonSerializationSchema}, whose messages must equal byte for byte those
+ * of the Jackson based {@link JsonRowDataSerializationSchema} it replaced.
+ */
+public class MaxwellXJsonSerializationSchemaTest {
+
+    static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("bool", DataTypes.BOOLEAN()),
+                                    DataTypes.FIELD("tiny", DataTypes.TINYINT()),
+                                    DataTypes.FIELD("small", DataTypes.SMALLINT()),
+                                    DataTypes.FIELD("int", DataTypes.INT()),
+                                    DataTypes.FIELD("big", DataTypes.BIGINT()),
+                                    DataTypes.FIELD("float", DataTypes.FLOAT()),
+                                    DataTypes.FIELD("double", DataTypes.DOUBLE()),
+                                    DataTypes.FIELD("name", DataTypes.STRING()),
+                                    DataTypes.FIELD("code", DataTypes.CHAR(2)),
+                                    DataTypes.FIELD("bytes", DataTypes.BYTES()),
+                                    DataTypes.FIELD("compact", DataTypes.DECIMAL(10, 2)),
+                                    DataTypes.FIELD("decimal", DataTypes.DECIMAL(38, 18)),
+                                    DataTypes.FIELD("date", DataTypes.DATE()),
+                                    DataTypes.FIELD("time", DataTypes.TIME(0)),
+                                    DataTypes.FIELD("ts", DataTypes.TIMESTAMP(3)),
+                                    DataTypes.FIELD("ts9", DataTypes.TIMESTAMP(9)),
+                                    DataTypes.FIELD("array", DataTypes.ARRAY(DataTypes.STRING())),
+                                    DataTypes.FIELD(
+                                            "map",
+                                            DataTypes.MAP(DataTypes.STRING(), DataTypes.INT())),
+                                    DataTypes.FIELD(
+                                            "row",
+                                            DataTypes.ROW(
+                                                    DataTypes.FIELD("id", DataTypes.BIGINT()),
+                                                    DataTypes.FIELD("tag", DataTypes.STRING()),
+                                                    DataTypes.FIELD(
+                                                            "amount", DataTypes.DECIMAL(20, 2)),
+                                                    DataTypes.FIELD("rate", DataTypes.DOUBLE()))))
+                            .getLogicalType();
+
+    @Test
+    public void testWritesSameBytesAsJackson() throws Exception {
+        for (TimestampFormat timestampFormat : TimestampFormat.values()) {
+            for (JsonOptions.MapNullKeyMode mode :
+                    new JsonOptions.MapNullKeyMode[] {
+                        JsonOptions.MapNullKeyMode.DROP, JsonOptions.MapNullKeyMode.LITERAL
+                    }) {
+                MaxwellXJsonSerializationSchema schema =
+                        new MaxwellXJsonSerializationSchema(ROW_TYPE, timestampFormat, mode, "nil");
+                schema.open(MaxwellXJsonTestUtils.serializationContext());
+                JsonRowDataSerializationSchema jackson =
+                        new JsonRowDataSerializationSchema(
+                                (RowType)
+                                        DataTypes.ROW(
+                                                        DataTypes.FIELD(
+                                                                "data",
+                                                                fromLogicalToDataType(ROW_TYPE)),
+                                                        DataTypes.FIELD("type", DataTypes.STRING()))
+                                                .getLogicalType(),
+                                timestampFormat,
+                                mode,
+                                "nil");
+                for (GenericRowData row : rows()) {
+                    String type =
+                            row.getRowKind() == RowKind.INSERT
+                                            || row.getRowKind() == RowKind.UPDATE_AFTER
+                                    ? "insert"
+                                    : "delete";
+                    byte[] expected =
+                            jackson.serialize(GenericRowData.of(row, StringData.fromString(type)));
+                    assertEquals(
+                            timestampFormat + ", " + mode,
+                            new String(expected, StandardCharsets.UTF_8),
+                            new String(schema.serialize(row), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWritesUpdatesAsJacksonWouldWriteTheChangedColumns() throws Exception {
+        GenericRowData before = rows().get(0);
+        before.setRowKind(RowKind.UPDATE_BEFORE);
+        GenericRowData after = rows().get(0);
+        after.setRowKind(RowKind.UPDATE_AFTER);
+        after.setField(3, 42);
+        after.setField(7, null);
+        after.setField(11, DecimalData.fromBigDecimal(BigDecimal.ONE, 38, 18));
+        int[] changed = {3, 7, 11};
+
+        DataTypes.Field[] oldFields = new DataTypes.Field[changed.length];
+        GenericRowData old = new GenericRowData(changed.length);
+        for (int i = 0; i < changed.length; i++) {
+            oldFields[i] =
+                    DataTypes.FIELD(
+                            ROW_TYPE.getFieldNames().get(changed[i]),
+                            fromLogicalToDataType(ROW_TYPE.getTypeAt(changed[i])));
+            old.setField(i, before.getField(changed[i]));
+        }
+        JsonRowDataSerializationSchema jackson =
+                new JsonRowDataSerializationSchema(
+                        (RowType)
+                                DataTypes.ROW(
+                                                DataTypes.FIELD(
+                                                        "data", fromLogicalToDataType(ROW_TYPE)),
+                                                DataTypes.FIELD("old", DataTypes.ROW(oldFields)),
+                                                DataTypes.FIELD("type", DataTypes.STRING()))
+                                        .getLogicalType(),
+                        TimestampFormat.SQL,
+                        JsonOptions.MapNullKeyMode.LITERAL,
+                        "nil");
+        byte[] expected =
+                jackson.serialize(GenericRowData.of(after, old, StringData.fromString("update")));
+
+        MaxwellXJsonSerializationSchema schema =
+                new MaxwellXJsonSerializationSchema(
+                        ROW_TYPE, TimestampFormat.SQL, JsonOptions.MapNullKeyMode.LITERAL, "nil");
+        schema.open(MaxwellXJsonTestUtils.serializationContext());
+        assertEquals(
+                new String(expected, StandardCharsets.UTF_8),
+                new String(schema.serializeUpdate(before, after), StandardCharsets.UTF_8));
+    }
+
+    /** Returns rows covering every type, the special values and the characters to escape. */
+    static List<GenericRowData> rows() {
+        Map<Object, Object> map = new HashMap<>();
+        map.put(StringData.fromString("a"), 1);
+        map.put(null, 2);
+        map.put(StringData.fromString("\"\u0001"), null);
+        return Arrays.asList(
+                GenericRowData.ofKind(
+                        RowKind.INSERT,
+                        true,
+                        (byte) -128,
+                        (short) 32767,
+                        Integer.MIN_VALUE,
+                        Long.MAX_VALUE,
+                        1.25f,
+                        -0.1d,
+                        StringData.fromString("plain"),
+                        StringData.fromString("ab"),
+                        new byte[] {0, 1, -1},
+                        DecimalData.fromBigDecimal(new BigDecimal("-12345678.90"), 10, 2),
+                        DecimalData.fromBigDecimal(
+                                new BigDecimal("12345678901234567890.123456789012345678"), 38, 18),
+                        18_000,
+                        45_296_000,
+                        TimestampData.fromEpochMillis(1_600_000_000_123L),
+                        TimestampData.fromEpochMillis(1_600_000_000_123L, 456_789),
+                        new GenericArrayData(
+                                new Object[] {
+                                    StringData.fromString("x"), null, StringData.fromString("")
+                                }),
+                        new GenericMapData(map),
+                        GenericRowData.of(
+                                7L,
+                                StringData.fromString("t"),
+                                DecimalData.fromBigDecimal(
+                                        new BigDecimal("123456789012345678.91"), 20, 2),
+                                1.5e-3)),
+                GenericRowData.ofKind(
+                        RowKind.DELETE,
+                        false,
+                        (byte) 0,
+                        (short) -1,
+                        0,
+                        -1L,
+                        Float.NaN,
+                        Double.NEGATIVE_INFINITY,
+                        StringData.fromString(
+                                "quote \" backslash \\ slash / tab \t nl \n cr \r"
+                                        + " ctl \u0000\u001f\u007f é 中 😀 \u2028"),
+                        StringData.fromString(""),
+                        new byte[0],
+                        DecimalData.fromBigDecimal(new BigDecimal("0.00"), 10, 2),
+                        DecimalData.fromBigDecimal(new BigDecimal("1E-18"), 38, 18),
+                        -1,
+                        0,
+                        TimestampData.fromEpochMillis(-1L),
+                        TimestampData.fromEpochMillis(0L),
+                        new GenericArrayData(new Object[0]),
+                        new GenericMapData(new HashMap<>()),
+                        GenericRowData.of(null, null, null, null)),
+                GenericRowData.ofKind(
+                        RowKind.UPDATE_AFTER,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        Float.POSITIVE_INFINITY,
+                        Double.MIN_VALUE,
+                        null,
+                        null,
+                        null,
+                        null,
+                        DecimalData.fromBigDecimal(new BigDecimal("100"), 38, 18),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null),
+                new GenericRowData(RowKind.UPDATE_BEFORE, ROW_TYPE.getFieldCount()));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.data.StringData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/** Tests for {@link MaxwellXJsonStringDictionary} and the "dictionary.columns" option. */
+public class MaxwellXJsonStringDictionaryTest {
+
+    private static final RowType ROW_TYPE =
+            (RowType)
+                    DataTypes.ROW(
+                                    DataTypes.FIELD("id", DataTypes.INT()),
+                                    DataTypes.FIELD("status", DataTypes.STRING()),
+                                    DataTypes.FIELD("note", DataTypes.STRING()))
+                            .getLogicalType();
+
+    @Test
+    public void testSharesRepeatedValues() {
+        MaxwellXJsonStringDictionary dictionary = new MaxwellXJsonStringDictionary(16);
+        byte[] first = bytes("{\"status\":\"paid\"}");
+        byte[] second = bytes("[\"paid\",\"sent\"]");
+        StringData paid = dictionary.get(first, 11, 15);
+        assertEquals(StringData.fromString("paid"), paid);
+        assertSame(paid, dictionary.get(second, 2, 6));
+        assertEquals(StringData.fromString("sent"), dictionary.get(second, 9, 13));
+        assertSame(paid, dictionary.get(first, 11, 15));
+    }
+
+    @Test
+    public void testCollisionReplacesTheSlot() {
+        // a single slot, every value collides with the previous one
+        MaxwellXJsonStringDictionary dictionary = new MaxwellXJsonStringDictionary(1);
+        byte[] buf = bytes("paidsent");
+        StringData paid = dictionary.get(buf, 0, 4);
+        StringData sent = dictionary.get(buf, 4, 8);
+        assertEquals(StringData.fromString("sent"), sent);
+        assertSame(sent, dictionary.get(buf, 4, 8));
+        StringData paidAgain = dictionary.get(buf, 0, 4);
+        assertEquals(paid, paidAgain);
+        assertNotSame(paid, paidAgain);
+        assertNotSame(sent, dictionary.get(buf, 4, 8));
+    }
+
+    @Test
+    public void testLongValuesAreNotCached() {
+        MaxwellXJsonStringDictionary dictionary = new MaxwellXJsonStringDictionary(16);
+        String longest = repeat('a', MaxwellXJsonStringDictionary.MAX_VALUE_LENGTH);
+        byte[] buf = bytes(longest + "b");
+        StringData cached = dictionary.get(buf, 0, longest.length());
+        assertSame(cached, dictionary.get(buf, 0, longest.length()));
+
+        StringData tooLong = dictionary.get(buf, 0, buf.length);
+        assertEquals(StringData.fromString(longest + "b"), tooLong);
+        assertNotSame(tooLong, dictionary.get(buf, 0, buf.length));
+        // the cached value is not evicted by the long one
+        assertSame(cached, dictionary.get(buf, 0, longest.length()));
+    }
+
+    @Test
+    public void testDecodesDictionaryColumns() throws Exception {
+        String tooLong = repeat('x', MaxwellXJsonStringDictionary.MAX_VALUE_LENGTH + 1);
+        String[] messages = {
+            message(1, "\"paid\"", "\"paid\""),
+            message(2, "\"paid\"", "\"paid\""),
+            message(3, "\"p\\u00e4id\"", "null"),
+            message(4, "\"p\\u00e4id\"", "null"),
+            message(5, "\"" + tooLong + "\"", "null"),
+            message(6, "\"" + tooLong + "\"", "null")
+        };
+        for (boolean[] mode : new boolean[][] {{true, false}, {false, false}, {false, true}}) {
+            MaxwellXJsonDeserializationSchema schema =
+                    MaxwellXJsonDeserializationSchema.builder(
+                                    ROW_TYPE, InternalTypeInfo.of(ROW_TYPE))
+                            .setCodegen(mode[0])
+                            .setLazyDecoding(mode[1])
+                            .setDictionaryColumns(Collections.singleton("status"))
+                            .build();
+            schema.open(MaxwellXJsonTestUtils.deserializationContext());
+            List<RowData> rows = MaxwellXJsonTestUtils.deserialize(schema, messages);
+            assertEquals(messages.length, rows.size());
+
+            assertEquals(StringData.fromString("paid"), rows.get(0).getString(1));
+            assertSame(rows.get(0).getString(1), rows.get(1).getString(1));
+            // the columns which are not listed are not shared
+            assertEquals(StringData.fromString("paid"), rows.get(0).getString(2));
+            assertNotSame(rows.get(0).getString(2), rows.get(1).getString(2));
+            // escaped values and long values bypass the dictionary
+            assertEquals(StringData.fromString("päid"), rows.get(2).getString(1));
+            assertNotSame(rows.get(2).getString(1), rows.get(3).getString(1));
+            assertEquals(StringData.fromString(tooLong), rows.get(4).getString(1));
+            assertNotSame(rows.get(4).getString(1), rows.get(5).getString(1));
+        }
+    }
+
+    private static String message(int id, String status, String note) {
+        return "{\"database\":\"shop\",\"table\":\"orders\",\"type\":\"insert\",\"data\":{"
+                + "\"id\":"
+                + id
+                + ",\"status\":"
+                + status
+                + ",\"note\":"
+                + note
+                + "}}";
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for {@link MaxwellXJsonTableFilter}. */
+public class MaxwellXJsonTableFilterTest {
+
+    @Test
+    public void testIncludesAndExcludes() {
+        MaxwellXJsonTableFilter filter =
+                MaxwellXJsonTableFilter.builder()
+                        .includeDatabases(Arrays.asList("shop", "crm"))
+                        .setTableIncludePattern("orders_\\d{2}")
+                        .excludeTables(Collections.singletonList("orders_13"))
+                        .build();
+        assertTrue(matches(filter, "shop", "orders_01"));
+        assertTrue(matches(filter, "crm", "orders_42"));
+        // the cached decisions are the same
+        assertTrue(matches(filter, "shop", "orders_01"));
+        assertFalse(matches(filter, "shop", "orders_13"));
+        assertFalse(matches(filter, "shop", "orders_1"));
+        assertFalse(matches(filter, "hr", "orders_01"));
+        assertFalse(matches(filter, "hr", "orders_01"));
+    }
+
+    @Test
+    public void testMissingIncludedFieldIsCorrupt() {
+        MaxwellXJsonTableFilter filter = new MaxwellXJsonTableFilter("shop", null);
+        try {
+            matches(filter, null, "orders");
+            fail("A message without the included field must be corrupt.");
+        } catch (MaxwellXJsonScanner.MaxwellXJsonParseException e) {
+            assertTrue(e.getMessage().contains("\"database\""));
+        }
+        // the table is not needed by the filter
+        assertTrue(matches(filter, "shop", null));
+    }
+
+    @Test
+    public void testMissingFieldIsNotExcluded() {
+        MaxwellXJsonTableFilter filter =
+                MaxwellXJsonTableFilter.builder()
+                        .excludeDatabases(Collections.singletonList("tmp"))
+                        .setTableExcludePattern(".*")
+                        .build();
+        assertTrue(matches(filter, null, null));
+        assertFalse(matches(filter, null, "orders"));
+        assertFalse(matches(filter, "tmp", null));
+    }
+
+    @Test
+    public void testMissingFieldIsReportedAsParseError() throws Exception {
+        RowType rowType =
+                (RowType) DataTypes.ROW(DataTypes.FIELD("id", DataTypes.INT())).getLogicalType();
+        MaxwellXJsonDeserializationSchema schema =
+                MaxwellXJsonDeserializationSchema.builder(rowType, InternalTypeInfo.of(rowType))
+                        .setDatabase("shop")
+                        .setIgnoreParseErrors(true)
+                        .build();
+        schema.open(MaxwellXJsonTestUtils.deserializationContext());
+        assertEquals(
+                0,
+                MaxwellXJsonTestUtils.deserialize(
+                                schema, "{\"table\":\"t\",\"type\":\"insert\",\"data\":{\"id\":1}}")
+                        .size());
+    }
+
+    @Test
+    public void testCreatesFilterFromStringOptions() {
+        Configuration options = new Configuration();
+        options.set(MaxwellXJsonOptions.DATABASE_INCLUDE, "shop; crm");
+        options.set(MaxwellXJsonOptions.TABLE_EXCLUDE, "tmp;");
+        MaxwellXJsonTableFilter filter = MaxwellXJsonFormatFactory.createTableFilter(options);
+        assertEquals(
+                MaxwellXJsonTableFilter.builder()
+                        .includeDatabases(Arrays.asList("shop", "crm"))
+                        .excludeTables(Collections.singletonList("tmp"))
+                        .build(),
+                filter);
+    }
+
+    private static boolean matches(MaxwellXJsonTableFilter filter, String database, String table) {
+        byte[] db = database == null ? null : database.getBytes(StandardCharsets.UTF_8);
+        byte[] tbl = table == null ? null : table.getBytes(StandardCharsets.UTF_8);
+        return filter.matches(
+                db, 0, db == null ? 0 : db.length, tbl, 0, tbl == null ? 0 : tbl.length);
+    }
+}
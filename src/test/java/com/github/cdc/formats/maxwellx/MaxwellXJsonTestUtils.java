@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.RuntimeContext;
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.serialization.DeserializationSchema;
+import org.apache.flink.api.common.serialization.SerializationSchema;
+import org.apache.flink.metrics.Counter;
+import org.apache.flink.metrics.Gauge;
+import org.apache.flink.metrics.Histogram;
+import org.apache.flink.metrics.Metric;
+import org.apache.flink.metrics.MetricGroup;
+import org.apache.flink.metrics.SimpleCounter;
+import org.apache.flink.metrics.groups.UnregisteredMetricsGroup;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.util.Collector;
+import org.apache.flink.util.UserCodeClassLoader;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Utilities for the tests of the format. */
+final class MaxwellXJsonTestUtils {
+
+    private MaxwellXJsonTestUtils() {}
+
+    /** Returns a context whose metrics are not registered anywhere. */
+    static DeserializationSchema.InitializationContext deserializationContext() {
+        return deserializationContext(new UnregisteredMetricsGroup());
+    }
+
+    /** Returns a context registering the metrics in the given group. */
+    static DeserializationSchema.InitializationContext deserializationContext(
+            MetricGroup metricGroup) {
+        return new DeserializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return metricGroup;
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return null;
+            }
+        };
+    }
+
+    /** Returns a context whose metrics are not registered anywhere. */
+    static SerializationSchema.InitializationContext serializationContext() {
+        return new SerializationSchema.InitializationContext() {
+            @Override
+            public MetricGroup getMetricGroup() {
+                return new UnregisteredMetricsGroup();
+            }
+
+            @Override
+            public UserCodeClassLoader getUserCodeClassLoader() {
+                return null;
+            }
+        };
+    }
+
+    /** Returns a runtime context only providing an unregistered metric group. */
+    static RuntimeContext runtimeContext() {
+        return (RuntimeContext)
+                Proxy.newProxyInstance(
+                        RuntimeContext.class.getClassLoader(),
+                        new Class<?>[] {RuntimeContext.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("getMetricGroup")) {
+                                return new UnregisteredMetricsGroup();
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        });
+    }
+
+    /** A metric group keeping the metrics registered in it and in its subgroups by name. */
+    static final class TestMetricGroup extends UnregisteredMetricsGroup {
+
+        private final Map<String, Metric> metrics = new HashMap<>();
+
+        @Override
+        public Counter counter(String name) {
+            return counter(name, new SimpleCounter());
+        }
+
+        @Override
+        public <C extends Counter> C counter(String name, C counter) {
+            metrics.put(name, counter);
+            return counter;
+        }
+
+        @Override
+        public <T, G extends Gauge<T>> G gauge(String name, G gauge) {
+            metrics.put(name, gauge);
+            return gauge;
+        }
+
+        @Override
+        public <H extends Histogram> H histogram(String name, H histogram) {
+            metrics.put(name, histogram);
+            return histogram;
+        }
+
+        @Override
+        public MetricGroup addGroup(String name) {
+            return this;
+        }
+
+        long getCount(String name) {
+            return ((Counter) metrics.get(name)).getCount();
+        }
+
+        Object getValue(String name) {
+            return ((Gauge<?>) metrics.get(name)).getValue();
+        }
+
+        Histogram getHistogram(String name) {
+            return (Histogram) metrics.get(name);
+        }
+    }
+
+    /** Deserializes the given messages and returns the produced rows. */
+    static List<RowData> deserialize(DeserializationSchema<RowData> schema, String... messages)
+            throws Exception {
+        List<RowData> rows = new ArrayList<>();
+        Collector<RowData> out = new ListCollector<>(rows);
+        for (String message : messages) {
+            schema.deserialize(message.getBytes(StandardCharsets.UTF_8), out);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.cdc.formats.maxwellx;
+
+import org.apache.flink.api.common.functions.util.ListCollector;
+import org.apache.flink.api.common.state.KeyedStateStore;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.OperatorStateStore;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.state.FunctionInitializationContext;
+import org.apache.flink.table.api.DataTypes;
+import org.apache.flink.table.data.GenericRowData;
+import org.apache.flink.table.data.RowData;
+import org.apache.flink.table.runtime.typeutils.InternalTypeInfo;
+import org.apache.flink.table.types.logical.RowType;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests for {@link MaxwellXJsonTransactionBuffer}. */
+public class MaxwellXJsonTransactionBufferTest {
+
+    private static final RowType ROW_TYPE =
+            MaxwellXJsonTransactionMetadata.appendTo(
+                    (RowType) DataTypes.ROW(DataTypes.FIELD("id", DataTypes.INT())).getLogicalType());
+
+    @Test
+    public void testEmitsTransactionOnCommit() throws Exception {
+        TestingListState state = new TestingListState();
+        MaxwellXJsonTransactionBuffer buffer = open(100, state, false);
+        List<RowData> out = new ArrayList<>();
+        ListCollector<RowData> collector = new ListCollector<>(out);
+
+        buffer.processElement(row(1, 10L, false), null, collector);
+        buffer.processElement(row(2, 10L, false), null, collector);
+        assertEquals(0, out.size());
+        buffer.processElement(row(3, 10L, true), null, collector);
+        assertEquals(Arrays.asList(1, 2, 3), ids(out));
+    }
+
+    @Test
+    public void testEmitsTransactionWithFilteredCommitOnNextTransaction() throws Exception {
+        TestingListState state = new TestingListState();
+        MaxwellXJsonTransactionBuffer buffer = open(100, state, false);
+        List<RowData> out = new ArrayList<>();
+        ListCollector<RowData> collector = new ListCollector<>(out);
+
+        // the commit message of transaction 10 belongs to a filtered table
+        buffer.processElement(row(1, 10L, false), null, collector);
+        buffer.processElement(row(2, 10L, false), null, collector);
+        assertEquals(0, out.size());
+        buffer.processElement(row(3, 11L, false), null, collector);
+        assertEquals(Arrays.asList(1, 2), ids(out));
+        buffer.processElement(row(4, 11L, true), null, collector);
+        assertEquals(Arrays.asList(1, 2, 3, 4), ids(out));
+    }
+
+    @Test
+    public void testEvictsOverflowAfterRestore() throws Exception {
+        TestingListState state = new TestingListState();
+        // the merged state of several subtasks, beyond the bound of this one
+        state.update(
+                Arrays.asList(
+                        row(1, 10L, false),
+                        row(2, 10L, false),
+                        row(3, 11L, false),
+                        row(4, 11L, false),
+                        row(5, 12L, false),
+                        row(6, 12L, false)));
+        MaxwellXJsonTransactionBuffer buffer = open(2, state, true);
+        List<RowData> out = new ArrayList<>();
+        ListCollector<RowData> collector = new ListCollector<>(out);
+
+        buffer.processElement(row(7, null, false), null, collector);
+        assertEquals(Arrays.asList(7, 1, 2, 3, 4), ids(out));
+
+        buffer.snapshotState(null);
+        assertEquals(Arrays.asList(5, 6), ids(state.rows));
+    }
+
+    private static MaxwellXJsonTransactionBuffer open(
+            int maxBufferedRows, TestingListState state, boolean restored) throws Exception {
+        MaxwellXJsonTransactionBuffer buffer =
+                new MaxwellXJsonTransactionBuffer(
+                        ROW_TYPE, InternalTypeInfo.of(ROW_TYPE), maxBufferedRows);
+        OperatorStateStore store =
+                (OperatorStateStore)
+                        Proxy.newProxyInstance(
+                                OperatorStateStore.class.getClassLoader(),
+                                new Class<?>[] {OperatorStateStore.class},
+                                (proxy, method, args) -> state);
+        buffer.initializeState(
+                new FunctionInitializationContext() {
+                    @Override
+                    public boolean isRestored() {
+                        return restored;
+                    }
+
+                    @Override
+                    public OperatorStateStore getOperatorStateStore() {
+                        return store;
+                    }
+
+                    @Override
+                    public KeyedStateStore getKeyedStateStore() {
+                        throw new UnsupportedOperationException();
+                    }
+                });
+        buffer.open(new Configuration());
+        return buffer;
+    }
+
+    private static RowData row(int id, Long xid, boolean commit) {
+        return GenericRowData.of(id, xid, null, commit, null, null);
+    }
+
+    private static List<Integer> ids(List<RowData> rows) {
+        List<Integer> ids = new ArrayList<>();
+        for (RowData row : rows) {
+            ids.add(row.getInt(0));
+        }
+        return ids;
+    }
+
+    /** A list state holding its rows in memory. */
+    private static final class TestingListState implements ListState<RowData> {
+        private final List<RowData> rows = new ArrayList<>();
+
+        @Override
+        public void update(List<RowData> values) {
+            rows.clear();
+            rows.addAll(values);
+        }
+
+        @Override
+        public void addAll(List<RowData> values) {
+            rows.addAll(values);
+        }
+
+        @Override
+        public Iterable<RowData> get() {
+            return rows;
+        }
+
+        @Override
+        public void add(RowData value) {
+            rows.add(value);
+        }
+
+        @Override
+        public void clear() {
+            rows.clear();
+        }
+    }
+}